@@ -1,5 +1,6 @@
 package it.niedermann.owncloud.notes.edit;
 
+import android.app.Activity;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
@@ -24,6 +25,7 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.DialogFragment;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
+import androidx.lifecycle.LiveData;
 
 import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
 import com.nextcloud.android.sso.exceptions.NoCurrentAccountSelectedException;
@@ -44,6 +46,7 @@ import it.niedermann.owncloud.notes.edit.title.EditTitleDialogFragment.EditTitle
 import it.niedermann.owncloud.notes.persistence.NotesRepository;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NoteViewState;
 import it.niedermann.owncloud.notes.shared.model.ApiVersion;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
 import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
@@ -69,6 +72,8 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
     public static final String PARAM_NEWNOTE = "newNote";
     private static final String SAVEDKEY_NOTE = "note";
     private static final String SAVEDKEY_ORIGINAL_NOTE = "original_note";
+    private static final String SAVEDKEY_VIEW_STATE = "view_state";
+    private static final String SAVEDKEY_ORIGINAL_VIEW_STATE = "original_view_state";
 
     private Account localAccount;
 
@@ -76,7 +81,9 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
     // TODO do we really need this? The reference to note is currently the same
     @Nullable
     private Note originalNote;
-    private int originalScrollY;
+    protected NoteViewState viewState;
+    // Last persisted state, used to skip saving the view state if nothing has changed
+    private NoteViewState originalViewState;
     protected NotesRepository repo;
     private NoteFragmentListener listener;
     private boolean titleModified = false;
@@ -112,6 +119,9 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
                             SingleAccountHelper.setCurrentAccount(requireContext().getApplicationContext(), localAccount.getAccountName());
                         }
                         isNew = false;
+                        originalViewState = repo.getNoteViewState(id);
+                        viewState = new NoteViewState(originalViewState);
+                        viewState.setLastOpened(Calendar.getInstance());
                         note = originalNote = repo.getNoteById(id);
                         requireActivity().runOnUiThread(() -> onNoteLoaded(note));
                         requireActivity().invalidateOptionsMenu();
@@ -122,13 +132,17 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
                             if (content == null) {
                                 throw new IllegalArgumentException(PARAM_NOTE_ID + " is not given, argument " + PARAM_NEWNOTE + " is missing and " + PARAM_CONTENT + " is missing.");
                             } else {
-                                note = new Note(-1, null, Calendar.getInstance(), NoteUtil.generateNoteTitle(content), content, getString(R.string.category_readonly), false, null, DBStatus.VOID, -1, "", 0);
+                                note = new Note(-1, null, Calendar.getInstance(), NoteUtil.generateNoteTitle(content), content, getString(R.string.category_readonly), false, null, DBStatus.VOID, -1, "");
+                                viewState = originalViewState = new NoteViewState(note.getId());
                                 requireActivity().runOnUiThread(() -> onNoteLoaded(note));
                                 requireActivity().invalidateOptionsMenu();
                             }
                         } else {
                             note = repo.addNote(localAccount.getId(), cloudNote);
                             originalNote = null;
+                            originalViewState = new NoteViewState(note.getId());
+                            viewState = new NoteViewState(originalViewState);
+                            viewState.setLastOpened(Calendar.getInstance());
                             requireActivity().runOnUiThread(() -> onNoteLoaded(note));
                             requireActivity().invalidateOptionsMenu();
                         }
@@ -136,6 +150,8 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
                 } else {
                     note = (Note) savedInstanceState.getSerializable(SAVEDKEY_NOTE);
                     originalNote = (Note) savedInstanceState.getSerializable(SAVEDKEY_ORIGINAL_NOTE);
+                    viewState = (NoteViewState) savedInstanceState.getSerializable(SAVEDKEY_VIEW_STATE);
+                    originalViewState = (NoteViewState) savedInstanceState.getSerializable(SAVEDKEY_ORIGINAL_VIEW_STATE);
                     requireActivity().runOnUiThread(() -> onNoteLoaded(note));
                     requireActivity().invalidateOptionsMenu();
                 }
@@ -175,6 +191,8 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
         saveNote(null);
         outState.putSerializable(SAVEDKEY_NOTE, note);
         outState.putSerializable(SAVEDKEY_ORIGINAL_NOTE, originalNote);
+        outState.putSerializable(SAVEDKEY_VIEW_STATE, viewState);
+        outState.putSerializable(SAVEDKEY_ORIGINAL_VIEW_STATE, originalViewState);
     }
 
     @Override
@@ -213,13 +231,11 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
     public boolean onOptionsItemSelected(MenuItem item) {
         int itemId = item.getItemId();
         if (itemId == R.id.menu_cancel) {
-            new Thread(() -> {
-                if (originalNote == null) {
-                    repo.deleteNoteAndSync(localAccount, note.getId());
-                } else {
-                    repo.updateNoteAndSync(localAccount, originalNote, null, null, null);
-                }
-            }).start();
+            if (originalNote == null) {
+                repo.deleteNoteAndSync(localAccount, note.getId());
+            } else {
+                repo.saveNoteAndSync(localAccount, originalNote, null, null, null);
+            }
             listener.close();
             return true;
         } else if (itemId == R.id.menu_delete) {
@@ -274,14 +290,13 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
 
     @CallSuper
     protected void onNoteLoaded(Note note) {
-        this.originalScrollY = note.getScrollY();
-        scrollToY(originalScrollY);
+        scrollToY(viewState.getScrollY());
         final ScrollView scrollView = getScrollView();
         if (scrollView != null) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
                 scrollView.setOnScrollChangeListener((View v, int scrollX, int scrollY, int oldScrollX, int oldScrollY) -> {
                     if (scrollY > 0) {
-                        note.setScrollY(scrollY);
+                        viewState.setScrollY(scrollY);
                     }
                 });
             }
@@ -303,24 +318,51 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
         Log.d(TAG, "saveData()");
         if (note != null) {
             final String newContent = getContent();
+            saveViewState();
             if (note.getContent().equals(newContent)) {
-                if (note.getScrollY() != originalScrollY) {
-                    Log.v(TAG, "... only saving new scroll state, since content did not change");
-                    repo.updateScrollY(note.getId(), note.getScrollY());
-                } else {
-                    Log.v(TAG, "... not saving, since nothing has changed");
-                }
+                Log.v(TAG, "... not saving, since content did not change");
             } else {
-                // FIXME requires database queries on main thread!
-                note = repo.updateNoteAndSync(localAccount, note, newContent, null, callback);
-                listener.onNoteUpdated(note);
-                requireActivity().invalidateOptionsMenu();
+                // Keep the new content in memory until the save has been written, so the state is not lost meanwhile
+                note = new Note(note.getId(), note.getRemoteId(), note.getModified(), note.getTitle(), newContent, note.getCategory(), note.getFavorite(), note.getETag(), note.getStatus(), note.getAccountId(), note.getExcerpt());
+                observeSave(repo.saveNoteAndSync(localAccount, note, newContent, null, callback));
             }
         } else {
             Log.e(TAG, "note is null");
         }
     }
 
+    /**
+     * Stores the {@link NoteViewState} apart from the {@link Note}, so that neither the {@link Note} nor any list of {@link Note}s needs to be updated.
+     */
+    private void saveViewState() {
+        if (viewState != null && note.getId() > 0 && !viewState.equals(originalViewState)) {
+            Log.v(TAG, "... saving new view state");
+            repo.saveNoteViewState(viewState);
+            originalViewState = new NoteViewState(viewState);
+        }
+    }
+
+    private void observeSave(@NonNull LiveData<Note> savedNote$) {
+        savedNote$.observe(this, savedNote -> {
+            savedNote$.removeObservers(this);
+            onNoteSaved(savedNote);
+        });
+    }
+
+    private void onNoteSaved(@NonNull Note savedNote) {
+        // A more recent save might already be pending, in this case its content must be kept
+        if (note == null || savedNote.getContent().equals(note.getContent())) {
+            note = savedNote;
+        }
+        if (listener != null) {
+            listener.onNoteUpdated(savedNote);
+        }
+        final Activity activity = getActivity();
+        if (activity != null) {
+            activity.invalidateOptionsMenu();
+        }
+    }
+
     protected abstract String getContent();
 
     /**
@@ -365,10 +407,7 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
     public void onTitleEdited(String newTitle) {
         titleModified = true;
         note.setTitle(newTitle);
-        new Thread(() -> {
-            note = repo.updateNoteAndSync(localAccount, note, note.getContent(), newTitle, null);
-            requireActivity().runOnUiThread(() -> listener.onNoteUpdated(note));
-        }).start();
+        observeSave(repo.saveNoteAndSync(localAccount, note, note.getContent(), newTitle, null));
     }
 
     public void moveNote(Account account) {
@@ -158,6 +158,9 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
 
         binding.editContent.setMarkdownString(note.getContent());
         binding.editContent.setEnabled(true);
+        if (!TextUtils.isEmpty(note.getContent())) {
+            binding.editContent.setSelection(Math.min(viewState.getCursorPosition(), binding.editContent.length()));
+        }
 
         final SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(requireContext().getApplicationContext());
         binding.editContent.setTextSize(TypedValue.COMPLEX_UNIT_PX, getFontSizeFromPreferences(requireContext(), sp));
@@ -189,6 +192,9 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
 
     @Override
     protected void saveNote(@Nullable ISyncCallback callback) {
+        if (viewState != null && binding.editContent.getSelectionEnd() >= 0) {
+            viewState.setCursorPosition(binding.editContent.getSelectionEnd());
+        }
         super.saveNote(callback);
         unsavedEdit = false;
     }
@@ -230,6 +236,12 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
         }
     }
 
+    @Nullable
+    @Override
+    protected Integer getHighlightedOccurrenceCount(@Nullable String query) {
+        return binding == null ? null : binding.editContent.getSearchOccurrenceCount(query);
+    }
+
     @Override
     public void applyBrand(int mainColor, int textColor) {
         super.applyBrand(mainColor, textColor);
@@ -1,5 +1,6 @@
 package it.niedermann.owncloud.notes.edit;
 
+import android.app.Activity;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Typeface;
@@ -15,6 +16,7 @@ import android.view.ViewGroup;
 import android.widget.ScrollView;
 import android.widget.Toast;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.preference.PreferenceManager;
@@ -25,6 +27,10 @@ import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundExce
 import com.nextcloud.android.sso.exceptions.NoCurrentAccountSelectedException;
 import com.nextcloud.android.sso.helper.SingleAccountHelper;
 
+import java.util.function.Function;
+
+import it.niedermann.android.markdown.MarkdownBlockViewerImpl;
+import it.niedermann.android.markdown.MarkdownEditor;
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.databinding.FragmentNotePreviewBinding;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
@@ -38,12 +44,36 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
 
     private static final String TAG = NotePreviewFragment.class.getSimpleName();
 
+    /**
+     * Notes with at least this many characters are rendered block by block, so only the visible part of them needs to be laid out
+     */
+    private static final int BLOCK_RENDERING_THRESHOLD = 50_000;
+
     private String changedText;
 
     protected FragmentNotePreviewBinding binding;
 
     private boolean noteLoaded = false;
 
+    private boolean renderBlocks = false;
+
+    /**
+     * Only inflated when a note needs to be rendered block by block, because it builds its own markdown renderer
+     */
+    @Nullable
+    private MarkdownBlockViewerImpl blockViewer;
+
+    @Nullable
+    private Function<String, Boolean> linkClickCallback;
+
+    @Nullable
+    @ColorInt
+    private Integer searchColor;
+
+    @Nullable
+    @ColorInt
+    private Integer highlightColor;
+
     @Nullable
     private Runnable setScrollY;
 
@@ -80,6 +110,38 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
         return binding.searchPrev;
     }
 
+    /**
+     * @return the view which currently displays the note
+     */
+    @NonNull
+    private MarkdownEditor getMarkdownViewer() {
+        return renderBlocks ? getBlockViewer() : binding.singleNoteContent;
+    }
+
+    @NonNull
+    private MarkdownBlockViewerImpl getBlockViewer() {
+        if (blockViewer == null) {
+            blockViewer = (MarkdownBlockViewerImpl) binding.singleNoteBlocksStub.inflate();
+            onBlockViewerInflated(blockViewer);
+        }
+        return blockViewer;
+    }
+
+    /**
+     * Applies the settings of {@link FragmentNotePreviewBinding#singleNoteContent} which have been made before the {@param blockViewer} got inflated.
+     */
+    protected void onBlockViewerInflated(@NonNull MarkdownBlockViewerImpl blockViewer) {
+        blockViewer.setTextSize(TypedValue.COMPLEX_UNIT_PX, binding.singleNoteContent.getTextSize());
+        blockViewer.setTypeface(binding.singleNoteContent.getTypeface());
+        if (linkClickCallback != null) {
+            blockViewer.registerOnLinkClickCallback(linkClickCallback);
+        }
+        if (searchColor != null && highlightColor != null) {
+            blockViewer.setSearchColor(searchColor);
+            blockViewer.setHighlightColor(highlightColor);
+        }
+    }
+
     @Override
     protected Layout getLayout() {
         binding.singleNoteContent.onPreDraw();
@@ -91,6 +153,7 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup
             container, @Nullable Bundle savedInstanceState) {
         binding = FragmentNotePreviewBinding.inflate(inflater, container, false);
+        blockViewer = null;
         return binding.getRoot();
     }
 
@@ -99,11 +162,15 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
         super.onActivityCreated(savedInstanceState);
 
         binding.swiperefreshlayout.setOnRefreshListener(this);
+        binding.swiperefreshlayout.setOnChildScrollUpCallback((parent, child) -> renderBlocks
+                ? getBlockViewer().canScrollVertically(-1)
+                : binding.scrollView.canScrollVertically(-1));
         registerInternalNoteLinkHandler();
         binding.singleNoteContent.setMovementMethod(LinkMovementMethod.getInstance());
 
         final SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(requireActivity().getApplicationContext());
-        binding.singleNoteContent.setTextSize(TypedValue.COMPLEX_UNIT_PX, getFontSizeFromPreferences(requireContext(), sp));
+        final float fontSize = getFontSizeFromPreferences(requireContext(), sp);
+        binding.singleNoteContent.setTextSize(TypedValue.COMPLEX_UNIT_PX, fontSize);
         if (sp.getBoolean(getString(R.string.pref_key_font), false)) {
             binding.singleNoteContent.setTypeface(Typeface.MONOSPACE);
         }
@@ -115,34 +182,71 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
         noteLoaded = true;
         registerInternalNoteLinkHandler();
         changedText = note.getContent();
-        binding.singleNoteContent.setMarkdownString(note.getContent(), setScrollY);
-        binding.singleNoteContent.getMarkdownString().observe(requireActivity(), (newContent) -> {
+        renderBlocks = note.getContent().length() >= BLOCK_RENDERING_THRESHOLD;
+        binding.scrollView.setVisibility(renderBlocks ? View.GONE : View.VISIBLE);
+        if (renderBlocks) {
+            getBlockViewer().setVisibility(View.VISIBLE);
+        } else if (blockViewer != null) {
+            blockViewer.setVisibility(View.GONE);
+        }
+        // Notes which are not stored (e.g. shared read only content) have no ID to cache their renders for
+        getMarkdownViewer().setRenderCacheId(note.getId() > 0 ? note.getId() : null);
+        // The scroll position of the ScrollView can not be applied to the blocks
+        getMarkdownViewer().setMarkdownString(note.getContent(), renderBlocks ? null : setScrollY);
+        getMarkdownViewer().getMarkdownString().observe(requireActivity(), (newContent) -> {
             changedText = newContent.toString();
             saveNote(null);
         });
     }
 
     protected void registerInternalNoteLinkHandler() {
-        binding.singleNoteContent.registerOnLinkClickCallback((link) -> {
+        linkClickCallback = (link) -> {
+            final long remoteId;
             try {
-                final long noteLocalId = repo.getLocalIdByRemoteId(this.note.getAccountId(), Long.parseLong(link));
-                Log.i(TAG, "Found note for remoteId \"" + link + "\" in account \"" + this.note.getAccountId() + "\" with localId + \"" + noteLocalId + "\". Attempt to open " + EditNoteActivity.class.getSimpleName() + " for this note.");
-                startActivity(new Intent(requireActivity().getApplicationContext(), EditNoteActivity.class).putExtra(EditNoteActivity.PARAM_NOTE_ID, noteLocalId));
-                return true;
+                remoteId = Long.parseLong(link);
             } catch (NumberFormatException e) {
                 // Clicked link is not a long and therefore can't be a remote id.
-            } catch (IllegalArgumentException e) {
-                Log.i(TAG, "It looks like \"" + link + "\" might be a remote id of a note, but a note with this remote id could not be found in account \"" + note.getAccountId() + "\" .", e);
+                return false;
             }
-            return false;
-        });
+            final long accountId = this.note.getAccountId();
+            final Activity activity = requireActivity();
+            new Thread(() -> {
+                final Long noteLocalId = repo.getLocalIdByRemoteId(accountId, remoteId);
+                if (noteLocalId == null) {
+                    Log.i(TAG, "It looks like \"" + link + "\" might be a remote id of a note, but a note with this remote id could not be found in account \"" + accountId + "\" .");
+                } else {
+                    Log.i(TAG, "Found note for remoteId \"" + link + "\" in account \"" + accountId + "\" with localId + \"" + noteLocalId + "\". Attempt to open " + EditNoteActivity.class.getSimpleName() + " for this note.");
+                    activity.runOnUiThread(() -> activity.startActivity(new Intent(activity.getApplicationContext(), EditNoteActivity.class).putExtra(EditNoteActivity.PARAM_NOTE_ID, noteLocalId)));
+                }
+            }).start();
+            return true;
+        };
+        binding.singleNoteContent.registerOnLinkClickCallback(linkClickCallback);
+        if (blockViewer != null) {
+            blockViewer.registerOnLinkClickCallback(linkClickCallback);
+        }
     }
 
     @Override
     protected void colorWithText(@NonNull String newText, @Nullable Integer current, int mainColor, int textColor) {
-        if (binding != null && isAttachedToWindow(binding.singleNoteContent)) {
-            binding.singleNoteContent.clearFocus();
-            binding.singleNoteContent.setSearchText(newText, current);
+        if (binding != null) {
+            if (renderBlocks) {
+                if (isAttachedToWindow(getBlockViewer())) {
+                    getBlockViewer().setSearchText(newText, current);
+                }
+            } else if (isAttachedToWindow(binding.singleNoteContent)) {
+                binding.singleNoteContent.clearFocus();
+                binding.singleNoteContent.setSearchText(newText, current);
+            }
+        }
+    }
+
+    @Override
+    protected void scrollToOccurrence(int occurrence, int indexInContent) {
+        if (renderBlocks) {
+            getBlockViewer().scrollToOccurrence(occurrence);
+        } else {
+            super.scrollToOccurrence(occurrence, indexInContent);
         }
     }
 
@@ -162,7 +266,7 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
                         note = repo.getNoteById(note.getId());
                         changedText = note.getContent();
                         requireActivity().runOnUiThread(() -> {
-                            binding.singleNoteContent.setMarkdownString(note.getContent());
+                            getMarkdownViewer().setMarkdownString(note.getContent());
                             binding.swiperefreshlayout.setRefreshing(false);
                         });
                     }).start());
@@ -180,8 +284,14 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
     @Override
     public void applyBrand(int mainColor, int textColor) {
         super.applyBrand(mainColor, textColor);
-        binding.singleNoteContent.setSearchColor(mainColor);
-        binding.singleNoteContent.setHighlightColor(getTextHighlightBackgroundColor(requireContext(), mainColor, colorPrimary, colorAccent));
+        searchColor = mainColor;
+        highlightColor = getTextHighlightBackgroundColor(requireContext(), mainColor, colorPrimary, colorAccent);
+        binding.singleNoteContent.setSearchColor(searchColor);
+        binding.singleNoteContent.setHighlightColor(highlightColor);
+        if (blockViewer != null) {
+            blockViewer.setSearchColor(searchColor);
+            blockViewer.setHighlightColor(highlightColor);
+        }
     }
 
     public static BaseNoteFragment newInstance(long accountId, long noteId) {
@@ -9,6 +9,7 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import it.niedermann.android.markdown.MarkdownBlockViewerImpl;
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
 
@@ -39,6 +40,12 @@ public class NoteReadonlyFragment extends NotePreviewFragment {
         return binding.getRoot();
     }
 
+    @Override
+    protected void onBlockViewerInflated(@NonNull MarkdownBlockViewerImpl blockViewer) {
+        super.onBlockViewerInflated(blockViewer);
+        blockViewer.setEnabled(false);
+    }
+
     @Override
     protected void registerInternalNoteLinkHandler() {
         // Do nothing
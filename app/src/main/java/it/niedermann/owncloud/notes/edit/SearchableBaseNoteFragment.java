@@ -145,15 +145,16 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
 
             private void queryMatch(@NonNull String newText) {
                 searchQuery = newText;
+                currentOccurrence = 1;
+                // Highlight first, so the occurrences counted while highlighting can be reused
+                colorWithText(searchQuery, currentOccurrence, mainColor, textColor);
                 occurrenceCount = countOccurrences(getContent(), searchQuery);
                 if (occurrenceCount > 1) {
                     showSearchFabs();
                 } else {
                     hideSearchFabs();
                 }
-                currentOccurrence = 1;
                 jumpToOccurrence();
-                colorWithText(searchQuery, currentOccurrence, mainColor, textColor);
             }
 
             private void queryWithHandler(@NonNull String newText) {
@@ -230,10 +231,7 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
     }
 
     private void jumpToOccurrence() {
-        Layout layout = getLayout();
-        if (layout == null) {
-            Log.w(TAG, "getLayout() is null");
-        } else if (getContent() == null || getContent().isEmpty()) {
+        if (getContent() == null || getContent().isEmpty()) {
             Log.w(TAG, "getContent is null or empty");
         } else if (currentOccurrence < 1) {
             // if currentOccurrence is lower than 1, jump to last occurrence
@@ -251,14 +249,28 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
                 }
                 return;
             }
-            String textUntilFirstOccurrence = currentContent.substring(0, indexOfNewText);
-            int numberLine = layout.getLineForOffset(textUntilFirstOccurrence.length());
+            scrollToOccurrence(currentOccurrence, indexOfNewText);
+        }
+    }
 
-            if (numberLine >= 0) {
-                ScrollView scrollView = getScrollView();
-                if (scrollView != null) {
-                    scrollView.post(() -> scrollView.smoothScrollTo(0, layout.getLineTop(numberLine)));
-                }
+    /**
+     * Scrolls to the line of the {@link #getLayout()} which contains the given offset.
+     *
+     * @param occurrence     the number of the occurrence, starting at 1
+     * @param indexInContent the offset of the occurrence in {@link #getContent()}
+     */
+    protected void scrollToOccurrence(int occurrence, int indexInContent) {
+        Layout layout = getLayout();
+        if (layout == null) {
+            Log.w(TAG, "getLayout() is null");
+            return;
+        }
+        int numberLine = layout.getLineForOffset(indexInContent);
+
+        if (numberLine >= 0) {
+            ScrollView scrollView = getScrollView();
+            if (scrollView != null) {
+                scrollView.post(() -> scrollView.smoothScrollTo(0, layout.getLineTop(numberLine)));
             }
         }
     }
@@ -274,10 +286,22 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
         return indexOfNth(input, value, idx + 1, nth - 1);
     }
 
-    private static int countOccurrences(String haystack, String needle) {
+    /**
+     * @return the number of occurrences of {@param query} if it is the currently highlighted one and the highlighting keeps track of it, <code>null</code> otherwise
+     */
+    @Nullable
+    protected Integer getHighlightedOccurrenceCount(@Nullable String query) {
+        return null;
+    }
+
+    private int countOccurrences(String haystack, String needle) {
         if (haystack == null || haystack.isEmpty() || needle == null || needle.isEmpty()) {
             return 0;
         }
+        final Integer highlightedOccurrenceCount = getHighlightedOccurrenceCount(needle);
+        if (highlightedOccurrenceCount != null) {
+            return highlightedOccurrenceCount;
+        }
         // Use regrex which is faster before.
         // Such that the main thread will not stop for a long tilme
         // And so there will not an ANR problem
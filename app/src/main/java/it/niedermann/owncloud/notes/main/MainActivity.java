@@ -18,6 +18,7 @@ import android.widget.LinearLayout;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.view.ActionMode;
+import androidx.appcompat.view.ContextThemeWrapper;
 import androidx.appcompat.widget.SearchView;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
 import androidx.core.app.ActivityCompat;
@@ -27,6 +28,7 @@ import androidx.core.view.GravityCompat;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.selection.SelectionTracker;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -49,7 +51,11 @@ import com.nextcloud.android.sso.helper.SingleAccountHelper;
 import java.net.HttpURLConnection;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 
+import kotlin.Unit;
+
+import it.niedermann.android.markdown.markwon.MarkwonFactory;
 import it.niedermann.owncloud.notes.LockedActivity;
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.accountpicker.AccountPickerListener;
@@ -123,6 +129,7 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
 
     private SelectionTracker<Long> tracker;
     private NotesListViewItemTouchHelper itemTouchHelper;
+    private boolean notesListRefreshing = false;
 
     protected DrawerLayoutBinding binding;
     protected ActivityNotesListViewBinding activityBinding;
@@ -141,6 +148,9 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
         mainViewModel = new ViewModelProvider(this).get(MainViewModel.class);
         categoryViewModel = new ViewModelProvider(this).get(CategoryViewModel.class);
         CapabilitiesWorker.update(this);
+        // Build the markdown renderers off the main thread, using the same theme as the views which display the notes
+        MarkwonFactory.getInstance().warmUp(new ContextThemeWrapper(this, R.style.textViewStyle), MarkwonFactory.Feature.VIEWER);
+        MarkwonFactory.getInstance().warmUp(this, MarkwonFactory.Feature.EDITOR);
         binding = DrawerLayoutBinding.inflate(getLayoutInflater());
         activityBinding = ActivityNotesListViewBinding.bind(binding.activityNotesListView.getRoot());
 
@@ -221,30 +231,15 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
                 startActivityForResult(createIntent, create_note_cmd);
             });
         });
-        mainViewModel.getNotesListLiveData().observe(this, notes -> {
-            // https://stackoverflow.com/a/37342327
-            itemTouchHelper.attachToRecyclerView(null);
-            itemTouchHelper.attachToRecyclerView(listView);
-            adapter.setItemList(notes);
-            binding.activityNotesListView.progressCircular.setVisibility(GONE);
-            binding.activityNotesListView.emptyContentView.getRoot().setVisibility(notes.size() > 0 ? GONE : VISIBLE);
-            // Remove deleted notes from the selection
-            if (tracker.hasSelection()) {
-                final Collection<Long> deletedNotes = new LinkedList<>();
-                for (Long id : tracker.getSelection()) {
-                    if (notes
-                            .stream()
-                            .filter(item -> !item.isSection())
-                            .map(item -> (Note) item)
-                            .noneMatch(item -> item.getId() == id)) {
-                        deletedNotes.add(id);
-                    }
-                }
-                for (Long id : deletedNotes) {
-                    tracker.deselect(id);
-                }
+        adapter.addLoadStateListener(loadStates -> {
+            final boolean refreshing = loadStates.getRefresh() instanceof LoadState.Loading;
+            if (notesListRefreshing && !refreshing) {
+                onNotesListRefreshed();
             }
+            notesListRefreshing = refreshing;
+            return Unit.INSTANCE;
         });
+        mainViewModel.getNotesListLiveData().observe(this, pagingData -> adapter.submitData(getLifecycle(), pagingData));
         mainViewModel.getSearchTerm().observe(this, adapter::setHighlightSearchQuery);
         mainViewModel.getCategorySortingMethodOfSelectedCategory().observe(this, methodOfCategory -> {
             updateSortMethodIcon(methodOfCategory.second);
@@ -401,6 +396,31 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
         });
     }
 
+    /**
+     * Called each time the first page of the notes list has been (re-)loaded, e.g. after the database changed.
+     */
+    private void onNotesListRefreshed() {
+        // https://stackoverflow.com/a/37342327
+        itemTouchHelper.attachToRecyclerView(null);
+        itemTouchHelper.attachToRecyclerView(listView);
+        binding.activityNotesListView.progressCircular.setVisibility(GONE);
+        binding.activityNotesListView.emptyContentView.getRoot().setVisibility(adapter.getItemCount() > 0 ? GONE : VISIBLE);
+        // Remove deleted notes from the selection
+        if (tracker.hasSelection()) {
+            final Collection<Long> selection = new LinkedList<>();
+            for (Long id : tracker.getSelection()) {
+                selection.add(id);
+            }
+            final LiveData<List<Long>> deletedNotesLiveData = mainViewModel.filterDeletedNotes(selection);
+            deletedNotesLiveData.observe(this, deletedNotes -> {
+                deletedNotesLiveData.removeObservers(this);
+                for (Long id : deletedNotes) {
+                    tracker.deselect(id);
+                }
+            });
+        }
+    }
+
     private void setupNotesList() {
         adapter = new ItemAdapter(this, gridView);
         listView.setAdapter(adapter);
@@ -676,10 +696,11 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
                             } catch (Throwable e) {
                                 ApiProvider.invalidateAPICache(ssoAccount);
                                 // Happens when importing an already existing account the second time
-                                if (e instanceof TokenMismatchException && mainViewModel.getLocalAccountByAccountName(ssoAccount.name) != null) {
+                                final Account existingAccount = e instanceof TokenMismatchException ? mainViewModel.getLocalAccountByAccountName(ssoAccount.name) : null;
+                                if (existingAccount != null) {
                                     Log.w(TAG, "Received " + TokenMismatchException.class.getSimpleName() + " and the given ssoAccount.name (" + ssoAccount.name + ") does already exist in the database. Assume that this account has already been imported.");
                                     runOnUiThread(() -> {
-                                        mainViewModel.postCurrentAccount(mainViewModel.getLocalAccountByAccountName(ssoAccount.name));
+                                        mainViewModel.postCurrentAccount(existingAccount);
                                         // TODO there is already a sync in progress and results in displaying a TokenMissMatchException snackbar which conflicts with this one
                                         coordinatorLayout.post(() -> BrandedSnackbar.make(coordinatorLayout, R.string.account_already_imported, Snackbar.LENGTH_LONG).show());
                                     });
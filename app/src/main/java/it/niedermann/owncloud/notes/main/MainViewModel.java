@@ -10,11 +10,18 @@ import android.util.Pair;
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.SavedStateHandle;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.paging.PagingSource;
 
 import com.nextcloud.android.sso.AccountImporter;
 import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
@@ -26,6 +33,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import it.niedermann.owncloud.notes.R;
@@ -41,6 +51,7 @@ import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.persistence.entity.SingleNoteWidgetData;
 import it.niedermann.owncloud.notes.shared.model.Capabilities;
 import it.niedermann.owncloud.notes.shared.model.CategorySortingMethod;
+import it.niedermann.owncloud.notes.shared.model.DBStatus;
 import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
 import it.niedermann.owncloud.notes.shared.model.Item;
 import it.niedermann.owncloud.notes.shared.model.NavigationCategory;
@@ -50,15 +61,18 @@ import static androidx.lifecycle.Transformations.map;
 import static androidx.lifecycle.Transformations.switchMap;
 import static it.niedermann.owncloud.notes.main.MainActivity.ADAPTER_KEY_RECENT;
 import static it.niedermann.owncloud.notes.main.MainActivity.ADAPTER_KEY_STARRED;
-import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.fillListByCategory;
-import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.fillListByInitials;
-import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.fillListByTime;
+import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.insertSectionsByCategory;
+import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.insertSectionsByInitials;
+import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.insertSectionsByTime;
 import static it.niedermann.owncloud.notes.shared.model.CategorySortingMethod.SORT_MODIFIED_DESC;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.DEFAULT_CATEGORY;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.FAVORITES;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.RECENT;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.UNCATEGORIZED;
 import static it.niedermann.owncloud.notes.shared.util.DisplayUtils.convertToCategoryNavigationItem;
+import static it.niedermann.owncloud.notes.shared.util.DisplayUtils.sumFavoriteNotes;
+import static it.niedermann.owncloud.notes.shared.util.DisplayUtils.sumTotalNotes;
+import static it.niedermann.owncloud.notes.shared.util.NoteUtil.generateFullTextSearchQuery;
 import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 
 public class MainViewModel extends AndroidViewModel {
@@ -72,8 +86,15 @@ public class MainViewModel extends AndroidViewModel {
     private static final String KEY_SELECTED_CATEGORY = "selectedCategory";
     private static final String KEY_EXPANDED_CATEGORY = "expandedCategory";
 
+    private static final int PAGE_SIZE = 50;
+
     @NonNull
     private final NotesRepository repo;
+    /**
+     * Generates the {@link it.niedermann.owncloud.notes.main.items.section.SectionItem}s of the paged notes list.
+     */
+    @NonNull
+    private final ExecutorService sectionExecutor = Executors.newSingleThreadExecutor();
 
     @NonNull
     private final MutableLiveData<Account> currentAccount = new MutableLiveData<>();
@@ -84,12 +105,30 @@ public class MainViewModel extends AndroidViewModel {
     @NonNull
     private final MutableLiveData<String> expandedCategory = new MutableLiveData<>(null);
 
+    @Nullable
+    private LiveData<PagingData<Item>> notesList;
+    @Nullable
+    private volatile NotesListFilter notesListFilter;
+    @Nullable
+    private volatile PagingSource<Integer, Note> notesPagingSource;
+
     public MainViewModel(@NonNull Application application, @NonNull SavedStateHandle savedStateHandle) {
+        this(application, savedStateHandle, NotesRepository.getInstance(application));
+    }
+
+    @VisibleForTesting
+    MainViewModel(@NonNull Application application, @NonNull SavedStateHandle savedStateHandle, @NonNull NotesRepository repo) {
         super(application);
-        this.repo = NotesRepository.getInstance(application);
+        this.repo = repo;
         this.state = savedStateHandle;
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        sectionExecutor.shutdown();
+    }
+
     public void restoreInstanceState() {
         Log.v(TAG, "[restoreInstanceState]");
         final Account account = state.get(KEY_CURRENT_ACCOUNT);
@@ -200,11 +239,50 @@ public class MainViewModel extends AndroidViewModel {
         return distinctUntilChanged(expandedCategory);
     }
 
+    /**
+     * All changes of the filter are served by the same {@link Pager}, which gets a new {@link PagingSource} by invalidating the current one.
+     * A {@link Pager} per filter would stay collected until this {@link MainViewModel} gets cleared, together with its {@link PagingSource}, which listens for changes of the notes.
+     */
+    @NonNull
+    @MainThread
+    public LiveData<PagingData<Item>> getNotesListLiveData() {
+        if (notesList == null) {
+            final Pager<Integer, Note> pager = new Pager<>(new PagingConfig(PAGE_SIZE, PAGE_SIZE, false), this::createNotesPagingSource);
+            final LiveData<PagingData<Item>> pages = map(PagingLiveData.getLiveData(pager), pagingData -> {
+                final NotesListFilter filter = notesListFilter;
+                assert filter != null;
+                return fromNotes(pagingData, filter.selectedCategory, filter.sortingMethod);
+            });
+            final MediatorLiveData<PagingData<Item>> notesList = new MediatorLiveData<>();
+            notesList.addSource(getNotesListFilter(), filter -> {
+                if (filter == null || filter.equals(notesListFilter)) {
+                    return;
+                }
+                final boolean firstFilter = notesListFilter == null;
+                notesListFilter = filter;
+                if (firstFilter) {
+                    // Pages can only be loaded once the filter is known
+                    notesList.addSource(pages, notesList::setValue);
+                } else {
+                    final PagingSource<Integer, Note> source = notesPagingSource;
+                    if (source != null) {
+                        source.invalidate();
+                    }
+                }
+            });
+            this.notesList = PagingLiveData.cachedIn(notesList, this);
+        }
+        return this.notesList;
+    }
+
+    /**
+     * @return the current filter of the notes list or <code>null</code> as long as the information is insufficient
+     */
     @NonNull
     @MainThread
-    public LiveData<List<Item>> getNotesListLiveData() {
-        final MutableLiveData<List<Item>> insufficientInformation = new MutableLiveData<>();
-        return distinctUntilChanged(switchMap(getCurrentAccount(), currentAccount -> {
+    private LiveData<NotesListFilter> getNotesListFilter() {
+        final MutableLiveData<NotesListFilter> insufficientInformation = new MutableLiveData<>();
+        return switchMap(getCurrentAccount(), currentAccount -> {
             Log.v(TAG, "[getNotesListLiveData] - currentAccount: " + currentAccount);
             if (currentAccount == null) {
                 return insufficientInformation;
@@ -216,73 +294,126 @@ public class MainViewModel extends AndroidViewModel {
                         Log.v(TAG, "[getNotesListLiveData] - selectedCategory: " + selectedCategory);
                         return switchMap(getSearchTerm(), searchTerm -> {
                             Log.v(TAG, "[getNotesListLiveData] - searchTerm: " + searchTerm);
-                            return switchMap(getCategorySortingMethodOfSelectedCategory(), sortingMethod -> {
-                                final long accountId = currentAccount.getId();
-                                final String searchQueryOrWildcard = searchTerm == null ? "%" : "%" + searchTerm.trim() + "%";
+                            return map(getCategorySortingMethodOfSelectedCategory(), sortingMethod -> {
                                 Log.v(TAG, "[getNotesListLiveData] - sortMethod: " + sortingMethod.second);
-                                final LiveData<List<Note>> fromDatabase;
-                                switch (selectedCategory.getType()) {
-                                    case RECENT: {
-                                        Log.v(TAG, "[getNotesListLiveData] - category: " + RECENT);
-                                        fromDatabase = sortingMethod.second == SORT_MODIFIED_DESC
-                                                ? repo.searchRecentByModified$(accountId, searchQueryOrWildcard)
-                                                : repo.searchRecentLexicographically$(accountId, searchQueryOrWildcard);
-                                        break;
-                                    }
-                                    case FAVORITES: {
-                                        Log.v(TAG, "[getNotesListLiveData] - category: " + FAVORITES);
-                                        fromDatabase = sortingMethod.second == SORT_MODIFIED_DESC
-                                                ? repo.searchFavoritesByModified$(accountId, searchQueryOrWildcard)
-                                                : repo.searchFavoritesLexicographically$(accountId, searchQueryOrWildcard);
-                                        break;
-                                    }
-                                    case UNCATEGORIZED: {
-                                        Log.v(TAG, "[getNotesListLiveData] - category: " + UNCATEGORIZED);
-                                        fromDatabase = sortingMethod.second == SORT_MODIFIED_DESC
-                                                ? repo.searchUncategorizedByModified$(accountId, searchQueryOrWildcard)
-                                                : repo.searchUncategorizedLexicographically$(accountId, searchQueryOrWildcard);
-                                        break;
-                                    }
-                                    case DEFAULT_CATEGORY:
-                                    default: {
-                                        final String category = selectedCategory.getCategory();
-                                        if (category == null) {
-                                            throw new IllegalStateException(NavigationCategory.class.getSimpleName() + " type is " + DEFAULT_CATEGORY + ", but category is null.");
-                                        }
-                                        Log.v(TAG, "[getNotesListLiveData] - category: " + category);
-                                        fromDatabase = sortingMethod.second == SORT_MODIFIED_DESC
-                                                ? repo.searchCategoryByModified$(accountId, searchQueryOrWildcard, category)
-                                                : repo.searchCategoryLexicographically$(accountId, searchQueryOrWildcard, category);
-                                        break;
-                                    }
-                                }
-
-                                Log.v(TAG, "[getNotesListLiveData] - -------------------------------------");
-                                return distinctUntilChanged(map(fromDatabase, noteList -> fromNotes(noteList, selectedCategory, sortingMethod.second)));
+                                return new NotesListFilter(currentAccount.getId(), selectedCategory, searchTerm, sortingMethod.second);
                             });
                         });
                     }
                 });
             }
-        }));
+        });
     }
 
-    private List<Item> fromNotes(List<Note> noteList, @NonNull NavigationCategory selectedCategory, @Nullable CategorySortingMethod sortingMethod) {
+    @NonNull
+    private PagingSource<Integer, Note> createNotesPagingSource() {
+        final NotesListFilter filter = notesListFilter;
+        assert filter != null;
+        final long accountId = filter.accountId;
+        final NavigationCategory selectedCategory = filter.selectedCategory;
+        final CategorySortingMethod sortingMethod = filter.sortingMethod;
+        // Matches word prefixes only, the LIKE search is just the fallback for terms which can not be tokenized by the index
+        final String fullTextSearchQuery = generateFullTextSearchQuery(filter.searchTerm);
+        final String searchQueryOrWildcard = filter.searchTerm == null ? "%" : "%" + filter.searchTerm.trim() + "%";
+        Log.v(TAG, "[getNotesListLiveData] - sortMethod: " + sortingMethod + ", fullTextSearchQuery: " + fullTextSearchQuery);
+        final PagingSource<Integer, Note> source;
+        switch (selectedCategory.getType()) {
+            case RECENT: {
+                Log.v(TAG, "[getNotesListLiveData] - category: " + RECENT);
+                if (fullTextSearchQuery == null) {
+                    source = sortingMethod == SORT_MODIFIED_DESC
+                            ? repo.searchRecentByModifiedPaged(accountId, searchQueryOrWildcard)
+                            : repo.searchRecentLexicographicallyPaged(accountId, searchQueryOrWildcard);
+                } else {
+                    source = sortingMethod == SORT_MODIFIED_DESC
+                            ? repo.fullTextSearchRecentByModifiedPaged(accountId, fullTextSearchQuery)
+                            : repo.fullTextSearchRecentLexicographicallyPaged(accountId, fullTextSearchQuery);
+                }
+                break;
+            }
+            case FAVORITES: {
+                Log.v(TAG, "[getNotesListLiveData] - category: " + FAVORITES);
+                if (fullTextSearchQuery == null) {
+                    source = sortingMethod == SORT_MODIFIED_DESC
+                            ? repo.searchFavoritesByModifiedPaged(accountId, searchQueryOrWildcard)
+                            : repo.searchFavoritesLexicographicallyPaged(accountId, searchQueryOrWildcard);
+                } else {
+                    source = sortingMethod == SORT_MODIFIED_DESC
+                            ? repo.fullTextSearchFavoritesByModifiedPaged(accountId, fullTextSearchQuery)
+                            : repo.fullTextSearchFavoritesLexicographicallyPaged(accountId, fullTextSearchQuery);
+                }
+                break;
+            }
+            case UNCATEGORIZED: {
+                Log.v(TAG, "[getNotesListLiveData] - category: " + UNCATEGORIZED);
+                if (fullTextSearchQuery == null) {
+                    source = sortingMethod == SORT_MODIFIED_DESC
+                            ? repo.searchUncategorizedByModifiedPaged(accountId, searchQueryOrWildcard)
+                            : repo.searchUncategorizedLexicographicallyPaged(accountId, searchQueryOrWildcard);
+                } else {
+                    source = sortingMethod == SORT_MODIFIED_DESC
+                            ? repo.fullTextSearchUncategorizedByModifiedPaged(accountId, fullTextSearchQuery)
+                            : repo.fullTextSearchUncategorizedLexicographicallyPaged(accountId, fullTextSearchQuery);
+                }
+                break;
+            }
+            case DEFAULT_CATEGORY:
+            default: {
+                final String category = selectedCategory.getCategory();
+                if (category == null) {
+                    throw new IllegalStateException(NavigationCategory.class.getSimpleName() + " type is " + DEFAULT_CATEGORY + ", but category is null.");
+                }
+                Log.v(TAG, "[getNotesListLiveData] - category: " + category);
+                if (fullTextSearchQuery == null) {
+                    source = sortingMethod == SORT_MODIFIED_DESC
+                            ? repo.searchCategoryByModifiedPaged(accountId, searchQueryOrWildcard, category)
+                            : repo.searchCategoryLexicographicallyPaged(accountId, searchQueryOrWildcard, category);
+                } else {
+                    source = sortingMethod == SORT_MODIFIED_DESC
+                            ? repo.fullTextSearchCategoryByModifiedPaged(accountId, fullTextSearchQuery, category)
+                            : repo.fullTextSearchCategoryLexicographicallyPaged(accountId, fullTextSearchQuery, category);
+                }
+                break;
+            }
+        }
+        Log.v(TAG, "[getNotesListLiveData] - -------------------------------------");
+        notesPagingSource = source;
+        return source;
+    }
+
+    private PagingData<Item> fromNotes(PagingData<Note> pagingData, @NonNull NavigationCategory selectedCategory, @Nullable CategorySortingMethod sortingMethod) {
         if (selectedCategory.getType() == DEFAULT_CATEGORY) {
             final String category = selectedCategory.getCategory();
             if (category != null) {
-                return fillListByCategory(noteList, category);
+                return insertSectionsByCategory(pagingData, sectionExecutor, category);
             } else {
                 throw new IllegalStateException(NavigationCategory.class.getSimpleName() + " type is " + DEFAULT_CATEGORY + ", but category is null.");
             }
         }
         if (sortingMethod == SORT_MODIFIED_DESC) {
-            return fillListByTime(getApplication(), noteList);
+            return insertSectionsByTime(getApplication(), pagingData, sectionExecutor);
         } else {
-            return fillListByInitials(getApplication(), noteList);
+            return insertSectionsByInitials(getApplication(), pagingData, sectionExecutor);
         }
     }
 
+    /**
+     * @return those of the given {@param noteIds} which do no longer exist or are marked as deleted
+     */
+    public LiveData<List<Long>> filterDeletedNotes(@NonNull Collection<Long> noteIds) {
+        final MutableLiveData<List<Long>> deletedNoteIds = new MutableLiveData<>();
+        new Thread(() -> deletedNoteIds.postValue(
+                noteIds
+                        .stream()
+                        .filter(id -> {
+                            final Note note = repo.getNoteById(id);
+                            return note == null || note.getStatus() == DBStatus.LOCAL_DELETED;
+                        })
+                        .collect(Collectors.toList())
+        )).start();
+        return deletedNoteIds;
+    }
+
     @NonNull
     @MainThread
     public LiveData<List<NavigationItem>> getNavigationCategories() {
@@ -294,15 +425,10 @@ public class MainViewModel extends AndroidViewModel {
                 Log.v(TAG, "[getNavigationCategories] - currentAccount: " + currentAccount.getAccountName());
                 return switchMap(getExpandedCategory(), expandedCategory -> {
                     Log.v(TAG, "[getNavigationCategories] - expandedCategory: " + expandedCategory);
-                    return switchMap(repo.count$(currentAccount.getId()), (count) -> {
-                        Log.v(TAG, "[getNavigationCategories] - count: " + count);
-                        return switchMap(repo.countFavorites$(currentAccount.getId()), (favoritesCount) -> {
-                            Log.v(TAG, "[getNavigationCategories] - favoritesCount: " + favoritesCount);
-                            return distinctUntilChanged(map(repo.getCategories$(currentAccount.getId()), fromDatabase ->
-                                    fromCategoriesWithNotesCount(getApplication(), expandedCategory, fromDatabase, count, favoritesCount)
-                            ));
-                        });
-                    });
+                    // The overall counts are derived from the categories, so the navigation only observes a single query
+                    return distinctUntilChanged(map(repo.getCategories$(currentAccount.getId()), fromDatabase ->
+                            fromCategoriesWithNotesCount(getApplication(), expandedCategory, fromDatabase, sumTotalNotes(fromDatabase), sumFavoriteNotes(fromDatabase))
+                    ));
                 });
             }
         });
@@ -576,11 +702,12 @@ public class MainViewModel extends AndroidViewModel {
 
     public LiveData<Void> updateNoteAndSync(@NonNull Note oldNote, @Nullable String newContent, @Nullable String newTitle) {
         return switchMap(getCurrentAccount(), currentAccount -> {
-            if (currentAccount != null) {
+            if (currentAccount == null) {
+                return new MutableLiveData<>(null);
+            } else {
                 Log.v(TAG, "[updateNoteAndSync] - currentAccount: " + currentAccount.getAccountName());
-                repo.updateNoteAndSync(currentAccount, oldNote, newContent, newTitle, null);
+                return map(repo.saveNoteAndSync(currentAccount, oldNote, newContent, newTitle, null), savedNote -> null);
             }
-            return new MutableLiveData<>(null);
         });
     }
 
@@ -607,4 +734,40 @@ public class MainViewModel extends AndroidViewModel {
         }
         return noteContents.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Everything the {@link PagingSource} of the notes list depends on.
+     */
+    private static final class NotesListFilter {
+        private final long accountId;
+        @NonNull
+        private final NavigationCategory selectedCategory;
+        @Nullable
+        private final String searchTerm;
+        @Nullable
+        private final CategorySortingMethod sortingMethod;
+
+        private NotesListFilter(long accountId, @NonNull NavigationCategory selectedCategory, @Nullable String searchTerm, @Nullable CategorySortingMethod sortingMethod) {
+            this.accountId = accountId;
+            this.selectedCategory = selectedCategory;
+            this.searchTerm = searchTerm;
+            this.sortingMethod = sortingMethod;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            NotesListFilter that = (NotesListFilter) o;
+            return accountId == that.accountId &&
+                    selectedCategory.equals(that.selectedCategory) &&
+                    Objects.equals(searchTerm, that.searchTerm) &&
+                    sortingMethod == that.sortingMethod;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, selectedCategory, searchTerm, sortingMethod);
+        }
+    }
+}
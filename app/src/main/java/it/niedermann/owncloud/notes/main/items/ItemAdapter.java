@@ -14,10 +14,14 @@ import androidx.annotation.Nullable;
 import androidx.annotation.Px;
 import androidx.core.content.ContextCompat;
 import androidx.preference.PreferenceManager;
+import androidx.lifecycle.Lifecycle;
+import androidx.paging.AsyncPagingDataDiffer;
+import androidx.paging.CombinedLoadStates;
+import androidx.paging.PagingData;
 import androidx.recyclerview.selection.SelectionTracker;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import it.niedermann.owncloud.notes.R;
@@ -37,6 +41,9 @@ import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.Item;
 import it.niedermann.owncloud.notes.shared.model.NoteClickListener;
 
+import kotlin.Unit;
+import kotlin.jvm.functions.Function1;
+
 import static it.niedermann.owncloud.notes.shared.util.NoteUtil.getFontSizeFromPreferences;
 
 public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> implements Branded {
@@ -48,10 +55,17 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
     public static final int TYPE_NOTE_WITHOUT_EXCERPT = 2;
     public static final int TYPE_NOTE_ONLY_TITLE = 3;
 
+    private static final Object PAYLOAD_SEARCH_QUERY = new Object();
+
     private final NoteClickListener noteClickListener;
     private final boolean gridView;
+    /**
+     * Loads the items page by page and calculates the changes between two generations on a background thread,
+     * so only the actually changed items get dispatched.
+     * Placeholders are disabled, so each position up to {@link #getItemCount()} has an item.
+     */
     @NonNull
-    private final List<Item> itemList = new ArrayList<>();
+    private final AsyncPagingDataDiffer<Item> differ = new AsyncPagingDataDiffer<>(new ItemDiffCallback(), new AdapterListUpdateCallback(this));
     private boolean showCategory = true;
     private CharSequence searchQuery;
     private SelectionTracker<Long> tracker = null;
@@ -80,21 +94,23 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
     // FIXME this causes {@link it.niedermann.owncloud.notes.noteslist.items.list.NotesListViewItemTouchHelper} to not call clearView anymore → After marking a note as favorite, it stays yellow.
     @Override
     public long getItemId(int position) {
-        return getItemViewType(position) == TYPE_SECTION
-                ? ((SectionItem) getItem(position)).getTitle().hashCode() * -1
-                : ((Note) getItem(position)).getId();
+        final Item item = peek(position);
+        return item.isSection()
+                ? ((SectionItem) item).getTitle().hashCode() * -1
+                : ((Note) item).getId();
     }
 
     /**
-     * Updates the item list and notifies respective view to update.
-     *
-     * @param itemList List of items to be set
+     * Replaces the current items with the given {@param pagingData}, the pages will be loaded as long as the {@param lifecycle} is active.
+     * The difference to the current items is calculated asynchronously, so {@link #getItem(int)} will return the new items as soon as the changed items have been notified.
      */
-    public void setItemList(@NonNull List<Item> itemList) {
-        this.itemList.clear();
-        this.itemList.addAll(itemList);
+    public void submitData(@NonNull Lifecycle lifecycle, @NonNull PagingData<Item> pagingData) {
         this.swipedPosition = null;
-        notifyDataSetChanged();
+        differ.submitData(lifecycle, pagingData);
+    }
+
+    public void addLoadStateListener(@NonNull Function1<CombinedLoadStates, Unit> listener) {
+        differ.addLoadStateListener(listener);
     }
 
     @NonNull
@@ -138,41 +154,93 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
 
     @Override
     public void onBindViewHolder(@NonNull final RecyclerView.ViewHolder holder, int position) {
-        boolean isSelected = false;
-        if (tracker != null) {
-            Long itemId = getItemId(position);
-            if (tracker.isSelected(itemId)) {
-                tracker.select(itemId);
-                isSelected = true;
-            } else {
-                tracker.deselect(itemId);
-            }
-        }
+        final boolean isSelected = isSelected(position);
         switch (getItemViewType(position)) {
             case TYPE_SECTION: {
-                ((SectionViewHolder) holder).bind((SectionItem) itemList.get(position));
+                ((SectionViewHolder) holder).bind((SectionItem) getItem(position));
                 break;
             }
             case TYPE_NOTE_WITH_EXCERPT:
             case TYPE_NOTE_WITHOUT_EXCERPT:
             case TYPE_NOTE_ONLY_TITLE: {
-                ((NoteViewHolder) holder).bind(isSelected, (Note) itemList.get(position), showCategory, mainColor, textColor, searchQuery);
+                ((NoteViewHolder) holder).bind(isSelected, (Note) getItem(position), showCategory, mainColor, textColor, searchQuery);
                 break;
             }
         }
     }
 
+    /**
+     * Only rebinds the parts of a {@link Note} which are affected by the given payloads.
+     * Falls back to a full bind if at least one of the payloads is unknown.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        if (getItemViewType(position) == TYPE_SECTION) {
+            // Sections are only the same item if they have the same title, so there is nothing to rebind
+            return;
+        }
+        for (Object payload : payloads) {
+            if (payload != SelectionTracker.SELECTION_CHANGED_MARKER && payload != ItemDiffCallback.PAYLOAD_FAVORITE && payload != PAYLOAD_SEARCH_QUERY) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+        final NoteViewHolder noteViewHolder = (NoteViewHolder) holder;
+        final Note note = (Note) getItem(position);
+        if (payloads.contains(SelectionTracker.SELECTION_CHANGED_MARKER)) {
+            noteViewHolder.bindSelected(isSelected(position));
+        }
+        if (payloads.contains(ItemDiffCallback.PAYLOAD_FAVORITE)) {
+            noteViewHolder.bindFavorite(note.getFavorite());
+        }
+        if (payloads.contains(PAYLOAD_SEARCH_QUERY)) {
+            noteViewHolder.bindSearchQuery(note, mainColor, searchQuery);
+        }
+    }
+
+    private boolean isSelected(int position) {
+        if (tracker == null) {
+            return false;
+        }
+        final Long itemId = getItemId(position);
+        if (tracker.isSelected(itemId)) {
+            tracker.select(itemId);
+            return true;
+        } else {
+            tracker.deselect(itemId);
+            return false;
+        }
+    }
+
     public void setTracker(SelectionTracker<Long> tracker) {
         this.tracker = tracker;
     }
 
+    /**
+     * Also notifies the pager that this position has been accessed, so further pages will be loaded if necessary.
+     */
     public Item getItem(int notePosition) {
-        return itemList.get(notePosition);
+        final Item item = differ.getItem(notePosition);
+        if (item == null) {
+            throw new IllegalArgumentException("Item at position " + notePosition + " must not be null");
+        }
+        return item;
     }
 
-    public void remove(@NonNull Item item) {
-        itemList.remove(item);
-        notifyDataSetChanged();
+    /**
+     * Same as {@link #getItem(int)} but without triggering any page loads.
+     */
+    @NonNull
+    private Item peek(int position) {
+        final Item item = differ.peek(position);
+        if (item == null) {
+            throw new IllegalArgumentException("Item at position " + position + " must not be null");
+        }
+        return item;
     }
 
     public void setShowCategory(boolean showCategory) {
@@ -181,18 +249,19 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
 
     @Override
     public int getItemCount() {
-        return itemList.size();
+        return differ.getItemCount();
     }
 
     @IntRange(from = 0, to = 3)
     @Override
     public int getItemViewType(int position) {
-        Item item = getItem(position);
-        if (item == null) {
-            throw new IllegalArgumentException("Item at position " + position + " must not be null");
-        }
-        if (getItem(position).isSection()) return TYPE_SECTION;
-        Note note = (Note) getItem(position);
+        return getItemViewType(peek(position));
+    }
+
+    @IntRange(from = 0, to = 3)
+    private static int getItemViewType(@NonNull Item item) {
+        if (item.isSection()) return TYPE_SECTION;
+        Note note = (Note) item;
         if (TextUtils.isEmpty(note.getExcerpt())) {
             if (TextUtils.isEmpty(note.getCategory())) {
                 return TYPE_NOTE_ONLY_TITLE;
@@ -207,20 +276,25 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
     public void applyBrand(int mainColor, int textColor) {
         this.mainColor = mainColor;
         this.textColor = textColor;
-        notifyDataSetChanged();
+        notifyItemRangeChanged(0, getItemCount());
     }
 
     public void setHighlightSearchQuery(CharSequence searchQuery) {
+        if (TextUtils.equals(this.searchQuery, searchQuery)) {
+            return;
+        }
         this.searchQuery = searchQuery;
-        notifyDataSetChanged();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SEARCH_QUERY);
     }
 
     /**
-     * @return the position of the first {@link Item} which matches the given viewtype, -1 if not available
+     * @return the position of the first loaded {@link Item} which matches the given viewtype, -1 if not available
      */
     public int getFirstPositionOfViewType(@IntRange(from = 0, to = 3) int viewType) {
-        for (int i = 0; i < itemList.size(); i++) {
-            if (getItemViewType(i) == viewType) {
+        final List<Item> snapshot = differ.snapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            final Item item = snapshot.get(i);
+            if (item != null && getItemViewType(item) == viewType) {
                 return i;
             }
         }
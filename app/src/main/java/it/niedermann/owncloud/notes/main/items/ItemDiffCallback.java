@@ -0,0 +1,51 @@
+package it.niedermann.owncloud.notes.main.items;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.shared.model.Item;
+
+/**
+ * Compares {@link Item}s of the {@link ItemAdapter}.
+ * A {@link Note} which only changed its favorite state gets a {@link #PAYLOAD_FAVORITE} so only the star needs to be rebound.
+ */
+class ItemDiffCallback extends DiffUtil.ItemCallback<Item> {
+
+    static final Object PAYLOAD_FAVORITE = new Object();
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+        if (oldItem.isSection() && newItem.isSection()) {
+            return oldItem.equals(newItem);
+        } else if (oldItem instanceof Note && newItem instanceof Note) {
+            return ((Note) oldItem).getId() == ((Note) newItem).getId();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    @Nullable
+    @Override
+    public Object getChangePayload(@NonNull Item oldItem, @NonNull Item newItem) {
+        if (oldItem instanceof Note && newItem instanceof Note && onlyFavoriteChanged((Note) oldItem, (Note) newItem)) {
+            return PAYLOAD_FAVORITE;
+        }
+        return null;
+    }
+
+    /**
+     * @return whether all other displayed properties are the same, which also means that the view type did not change.
+     */
+    private static boolean onlyFavoriteChanged(@NonNull Note oldNote, @NonNull Note newNote) {
+        return oldNote.getStatus() == newNote.getStatus()
+                && oldNote.getTitle().equals(newNote.getTitle())
+                && oldNote.getCategory().equals(newNote.getCategory())
+                && oldNote.getExcerpt().equals(newNote.getExcerpt());
+    }
+}
@@ -50,10 +50,24 @@ public abstract class NoteViewHolder extends RecyclerView.ViewHolder {
 
     @CallSuper
     public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, int mainColor, int textColor, @Nullable CharSequence searchQuery) {
-        itemView.setSelected(isSelected);
+        bindSelected(isSelected);
         itemView.setOnClickListener((view) -> noteClickListener.onNoteClick(getLayoutPosition(), view));
     }
 
+    public void bindSelected(boolean isSelected) {
+        itemView.setSelected(isSelected);
+    }
+
+    /**
+     * Partial rebind in case only the favorite state of the bound {@link Note} changed.
+     */
+    public abstract void bindFavorite(boolean isFavorite);
+
+    /**
+     * Partial rebind of all texts which highlight the {@param searchQuery}.
+     */
+    public abstract void bindSearchQuery(@NonNull Note note, int mainColor, @Nullable CharSequence searchQuery);
+
     protected void bindStatus(AppCompatImageView noteStatus, DBStatus status, int mainColor) {
         noteStatus.setVisibility(DBStatus.VOID.equals(status) ? INVISIBLE : VISIBLE);
         DrawableCompat.setTint(noteStatus.getDrawable(), BrandingUtil.getSecondaryForegroundColorDependingOnTheme(noteStatus.getContext(), mainColor));
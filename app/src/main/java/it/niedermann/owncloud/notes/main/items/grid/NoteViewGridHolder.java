@@ -44,12 +44,22 @@ public class NoteViewGridHolder extends NoteViewHolder {
         @NonNull final Context context = itemView.getContext();
         bindCategory(context, binding.noteCategory, showCategory, note.getCategory(), mainColor);
         bindStatus(binding.noteStatus, note.getStatus(), mainColor);
-        bindFavorite(binding.noteFavorite, note.getFavorite());
-        bindSearchableContent(context, binding.noteTitle, searchQuery, note.getTitle(), mainColor);
-        bindSearchableContent(context, binding.noteExcerpt, searchQuery, note.getExcerpt().replace(EXCERPT_LINE_SEPARATOR, "\n"), mainColor);
+        bindFavorite(note.getFavorite());
+        bindSearchQuery(note, mainColor, searchQuery);
         binding.noteExcerpt.setVisibility(TextUtils.isEmpty(note.getExcerpt()) ? GONE : VISIBLE);
     }
 
+    @Override
+    public void bindFavorite(boolean isFavorite) {
+        bindFavorite(binding.noteFavorite, isFavorite);
+    }
+
+    @Override
+    public void bindSearchQuery(@NonNull Note note, int mainColor, @Nullable CharSequence searchQuery) {
+        bindSearchableContent(itemView.getContext(), binding.noteTitle, searchQuery, note.getTitle(), mainColor);
+        bindSearchableContent(itemView.getContext(), binding.noteExcerpt, searchQuery, note.getExcerpt().replace(EXCERPT_LINE_SEPARATOR, "\n"), mainColor);
+    }
+
     @Nullable
     public View getNoteSwipeable() {
         return null;
@@ -1,6 +1,5 @@
 package it.niedermann.owncloud.notes.main.items.grid;
 
-import android.content.Context;
 import android.graphics.Typeface;
 import android.util.TypedValue;
 import android.view.View;
@@ -34,10 +33,19 @@ public class NoteViewGridHolderOnlyTitle extends NoteViewHolder {
 
     public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, int mainColor, int textColor, @Nullable CharSequence searchQuery) {
         super.bind(isSelected, note, showCategory, mainColor, textColor, searchQuery);
-        @NonNull final Context context = itemView.getContext();
         bindStatus(binding.noteStatus, note.getStatus(), mainColor);
-        bindFavorite(binding.noteFavorite, note.getFavorite());
-        bindSearchableContent(context, binding.noteTitle, searchQuery, note.getTitle(), mainColor);
+        bindFavorite(note.getFavorite());
+        bindSearchQuery(note, mainColor, searchQuery);
+    }
+
+    @Override
+    public void bindFavorite(boolean isFavorite) {
+        bindFavorite(binding.noteFavorite, isFavorite);
+    }
+
+    @Override
+    public void bindSearchQuery(@NonNull Note note, int mainColor, @Nullable CharSequence searchQuery) {
+        bindSearchableContent(itemView.getContext(), binding.noteTitle, searchQuery, note.getTitle(), mainColor);
     }
 
     @Nullable
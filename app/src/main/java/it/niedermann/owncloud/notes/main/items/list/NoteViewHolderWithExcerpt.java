@@ -34,10 +34,20 @@ public class NoteViewHolderWithExcerpt extends NoteViewHolder {
         binding.noteSwipeable.setAlpha(DBStatus.LOCAL_DELETED.equals(note.getStatus()) ? 0.5f : 1.0f);
         bindCategory(context, binding.noteCategory, showCategory, note.getCategory(), mainColor);
         bindStatus(binding.noteStatus, note.getStatus(), mainColor);
-        bindFavorite(binding.noteFavorite, note.getFavorite());
+        bindFavorite(note.getFavorite());
 
-        bindSearchableContent(context, binding.noteTitle, searchQuery, note.getTitle(), mainColor);
-        bindSearchableContent(context, binding.noteExcerpt, searchQuery, note.getExcerpt(), mainColor);
+        bindSearchQuery(note, mainColor, searchQuery);
+    }
+
+    @Override
+    public void bindFavorite(boolean isFavorite) {
+        bindFavorite(binding.noteFavorite, isFavorite);
+    }
+
+    @Override
+    public void bindSearchQuery(@NonNull Note note, int mainColor, @Nullable CharSequence searchQuery) {
+        bindSearchableContent(itemView.getContext(), binding.noteTitle, searchQuery, note.getTitle(), mainColor);
+        bindSearchableContent(itemView.getContext(), binding.noteExcerpt, searchQuery, note.getExcerpt(), mainColor);
     }
 
     @NonNull
@@ -4,9 +4,10 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Executor;
 
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.main.items.section.SectionItem;
@@ -14,6 +15,10 @@ import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.Item;
 import it.niedermann.owncloud.notes.shared.util.NoteUtil;
 
+/**
+ * Inserts {@link SectionItem}s between the {@link Note}s of a {@link PagingData} while the pages get loaded,
+ * so the sections never require the whole list of {@link Note}s to be in memory.
+ */
 public class SlotterUtil {
 
     private SlotterUtil() {
@@ -21,54 +26,51 @@ public class SlotterUtil {
     }
 
     @NonNull
-    public static List<Item> fillListByCategory(@NonNull List<Note> noteList, @Nullable String currentCategory) {
-        List<Item> itemList = new ArrayList<>();
-        for (Note note : noteList) {
-            if (currentCategory != null && !currentCategory.equals(note.getCategory())) {
-                itemList.add(new SectionItem(NoteUtil.extendCategory(note.getCategory())));
+    public static PagingData<Item> insertSectionsByCategory(@NonNull PagingData<Note> pagingData, @NonNull Executor executor, @Nullable String currentCategory) {
+        return PagingDataTransforms.<Item, Note>insertSeparators(pagingData, executor, (before, after) -> {
+            if (after == null) {
+                return null;
             }
-
-            itemList.add(note);
-            currentCategory = note.getCategory();
-        }
-        return itemList;
+            final String previousCategory = before == null ? currentCategory : before.getCategory();
+            return previousCategory != null && !previousCategory.equals(after.getCategory())
+                    ? new SectionItem(NoteUtil.extendCategory(after.getCategory()))
+                    : null;
+        });
     }
 
     @NonNull
-    public static List<Item> fillListByTime(@NonNull Context context, @NonNull List<Note> noteList) {
-        List<Item> itemList = new ArrayList<>();
-        Timeslotter timeslotter = new Timeslotter(context);
-        String lastTimeslot = null;
-        for (int i = 0; i < noteList.size(); i++) {
-            Note currentNote = noteList.get(i);
-            String timeslot = timeslotter.getTimeslot(currentNote);
-            if (i > 0 && !timeslot.equals(lastTimeslot)) {
-                itemList.add(new SectionItem(timeslot));
+    public static PagingData<Item> insertSectionsByTime(@NonNull Context context, @NonNull PagingData<Note> pagingData, @NonNull Executor executor) {
+        final Timeslotter timeslotter = new Timeslotter(context);
+        return PagingDataTransforms.<Item, Note>insertSeparators(pagingData, executor, (before, after) -> {
+            if (before == null || after == null) {
+                return null;
             }
-            itemList.add(currentNote);
-            lastTimeslot = timeslot;
-        }
-
-        return itemList;
+            final String timeslot = timeslotter.getTimeslot(after);
+            return timeslot.equals(timeslotter.getTimeslot(before))
+                    ? null
+                    : new SectionItem(timeslot);
+        });
     }
 
     @NonNull
-    public static List<Item> fillListByInitials(@NonNull Context context, @NonNull List<Note> noteList) {
-        List<Item> itemList = new ArrayList<>();
-        String lastInitials = null;
-        for (int i = 0; i < noteList.size(); i++) {
-            Note currentNote = noteList.get(i);
-            String initials = currentNote.getTitle().substring(0, 1).toUpperCase();
-            if (!initials.matches("[A-Z\\u00C0-\\u00DF]")) {
-                initials = initials.matches("[\\u0250-\\uFFFF]") ? context.getString(R.string.simple_other) : "#";
-            }
-            if (i > 0 && !initials.equals(lastInitials)) {
-                itemList.add(new SectionItem(initials));
+    public static PagingData<Item> insertSectionsByInitials(@NonNull Context context, @NonNull PagingData<Note> pagingData, @NonNull Executor executor) {
+        return PagingDataTransforms.<Item, Note>insertSeparators(pagingData, executor, (before, after) -> {
+            if (before == null || after == null) {
+                return null;
             }
-            itemList.add(currentNote);
-            lastInitials = initials;
-        }
+            final String initials = getInitials(context, after);
+            return initials.equals(getInitials(context, before))
+                    ? null
+                    : new SectionItem(initials);
+        });
+    }
 
-        return itemList;
+    @NonNull
+    private static String getInitials(@NonNull Context context, @NonNull Note note) {
+        final String initials = note.getTitle().substring(0, 1).toUpperCase();
+        if (!initials.matches("[A-Z\\u00C0-\\u00DF]")) {
+            return initials.matches("[\\u0250-\\uFFFF]") ? context.getString(R.string.simple_other) : "#";
+        }
+        return initials;
     }
 }
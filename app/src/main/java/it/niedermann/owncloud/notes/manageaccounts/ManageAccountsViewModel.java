@@ -34,11 +34,13 @@ public class ManageAccountsViewModel extends AndroidViewModel {
     }
 
     public void getCurrentAccount(@NonNull Context context, @NonNull IResponseCallback<Account> callback) {
-        try {
-            callback.onSuccess(repo.getAccountByName((SingleAccountHelper.getCurrentSingleSignOnAccount(context).name)));
-        } catch (NextcloudFilesAppAccountNotFoundException | NoCurrentAccountSelectedException e) {
-            callback.onError(e);
-        }
+        new Thread(() -> {
+            try {
+                callback.onSuccess(repo.getAccountByName((SingleAccountHelper.getCurrentSingleSignOnAccount(context).name)));
+            } catch (NextcloudFilesAppAccountNotFoundException | NoCurrentAccountSelectedException e) {
+                callback.onError(e);
+            }
+        }).start();
     }
 
     public LiveData<List<Account>> getAccounts$() {
@@ -38,6 +38,20 @@ public class ApiProvider {
 
     private static final String API_ENDPOINT_OCS = "/ocs/v2.php/cloud/";
 
+    /**
+     * Divides all {@link Calendar} milliseconds by 1000 while serializing and multiplies values by 1000 during deserialization.
+     */
+    private static final Gson GSON = new GsonBuilder()
+            .excludeFieldsWithoutExposeAnnotation()
+            .registerTypeHierarchyAdapter(Calendar.class, (JsonSerializer<Calendar>) (src, typeOfSrc, ctx) -> new JsonPrimitive(src.getTimeInMillis() / 1_000))
+            .registerTypeHierarchyAdapter(Calendar.class, (JsonDeserializer<Calendar>) (src, typeOfSrc, ctx) -> {
+                final Calendar calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(src.getAsLong() * 1_000);
+                return calendar;
+            })
+            .registerTypeAdapter(Capabilities.class, new CapabilitiesDeserializer())
+            .create();
+
     private static final Map<String, NextcloudAPI> API_CACHE = new HashMap<>();
 
     private static final Map<String, OcsAPI> API_CACHE_OCS = new HashMap<>();
@@ -62,7 +76,7 @@ public class ApiProvider {
         if (API_CACHE_NOTES.containsKey(ssoAccount.name)) {
             return API_CACHE_NOTES.get(ssoAccount.name);
         }
-        final NotesAPI notesAPI = new NotesAPI(getNextcloudAPI(context, ssoAccount), preferredApiVersion);
+        final NotesAPI notesAPI = new NotesAPI(getNextcloudAPI(context, ssoAccount), GSON, preferredApiVersion);
         API_CACHE_NOTES.put(ssoAccount.name, notesAPI);
         return notesAPI;
     }
@@ -72,17 +86,7 @@ public class ApiProvider {
             return API_CACHE.get(ssoAccount.name);
         } else {
             Log.v(TAG, "NextcloudRequest account: " + ssoAccount.name);
-            final NextcloudAPI nextcloudAPI = new NextcloudAPI(context.getApplicationContext(), ssoAccount,
-                    new GsonBuilder()
-                            .excludeFieldsWithoutExposeAnnotation()
-                            .registerTypeHierarchyAdapter(Calendar.class, (JsonSerializer<Calendar>) (src, typeOfSrc, ctx) -> new JsonPrimitive(src.getTimeInMillis() / 1_000))
-                            .registerTypeHierarchyAdapter(Calendar.class, (JsonDeserializer<Calendar>) (src, typeOfSrc, ctx) -> {
-                                final Calendar calendar = Calendar.getInstance();
-                                calendar.setTimeInMillis(src.getAsLong() * 1_000);
-                                return calendar;
-                            })
-                            .registerTypeAdapter(Capabilities.class, new CapabilitiesDeserializer())
-                            .create(), new NextcloudAPI.ApiConnectedListener() {
+            final NextcloudAPI nextcloudAPI = new NextcloudAPI(context.getApplicationContext(), ssoAccount, GSON, new NextcloudAPI.ApiConnectedListener() {
                 @Override
                 public void onConnected() {
                     Log.i(TAG, "SSO API connected for " + ssoAccount);
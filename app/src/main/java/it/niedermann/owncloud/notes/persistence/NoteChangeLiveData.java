@@ -0,0 +1,70 @@
+package it.niedermann.owncloud.notes.persistence;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import it.niedermann.owncloud.notes.shared.model.INoteChangeListener;
+import it.niedermann.owncloud.notes.shared.model.NoteChange;
+
+/**
+ * Runs a query while it is observed and runs it again only when a {@link NoteChange} published by the {@link NotesRepository} affects it.
+ * Unlike the {@link LiveData} generated by Room, it is not invalidated by unrelated writes to the same table.
+ */
+class NoteChangeLiveData<T> extends LiveData<T> {
+
+    @NonNull
+    private final NotesRepository repo;
+    @NonNull
+    private final ExecutorService executor;
+    @NonNull
+    private final Predicate<NoteChange> affects;
+    @NonNull
+    private final Supplier<T> query;
+    // Strong reference, because the repository only holds its listeners weakly
+    @NonNull
+    private final INoteChangeListener listener;
+    private final AtomicInteger latestLoad = new AtomicInteger();
+
+    NoteChangeLiveData(@NonNull NotesRepository repo, @NonNull ExecutorService executor, @NonNull Predicate<NoteChange> affects, @NonNull @WorkerThread Supplier<T> query) {
+        this.repo = repo;
+        this.executor = executor;
+        this.affects = affects;
+        this.query = query;
+        this.listener = change -> {
+            if (this.affects.test(change)) {
+                load();
+            }
+        };
+    }
+
+    @Override
+    protected void onActive() {
+        super.onActive();
+        repo.addNoteChangeListener(listener);
+        // Changes might have been missed while there was no active observer
+        load();
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        repo.removeNoteChangeListener(listener);
+    }
+
+    private void load() {
+        final int load = latestLoad.incrementAndGet();
+        executor.submit(() -> {
+            final T value = query.get();
+            // Loads run in parallel, a result which has been overtaken by a more recent load must not be published
+            if (load == latestLoad.get()) {
+                postValue(value);
+            }
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package it.niedermann.owncloud.notes.persistence;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.PagingSource;
+import androidx.paging.PagingState;
+import androidx.paging.rxjava2.RxPagingSource;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import it.niedermann.owncloud.notes.persistence.dao.NoteDao;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.shared.model.INoteChangeListener;
+import it.niedermann.owncloud.notes.shared.model.NoteChange;
+import kotlin.Unit;
+
+/**
+ * Loads one of the <code>search</code> or <code>fullTextSearch</code> queries of {@link NoteDao} page by page, using the offset as key.
+ * It gets invalidated only by {@link NoteChange}s published by the {@link NotesRepository} which affect it,
+ * unlike the {@link PagingSource} generated by Room, which gets invalidated by each write to the <code>Note</code> table.
+ */
+class NoteChangePagingSource extends RxPagingSource<Integer, Note> {
+
+    @NonNull
+    private final NoteDao dao;
+    @NonNull
+    private final ExecutorService executor;
+    @NonNull
+    private final String sql;
+    @NonNull
+    private final Object[] args;
+    // Strong reference, because the repository only holds its listeners weakly
+    @NonNull
+    private final INoteChangeListener listener;
+
+    /**
+     * @param sql  one of the <code>search</code> or <code>fullTextSearch</code> queries of {@link NoteDao}
+     * @param args the arguments of the <code>sql</code> in order of their first occurrence
+     */
+    NoteChangePagingSource(@NonNull NotesRepository repo, @NonNull NoteDao dao, @NonNull ExecutorService executor, @NonNull Predicate<NoteChange> affects, @NonNull String sql, @NonNull Object... args) {
+        this.dao = dao;
+        this.executor = executor;
+        this.sql = sql + " LIMIT ? OFFSET ?";
+        this.args = args;
+        this.listener = change -> {
+            if (affects.test(change)) {
+                invalidate();
+            }
+        };
+        repo.addNoteChangeListener(listener);
+        registerInvalidatedCallback(() -> {
+            repo.removeNoteChangeListener(listener);
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<LoadResult<Integer, Note>> loadSingle(@NonNull LoadParams<Integer> params) {
+        final Integer key = params.getKey();
+        final int offset;
+        final int limit;
+        if (params instanceof LoadParams.Prepend) {
+            // The key of a prepended page is the offset of the page after it
+            offset = Math.max(0, key - params.getLoadSize());
+            limit = key - offset;
+        } else {
+            offset = key == null ? 0 : key;
+            limit = params.getLoadSize();
+        }
+        return Single.fromCallable(() -> load(offset, limit)).subscribeOn(Schedulers.from(executor));
+    }
+
+    @NonNull
+    private LoadResult<Integer, Note> load(int offset, int limit) {
+        final Object[] pageArgs = Arrays.copyOf(args, args.length + 2);
+        pageArgs[args.length] = limit;
+        pageArgs[args.length + 1] = offset;
+        final List<Note> notes = dao.getNotesPage(new SimpleSQLiteQuery(sql, pageArgs));
+        return new LoadResult.Page<>(notes,
+                offset > 0 ? offset : null,
+                notes.size() < limit ? null : offset + notes.size());
+    }
+
+    @Nullable
+    @Override
+    public Integer getRefreshKey(@NonNull PagingState<Integer, Note> state) {
+        final Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        // Reload around the last accessed position, so the list does not jump after an invalidation
+        return Math.max(0, anchorPosition - state.getConfig().initialLoadSize / 2);
+    }
+}
@@ -13,12 +13,17 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 import it.niedermann.owncloud.notes.persistence.dao.AccountDao;
 import it.niedermann.owncloud.notes.persistence.dao.CategoryOptionsDao;
 import it.niedermann.owncloud.notes.persistence.dao.NoteDao;
+import it.niedermann.owncloud.notes.persistence.dao.NoteViewStateDao;
 import it.niedermann.owncloud.notes.persistence.dao.WidgetNotesListDao;
 import it.niedermann.owncloud.notes.persistence.dao.WidgetSingleNoteDao;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Category;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryOptions;
 import it.niedermann.owncloud.notes.persistence.entity.Converters;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NoteContent;
+import it.niedermann.owncloud.notes.persistence.entity.NoteFts;
+import it.niedermann.owncloud.notes.persistence.entity.NoteViewState;
 import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetData;
 import it.niedermann.owncloud.notes.persistence.entity.SingleNoteWidgetData;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_10_11;
@@ -35,16 +40,26 @@ import it.niedermann.owncloud.notes.persistence.migration.Migration_20_21;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_21_22;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_22_23;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_23_24;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_24_25;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_25_26;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_26_27;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_27_28;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_28_29;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_29_30;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_9_10;
 
 @Database(
         entities = {
                 Account.class,
                 Note.class,
+                NoteContent.class,
+                NoteFts.class,
+                NoteViewState.class,
                 CategoryOptions.class,
+                Category.class,
                 SingleNoteWidgetData.class,
                 NotesListWidgetData.class
-        }, version = 24
+        }, version = 30
 )
 @TypeConverters({Converters.class})
 public abstract class NotesDatabase extends RoomDatabase {
@@ -80,30 +95,41 @@ public abstract class NotesDatabase extends RoomDatabase {
                         new Migration_20_21(),
                         new Migration_21_22(context),
                         new Migration_22_23(),
-                        new Migration_23_24(context)
+                        new Migration_23_24(context),
+                        new Migration_24_25(),
+                        new Migration_25_26(),
+                        new Migration_26_27(),
+                        new Migration_27_28(),
+                        new Migration_28_29(),
+                        new Migration_29_30()
                 )
                 .fallbackToDestructiveMigrationOnDowngrade()
                 .fallbackToDestructiveMigration()
-                .addCallback(new RoomDatabase.Callback() {
-                    @Override
-                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
-                        super.onCreate(db);
-                        final String cleanUpStatement = "DELETE FROM CategoryOptions WHERE CategoryOptions.category NOT IN (SELECT Note.category FROM Note WHERE Note.accountId = CategoryOptions.accountId);";
-                        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_DEL AFTER DELETE ON Note BEGIN " + cleanUpStatement + " END;");
-                        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_UPD AFTER UPDATE ON Note BEGIN " + cleanUpStatement + " END;");
-                        Log.v(TAG, NotesDatabase.class.getSimpleName() + " created.");
-                    }
-                })
-                .allowMainThreadQueries() // FIXME Needed in BaseNoteFragment#saveNote()
+                .addCallback(CALLBACK)
                 .build();
     }
 
+    /**
+     * Creates the triggers which maintain the {@link Category} table and clean up {@link CategoryOptions} of categories without any {@link Note}.
+     */
+    static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            super.onCreate(db);
+            Migration_28_29.createCategoryTriggers(db);
+            Migration_28_29.createCategoryOptionsCleanupTrigger(db);
+            Log.v(TAG, NotesDatabase.class.getSimpleName() + " created.");
+        }
+    };
+
     public abstract AccountDao getAccountDao();
 
     public abstract CategoryOptionsDao getCategoryOptionsDao();
 
     public abstract NoteDao getNoteDao();
 
+    public abstract NoteViewStateDao getNoteViewStateDao();
+
     public abstract WidgetSingleNoteDao getWidgetSingleNoteDao();
 
     public abstract WidgetNotesListDao getWidgetNotesListDao();
@@ -22,6 +22,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.PagingSource;
 import androidx.preference.PreferenceManager;
 
 import com.nextcloud.android.sso.AccountImporter;
@@ -30,24 +31,31 @@ import com.nextcloud.android.sso.exceptions.NoCurrentAccountSelectedException;
 import com.nextcloud.android.sso.helper.SingleAccountHelper;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import it.niedermann.android.sharedpreferences.SharedPreferenceIntLiveData;
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.edit.EditNoteActivity;
+import it.niedermann.owncloud.notes.persistence.dao.NoteDao;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryOptions;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesCount;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NoteViewState;
 import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetData;
 import it.niedermann.owncloud.notes.persistence.entity.SingleNoteWidgetData;
 import it.niedermann.owncloud.notes.shared.model.ApiVersion;
@@ -55,11 +63,16 @@ import it.niedermann.owncloud.notes.shared.model.Capabilities;
 import it.niedermann.owncloud.notes.shared.model.CategorySortingMethod;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
 import it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType;
+import it.niedermann.owncloud.notes.shared.model.INoteChangeListener;
 import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
 import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
 import it.niedermann.owncloud.notes.shared.model.NavigationCategory;
+import it.niedermann.owncloud.notes.shared.model.NoteChange;
+import it.niedermann.owncloud.notes.shared.model.NoteChange.Field;
+import it.niedermann.owncloud.notes.shared.model.SyncMetrics;
 import it.niedermann.owncloud.notes.shared.model.SyncResultStatus;
 import it.niedermann.owncloud.notes.shared.util.ApiVersionUtil;
+import it.niedermann.owncloud.notes.shared.util.ContentHashUtil;
 import it.niedermann.owncloud.notes.shared.util.NoteUtil;
 import it.niedermann.owncloud.notes.shared.util.SSOUtil;
 
@@ -78,6 +91,7 @@ import static java.util.stream.Collectors.toMap;
 public class NotesRepository {
 
     private static final String TAG = NotesRepository.class.getSimpleName();
+    private static final int MAX_SYNC_METRICS = 20;
 
     private static NotesRepository instance;
 
@@ -93,6 +107,8 @@ public class NotesRepository {
     private boolean networkConnected = false;
     private String syncOnlyOnWifiKey;
     private boolean syncOnlyOnWifi;
+    private final String pushConcurrencyKey;
+    private int pushConcurrency;
     private final MutableLiveData<Boolean> syncStatus = new MutableLiveData<>(false);
     private final MutableLiveData<ArrayList<Throwable>> syncErrors = new MutableLiveData<>();
 
@@ -104,6 +120,8 @@ public class NotesRepository {
         if (syncOnlyOnWifiKey.equals(key)) {
             syncOnlyOnWifi = prefs.getBoolean(syncOnlyOnWifiKey, false);
             updateNetworkStatus();
+        } else if (pushConcurrencyKey.equals(key)) {
+            pushConcurrency = readPushConcurrency(prefs);
         }
     };
 
@@ -124,12 +142,18 @@ public class NotesRepository {
     };
 
     // current state of the synchronization
-    private final Map<Long, Boolean> syncActive = new HashMap<>();
-    private final Map<Long, Boolean> syncScheduled = new HashMap<>();
+    private final SyncScheduler syncScheduler;
 
-    // list of callbacks for both parts of synchronization
-    private final Map<Long, List<ISyncCallback>> callbacksPush = new HashMap<>();
-    private final Map<Long, List<ISyncCallback>> callbacksPull = new HashMap<>();
+    // metrics of the most recent synchronizations, newest first, at most MAX_SYNC_METRICS per account
+    private final Map<Long, Deque<SyncMetrics>> syncMetrics = new HashMap<>();
+
+    // save requests which have not been written yet, at most one per note id
+    private final Map<Long, PendingSave> pendingSaves = new HashMap<>();
+    // note ids for which a writer is currently draining the pending saves
+    private final Set<Long> activeSaves = new HashSet<>();
+
+    // observers of written notes, held weakly so an observer which is dropped without being unregistered does not leak
+    private final Set<INoteChangeListener> noteChangeListeners = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
 
 
     public static synchronized NotesRepository getInstance(@NonNull Context context) {
@@ -145,6 +169,8 @@ public class NotesRepository {
         this.executor = executor;
         this.defaultNonEmptyTitle = NoteUtil.generateNonEmptyNoteTitle("", this.context);
         this.syncOnlyOnWifiKey = context.getApplicationContext().getResources().getString(R.string.pref_key_wifi_only);
+        this.pushConcurrencyKey = context.getApplicationContext().getResources().getString(R.string.pref_key_push_concurrency);
+        this.syncScheduler = new SyncScheduler(executor, this::createSyncTask, this::isSyncPossible);
 
         // Registers BroadcastReceiver to track network connection changes.
         this.context.registerReceiver(networkReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
@@ -152,10 +178,24 @@ public class NotesRepository {
         final SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this.context);
         prefs.registerOnSharedPreferenceChangeListener(onSharedPreferenceChangeListener);
         syncOnlyOnWifi = prefs.getBoolean(syncOnlyOnWifiKey, false);
+        pushConcurrency = readPushConcurrency(prefs);
 
         updateNetworkStatus();
     }
 
+    /**
+     * @return the maximum count of notes which will be pushed in parallel by each synchronization of an {@link Account}
+     */
+    private int readPushConcurrency(@NonNull SharedPreferences prefs) {
+        final String defaultValue = context.getString(R.string.pref_value_push_concurrency_default);
+        try {
+            return Math.max(1, Integer.parseInt(prefs.getString(pushConcurrencyKey, defaultValue)));
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Invalid value for " + pushConcurrencyKey + ", falling back to " + defaultValue);
+            return Integer.parseInt(defaultValue);
+        }
+    }
+
 
     // Accounts
 
@@ -188,7 +228,9 @@ public class NotesRepository {
             ApiProvider.invalidateAPICache();
         }
 
+        syncScheduler.cancel(account.getId());
         db.getAccountDao().deleteAccount(account);
+        notifyNoteChanged(NoteChange.deleted(account.getId(), null));
     }
 
     public Account getAccountByName(String accountName) {
@@ -219,6 +261,10 @@ public class NotesRepository {
         db.getAccountDao().updateETag(id, eTag);
     }
 
+    public void updateChunkCursor(long id, @Nullable String chunkCursor) {
+        db.getAccountDao().updateChunkCursor(id, chunkCursor);
+    }
+
     public void updateCapabilitiesETag(long id, String capabilitiesETag) {
         db.getAccountDao().updateCapabilitiesETag(id, capabilitiesETag);
     }
@@ -230,8 +276,11 @@ public class NotesRepository {
 
     // Notes
 
+    /**
+     * @return {@link LiveData} of the {@link Note} without its {@link Note#getContent()}
+     */
     public LiveData<Note> getNoteById$(long id) {
-        return db.getNoteDao().getNoteById$(id);
+        return new NoteChangeLiveData<>(this, executor, change -> change.affectsNote(id), () -> db.getNoteDao().getNoteByIdWithoutContent(id));
     }
 
     public Note getNoteById(long id) {
@@ -239,75 +288,127 @@ public class NotesRepository {
     }
 
     public LiveData<Integer> count$(long accountId) {
-        return db.getNoteDao().count$(accountId);
+        return new NoteChangeLiveData<>(this, executor, change -> affectsCategories(change, accountId), () -> db.getNoteDao().count(accountId));
     }
 
     public LiveData<Integer> countFavorites$(long accountId) {
-        return db.getNoteDao().countFavorites$(accountId);
+        return new NoteChangeLiveData<>(this, executor, change -> affectsCategories(change, accountId), () -> db.getNoteDao().countFavorites(accountId));
     }
 
-    public void updateScrollY(long id, int scrollY) {
-        db.getNoteDao().updateScrollY(id, scrollY);
+    /**
+     * @return the stored {@link NoteViewState} of the given {@link Note} or a fresh one if it has never been stored
+     */
+    @WorkerThread
+    @NonNull
+    public NoteViewState getNoteViewState(long noteId) {
+        final NoteViewState viewState = db.getNoteViewStateDao().getNoteViewState(noteId);
+        return viewState == null ? new NoteViewState(noteId) : viewState;
+    }
+
+    @AnyThread
+    public void saveNoteViewState(@NonNull NoteViewState viewState) {
+        executor.submit(() -> db.getNoteViewStateDao().createOrUpdateNoteViewStateIfNoteExists(viewState));
     }
 
     public LiveData<List<CategoryWithNotesCount>> searchCategories$(Long accountId, String searchTerm) {
-        return db.getNoteDao().searchCategories$(accountId, searchTerm);
+        return new NoteChangeLiveData<>(this, executor, change -> affectsCategories(change, accountId), () -> db.getNoteDao().searchCategories(accountId, searchTerm));
     }
 
-    public LiveData<List<Note>> searchRecentByModified$(long accountId, String query) {
-        return db.getNoteDao().searchRecentByModified$(accountId, query);
+    public PagingSource<Integer, Note> searchRecentByModifiedPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.searchRecentByModified, accountId, query);
     }
 
     public List<Note> searchRecentByModified(long accountId, String query) {
         return db.getNoteDao().searchRecentByModified(accountId, query);
     }
 
-    public LiveData<List<Note>> searchRecentLexicographically$(long accountId, String query) {
-        return db.getNoteDao().searchRecentLexicographically$(accountId, query);
+    public PagingSource<Integer, Note> searchRecentLexicographicallyPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.searchRecentLexicographically, accountId, query);
     }
 
-    public LiveData<List<Note>> searchFavoritesByModified$(long accountId, String query) {
-        return db.getNoteDao().searchFavoritesByModified$(accountId, query);
+    public PagingSource<Integer, Note> searchFavoritesByModifiedPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.searchFavoritesByModified, accountId, query);
     }
 
     public List<Note> searchFavoritesByModified(long accountId, String query) {
         return db.getNoteDao().searchFavoritesByModified(accountId, query);
     }
 
-    public LiveData<List<Note>> searchFavoritesLexicographically$(long accountId, String query) {
-        return db.getNoteDao().searchFavoritesLexicographically$(accountId, query);
+    public PagingSource<Integer, Note> searchFavoritesLexicographicallyPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.searchFavoritesLexicographically, accountId, query);
     }
 
-    public LiveData<List<Note>> searchUncategorizedByModified$(long accountId, String query) {
-        return db.getNoteDao().searchUncategorizedByModified$(accountId, query);
+    public PagingSource<Integer, Note> searchUncategorizedByModifiedPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.searchUncategorizedByModified, accountId, query);
     }
 
     public List<Note> searchUncategorizedByModified(long accountId, String query) {
         return db.getNoteDao().searchUncategorizedByModified(accountId, query);
     }
 
-    public LiveData<List<Note>> searchUncategorizedLexicographically$(long accountId, String query) {
-        return db.getNoteDao().searchUncategorizedLexicographically$(accountId, query);
+    public PagingSource<Integer, Note> searchUncategorizedLexicographicallyPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.searchUncategorizedLexicographically, accountId, query);
     }
 
-    public LiveData<List<Note>> searchCategoryByModified$(long accountId, String query, String category) {
-        return db.getNoteDao().searchCategoryByModified$(accountId, query, category);
+    public PagingSource<Integer, Note> searchCategoryByModifiedPaged(long accountId, String query, String category) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.searchCategoryByModified, accountId, query, category);
     }
 
     public List<Note> searchCategoryByModified(long accountId, String query, String category) {
         return db.getNoteDao().searchCategoryByModified(accountId, query, category);
     }
 
-    public LiveData<List<Note>> searchCategoryLexicographically$(long accountId, String query, String category) {
-        return db.getNoteDao().searchCategoryLexicographically$(accountId, query, category);
+    public PagingSource<Integer, Note> searchCategoryLexicographicallyPaged(long accountId, String query, String category) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.searchCategoryLexicographically, accountId, query, category);
+    }
+
+    public PagingSource<Integer, Note> fullTextSearchRecentByModifiedPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.fullTextSearchRecentByModified, accountId, query);
+    }
+
+    public PagingSource<Integer, Note> fullTextSearchRecentLexicographicallyPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.fullTextSearchRecentLexicographically, accountId, query);
+    }
+
+    public PagingSource<Integer, Note> fullTextSearchFavoritesByModifiedPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.fullTextSearchFavoritesByModified, accountId, query);
+    }
+
+    public PagingSource<Integer, Note> fullTextSearchFavoritesLexicographicallyPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.fullTextSearchFavoritesLexicographically, accountId, query);
+    }
+
+    public PagingSource<Integer, Note> fullTextSearchUncategorizedByModifiedPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.fullTextSearchUncategorizedByModified, accountId, query);
+    }
+
+    public PagingSource<Integer, Note> fullTextSearchUncategorizedLexicographicallyPaged(long accountId, String query) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.fullTextSearchUncategorizedLexicographically, accountId, query);
+    }
+
+    public PagingSource<Integer, Note> fullTextSearchCategoryByModifiedPaged(long accountId, String query, String category) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.fullTextSearchCategoryByModified, accountId, query, category);
+    }
+
+    public PagingSource<Integer, Note> fullTextSearchCategoryLexicographicallyPaged(long accountId, String query, String category) {
+        return new NoteChangePagingSource(this, db.getNoteDao(), executor, change -> affectsList(change, accountId), NoteDao.fullTextSearchCategoryLexicographically, accountId, query, category);
     }
 
     public LiveData<List<CategoryWithNotesCount>> getCategories$(Long accountId) {
-        return db.getNoteDao().getCategories$(accountId);
+        return new NoteChangeLiveData<>(this, executor, change -> affectsCategories(change, accountId), () -> db.getNoteDao().getCategories(accountId));
+    }
+
+    private static boolean affectsList(@NonNull NoteChange change, long accountId) {
+        return change.affectsAccount(accountId) && change.affectsAnyOf(NoteChange.FIELDS_SHOWN_IN_LISTS);
+    }
+
+    private static boolean affectsCategories(@NonNull NoteChange change, long accountId) {
+        return change.affectsAccount(accountId) && change.affectsAnyOf(NoteChange.FIELDS_COUNTED_IN_CATEGORIES);
     }
 
-    public void updateRemoteId(long id, Long remoteId) {
+    public void updateRemoteId(long accountId, long id, Long remoteId) {
         db.getNoteDao().updateRemoteId(id, remoteId);
+        notifyNoteChanged(NoteChange.updated(accountId, Collections.singleton(id), Field.REMOTE));
     }
 
     public Long getLocalIdByRemoteId(long accountId, long remoteId) {
@@ -318,19 +419,113 @@ public class NotesRepository {
         return db.getNoteDao().getLocalModifiedNotes(accountId);
     }
 
-    public void deleteByNoteId(long id, DBStatus forceDBStatus) {
-        db.getNoteDao().deleteByNoteId(id, forceDBStatus);
+    public void deleteByNoteId(long accountId, long id, DBStatus forceDBStatus) {
+        if (db.getNoteDao().deleteByNoteId(id, forceDBStatus) > 0) {
+            notifyNoteChanged(NoteChange.deleted(accountId, Collections.singleton(id)));
+        }
+    }
+
+    /**
+     * Deletes all given notes in a single statement, see {@link #deleteByNoteId(long, long, DBStatus)}.
+     * Keep the size of <code>ids</code> below the SQLite host parameter limit.
+     */
+    @WorkerThread
+    public void deleteByNoteIds(long accountId, @NonNull List<Long> ids, DBStatus forceDBStatus) {
+        if (db.getNoteDao().deleteByNoteIds(ids, forceDBStatus) > 0) {
+            notifyNoteChanged(NoteChange.deleted(accountId, ids));
+        }
+    }
+
+    /**
+     * Applies a batch of remote notes in one single transaction, so observers get invalidated only once per batch.
+     * Excerpts will be generated for all given notes which are added or whose content or title has changed.
+     * Notes whose remote columns and {@link Note#getContentHash()} did not change will be skipped entirely.
+     *
+     * @param notesToUpdate remote notes with the local ID as key. They will only be updated if not modified locally and if any remote column has changed.
+     * @param notesToAdd    remote notes which do not yet exist locally. They will be inserted with {@link DBStatus#VOID}.
+     */
+    @WorkerThread
+    public void applyRemoteChanges(long accountId, @NonNull Map<Long, Note> notesToUpdate, @NonNull List<Note> notesToAdd) {
+        final List<Long> updatedMetadataIds = new ArrayList<>();
+        final List<Long> updatedIds = new ArrayList<>();
+        final List<Long> addedIds = new ArrayList<>();
+        db.runInTransaction(() -> {
+            if (!notesToUpdate.isEmpty()) {
+                final Map<Long, Note> localNotes = db.getNoteDao()
+                        .getRemoteColumns(notesToUpdate.keySet())
+                        .stream()
+                        .collect(toMap(Note::getId, note -> note));
+                for (Map.Entry<Long, Note> entry : notesToUpdate.entrySet()) {
+                    final Note remoteNote = entry.getValue();
+                    final Note localNote = localNotes.get(entry.getKey());
+                    final long contentHash = ContentHashUtil.hash(remoteNote.getContent());
+                    if (localNote == null || localNote.getStatus() != DBStatus.VOID || !anyRemoteColumnHasChanged(localNote, remoteNote, contentHash)) {
+                        continue;
+                    }
+                    final long modified = Objects.requireNonNull(remoteNote.getModified()).getTimeInMillis();
+                    if (localNote.getContentHash() == contentHash && localNote.getTitle().equals(remoteNote.getTitle())) {
+                        // Neither content nor title changed, so the excerpt stays the same
+                        if (db.getNoteDao().updateMetadataIfNotModifiedLocally(entry.getKey(), modified, remoteNote.getFavorite(), remoteNote.getETag()) > 0) {
+                            updatedMetadataIds.add(entry.getKey());
+                        }
+                    } else if (db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
+                            entry.getKey(), modified, remoteNote.getTitle(), remoteNote.getFavorite(), remoteNote.getCategory(), remoteNote.getETag(), remoteNote.getContent(), contentHash, generateNoteExcerpt(remoteNote.getContent(), remoteNote.getTitle())) > 0) {
+                        updatedIds.add(entry.getKey());
+                    }
+                }
+            }
+            if (!notesToAdd.isEmpty()) {
+                for (Note note : notesToAdd) {
+                    note.setStatus(DBStatus.VOID);
+                    note.setAccountId(accountId);
+                    note.setContentHash(ContentHashUtil.hash(note.getContent()));
+                    note.setExcerpt(generateNoteExcerpt(note.getContent(), note.getTitle()));
+                }
+                addedIds.addAll(db.getNoteDao().addNotes(notesToAdd));
+            }
+        });
+        if (!updatedMetadataIds.isEmpty()) {
+            notifyNoteChanged(NoteChange.updated(accountId, updatedMetadataIds, Field.MODIFIED, Field.FAVORITE, Field.REMOTE));
+        }
+        if (!updatedIds.isEmpty()) {
+            notifyNoteChanged(NoteChange.updated(accountId, updatedIds, Field.TITLE, Field.CONTENT, Field.MODIFIED, Field.FAVORITE, Field.REMOTE));
+        }
+        if (!addedIds.isEmpty()) {
+            notifyNoteChanged(NoteChange.added(accountId, addedIds));
+        }
+    }
+
+    /**
+     * Same comparison as {@link it.niedermann.owncloud.notes.persistence.dao.NoteDao#updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long, Long, String, boolean, String, String, String, long, String)}, but without touching the database.
+     */
+    private static boolean anyRemoteColumnHasChanged(@NonNull Note localNote, @NonNull Note remoteNote, long remoteContentHash) {
+        return localNote.getContentHash() != remoteContentHash
+                || !localNote.getTitle().equals(remoteNote.getTitle())
+                || localNote.getFavorite() != remoteNote.getFavorite()
+                || !localNote.getCategory().equals(remoteNote.getCategory())
+                || localNote.getETag() == null
+                || !localNote.getETag().equals(remoteNote.getETag())
+                || localNote.getModified() == null
+                || localNote.getModified().getTimeInMillis() != Objects.requireNonNull(remoteNote.getModified()).getTimeInMillis();
     }
 
     /**
      * Please note, that db.updateNote() realized an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
      */
-    public int updateIfNotModifiedLocallyDuringSync(long noteId, Long targetModified, String targetTitle, boolean targetFavorite, String targetETag, String targetContent, String targetExcerpt, String contentBeforeSyncStart, String categoryBeforeSyncStart, boolean favoriteBeforeSyncStart) {
-        return db.getNoteDao().updateIfNotModifiedLocallyDuringSync(noteId, targetModified, targetTitle, targetFavorite, targetETag, targetContent, targetExcerpt, contentBeforeSyncStart, categoryBeforeSyncStart, favoriteBeforeSyncStart);
+    public int updateIfNotModifiedLocallyDuringSync(long accountId, long noteId, Long targetModified, String targetTitle, boolean targetFavorite, String targetETag, String targetContent, String targetExcerpt, String contentBeforeSyncStart, String categoryBeforeSyncStart, boolean favoriteBeforeSyncStart) {
+        final int rows = db.getNoteDao().updateIfNotModifiedLocallyDuringSync(noteId, targetModified, targetTitle, targetFavorite, targetETag, targetContent, ContentHashUtil.hash(targetContent), targetExcerpt, ContentHashUtil.hash(contentBeforeSyncStart), categoryBeforeSyncStart, favoriteBeforeSyncStart);
+        if (rows > 0) {
+            notifyNoteChanged(NoteChange.updated(accountId, Collections.singleton(noteId), Field.TITLE, Field.CONTENT, Field.FAVORITE, Field.STATUS, Field.MODIFIED, Field.REMOTE));
+        }
+        return rows;
     }
 
-    public int updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long id, Long modified, String title, boolean favorite, String category, String eTag, String content, String excerpt) {
-        return db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(id, modified, title, favorite, category, eTag, content, excerpt);
+    public int updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long accountId, long id, Long modified, String title, boolean favorite, String category, String eTag, String content, String excerpt) {
+        final int rows = db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(id, modified, title, favorite, category, eTag, content, ContentHashUtil.hash(content), excerpt);
+        if (rows > 0) {
+            notifyNoteChanged(NoteChange.updated(accountId, Collections.singleton(id), Field.TITLE, Field.CONTENT, Field.MODIFIED, Field.FAVORITE, Field.REMOTE));
+        }
+        return rows;
     }
 
     public long countUnsynchronizedNotes(long accountId) {
@@ -376,11 +571,10 @@ public class NotesRepository {
     @NonNull
     @MainThread
     public LiveData<Note> addNoteAndSync(Account account, Note note) {
-        final Note entity = new Note(0, null, note.getModified(), note.getTitle(), note.getContent(), note.getCategory(), note.getFavorite(), note.getETag(), DBStatus.LOCAL_EDITED, account.getId(), generateNoteExcerpt(note.getContent(), note.getTitle()), 0);
+        final Note entity = new Note(0, null, note.getModified(), note.getTitle(), note.getContent(), note.getCategory(), note.getFavorite(), note.getETag(), DBStatus.LOCAL_EDITED, account.getId(), generateNoteExcerpt(note.getContent(), note.getTitle()));
         final MutableLiveData<Note> ret = new MutableLiveData<>();
         executor.submit(() -> ret.postValue(addNote(account.getId(), entity)));
         return map(ret, newNote -> {
-            notifyWidgets();
             scheduleSync(account, true);
             return newNote;
         });
@@ -399,8 +593,11 @@ public class NotesRepository {
     public Note addNote(long accountId, @NonNull Note note) {
         note.setStatus(note.getId() > 0 ? DBStatus.LOCAL_EDITED : DBStatus.VOID);
         note.setAccountId(accountId);
+        note.setContentHash(ContentHashUtil.hash(note.getContent()));
         note.setExcerpt(generateNoteExcerpt(note.getContent(), note.getTitle()));
-        return db.getNoteDao().getNoteById(db.getNoteDao().addNote(note));
+        final long id = db.getNoteDao().addNote(note);
+        notifyNoteChanged(NoteChange.added(accountId, Collections.singleton(id)));
+        return db.getNoteDao().getNoteById(id);
     }
 
     @MainThread
@@ -425,10 +622,22 @@ public class NotesRepository {
                 .collect(toMap(Note::getRemoteId, Note::getId));
     }
 
+    /**
+     * @return a map of the <code>remoteId</code>s to the last known <code>eTag</code>s, which might be <code>null</code>
+     */
+    public Map<Long, String> getETagMap(long accountId) {
+        final Map<Long, String> eTagMap = new HashMap<>();
+        for (Note note : db.getNoteDao().getRemoteIdAndId(accountId)) {
+            eTagMap.put(note.getRemoteId(), note.getETag());
+        }
+        return eTagMap;
+    }
+
     @AnyThread
     public void toggleFavoriteAndSync(Account account, long noteId) {
         executor.submit(() -> {
             db.getNoteDao().toggleFavorite(noteId);
+            notifyNoteChanged(NoteChange.updated(account.getId(), Collections.singleton(noteId), Field.FAVORITE, Field.STATUS));
             scheduleSync(account, true);
         });
     }
@@ -447,6 +656,7 @@ public class NotesRepository {
         executor.submit(() -> {
             db.getNoteDao().updateStatus(noteId, DBStatus.LOCAL_EDITED);
             db.getNoteDao().updateCategory(noteId, category);
+            notifyNoteChanged(NoteChange.updated(account.getId(), Collections.singleton(noteId), Field.CATEGORY, Field.STATUS));
             scheduleSync(account, true);
         });
     }
@@ -468,7 +678,7 @@ public class NotesRepository {
         // https://github.com/stefan-niedermann/nextcloud-notes/issues/1198
         @Nullable final Long remoteId = db.getNoteDao().getRemoteId(oldNote.getId());
         if (newContent == null) {
-            newNote = new Note(oldNote.getId(), remoteId, oldNote.getModified(), oldNote.getTitle(), oldNote.getContent(), oldNote.getCategory(), oldNote.getFavorite(), oldNote.getETag(), DBStatus.LOCAL_EDITED, localAccount.getId(), oldNote.getExcerpt(), oldNote.getScrollY());
+            newNote = new Note(oldNote.getId(), remoteId, oldNote.getModified(), oldNote.getTitle(), oldNote.getContent(), oldNote.getCategory(), oldNote.getFavorite(), oldNote.getETag(), DBStatus.LOCAL_EDITED, localAccount.getId(), oldNote.getExcerpt());
         } else {
             final String title;
             if (newTitle != null) {
@@ -482,12 +692,13 @@ public class NotesRepository {
                     title = oldNote.getTitle();
                 }
             }
-            newNote = new Note(oldNote.getId(), remoteId, Calendar.getInstance(), title, newContent, oldNote.getCategory(), oldNote.getFavorite(), oldNote.getETag(), DBStatus.LOCAL_EDITED, localAccount.getId(), generateNoteExcerpt(newContent, title), oldNote.getScrollY());
+            newNote = new Note(oldNote.getId(), remoteId, Calendar.getInstance(), title, newContent, oldNote.getCategory(), oldNote.getFavorite(), oldNote.getETag(), DBStatus.LOCAL_EDITED, localAccount.getId(), generateNoteExcerpt(newContent, title));
         }
+        newNote.setContentHash(ContentHashUtil.hash(newNote.getContent()));
         int rows = db.getNoteDao().updateNote(newNote);
         // if data was changed, set new status and schedule sync (with callback); otherwise invoke callback directly.
         if (rows > 0) {
-            notifyWidgets();
+            notifyNoteChanged(NoteChange.updated(localAccount.getId(), Collections.singleton(newNote.getId()), Field.TITLE, Field.CONTENT, Field.MODIFIED, Field.STATUS));
             if (callback != null) {
                 addCallbackPush(localAccount, callback);
             }
@@ -501,6 +712,76 @@ public class NotesRepository {
         }
     }
 
+    /**
+     * Same as {@link #updateNoteAndSync(Account, Note, String, String, ISyncCallback)}, but writes on a worker thread.
+     * <p>
+     * Saves of the same note are written one after another. Saves which are requested while another save of this
+     * note is still being written get coalesced, so only the most recent one is actually written.
+     * All callbacks and returned {@link LiveData} of coalesced saves are notified about the result of this write.
+     *
+     * @return {@link LiveData} which will receive the {@link Note} as returned by {@link #updateNoteAndSync(Account, Note, String, String, ISyncCallback)}, or the unchanged {@param oldNote} if writing failed
+     */
+    @AnyThread
+    public LiveData<Note> saveNoteAndSync(@NonNull Account localAccount, @NonNull Note oldNote, @Nullable String newContent, @Nullable String newTitle, @Nullable ISyncCallback callback) {
+        final MutableLiveData<Note> result = new MutableLiveData<>();
+        final boolean startWriter;
+        synchronized (pendingSaves) {
+            PendingSave pendingSave = pendingSaves.get(oldNote.getId());
+            if (pendingSave == null) {
+                pendingSave = new PendingSave();
+                pendingSaves.put(oldNote.getId(), pendingSave);
+            } else if (newTitle == null) {
+                // Do not lose an explicitly set title of a coalesced save
+                newTitle = pendingSave.newTitle;
+            }
+            pendingSave.account = localAccount;
+            pendingSave.note = oldNote;
+            pendingSave.newContent = newContent;
+            pendingSave.newTitle = newTitle;
+            if (callback != null) {
+                pendingSave.callbacks.add(callback);
+            }
+            pendingSave.results.add(result);
+            startWriter = activeSaves.add(oldNote.getId());
+        }
+        if (startWriter) {
+            executor.submit(() -> writePendingSaves(oldNote.getId()));
+        }
+        return result;
+    }
+
+    /**
+     * Single writer for the given {@param noteId}: Writes pending saves until there are no more.
+     */
+    @WorkerThread
+    private void writePendingSaves(long noteId) {
+        while (true) {
+            final PendingSave pendingSave;
+            synchronized (pendingSaves) {
+                pendingSave = pendingSaves.remove(noteId);
+                if (pendingSave == null) {
+                    activeSaves.remove(noteId);
+                    return;
+                }
+            }
+            final ISyncCallback callback = pendingSave.getCallback();
+            Note savedNote = pendingSave.note;
+            try {
+                savedNote = updateNoteAndSync(pendingSave.account, pendingSave.note, pendingSave.newContent, pendingSave.newTitle, callback);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Could not save note " + noteId, e);
+                // Like an unchanged note, so nobody waits for a save which will never happen
+                if (callback != null) {
+                    callback.onFinish();
+                }
+            } finally {
+                for (MutableLiveData<Note> result : pendingSave.results) {
+                    result.postValue(savedNote);
+                }
+            }
+        }
+    }
+
     /**
      * Marks a Note in the Database as Deleted. In the next Synchronization it will be deleted
      * from the Server.
@@ -511,7 +792,7 @@ public class NotesRepository {
     public void deleteNoteAndSync(Account account, long id) {
         executor.submit(() -> {
             db.getNoteDao().updateStatus(id, DBStatus.LOCAL_DELETED);
-            notifyWidgets();
+            notifyNoteChanged(NoteChange.updated(account.getId(), Collections.singleton(id), Field.STATUS));
             scheduleSync(account, true);
 
             if (SDK_INT >= O) {
@@ -531,15 +812,57 @@ public class NotesRepository {
         });
     }
 
+    @AnyThread
+    public void addNoteChangeListener(@NonNull INoteChangeListener listener) {
+        noteChangeListeners.add(listener);
+    }
+
+    @AnyThread
+    public void removeNoteChangeListener(@NonNull INoteChangeListener listener) {
+        noteChangeListeners.remove(listener);
+    }
+
     /**
-     * Notify about changed notes.
+     * Notifies all {@link INoteChangeListener}s and the widgets which display any of the changed notes.
+     * Must be called after the change has been committed, so listeners which query again will see it.
      */
-    @AnyThread
-    private void notifyWidgets() {
-        executor.submit(() -> {
+    @WorkerThread
+    private void notifyNoteChanged(@NonNull NoteChange change) {
+        Log.v(TAG, "notifyNoteChanged: " + change);
+        final List<INoteChangeListener> listeners;
+        synchronized (noteChangeListeners) {
+            listeners = new ArrayList<>(noteChangeListeners);
+        }
+        for (INoteChangeListener listener : listeners) {
+            listener.onNoteChanged(change);
+        }
+        if (change.affectsAnyOf(NoteChange.FIELDS_SHOWN_IN_LISTS)) {
+            notifyWidgets(change);
+        }
+    }
+
+    /**
+     * Updates only those widgets which might display any of the changed notes.
+     */
+    @WorkerThread
+    private void notifyWidgets(@NonNull NoteChange change) {
+        final Long accountId = change.getAccountId();
+        if (accountId == null) {
             updateSingleNoteWidgets(context);
             updateNoteListWidgets(context);
-        });
+            return;
+        }
+        final Set<Long> noteIds = change.getNoteIds();
+        final List<Integer> singleNoteWidgetIds = noteIds == null
+                ? db.getWidgetSingleNoteDao().getSingleNoteWidgetIdsByAccountId(accountId)
+                : db.getWidgetSingleNoteDao().getSingleNoteWidgetIdsByNoteIds(noteIds);
+        if (!singleNoteWidgetIds.isEmpty()) {
+            updateSingleNoteWidgets(context, singleNoteWidgetIds.stream().mapToInt(Integer::intValue).toArray());
+        }
+        final List<Integer> noteListWidgetIds = db.getWidgetNotesListDao().getNoteListWidgetIdsByAccountId(accountId);
+        if (!noteListWidgetIds.isEmpty()) {
+            updateNoteListWidgets(context, noteListWidgetIds.stream().mapToInt(Integer::intValue).toArray());
+        }
     }
 
     @AnyThread
@@ -737,10 +1060,7 @@ public class NotesRepository {
             callback.onScheduled();
             callback.onFinish();
         } else {
-            if (!callbacksPush.containsKey(account.getId())) {
-                callbacksPush.put(account.getId(), new ArrayList<>());
-            }
-            Objects.requireNonNull(callbacksPush.get(account.getId())).add(callback);
+            syncScheduler.addCallbackPush(account, callback);
         }
     }
 
@@ -758,105 +1078,86 @@ public class NotesRepository {
             callback.onScheduled();
             callback.onFinish();
         } else {
-            if (!callbacksPull.containsKey(account.getId())) {
-                callbacksPull.put(account.getId(), new ArrayList<>());
-            }
-            Objects.requireNonNull(callbacksPull.get(account.getId())).add(callback);
+            syncScheduler.addCallbackPull(account, callback);
         }
     }
 
     /**
      * Schedules a synchronization and start it directly, if the network is connected and no
-     * synchronization is currently running.
+     * synchronization is currently running. See {@link SyncScheduler} for how requests get coalesced.
      *
      * @param onlyLocalChanges Whether to only push local changes to the server or to also load the whole list of notes from the server.
      */
-    public synchronized void scheduleSync(@Nullable Account account, boolean onlyLocalChanges) {
+    @AnyThread
+    public void scheduleSync(@Nullable Account account, boolean onlyLocalChanges) {
         if (account == null) {
             Log.i(TAG, SingleSignOnAccount.class.getSimpleName() + " is null. Is this a local account?");
         } else {
-            if (syncActive.get(account.getId()) == null) {
-                syncActive.put(account.getId(), false);
+            syncScheduler.requestSync(account, onlyLocalChanges);
+        }
+    }
+
+    /**
+     * @return whether a synchronization of the given {@link Account} is currently running
+     */
+    @AnyThread
+    public boolean isSyncActive(long accountId) {
+        return syncScheduler.isSyncActive(accountId);
+    }
+
+    private void addSyncMetrics(@NonNull SyncMetrics metrics) {
+        synchronized (syncMetrics) {
+            Deque<SyncMetrics> metricsOfAccount = syncMetrics.get(metrics.getAccountId());
+            if (metricsOfAccount == null) {
+                metricsOfAccount = new ArrayDeque<>(MAX_SYNC_METRICS);
+                syncMetrics.put(metrics.getAccountId(), metricsOfAccount);
             }
-            Log.d(TAG, "Sync requested (" + (onlyLocalChanges ? "onlyLocalChanges" : "full") + "; " + (Boolean.TRUE.equals(syncActive.get(account.getId())) ? "sync active" : "sync NOT active") + ") ...");
-            if (isSyncPossible() && (!Boolean.TRUE.equals(syncActive.get(account.getId())) || onlyLocalChanges)) {
-                syncActive.put(account.getId(), true);
-                try {
-                    Log.d(TAG, "... starting now");
-                    final NotesServerSyncTask syncTask = new NotesServerSyncTask(context, this, account, onlyLocalChanges) {
-                        @Override
-                        void onPreExecute() {
-                            syncStatus.postValue(true);
-                            if (!syncScheduled.containsKey(localAccount.getId()) || syncScheduled.get(localAccount.getId()) == null) {
-                                syncScheduled.put(localAccount.getId(), false);
-                            }
-                            if (!onlyLocalChanges && Boolean.TRUE.equals(syncScheduled.get(localAccount.getId()))) {
-                                syncScheduled.put(localAccount.getId(), false);
-                            }
-                        }
+            if (metricsOfAccount.size() >= MAX_SYNC_METRICS) {
+                metricsOfAccount.removeLast();
+            }
+            metricsOfAccount.addFirst(metrics);
+        }
+    }
 
-                        @Override
-                        void onPostExecute(SyncResultStatus status) {
-                            for (Throwable e : exceptions) {
-                                Log.e(TAG, e.getMessage(), e);
-                            }
-                            if (!status.pullSuccessful || !status.pushSuccessful) {
-                                syncErrors.postValue(exceptions);
-                            }
-                            syncActive.put(localAccount.getId(), false);
-                            // notify callbacks
-                            if (callbacks.containsKey(localAccount.getId()) && callbacks.get(localAccount.getId()) != null) {
-                                for (ISyncCallback callback : Objects.requireNonNull(callbacks.get(localAccount.getId()))) {
-                                    callback.onFinish();
-                                }
-                            }
-                            notifyWidgets();
-                            updateDynamicShortcuts(localAccount.getId());
-                            // start next sync if scheduled meanwhile
-                            if (syncScheduled.containsKey(localAccount.getId()) && syncScheduled.get(localAccount.getId()) != null && Boolean.TRUE.equals(syncScheduled.get(localAccount.getId()))) {
-                                scheduleSync(localAccount, false);
-                            }
-                            syncStatus.postValue(false);
-                        }
-                    };
-                    syncTask.addCallbacks(account, callbacksPush.get(account.getId()));
-                    callbacksPush.put(account.getId(), new ArrayList<>());
-                    if (!onlyLocalChanges) {
-                        syncTask.addCallbacks(account, callbacksPull.get(account.getId()));
-                        callbacksPull.put(account.getId(), new ArrayList<>());
-                    }
-                    executor.submit(syncTask);
-                } catch (NextcloudFilesAppAccountNotFoundException e) {
-                    Log.e(TAG, "... Could not find " + SingleSignOnAccount.class.getSimpleName() + " for account name " + account.getAccountName());
-                    e.printStackTrace();
+    /**
+     * @return the {@link SyncMetrics} of the most recent synchronizations of the given account since the app has been started, newest first
+     */
+    @NonNull
+    @AnyThread
+    public List<SyncMetrics> getSyncMetrics(long accountId) {
+        synchronized (syncMetrics) {
+            final Deque<SyncMetrics> metricsOfAccount = syncMetrics.get(accountId);
+            return metricsOfAccount == null ? Collections.emptyList() : new ArrayList<>(metricsOfAccount);
+        }
+    }
+
+    @NonNull
+    private NotesServerSyncTask createSyncTask(@NonNull Account account, boolean onlyLocalChanges) throws NextcloudFilesAppAccountNotFoundException {
+        return new NotesServerSyncTask(context, this, account, onlyLocalChanges, pushConcurrency) {
+            @Override
+            void onPreExecute() {
+                syncStatus.postValue(true);
+            }
+
+            @Override
+            void onPostExecute(SyncResultStatus status) {
+                for (Throwable e : exceptions) {
+                    Log.e(TAG, e.getMessage(), e);
                 }
-            } else if (!onlyLocalChanges) {
-                Log.d(TAG, "... scheduled");
-                syncScheduled.put(account.getId(), true);
-                if (callbacksPush.containsKey(account.getId()) && callbacksPush.get(account.getId()) != null) {
-                    final List<ISyncCallback> callbacks = callbacksPush.get(account.getId());
-                    if (callbacks != null) {
-                        for (ISyncCallback callback : callbacks) {
-                            callback.onScheduled();
-                        }
-                    } else {
-                        Log.w(TAG, "List of push-callbacks was set for account \"" + account.getAccountName() + "\" but it was null");
-                    }
+                if (!status.pullSuccessful || !status.pushSuccessful) {
+                    syncErrors.postValue(exceptions);
                 }
-            } else {
-                Log.d(TAG, "... do nothing");
-                if (callbacksPush.containsKey(account.getId()) && callbacksPush.get(account.getId()) != null) {
-                    final List<ISyncCallback> callbacks = callbacksPush.get(account.getId());
-                    if (callbacks != null) {
-                        for (ISyncCallback callback : callbacks) {
-                            callback.onScheduled();
-                        }
-                    } else {
-                        Log.w(TAG, "List of push-callbacks was set for account \"" + account.getAccountName() + "\" but it was null");
+                // notify callbacks
+                if (callbacks.containsKey(localAccount.getId()) && callbacks.get(localAccount.getId()) != null) {
+                    for (ISyncCallback callback : Objects.requireNonNull(callbacks.get(localAccount.getId()))) {
+                        callback.onFinish();
                     }
                 }
+                addSyncMetrics(metrics);
+                updateDynamicShortcuts(localAccount.getId());
+                syncStatus.postValue(false);
             }
-        }
+        };
     }
 
     public void updateNetworkStatus() {
@@ -911,4 +1212,39 @@ public class NotesRepository {
     public void updateDisplayName(long id, @Nullable String displayName) {
         db.getAccountDao().updateDisplayName(id, displayName);
     }
+
+    private static class PendingSave {
+        private Account account;
+        private Note note;
+        @Nullable
+        private String newContent;
+        @Nullable
+        private String newTitle;
+        private final List<ISyncCallback> callbacks = new ArrayList<>();
+        private final List<MutableLiveData<Note>> results = new ArrayList<>();
+
+        @Nullable
+        private ISyncCallback getCallback() {
+            if (callbacks.isEmpty()) {
+                return null;
+            } else if (callbacks.size() == 1) {
+                return callbacks.get(0);
+            }
+            return new ISyncCallback() {
+                @Override
+                public void onFinish() {
+                    for (ISyncCallback callback : callbacks) {
+                        callback.onFinish();
+                    }
+                }
+
+                @Override
+                public void onScheduled() {
+                    for (ISyncCallback callback : callbacks) {
+                        callback.onScheduled();
+                    }
+                }
+            };
+        }
+    }
 }
@@ -4,15 +4,16 @@ import android.content.Context;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.nextcloud.android.sso.AccountImporter;
-import com.nextcloud.android.sso.api.ParsedResponse;
 import com.nextcloud.android.sso.exceptions.NextcloudApiNotRespondingException;
 import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
 import com.nextcloud.android.sso.exceptions.NextcloudHttpRequestFailedException;
 import com.nextcloud.android.sso.exceptions.TokenMismatchException;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -21,20 +22,31 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.persistence.sync.NotesAPI;
+import it.niedermann.owncloud.notes.persistence.sync.StreamedNotesResponse;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
 import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
+import it.niedermann.owncloud.notes.shared.model.SyncMetrics;
+import it.niedermann.owncloud.notes.shared.model.SyncMetrics.Counter;
+import it.niedermann.owncloud.notes.shared.model.SyncMetrics.Phase;
 import it.niedermann.owncloud.notes.shared.model.SyncResultStatus;
 import it.niedermann.owncloud.notes.shared.util.ApiVersionUtil;
 import retrofit2.Response;
 
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_DELETED;
 import static it.niedermann.owncloud.notes.shared.util.NoteUtil.generateNoteExcerpt;
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
 import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
 
 
@@ -49,6 +61,18 @@ abstract class NotesServerSyncTask extends Thread {
     private static final String HEADER_KEY_X_NOTES_API_VERSIONS = "X-Notes-API-Versions";
     private static final String HEADER_KEY_ETAG = "ETag";
     private static final String HEADER_KEY_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_KEY_X_NOTES_CHUNK_CURSOR = "X-Notes-Chunk-Cursor";
+
+    /**
+     * Maximum count of remote changes which get applied in one database transaction, also used as size of downloaded chunks.
+     * Must stay below the SQLite host parameter limit because deletions are issued as one statement per batch.
+     */
+    private static final int PULL_BATCH_SIZE = 200;
+
+    /**
+     * If more notes than this have changed, their contents are fetched with one list request instead of one request per note.
+     */
+    private static final int MAX_SINGLE_NOTE_REQUESTS = 20;
 
     private NotesAPI notesAPI;
     @NonNull
@@ -60,24 +84,37 @@ abstract class NotesServerSyncTask extends Thread {
     @NonNull
     private final SingleSignOnAccount ssoAccount;
     private final boolean onlyLocalChanges;
+    private final int pushConcurrency;
     @NonNull
     protected final Map<Long, List<ISyncCallback>> callbacks = new HashMap<>();
     @NonNull
     protected final ArrayList<Throwable> exceptions = new ArrayList<>();
+    @NonNull
+    protected final SyncMetrics metrics;
+    private volatile boolean cancelled = false;
 
-    NotesServerSyncTask(@NonNull Context context, @NonNull NotesRepository repo, @NonNull Account localAccount, boolean onlyLocalChanges) throws NextcloudFilesAppAccountNotFoundException {
+    NotesServerSyncTask(@NonNull Context context, @NonNull NotesRepository repo, @NonNull Account localAccount, boolean onlyLocalChanges, int pushConcurrency) throws NextcloudFilesAppAccountNotFoundException {
         super(TAG);
         this.context = context;
         this.repo = repo;
         this.localAccount = localAccount;
         this.ssoAccount = AccountImporter.getSingleSignOnAccount(context, localAccount.getAccountName());
         this.onlyLocalChanges = onlyLocalChanges;
+        this.pushConcurrency = pushConcurrency;
+        this.metrics = new SyncMetrics(localAccount.getId(), onlyLocalChanges);
     }
 
     void addCallbacks(Account account, List<ISyncCallback> callbacks) {
         this.callbacks.put(account.getId(), callbacks);
     }
 
+    /**
+     * Stops this synchronization at the next point where it can be resumed later without losing remote changes.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
     @Override
     public void run() {
         onPreExecute();
@@ -87,12 +124,15 @@ abstract class NotesServerSyncTask extends Thread {
         Log.i(TAG, "STARTING SYNCHRONIZATION");
 
         final SyncResultStatus status = new SyncResultStatus();
+        final long pushStart = System.nanoTime();
         status.pushSuccessful = pushLocalChanges();
-        if (!onlyLocalChanges) {
+        metrics.addDuration(Phase.PUSH, System.nanoTime() - pushStart);
+        if (!onlyLocalChanges && !cancelled) {
             status.pullSuccessful = pullRemoteChanges();
         }
+        metrics.finish(status, cancelled);
 
-        Log.i(TAG, "SYNCHRONIZATION FINISHED");
+        Log.i(TAG, "SYNCHRONIZATION FINISHED: " + metrics);
 
         onPostExecute(status);
     }
@@ -103,95 +143,275 @@ abstract class NotesServerSyncTask extends Thread {
 
     /**
      * Push local changes: for each locally created/edited/deleted Note, use NotesClient in order to push the changed to the server.
+     * Up to {@link #pushConcurrency} notes are pushed in parallel. Each note is handled by exactly one task, so the requests for the same note keep their order.
      */
     private boolean pushLocalChanges() {
         Log.d(TAG, "pushLocalChanges()");
 
-        boolean success = true;
         final List<Note> notes = repo.getLocalModifiedNotes(localAccount.getId());
+        if (notes.isEmpty()) {
+            return true;
+        }
+        final ExecutorService pushExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(pushConcurrency, notes.size())));
+        final List<Future<Boolean>> results = new ArrayList<>(notes.size());
         for (Note note : notes) {
-            Log.d(TAG, "   Process Local Note: " + note);
+            results.add(pushExecutor.submit(() -> pushLocalChange(note)));
+        }
+        pushExecutor.shutdown();
+
+        boolean success = true;
+        for (Future<Boolean> result : results) {
             try {
-                Note remoteNote;
-                switch (note.getStatus()) {
-                    case LOCAL_EDITED:
-                        Log.v(TAG, "   ...create/edit");
-                        if (note.getRemoteId() != null) {
-                            Log.v(TAG, "   ...Note has remoteId → try to edit");
-                            final Response<Note> editResponse = notesAPI.editNote(note).execute();
-                            if (editResponse.isSuccessful()) {
-                                remoteNote = editResponse.body();
-                            } else {
-                                if (editResponse.code() == HTTP_NOT_FOUND) {
-                                    Log.v(TAG, "   ...Note does no longer exist on server → recreate");
-                                    final Response<Note> createResponse = notesAPI.createNote(note).execute();
-                                    if (createResponse.isSuccessful()) {
-                                        remoteNote = createResponse.body();
-                                    } else {
-                                        throw new Exception(createResponse.errorBody().string());
-                                    }
+                if (!result.get()) {
+                    success = false;
+                }
+            } catch (ExecutionException e) {
+                addException(e.getCause() == null ? e : e.getCause());
+                success = false;
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Interrupted while waiting for local changes to be pushed.", e);
+                Thread.currentThread().interrupt();
+                pushExecutor.shutdownNow();
+                addException(e);
+                return false;
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Pushes the local change of a single {@link Note} to the server.
+     *
+     * @return <code>false</code> if an error occurred, which has been added to {@link #exceptions}.
+     */
+    private boolean pushLocalChange(@NonNull Note note) {
+        Log.d(TAG, "   Process Local Note: " + note);
+        try {
+            Note remoteNote;
+            switch (note.getStatus()) {
+                case LOCAL_EDITED:
+                    Log.v(TAG, "   ...create/edit");
+                    if (note.getRemoteId() != null) {
+                        Log.v(TAG, "   ...Note has remoteId → try to edit");
+                        final Response<Note> editResponse = notesAPI.editNote(note).execute();
+                        metrics.addHttpStatusCode(editResponse.code());
+                        if (editResponse.isSuccessful()) {
+                            remoteNote = editResponse.body();
+                        } else {
+                            if (editResponse.code() == HTTP_NOT_FOUND) {
+                                Log.v(TAG, "   ...Note does no longer exist on server → recreate");
+                                metrics.increment(Counter.RETRIES);
+                                final Response<Note> createResponse = notesAPI.createNote(note).execute();
+                                metrics.addHttpStatusCode(createResponse.code());
+                                if (createResponse.isSuccessful()) {
+                                    remoteNote = createResponse.body();
                                 } else {
-                                    throw new Exception(editResponse.errorBody().string());
+                                    throw new Exception(createResponse.errorBody().string());
                                 }
-                            }
-                        } else {
-                            Log.v(TAG, "   ...Note does not have a remoteId yet → create");
-                            final Response<Note> createResponse = notesAPI.createNote(note).execute();
-                            if (createResponse.isSuccessful()) {
-                                remoteNote = createResponse.body();
-                                repo.updateRemoteId(note.getId(), remoteNote.getRemoteId());
                             } else {
-                                throw new Exception(createResponse.errorBody().string());
+                                throw new Exception(editResponse.errorBody().string());
                             }
                         }
-                        // Please note, that db.updateNote() realized an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
-                        repo.updateIfNotModifiedLocallyDuringSync(note.getId(), remoteNote.getModified().getTimeInMillis(), remoteNote.getTitle(), remoteNote.getFavorite(), remoteNote.getETag(), remoteNote.getContent(), generateNoteExcerpt(remoteNote.getContent(), remoteNote.getTitle()), note.getContent(), note.getCategory(), note.getFavorite());
-                        break;
-                    case LOCAL_DELETED:
-                        if (note.getRemoteId() == null) {
-                            Log.v(TAG, "   ...delete (only local, since it has never been synchronized)");
+                    } else {
+                        Log.v(TAG, "   ...Note does not have a remoteId yet → create");
+                        final Response<Note> createResponse = notesAPI.createNote(note).execute();
+                        metrics.addHttpStatusCode(createResponse.code());
+                        if (createResponse.isSuccessful()) {
+                            remoteNote = createResponse.body();
+                            repo.updateRemoteId(localAccount.getId(), note.getId(), remoteNote.getRemoteId());
                         } else {
-                            Log.v(TAG, "   ...delete (from server and local)");
-                            final Response<Void> deleteResponse = notesAPI.deleteNote(note.getRemoteId()).execute();
-                            if (!deleteResponse.isSuccessful()) {
-                                if (deleteResponse.code() == HTTP_NOT_FOUND) {
-                                    Log.v(TAG, "   ...delete (note has already been deleted remotely)");
-                                } else {
-                                    throw new Exception(deleteResponse.errorBody().string());
-                                }
+                            throw new Exception(createResponse.errorBody().string());
+                        }
+                    }
+                    // Please note, that db.updateNote() realized an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
+                    repo.updateIfNotModifiedLocallyDuringSync(localAccount.getId(), note.getId(), remoteNote.getModified().getTimeInMillis(), remoteNote.getTitle(), remoteNote.getFavorite(), remoteNote.getETag(), remoteNote.getContent(), generateNoteExcerpt(remoteNote.getContent(), remoteNote.getTitle()), note.getContent(), note.getCategory(), note.getFavorite());
+                    break;
+                case LOCAL_DELETED:
+                    if (note.getRemoteId() == null) {
+                        Log.v(TAG, "   ...delete (only local, since it has never been synchronized)");
+                    } else {
+                        Log.v(TAG, "   ...delete (from server and local)");
+                        final Response<Void> deleteResponse = notesAPI.deleteNote(note.getRemoteId()).execute();
+                        metrics.addHttpStatusCode(deleteResponse.code());
+                        if (!deleteResponse.isSuccessful()) {
+                            if (deleteResponse.code() == HTTP_NOT_FOUND) {
+                                Log.v(TAG, "   ...delete (note has already been deleted remotely)");
+                            } else {
+                                throw new Exception(deleteResponse.errorBody().string());
                             }
                         }
-                        // Please note, that db.deleteNote() realizes an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
-                        repo.deleteByNoteId(note.getId(), LOCAL_DELETED);
-                        break;
-                    default:
-                        throw new IllegalStateException("Unknown State of Note " + note + ": " + note.getStatus());
+                    }
+                    // Please note, that db.deleteNote() realizes an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
+                    repo.deleteByNoteId(localAccount.getId(), note.getId(), LOCAL_DELETED);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown State of Note " + note + ": " + note.getStatus());
+            }
+        } catch (NextcloudHttpRequestFailedException e) {
+            metrics.addHttpStatusCode(e.getStatusCode());
+            if (e.getStatusCode() == HTTP_NOT_MODIFIED) {
+                Log.d(TAG, "Server returned HTTP Status Code 304 - Not Modified");
+            } else {
+                addException(e);
+                return false;
+            }
+        } catch (Exception e) {
+            if (e instanceof TokenMismatchException) {
+                ApiProvider.invalidateAPICache(ssoAccount);
+            }
+            addException(e);
+            return false;
+        }
+        metrics.increment(Counter.NOTES_PUSHED);
+        return true;
+    }
+
+    /**
+     * {@link #exceptions} may be written from multiple push tasks at the same time.
+     */
+    private void addException(@NonNull Throwable t) {
+        synchronized (exceptions) {
+            exceptions.add(t);
+        }
+    }
+
+    private interface StreamedRequest {
+        @NonNull
+        StreamedNotesResponse execute() throws Exception;
+    }
+
+    /**
+     * Performs the {@param request} and records the time until the response headers have been received as {@link Phase#FETCH}.
+     * Failed requests throw a {@link NextcloudHttpRequestFailedException} whose status code gets recorded by the caller.
+     */
+    @NonNull
+    private StreamedNotesResponse requestStreamed(@NonNull StreamedRequest request) throws Exception {
+        final long start = System.nanoTime();
+        try {
+            final StreamedNotesResponse response = request.execute();
+            metrics.addHttpStatusCode(HTTP_OK);
+            return response;
+        } finally {
+            metrics.addDuration(Phase.FETCH, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reads the next {@link Note} of the {@param response} and splits the elapsed time into {@link Phase#FETCH} and {@link Phase#PARSE}.
+     *
+     * @return <code>null</code> if there are no further notes
+     */
+    @Nullable
+    private Note nextNote(@NonNull StreamedNotesResponse response) throws IOException {
+        final long start = System.nanoTime();
+        final long receiveNanosBefore = response.getReceiveNanos();
+        try {
+            if (!response.hasNext()) {
+                return null;
+            }
+            final Note note = response.next();
+            metrics.increment(Counter.NOTES_FETCHED);
+            return note;
+        } finally {
+            final long receiveNanos = response.getReceiveNanos() - receiveNanosBefore;
+            metrics.addDuration(Phase.FETCH, receiveNanos);
+            metrics.addDuration(Phase.PARSE, System.nanoTime() - start - receiveNanos);
+        }
+    }
+
+    /**
+     * Applies and clears the collected remote changes as one batch.
+     */
+    private void applyRemoteChanges(@NonNull Map<Long, Note> notesToUpdate, @NonNull List<Note> notesToAdd) {
+        if (notesToUpdate.isEmpty() && notesToAdd.isEmpty()) {
+            return;
+        }
+        Log.v(TAG, "   Apply batch of " + notesToUpdate.size() + " updated and " + notesToAdd.size() + " new notes");
+        final long start = System.nanoTime();
+        repo.applyRemoteChanges(localAccount.getId(), new HashMap<>(notesToUpdate), new ArrayList<>(notesToAdd));
+        metrics.addDuration(Phase.APPLY, System.nanoTime() - start);
+        metrics.add(Counter.NOTES_APPLIED, notesToUpdate.size() + notesToAdd.size());
+        notesToUpdate.clear();
+        notesToAdd.clear();
+    }
+
+    /**
+     * Collects a remote note with content to be updated or created locally and applies the collected changes once a batch is full.
+     */
+    private void addRemoteChange(@NonNull Note remoteNote, @NonNull Map<Long, Long> idMap, @NonNull Map<Long, Note> notesToUpdate, @NonNull List<Note> notesToAdd) {
+        if (idMap.containsKey(remoteNote.getRemoteId())) {
+            Log.v(TAG, "   ... found → Update");
+            Long localId = idMap.get(remoteNote.getRemoteId());
+            if (localId != null) {
+                notesToUpdate.put(localId, remoteNote);
+            } else {
+                Log.e(TAG, "Tried to update note from server, but local id of note is null. " + remoteNote);
+            }
+        } else {
+            Log.v(TAG, "   ... create");
+            notesToAdd.add(remoteNote);
+        }
+        if (notesToUpdate.size() + notesToAdd.size() >= PULL_BATCH_SIZE) {
+            applyRemoteChanges(notesToUpdate, notesToAdd);
+        }
+    }
+
+    /**
+     * Fetches the contents of the {@param changedRemoteIDs} chunk by chunk. Each chunk gets applied before the next one is requested.
+     * The cursor of the next chunk is persisted, so an interrupted synchronization will continue with this chunk instead of starting over.
+     * If the server rejects a stored cursor (e.g. because it expired), the cursor gets cleared and all chunks are fetched again from the beginning.
+     */
+    private void pullRemoteChangesChunked(@NonNull Set<Long> changedRemoteIDs, @NonNull Map<Long, Long> idMap) throws Exception {
+        final Map<Long, Note> notesToUpdate = new HashMap<>();
+        final List<Note> notesToAdd = new ArrayList<>();
+        String chunkCursor = localAccount.getChunkCursor();
+        boolean retryFromBeginning;
+        do {
+            retryFromBeginning = false;
+            Log.v(TAG, "   Fetch chunk " + (chunkCursor == null ? "from the beginning" : "at cursor " + chunkCursor));
+            final String currentChunkCursor = chunkCursor;
+            try (StreamedNotesResponse fetchResponse = requestStreamed(() -> notesAPI.getNotesChunkStreamed(localAccount.getModified(), PULL_BATCH_SIZE, currentChunkCursor))) {
+                Note remoteNote;
+                while ((remoteNote = nextNote(fetchResponse)) != null) {
+                    if (remoteNote.getModified() != null && changedRemoteIDs.contains(remoteNote.getRemoteId())) {
+                        addRemoteChange(remoteNote, idMap, notesToUpdate, notesToAdd);
+                    }
                 }
+                chunkCursor = fetchResponse.getHeader(HEADER_KEY_X_NOTES_CHUNK_CURSOR);
+                metrics.add(Counter.BYTES_RECEIVED, fetchResponse.getBytesReceived());
             } catch (NextcloudHttpRequestFailedException e) {
-                if (e.getStatusCode() == HTTP_NOT_MODIFIED) {
-                    Log.d(TAG, "Server returned HTTP Status Code 304 - Not Modified");
-                } else {
-                    exceptions.add(e);
-                    success = false;
-                }
-            } catch (Exception e) {
-                if (e instanceof TokenMismatchException) {
-                    ApiProvider.invalidateAPICache(ssoAccount);
+                if (currentChunkCursor == null || e.getStatusCode() < HTTP_BAD_REQUEST || e.getStatusCode() >= HTTP_INTERNAL_ERROR) {
+                    throw e;
                 }
-                exceptions.add(e);
-                success = false;
+                Log.w(TAG, "Server rejected chunk cursor " + currentChunkCursor + " with HTTP Status Code " + e.getStatusCode() + ", fetch all chunks again from the beginning.");
+                metrics.addHttpStatusCode(e.getStatusCode());
+                notesToUpdate.clear();
+                notesToAdd.clear();
+                chunkCursor = null;
+                localAccount.setChunkCursor(null);
+                repo.updateChunkCursor(localAccount.getId(), null);
+                retryFromBeginning = true;
+                continue;
             }
-        }
-        return success;
+            if (chunkCursor != null && chunkCursor.isEmpty()) {
+                chunkCursor = null;
+            }
+            applyRemoteChanges(notesToUpdate, notesToAdd);
+            localAccount.setChunkCursor(chunkCursor);
+            repo.updateChunkCursor(localAccount.getId(), chunkCursor);
+        } while ((chunkCursor != null || retryFromBeginning) && !cancelled);
     }
 
     /**
      * Pull remote Changes: update or create each remote note (if local pendant has no changes) and remove remotely deleted notes.
+     * <p>
+     * The first request only fetches the metadata of all notes. The contents are only fetched for notes whose ETag differs from the local one.
      */
     private boolean pullRemoteChanges() {
         Log.d(TAG, "pullRemoteChanges() for account " + localAccount.getAccountName());
         try {
             final Map<Long, Long> idMap = repo.getIdMap(localAccount.getId());
+            final Map<Long, String> eTagMap = repo.getETagMap(localAccount.getId());
 
             // FIXME re-reading the localAccount is only a workaround for a not-up-to-date eTag in localAccount.
             final Account accountFromDatabase = repo.getAccountById(localAccount.getId());
@@ -201,64 +421,129 @@ abstract class NotesServerSyncTask extends Thread {
             }
             localAccount.setModified(accountFromDatabase.getModified());
             localAccount.setETag(accountFromDatabase.getETag());
+            localAccount.setChunkCursor(accountFromDatabase.getChunkCursor());
 
-            final ParsedResponse<List<Note>> fetchResponse = notesAPI.getNotes(localAccount.getModified(), localAccount.getETag()).blockingSingle();
-            final List<Note> remoteNotes = fetchResponse.getResponse();
             final Set<Long> remoteIDs = new HashSet<>();
-            // pull remote changes: update or create each remote note
-            for (Note remoteNote : remoteNotes) {
-                Log.v(TAG, "   Process Remote Note: " + remoteNote);
-                remoteIDs.add(remoteNote.getRemoteId());
-                if (remoteNote.getModified() == null) {
-                    Log.v(TAG, "   ... unchanged");
-                } else if (idMap.containsKey(remoteNote.getRemoteId())) {
-                    Log.v(TAG, "   ... found → Update");
-                    Long localId = idMap.get(remoteNote.getRemoteId());
-                    if (localId != null) {
-                        repo.updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                                localId, remoteNote.getModified().getTimeInMillis(), remoteNote.getTitle(), remoteNote.getFavorite(), remoteNote.getCategory(), remoteNote.getETag(), remoteNote.getContent(), generateNoteExcerpt(remoteNote.getContent(), remoteNote.getTitle()));
+            final Set<Long> changedRemoteIDs = new HashSet<>();
+            final Map<String, String> headers;
+            // pull the metadata of all remote notes and compare their ETags with the local ones
+            try (StreamedNotesResponse fetchResponse = requestStreamed(() -> notesAPI.getNotesStreamed(localAccount.getModified(), localAccount.getETag(), true))) {
+                headers = fetchResponse.getHeaders();
+                Note remoteNote;
+                while ((remoteNote = nextNote(fetchResponse)) != null) {
+                    Log.v(TAG, "   Process Remote Note: " + remoteNote);
+                    remoteIDs.add(remoteNote.getRemoteId());
+                    if (remoteNote.getModified() == null) {
+                        Log.v(TAG, "   ... unchanged");
+                    } else if (idMap.containsKey(remoteNote.getRemoteId()) && remoteNote.getETag() != null && remoteNote.getETag().equals(eTagMap.get(remoteNote.getRemoteId()))) {
+                        Log.v(TAG, "   ... same ETag");
                     } else {
-                        Log.e(TAG, "Tried to update note from server, but local id of note is null. " + remoteNote);
+                        changedRemoteIDs.add(remoteNote.getRemoteId());
                     }
-                } else {
-                    Log.v(TAG, "   ... create");
-                    repo.addNote(localAccount.getId(), remoteNote);
                 }
+                metrics.add(Counter.BYTES_RECEIVED, fetchResponse.getBytesReceived());
             }
+            metrics.add(Counter.NOTES_CHANGED, changedRemoteIDs.size());
+
+            // pull the contents of changed notes: update or create each remote note
+            final Map<Long, Note> notesToUpdate = new HashMap<>();
+            final List<Note> notesToAdd = new ArrayList<>();
+            if (changedRemoteIDs.size() > MAX_SINGLE_NOTE_REQUESTS && notesAPI.isChunkedRetrievalSupported()) {
+                Log.d(TAG, "   Fetch contents of " + changedRemoteIDs.size() + " changed notes in chunks");
+                pullRemoteChangesChunked(changedRemoteIDs, idMap);
+            } else if (changedRemoteIDs.size() > MAX_SINGLE_NOTE_REQUESTS) {
+                Log.d(TAG, "   Fetch contents of " + changedRemoteIDs.size() + " changed notes with one list request");
+                final Set<Long> listedRemoteIDs = new HashSet<>();
+                try (StreamedNotesResponse fetchResponse = requestStreamed(() -> notesAPI.getNotesStreamed(localAccount.getModified(), null, false))) {
+                    Note remoteNote;
+                    while ((remoteNote = nextNote(fetchResponse)) != null) {
+                        listedRemoteIDs.add(remoteNote.getRemoteId());
+                        if (remoteNote.getModified() != null && changedRemoteIDs.contains(remoteNote.getRemoteId())) {
+                            addRemoteChange(remoteNote, idMap, notesToUpdate, notesToAdd);
+                        }
+                    }
+                    metrics.add(Counter.BYTES_RECEIVED, fetchResponse.getBytesReceived());
+                }
+                // Notes which are missing in the second list have been deleted in the meantime
+                remoteIDs.retainAll(listedRemoteIDs);
+            } else {
+                for (Long remoteId : changedRemoteIDs) {
+                    Log.v(TAG, "   Fetch content of remote note " + remoteId);
+                    final long start = System.nanoTime();
+                    final Response<Note> fetchResponse = notesAPI.getNote(remoteId).execute();
+                    // The response has already been parsed by Retrofit, so parsing is part of the fetch duration here
+                    metrics.addDuration(Phase.FETCH, System.nanoTime() - start);
+                    metrics.addHttpStatusCode(fetchResponse.code());
+                    if (fetchResponse.isSuccessful()) {
+                        metrics.increment(Counter.NOTES_FETCHED);
+                        addRemoteChange(fetchResponse.body(), idMap, notesToUpdate, notesToAdd);
+                    } else if (fetchResponse.code() == HTTP_NOT_FOUND) {
+                        Log.v(TAG, "   ... has been deleted in the meantime");
+                        remoteIDs.remove(remoteId);
+                    } else {
+                        throw new Exception(fetchResponse.errorBody().string());
+                    }
+                }
+            }
+            applyRemoteChanges(notesToUpdate, notesToAdd);
+            if (cancelled) {
+                // Do not remember ETag and Last-Modified, so the next synchronization fetches the remaining changes
+                Log.i(TAG, "   Synchronization has been cancelled");
+                return true;
+            }
+
             Log.d(TAG, "   Remove remotely deleted Notes (only those without local changes)");
             // remove remotely deleted notes (only those without local changes)
+            final long deleteStart = System.nanoTime();
+            final List<Long> notesToDelete = new ArrayList<>();
             for (Map.Entry<Long, Long> entry : idMap.entrySet()) {
                 if (!remoteIDs.contains(entry.getKey())) {
                     Log.v(TAG, "   ... remove " + entry.getValue());
-                    repo.deleteByNoteId(entry.getValue(), DBStatus.VOID);
+                    notesToDelete.add(entry.getValue());
+                    metrics.increment(Counter.NOTES_DELETED);
+                    if (notesToDelete.size() >= PULL_BATCH_SIZE) {
+                        repo.deleteByNoteIds(localAccount.getId(), notesToDelete, DBStatus.VOID);
+                        notesToDelete.clear();
+                    }
                 }
             }
+            if (!notesToDelete.isEmpty()) {
+                repo.deleteByNoteIds(localAccount.getId(), notesToDelete, DBStatus.VOID);
+            }
+            metrics.addDuration(Phase.DELETE, System.nanoTime() - deleteStart);
 
             // update ETag and Last-Modified in order to reduce size of next response
-            localAccount.setETag(fetchResponse.getHeaders().get(HEADER_KEY_ETAG));
+            localAccount.setETag(headers.get(HEADER_KEY_ETAG));
 
             final Calendar lastModified = Calendar.getInstance();
             lastModified.setTimeInMillis(0);
-            final String lastModifiedHeader = fetchResponse.getHeaders().get(HEADER_KEY_LAST_MODIFIED);
+            final String lastModifiedHeader = headers.get(HEADER_KEY_LAST_MODIFIED);
             if (lastModifiedHeader != null)
                 lastModified.setTimeInMillis(Date.parse(lastModifiedHeader));
-            Log.d(TAG, "ETag: " + fetchResponse.getHeaders().get(HEADER_KEY_ETAG) + "; Last-Modified: " + lastModified + " (" + lastModified + ")");
+            Log.d(TAG, "ETag: " + headers.get(HEADER_KEY_ETAG) + "; Last-Modified: " + lastModified + " (" + lastModified + ")");
 
             localAccount.setModified(lastModified);
 
             repo.updateETag(localAccount.getId(), localAccount.getETag());
             repo.updateModified(localAccount.getId(), localAccount.getModified().getTimeInMillis());
+            // A cursor is only valid for the previous Last-Modified
+            if (localAccount.getChunkCursor() != null) {
+                localAccount.setChunkCursor(null);
+                repo.updateChunkCursor(localAccount.getId(), null);
+            }
 
-            final String newApiVersion = ApiVersionUtil.sanitize(fetchResponse.getHeaders().get(HEADER_KEY_X_NOTES_API_VERSIONS));
+            final String newApiVersion = ApiVersionUtil.sanitize(headers.get(HEADER_KEY_X_NOTES_API_VERSIONS));
             localAccount.setApiVersion(newApiVersion);
             repo.updateApiVersion(localAccount.getId(), newApiVersion);
             Log.d(TAG, "ApiVersion: " + newApiVersion);
             return true;
         } catch (Throwable t) {
-            final Throwable cause = t.getCause();
-            if (t.getClass() == RuntimeException.class && cause != null) {
+            // Errors of the streamed request are thrown directly, errors of Observable based requests are wrapped in a RuntimeException
+            final Throwable cause = t.getClass() == RuntimeException.class ? t.getCause() : t;
+            if (cause != null) {
                 if (cause.getClass() == NextcloudHttpRequestFailedException.class || cause instanceof NextcloudHttpRequestFailedException) {
                     final NextcloudHttpRequestFailedException httpException = (NextcloudHttpRequestFailedException) cause;
+                    metrics.addHttpStatusCode(httpException.getStatusCode());
                     if (httpException.getStatusCode() == HTTP_NOT_MODIFIED) {
                         Log.d(TAG, "Server returned HTTP Status Code " + httpException.getStatusCode() + " - Notes not modified.");
                         return true;
@@ -270,7 +555,7 @@ abstract class NotesServerSyncTask extends Thread {
                     ApiProvider.invalidateAPICache(ssoAccount);
                 }
             }
-            exceptions.add(t);
+            addException(t);
             return false;
         }
     }
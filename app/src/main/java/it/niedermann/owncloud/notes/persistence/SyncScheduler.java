@@ -0,0 +1,246 @@
+package it.niedermann.owncloud.notes.persistence;
+
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
+import com.nextcloud.android.sso.model.SingleSignOnAccount;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BooleanSupplier;
+
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Schedules the {@link NotesServerSyncTask}s of all {@link Account}s:
+ * <ul>
+ *     <li>At most one synchronization per {@link Account} is running at a time.</li>
+ *     <li>Requests to only push local changes are coalesced for {@link #PUSH_DEBOUNCE_MILLIS}, so a burst of edits results in one synchronization.</li>
+ *     <li>All requests arriving while a synchronization is running are merged into one follow-up synchronization.</li>
+ * </ul>
+ * Each callback is delivered exactly once by the first synchronization which starts after the callback has been added.
+ */
+class SyncScheduler {
+
+    private static final String TAG = SyncScheduler.class.getSimpleName();
+
+    static final long PUSH_DEBOUNCE_MILLIS = 1_000;
+
+    interface SyncTaskFactory {
+        @NonNull
+        NotesServerSyncTask create(@NonNull Account account, boolean onlyLocalChanges) throws NextcloudFilesAppAccountNotFoundException;
+    }
+
+    @NonNull
+    private final ExecutorService executor;
+    @NonNull
+    private final SyncTaskFactory syncTaskFactory;
+    @NonNull
+    private final BooleanSupplier isSyncPossible;
+    private final ScheduledExecutorService debounceExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final Map<Long, AccountSyncState> states = new ConcurrentHashMap<>();
+
+    SyncScheduler(@NonNull ExecutorService executor, @NonNull SyncTaskFactory syncTaskFactory, @NonNull BooleanSupplier isSyncPossible) {
+        this.executor = executor;
+        this.syncTaskFactory = syncTaskFactory;
+        this.isSyncPossible = isSyncPossible;
+    }
+
+    @AnyThread
+    void addCallbackPush(@NonNull Account account, @NonNull ISyncCallback callback) {
+        final AccountSyncState state = getState(account.getId());
+        synchronized (state) {
+            state.callbacksPush.add(callback);
+        }
+    }
+
+    @AnyThread
+    void addCallbackPull(@NonNull Account account, @NonNull ISyncCallback callback) {
+        final AccountSyncState state = getState(account.getId());
+        synchronized (state) {
+            state.callbacksPull.add(callback);
+        }
+    }
+
+    /**
+     * Requests a synchronization of the given {@param account}.
+     * A full synchronization starts directly, if possible. Pushing local changes only is delayed by {@link #PUSH_DEBOUNCE_MILLIS}.
+     *
+     * @param onlyLocalChanges Whether to only push local changes to the server or to also load the whole list of notes from the server.
+     */
+    @AnyThread
+    void requestSync(@NonNull Account account, boolean onlyLocalChanges) {
+        final AccountSyncState state = getState(account.getId());
+        // Callbacks are invoked after leaving the lock, so they can not block or dead lock other requests
+        final List<ISyncCallback> scheduledCallbacks = new ArrayList<>();
+        synchronized (state) {
+            state.account = account;
+            if (onlyLocalChanges) {
+                state.pushRequested = true;
+            } else {
+                state.fullRequested = true;
+            }
+            Log.d(TAG, "Sync requested (" + (onlyLocalChanges ? "onlyLocalChanges" : "full") + "; " + (state.running ? "sync active" : "sync NOT active") + ") ...");
+            if (!isSyncPossible.getAsBoolean()) {
+                Log.d(TAG, "... not possible, keep until next request");
+                scheduledCallbacks.addAll(state.callbacksPush);
+            } else if (state.running) {
+                Log.d(TAG, "... merged into follow-up sync");
+                scheduledCallbacks.addAll(state.callbacksPush);
+            } else if (state.fullRequested) {
+                start(state);
+            } else if (state.debounce == null) {
+                Log.d(TAG, "... starting in " + PUSH_DEBOUNCE_MILLIS + "ms");
+                state.debounce = debounceExecutor.schedule(() -> onDebounceElapsed(state), PUSH_DEBOUNCE_MILLIS, MILLISECONDS);
+            } else {
+                Log.d(TAG, "... coalesced with pending sync");
+            }
+        }
+        notifyScheduled(scheduledCallbacks);
+    }
+
+    /**
+     * Drops all pending requests of the given account and stops a running synchronization at its next safe point.
+     * Callbacks of a stopped synchronization will still be notified.
+     */
+    @AnyThread
+    void cancel(long accountId) {
+        final AccountSyncState state = states.get(accountId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            Log.d(TAG, "Cancel sync of account " + accountId);
+            cancelDebounce(state);
+            state.pushRequested = false;
+            state.fullRequested = false;
+            if (state.task != null) {
+                state.task.cancel();
+            }
+        }
+    }
+
+    /**
+     * @return whether a synchronization of the given account is currently running. Does not block.
+     */
+    @AnyThread
+    boolean isSyncActive(long accountId) {
+        final AccountSyncState state = states.get(accountId);
+        return state != null && state.running;
+    }
+
+    @NonNull
+    private AccountSyncState getState(long accountId) {
+        return states.computeIfAbsent(accountId, id -> new AccountSyncState());
+    }
+
+    private void onDebounceElapsed(@NonNull AccountSyncState state) {
+        synchronized (state) {
+            state.debounce = null;
+            if (!state.running && (state.pushRequested || state.fullRequested) && isSyncPossible.getAsBoolean()) {
+                start(state);
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the lock of {@param state}.
+     */
+    private void start(@NonNull AccountSyncState state) {
+        final Account account = state.account;
+        if (account == null) {
+            return;
+        }
+        cancelDebounce(state);
+        final boolean onlyLocalChanges = !state.fullRequested;
+        // Each synchronization pushes all local changes, so every pending request is fulfilled by this run
+        state.pushRequested = false;
+        state.fullRequested = false;
+
+        final NotesServerSyncTask task;
+        try {
+            task = syncTaskFactory.create(account, onlyLocalChanges);
+        } catch (NextcloudFilesAppAccountNotFoundException e) {
+            Log.e(TAG, "... Could not find " + SingleSignOnAccount.class.getSimpleName() + " for account name " + account.getAccountName());
+            e.printStackTrace();
+            return;
+        }
+        final List<ISyncCallback> callbacks = new ArrayList<>(state.callbacksPush);
+        state.callbacksPush.clear();
+        if (!onlyLocalChanges) {
+            callbacks.addAll(state.callbacksPull);
+            state.callbacksPull.clear();
+        }
+        task.addCallbacks(account, callbacks);
+
+        Log.d(TAG, "... starting now (" + (onlyLocalChanges ? "onlyLocalChanges" : "full") + ")");
+        state.running = true;
+        state.task = task;
+        executor.submit(() -> {
+            try {
+                task.run();
+            } finally {
+                onFinished(state);
+            }
+        });
+    }
+
+    private void onFinished(@NonNull AccountSyncState state) {
+        synchronized (state) {
+            state.running = false;
+            state.task = null;
+            if (!isSyncPossible.getAsBoolean()) {
+                return;
+            }
+            if (state.fullRequested) {
+                Log.d(TAG, "Start follow-up sync");
+                start(state);
+            } else if (state.pushRequested && state.debounce == null) {
+                state.debounce = debounceExecutor.schedule(() -> onDebounceElapsed(state), PUSH_DEBOUNCE_MILLIS, MILLISECONDS);
+            }
+        }
+    }
+
+    private static void cancelDebounce(@NonNull AccountSyncState state) {
+        if (state.debounce != null) {
+            state.debounce.cancel(false);
+            state.debounce = null;
+        }
+    }
+
+    private static void notifyScheduled(@NonNull List<ISyncCallback> callbacks) {
+        for (ISyncCallback callback : callbacks) {
+            callback.onScheduled();
+        }
+    }
+
+    /**
+     * Guarded by its own monitor, except {@link #running} which may be read without locking.
+     */
+    private static class AccountSyncState {
+        private volatile boolean running = false;
+        private boolean pushRequested = false;
+        private boolean fullRequested = false;
+        @Nullable
+        private Account account;
+        @Nullable
+        private ScheduledFuture<?> debounce;
+        @Nullable
+        private NotesServerSyncTask task;
+        private final List<ISyncCallback> callbacksPush = new ArrayList<>();
+        private final List<ISyncCallback> callbacksPull = new ArrayList<>();
+    }
+}
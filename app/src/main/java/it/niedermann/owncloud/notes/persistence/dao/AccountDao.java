@@ -21,8 +21,8 @@ public interface AccountDao {
     @Delete
     void deleteAccount(Account localAccount);
 
-    String getAccounts = "SELECT id, url, userName, accountName, eTag, modified, apiVersion, color, textColor, capabilitiesEtag, COALESCE(displayName, userName) as displayName FROM Account";
-    String getAccountById = "SELECT id, url, userName, accountName, eTag, modified, apiVersion, color, textColor, capabilitiesEtag, COALESCE(displayName, userName) as displayName FROM Account WHERE ID = :accountId";
+    String getAccounts = "SELECT id, url, userName, accountName, eTag, modified, apiVersion, color, textColor, capabilitiesEtag, COALESCE(displayName, userName) as displayName, chunkCursor FROM Account";
+    String getAccountById = "SELECT id, url, userName, accountName, eTag, modified, apiVersion, color, textColor, capabilitiesEtag, COALESCE(displayName, userName) as displayName, chunkCursor FROM Account WHERE ID = :accountId";
 
     @Query(getAccounts)
     LiveData<List<Account>> getAccounts$();
@@ -36,7 +36,7 @@ public interface AccountDao {
     @Query(getAccountById)
     Account getAccountById(long accountId);
 
-    @Query("SELECT id, url, userName, accountName, eTag, modified, apiVersion, color, textColor, capabilitiesEtag, COALESCE(displayName, userName) as displayName FROM Account WHERE ACCOUNTNAME = :accountName")
+    @Query("SELECT id, url, userName, accountName, eTag, modified, apiVersion, color, textColor, capabilitiesEtag, COALESCE(displayName, userName) as displayName, chunkCursor FROM Account WHERE ACCOUNTNAME = :accountName")
     Account getAccountByName(String accountName);
 
     @Query("SELECT COUNT(*) FROM Account")
@@ -48,6 +48,9 @@ public interface AccountDao {
     @Query("UPDATE Account SET ETAG = :eTag WHERE ID = :id")
     void updateETag(long id, String eTag);
 
+    @Query("UPDATE Account SET CHUNKCURSOR = :chunkCursor WHERE id = :id")
+    void updateChunkCursor(long id, String chunkCursor);
+
     @Query("UPDATE Account SET CAPABILITIESETAG = :capabilitiesETag WHERE id = :id")
     void updateCapabilitiesETag(long id, String capabilitiesETag);
 
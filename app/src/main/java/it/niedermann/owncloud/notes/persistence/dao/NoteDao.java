@@ -5,51 +5,136 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Category;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesCount;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NoteContent;
+import it.niedermann.owncloud.notes.persistence.entity.NoteFts;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
 
 /**
  * Each method starting with <code>search</code> will return only a partial {@link Note} without any
- * {@link Note#eTag}, {@link Note#status}, {@link Note#content} or {@link Note#scrollY} for performance reasons.
+ * {@link Note#eTag}, {@link Note#status} or {@link Note#content} for performance reasons.
+ * <p>
+ * Each query starting with <code>fullTextSearch</code> expects an FTS <code>MATCH</code> expression
+ * as <code>query</code> which is resolved against the {@link NoteFts} index instead of scanning all contents.
+ * <p>
+ * The <code>search</code> queries are also loaded page by page with {@link #getNotesPage(SupportSQLiteQuery)}, the <code>fullTextSearch</code> queries only this way.
+ * <p>
+ * Each method taking a <code>category</code> also matches all its sub categories, using a range on the category path instead of <code>LIKE</code>, so the index can be used.
+ * <p>
+ * The {@link Note#content} is stored in {@link NoteContent}. It is only filled by {@link #getNoteById(long)} and
+ * {@link #getLocalModifiedNotes(long)}, all other methods return {@link Note}s without content.
+ * Writing methods which take a full {@link Note} also write its {@link NoteContent}.
  */
 @SuppressWarnings("JavadocReference")
 @Dao
 public interface NoteDao {
 
     @Insert
-    long addNote(Note note);
+    long addNoteWithoutContent(Note note);
+
+    @Insert
+    List<Long> addNotesWithoutContent(List<Note> notes);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void addNoteContents(List<NoteContent> noteContents);
+
+    @Transaction
+    default long addNote(Note note) {
+        final long id = addNoteWithoutContent(note);
+        addNoteContents(Collections.singletonList(new NoteContent(id, note.getTitle(), note.getContent())));
+        return id;
+    }
+
+    /**
+     * @return the local IDs of the added {@link Note}s in the same order
+     */
+    @Transaction
+    default List<Long> addNotes(List<Note> notes) {
+        final List<Long> ids = addNotesWithoutContent(notes);
+        final List<NoteContent> noteContents = new ArrayList<>(notes.size());
+        for (int i = 0; i < notes.size(); i++) {
+            noteContents.add(new NoteContent(ids.get(i), notes.get(i).getTitle(), notes.get(i).getContent()));
+        }
+        addNoteContents(noteContents);
+        return ids;
+    }
 
     @Update(onConflict = OnConflictStrategy.REPLACE)
-    int updateNote(Note newNote);
+    int updateNoteWithoutContent(Note newNote);
+
+    @Query("UPDATE NoteContent SET title = :title, content = :content WHERE noteId = :noteId")
+    void updateNoteContent(long noteId, String title, String content);
+
+    @Transaction
+    default int updateNote(Note newNote) {
+        final int rows = updateNoteWithoutContent(newNote);
+        if (rows > 0) {
+            updateNoteContent(newNote.getId(), newNote.getTitle(), newNote.getContent());
+        }
+        return rows;
+    }
 
     @Query("DELETE FROM NOTE WHERE accountId = :accountId")
     int deleteByAccountId(Long accountId);
 
     String getNoteById = "SELECT * FROM NOTE WHERE id = :id";
-    String getContent = "SELECT content FROM NOTE WHERE id = :id";
-    String count = "SELECT COUNT(*) FROM NOTE WHERE status != 'LOCAL_DELETED' AND accountId = :accountId";
-    String countFavorites = "SELECT COUNT(*) FROM NOTE WHERE status != 'LOCAL_DELETED' AND accountId = :accountId AND favorite = 1";
-    String searchRecentByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) ORDER BY favorite DESC, modified DESC";
-    String searchRecentLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) ORDER BY favorite DESC, title COLLATE NOCASE ASC";
-    String searchFavoritesByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND favorite = 1 ORDER BY modified DESC";
-    String searchFavoritesLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND favorite = 1 ORDER BY title COLLATE NOCASE ASC";
-    String searchUncategorizedByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND category = '' ORDER BY favorite DESC, modified DESC";
-    String searchUncategorizedLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND category = '' ORDER BY favorite DESC, title COLLATE NOCASE ASC";
-    String searchCategoryByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND (category = :category OR category LIKE :category || '/%') ORDER BY category, favorite DESC, modified DESC";
-    String searchCategoryLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND (category = :category OR category LIKE :category || '/%') ORDER BY category, favorite DESC, title COLLATE NOCASE ASC";
+    String getContent = "SELECT content FROM NoteContent WHERE noteId = :id";
+    String count = "SELECT COALESCE(SUM(totalNotes), 0) FROM Category WHERE accountId = :accountId";
+    String countFavorites = "SELECT COALESCE(SUM(favoriteNotes), 0) FROM Category WHERE accountId = :accountId";
+    String searchRecentByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR EXISTS (SELECT 1 FROM NoteContent WHERE noteId = NOTE.id AND content LIKE :query)) ORDER BY favorite DESC, modified DESC";
+    String searchRecentLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR EXISTS (SELECT 1 FROM NoteContent WHERE noteId = NOTE.id AND content LIKE :query)) ORDER BY favorite DESC, title COLLATE NOCASE ASC";
+    String searchFavoritesByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR EXISTS (SELECT 1 FROM NoteContent WHERE noteId = NOTE.id AND content LIKE :query)) AND favorite = 1 ORDER BY modified DESC";
+    String searchFavoritesLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR EXISTS (SELECT 1 FROM NoteContent WHERE noteId = NOTE.id AND content LIKE :query)) AND favorite = 1 ORDER BY title COLLATE NOCASE ASC";
+    String searchUncategorizedByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR EXISTS (SELECT 1 FROM NoteContent WHERE noteId = NOTE.id AND content LIKE :query)) AND category = '' ORDER BY favorite DESC, modified DESC";
+    String searchUncategorizedLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR EXISTS (SELECT 1 FROM NoteContent WHERE noteId = NOTE.id AND content LIKE :query)) AND category = '' ORDER BY favorite DESC, title COLLATE NOCASE ASC";
+    String searchCategoryByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR EXISTS (SELECT 1 FROM NoteContent WHERE noteId = NOTE.id AND content LIKE :query)) AND (category = :category OR (category >= :category || '/' AND category < :category || '0')) ORDER BY category, favorite DESC, modified DESC";
+    String searchCategoryLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR EXISTS (SELECT 1 FROM NoteContent WHERE noteId = NOTE.id AND content LIKE :query)) AND (category = :category OR (category >= :category || '/' AND category < :category || '0')) ORDER BY category, favorite DESC, title COLLATE NOCASE ASC";
+    String fullTextSearchRecentByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query) ORDER BY favorite DESC, modified DESC";
+    String fullTextSearchRecentLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query) ORDER BY favorite DESC, title COLLATE NOCASE ASC";
+    String fullTextSearchFavoritesByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query) AND favorite = 1 ORDER BY modified DESC";
+    String fullTextSearchFavoritesLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query) AND favorite = 1 ORDER BY title COLLATE NOCASE ASC";
+    String fullTextSearchUncategorizedByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query) AND category = '' ORDER BY favorite DESC, modified DESC";
+    String fullTextSearchUncategorizedLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query) AND category = '' ORDER BY favorite DESC, title COLLATE NOCASE ASC";
+    String fullTextSearchCategoryByModified = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query) AND (category = :category OR (category >= :category || '/' AND category < :category || '0')) ORDER BY category, favorite DESC, modified DESC";
+    String fullTextSearchCategoryLexicographically = "SELECT id, remoteId, accountId, title, favorite, excerpt, modified, category, status, '' as eTag FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query) AND (category = :category OR (category >= :category || '/' AND category < :category || '0')) ORDER BY category, favorite DESC, title COLLATE NOCASE ASC";
 
+    /**
+     * @return the {@link Note} without its {@link Note#content}
+     */
     @Query(getNoteById)
     LiveData<Note> getNoteById$(long id);
 
     @Query(getNoteById)
-    Note getNoteById(long id);
+    Note getNoteByIdWithoutContent(long id);
+
+    /**
+     * @return the {@link Note} including its {@link Note#content}
+     */
+    @Transaction
+    default Note getNoteById(long id) {
+        final Note note = getNoteByIdWithoutContent(id);
+        if (note != null) {
+            final String content = getContent(id);
+            note.setContent(content == null ? "" : content);
+        }
+        return note;
+    }
 
     @Query("SELECT remoteId FROM NOTE WHERE id = :id")
     Long getRemoteId(long id);
@@ -72,59 +157,45 @@ public interface NoteDao {
     @Query(getContent)
     String getContent(Long id);
 
-    @Query(searchRecentByModified)
-    LiveData<List<Note>> searchRecentByModified$(long accountId, String query);
-
     @Query(searchRecentByModified)
     List<Note> searchRecentByModified(long accountId, String query);
 
-    @Query(searchRecentLexicographically)
-    LiveData<List<Note>> searchRecentLexicographically$(long accountId, String query);
-
     @Query(searchRecentLexicographically)
     List<Note> searchRecentLexicographically(long accountId, String query);
 
-    @Query(searchFavoritesByModified)
-    LiveData<List<Note>> searchFavoritesByModified$(long accountId, String query);
-
     @Query(searchFavoritesByModified)
     List<Note> searchFavoritesByModified(long accountId, String query);
 
-    @Query(searchFavoritesLexicographically)
-    LiveData<List<Note>> searchFavoritesLexicographically$(long accountId, String query);
-
     @Query(searchFavoritesLexicographically)
     List<Note> searchFavoritesLexicographically(long accountId, String query);
 
-    @Query(searchUncategorizedByModified)
-    LiveData<List<Note>> searchUncategorizedByModified$(long accountId, String query);
-
     @Query(searchUncategorizedByModified)
     List<Note> searchUncategorizedByModified(long accountId, String query);
 
-    @Query(searchUncategorizedLexicographically)
-    LiveData<List<Note>> searchUncategorizedLexicographically$(long accountId, String query);
-
     @Query(searchUncategorizedLexicographically)
     List<Note> searchUncategorizedLexicographically(long accountId, String query);
 
-    @Query(searchCategoryByModified)
-    LiveData<List<Note>> searchCategoryByModified$(long accountId, String query, String category);
-
     @Query(searchCategoryByModified)
     List<Note> searchCategoryByModified(long accountId, String query, String category);
 
-    @Query(searchCategoryLexicographically)
-    LiveData<List<Note>> searchCategoryLexicographically$(long accountId, String query, String category);
-
     @Query(searchCategoryLexicographically)
     List<Note> searchCategoryLexicographically(long accountId, String query, String category);
 
+    /**
+     * Loads a single page of one of the <code>search</code> or <code>fullTextSearch</code> queries, which needs to be suffixed with <code>LIMIT ? OFFSET ?</code>.
+     * The arguments are bound by their first occurrence, so they are <code>accountId</code>, <code>query</code>, optionally <code>category</code>, followed by the limit and offset.
+     */
+    @RawQuery
+    List<Note> getNotesPage(SupportSQLiteQuery query);
+
     @Query("DELETE FROM NOTE WHERE id = :id AND status = :forceDBStatus")
-    void deleteByNoteId(long id, DBStatus forceDBStatus);
+    int deleteByNoteId(long id, DBStatus forceDBStatus);
 
-    @Query("UPDATE NOTE SET scrollY = :scrollY WHERE id = :id")
-    void updateScrollY(long id, int scrollY);
+    /**
+     * Bulk variant of {@link #deleteByNoteId(long, DBStatus)}. Keep the size of <code>ids</code> below the SQLite host parameter limit.
+     */
+    @Query("DELETE FROM NOTE WHERE id IN (:ids) AND status = :forceDBStatus")
+    int deleteByNoteIds(List<Long> ids, DBStatus forceDBStatus);
 
     @Query("UPDATE NOTE SET status = :status WHERE id = :id")
     void updateStatus(long id, DBStatus status);
@@ -142,10 +213,10 @@ public interface NoteDao {
     List<Long> getRemoteIds(long accountId);
 
     /**
-     * Gets a list of {@link Note} objects with filled {@link Note#id} and {@link Note#remoteId},
+     * Gets a list of {@link Note} objects with filled {@link Note#id}, {@link Note#remoteId} and {@link Note#eTag},
      * where {@link Note#remoteId} is not <code>null</code>
      */
-    @Query("SELECT id, remoteId, 0 as accountId, '' as title, 0 as favorite, '' as excerpt, 0 as modified, '' as eTag, 0 as status, '' as category, '' as content, 0 as scrollY  FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND remoteId IS NOT NULL")
+    @Query("SELECT id, remoteId, 0 as accountId, '' as title, 0 as favorite, '' as excerpt, 0 as modified, eTag, 0 as status, '' as category FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND remoteId IS NOT NULL")
     List<Note> getRemoteIdAndId(long accountId);
 
     /**
@@ -157,13 +228,30 @@ public interface NoteDao {
     @Query("SELECT id FROM NOTE WHERE accountId = :accountId AND remoteId = :remoteId AND status != 'LOCAL_DELETED'")
     Long getLocalIdByRemoteId(long accountId, long remoteId);
 
+    @Query("SELECT * FROM NOTE WHERE status != '' AND accountId = :accountId")
+    List<Note> getLocalModifiedNotesWithoutContent(long accountId);
+
+    @Query("SELECT NoteContent.* FROM NoteContent INNER JOIN NOTE ON NOTE.id = NoteContent.noteId WHERE NOTE.status != '' AND NOTE.accountId = :accountId")
+    List<NoteContent> getLocalModifiedNoteContents(long accountId);
+
     /**
      * Returns a list of all {@link Note}s in the Database which were modified locally
      *
-     * @return {@link List<Note>}
+     * @return {@link List<Note>} including their {@link Note#content}
      */
-    @Query("SELECT * FROM NOTE WHERE status != '' AND accountId = :accountId")
-    List<Note> getLocalModifiedNotes(long accountId);
+    @Transaction
+    default List<Note> getLocalModifiedNotes(long accountId) {
+        final List<Note> notes = getLocalModifiedNotesWithoutContent(accountId);
+        final Map<Long, String> contents = new HashMap<>(notes.size());
+        for (NoteContent noteContent : getLocalModifiedNoteContents(accountId)) {
+            contents.put(noteContent.getNoteId(), noteContent.getContent());
+        }
+        for (Note note : notes) {
+            final String content = contents.get(note.getId());
+            note.setContent(content == null ? "" : content);
+        }
+        return notes;
+    }
 
     @Query("SELECT * FROM NOTE WHERE status != 'LOCAL_DELETED' AND accountId = :accountId ORDER BY modified DESC LIMIT 4")
     List<Note> getRecentNotes(long accountId);
@@ -174,33 +262,75 @@ public interface NoteDao {
     @Query("UPDATE NOTE SET remoteId = :remoteId WHERE id = :id")
     void updateRemoteId(long id, Long remoteId);
 
+    @Query("UPDATE NOTE SET title = :targetTitle, modified = :targetModified, favorite = :targetFavorite, etag = :targetETag, contentHash = :targetContentHash, status = '', excerpt = :targetExcerpt " +
+            "WHERE id = :noteId AND contentHash = :contentHashBeforeSyncStart AND favorite = :favoriteBeforeSyncStart AND category = :categoryBeforeSyncStart")
+    int updateIfNotModifiedLocallyDuringSyncWithoutContent(long noteId, Long targetModified, String targetTitle, boolean targetFavorite, String targetETag, long targetContentHash, String targetExcerpt, long contentHashBeforeSyncStart, String categoryBeforeSyncStart, boolean favoriteBeforeSyncStart);
+
     /**
      * used by: {@link it.niedermann.owncloud.notes.persistence.NotesServerSyncTask#pushLocalChanges()} update only, if not modified locally during the synchronization
      * (i.e. all (!) user changeable columns (content, favorite, category) must still have the same value), uses reference value gathered at start of synchronization
+     * <p>
+     * The content is compared by its <code>contentHash</code> instead of the content itself.
      */
-    @Query("UPDATE NOTE SET title = :targetTitle, modified = :targetModified, favorite = :targetFavorite, etag = :targetETag, content = :targetContent, status = '', excerpt = :targetExcerpt " +
-            "WHERE id = :noteId AND content = :contentBeforeSyncStart AND favorite = :favoriteBeforeSyncStart AND category = :categoryBeforeSyncStart")
-    int updateIfNotModifiedLocallyDuringSync(long noteId, Long targetModified, String targetTitle, boolean targetFavorite, String targetETag, String targetContent, String targetExcerpt, String contentBeforeSyncStart, String categoryBeforeSyncStart, boolean favoriteBeforeSyncStart);
+    @Transaction
+    default int updateIfNotModifiedLocallyDuringSync(long noteId, Long targetModified, String targetTitle, boolean targetFavorite, String targetETag, String targetContent, long targetContentHash, String targetExcerpt, long contentHashBeforeSyncStart, String categoryBeforeSyncStart, boolean favoriteBeforeSyncStart) {
+        final int rows = updateIfNotModifiedLocallyDuringSyncWithoutContent(noteId, targetModified, targetTitle, targetFavorite, targetETag, targetContentHash, targetExcerpt, contentHashBeforeSyncStart, categoryBeforeSyncStart, favoriteBeforeSyncStart);
+        if (rows > 0) {
+            updateNoteContent(noteId, targetTitle, targetContent);
+        }
+        return rows;
+    }
+
+    @Query("UPDATE NOTE SET title = :title, modified = :modified, favorite = :favorite, etag = :eTag, contentHash = :contentHash, status = '', excerpt = :excerpt " +
+            "WHERE id = :id AND status = '' AND (title != :title OR modified != :modified OR favorite != :favorite OR category != :category OR (eTag IS NULL OR eTag != :eTag) OR contentHash != :contentHash)")
+    int updateIfNotModifiedLocallyAndAnyRemoteColumnHasChangedWithoutContent(long id, Long modified, String title, boolean favorite, String category, String eTag, long contentHash, String excerpt);
 
     /**
      * used by: {@link it.niedermann.owncloud.notes.persistence.NotesServerSyncTask#pullRemoteChanges()} update only, if not modified locally (i.e. STATUS="") and if modified remotely (i.e. any (!) column has changed)
+     * <p>
+     * The content is compared by its <code>contentHash</code> instead of the content itself.
+     */
+    @Transaction
+    default int updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long id, Long modified, String title, boolean favorite, String category, String eTag, String content, long contentHash, String excerpt) {
+        final int rows = updateIfNotModifiedLocallyAndAnyRemoteColumnHasChangedWithoutContent(id, modified, title, favorite, category, eTag, contentHash, excerpt);
+        if (rows > 0) {
+            updateNoteContent(id, title, content);
+        }
+        return rows;
+    }
+
+    /**
+     * Like {@link #updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long, Long, String, boolean, String, String, String, long, String)},
+     * but only for notes whose title and content did not change, so neither the content nor the excerpt need to be written.
+     */
+    @Query("UPDATE NOTE SET modified = :modified, favorite = :favorite, etag = :eTag, status = '' WHERE id = :id AND status = ''")
+    int updateMetadataIfNotModifiedLocally(long id, Long modified, boolean favorite, String eTag);
+
+    /**
+     * Gets all columns which are compared by {@link #updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long, Long, String, boolean, String, String, String, long, String)},
+     * so unchanged notes can be skipped before generating an excerpt. Keep the size of <code>ids</code> below the SQLite host parameter limit.
      */
-    @Query("UPDATE NOTE SET title = :title, modified = :modified, favorite = :favorite, etag = :eTag, content = :content, status = '', excerpt = :excerpt " +
-            "WHERE id = :id AND status = '' AND (title != :title OR modified != :modified OR favorite != :favorite OR category != :category OR (eTag IS NULL OR eTag != :eTag) OR content != :content)")
-    int updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long id, Long modified, String title, boolean favorite, String category, String eTag, String content, String excerpt);
+    @Query("SELECT id, status, title, modified, favorite, category, eTag, contentHash FROM NOTE WHERE id IN (:ids)")
+    List<Note> getRemoteColumns(Collection<Long> ids);
 
     /**
-     * This method return all of the categories with given {@param accountId}
+     * This method return all of the categories with given {@param accountId} ordered by their path, read from the maintained {@link Category} table
      *
      * @param accountId The user account Id
      * @return All of the categories with given accountId
      */
-    @Query("SELECT accountId, category, COUNT(*) as 'totalNotes' FROM NOTE WHERE STATUS != 'LOCAL_DELETED' AND accountId = :accountId GROUP BY category")
+    @Query("SELECT accountId, category, totalNotes, favoriteNotes FROM Category WHERE accountId = :accountId AND totalNotes > 0 ORDER BY category")
     LiveData<List<CategoryWithNotesCount>> getCategories$(Long accountId);
 
-    @Query("SELECT accountId, category, COUNT(*) as 'totalNotes' FROM NOTE WHERE STATUS != 'LOCAL_DELETED' AND accountId = :accountId AND category != '' AND category LIKE :searchTerm GROUP BY category")
+    @Query("SELECT accountId, category, totalNotes, favoriteNotes FROM Category WHERE accountId = :accountId AND totalNotes > 0 ORDER BY category")
+    List<CategoryWithNotesCount> getCategories(Long accountId);
+
+    @Query("SELECT accountId, category, totalNotes, favoriteNotes FROM Category WHERE accountId = :accountId AND totalNotes > 0 AND category != '' AND category LIKE :searchTerm ORDER BY category")
     LiveData<List<CategoryWithNotesCount>> searchCategories$(Long accountId, String searchTerm);
 
+    @Query("SELECT accountId, category, totalNotes, favoriteNotes FROM Category WHERE accountId = :accountId AND totalNotes > 0 AND category != '' AND category LIKE :searchTerm ORDER BY category")
+    List<CategoryWithNotesCount> searchCategories(Long accountId, String searchTerm);
+
     @Query("SELECT COUNT(*) FROM NOTE WHERE STATUS != '' AND accountId = :accountId")
     Long countUnsynchronizedNotes(long accountId);
 }
@@ -0,0 +1,36 @@
+package it.niedermann.owncloud.notes.persistence.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NoteViewState;
+
+/**
+ * Nothing observes the {@link NoteViewState} table, so writing it does not cause any list or count to be queried again.
+ */
+@Dao
+public interface NoteViewStateDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void createOrUpdateNoteViewState(NoteViewState viewState);
+
+    @Query("SELECT * FROM NoteViewState WHERE noteId = :noteId")
+    NoteViewState getNoteViewState(long noteId);
+
+    @Query("SELECT EXISTS (SELECT 1 FROM Note WHERE id = :noteId)")
+    boolean noteExists(long noteId);
+
+    /**
+     * The {@link Note} might have been deleted meanwhile (e.g. when closing a new empty {@link Note}), in this case there is nothing to save.
+     */
+    @Transaction
+    default void createOrUpdateNoteViewStateIfNoteExists(NoteViewState viewState) {
+        if (noteExists(viewState.getNoteId())) {
+            createOrUpdateNoteViewState(viewState);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
 
+import java.util.List;
+
 import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetData;
 
 @Dao
@@ -17,4 +19,7 @@ public interface WidgetNotesListDao {
 
     @Query("SELECT * FROM NOTESLISTWIDGETDATA WHERE id = :appWidgetId")
     NotesListWidgetData getNoteListWidgetData(int appWidgetId);
+
+    @Query("SELECT id FROM NOTESLISTWIDGETDATA WHERE accountId = :accountId")
+    List<Integer> getNoteListWidgetIdsByAccountId(long accountId);
 }
@@ -5,6 +5,9 @@ import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 
+import java.util.Collection;
+import java.util.List;
+
 import it.niedermann.owncloud.notes.persistence.entity.SingleNoteWidgetData;
 
 @Dao
@@ -18,4 +21,10 @@ public interface WidgetSingleNoteDao {
 
     @Query("SELECT * FROM SINGLENOTEWIDGETDATA WHERE id = :id")
     SingleNoteWidgetData getSingleNoteWidgetData(int id);
+
+    @Query("SELECT id FROM SINGLENOTEWIDGETDATA WHERE noteId IN (:noteIds)")
+    List<Integer> getSingleNoteWidgetIdsByNoteIds(Collection<Long> noteIds);
+
+    @Query("SELECT id FROM SINGLENOTEWIDGETDATA WHERE accountId = :accountId")
+    List<Integer> getSingleNoteWidgetIdsByAccountId(long accountId);
 }
@@ -60,6 +60,11 @@ public class Account implements Serializable {
     private String capabilitiesETag;
     @Nullable
     private String displayName;
+    /**
+     * Position of an interrupted chunked notes download which will be resumed on the next synchronization.
+     */
+    @Nullable
+    private String chunkCursor;
 
     public Account() {
         // Default constructor
@@ -176,6 +181,15 @@ public class Account implements Serializable {
         this.displayName = displayName;
     }
 
+    @Nullable
+    public String getChunkCursor() {
+        return chunkCursor;
+    }
+
+    public void setChunkCursor(@Nullable String chunkCursor) {
+        this.chunkCursor = chunkCursor;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -196,6 +210,8 @@ public class Account implements Serializable {
             return false;
         if (capabilitiesETag != null ? !capabilitiesETag.equals(account.capabilitiesETag) : account.capabilitiesETag != null)
             return false;
+        if (chunkCursor != null ? !chunkCursor.equals(account.chunkCursor) : account.chunkCursor != null)
+            return false;
         return true;
     }
 
@@ -211,6 +227,7 @@ public class Account implements Serializable {
         result = 31 * result + color;
         result = 31 * result + textColor;
         result = 31 * result + (capabilitiesETag != null ? capabilitiesETag.hashCode() : 0);
+        result = 31 * result + (chunkCursor != null ? chunkCursor.hashCode() : 0);
         return result;
     }
 
@@ -227,6 +244,7 @@ public class Account implements Serializable {
                 ", color=" + color +
                 ", textColor=" + textColor +
                 ", capabilitiesETag='" + capabilitiesETag + '\'' +
+                ", chunkCursor='" + chunkCursor + '\'' +
                 '}';
     }
 }
\ No newline at end of file
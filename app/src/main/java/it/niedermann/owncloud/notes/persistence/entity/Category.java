@@ -0,0 +1,147 @@
+package it.niedermann.owncloud.notes.persistence.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+
+/**
+ * Number of {@link Note}s per category and {@link Account}, so the navigation does not need to aggregate all {@link Note}s.
+ * <p>
+ * This table is maintained by triggers on {@link Note} (see {@link it.niedermann.owncloud.notes.persistence.NotesDatabase}),
+ * so it must never be written directly. A row exists as long as at least one {@link Note} (including locally deleted ones) is in this category.
+ * The category <code>""</code> counts the uncategorized {@link Note}s.
+ */
+@Entity(
+        primaryKeys = {
+                "accountId",
+                "category"
+        },
+        foreignKeys = {
+                @ForeignKey(
+                        entity = Account.class,
+                        parentColumns = "id",
+                        childColumns = "accountId",
+                        onDelete = ForeignKey.CASCADE
+                )
+        },
+        indices = {
+                @Index(name = "IDX_CATEGORY_ACCOUNTID", value = "accountId")
+        }
+)
+public class Category {
+
+    private long accountId;
+
+    @NonNull
+    private String category = "";
+
+    /**
+     * {@link Note}s which are not {@link it.niedermann.owncloud.notes.shared.model.DBStatus#LOCAL_DELETED}
+     */
+    @ColumnInfo(defaultValue = "0")
+    private int totalNotes;
+
+    /**
+     * Favorite {@link Note}s which are not {@link it.niedermann.owncloud.notes.shared.model.DBStatus#LOCAL_DELETED}
+     */
+    @ColumnInfo(defaultValue = "0")
+    private int favoriteNotes;
+
+    /**
+     * {@link Note}s which are {@link it.niedermann.owncloud.notes.shared.model.DBStatus#LOCAL_DELETED} but not yet synchronized
+     */
+    @ColumnInfo(defaultValue = "0")
+    private int deletedNotes;
+
+    public Category() {
+        super();
+    }
+
+    @Ignore
+    public Category(long accountId, @NonNull String category, int totalNotes, int favoriteNotes, int deletedNotes) {
+        this.accountId = accountId;
+        this.category = category;
+        this.totalNotes = totalNotes;
+        this.favoriteNotes = favoriteNotes;
+        this.deletedNotes = deletedNotes;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(long accountId) {
+        this.accountId = accountId;
+    }
+
+    @NonNull
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(@NonNull String category) {
+        this.category = category;
+    }
+
+    public int getTotalNotes() {
+        return totalNotes;
+    }
+
+    public void setTotalNotes(int totalNotes) {
+        this.totalNotes = totalNotes;
+    }
+
+    public int getFavoriteNotes() {
+        return favoriteNotes;
+    }
+
+    public void setFavoriteNotes(int favoriteNotes) {
+        this.favoriteNotes = favoriteNotes;
+    }
+
+    public int getDeletedNotes() {
+        return deletedNotes;
+    }
+
+    public void setDeletedNotes(int deletedNotes) {
+        this.deletedNotes = deletedNotes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Category)) return false;
+
+        Category that = (Category) o;
+
+        if (accountId != that.accountId) return false;
+        if (totalNotes != that.totalNotes) return false;
+        if (favoriteNotes != that.favoriteNotes) return false;
+        if (deletedNotes != that.deletedNotes) return false;
+        return category.equals(that.category);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (accountId ^ (accountId >>> 32));
+        result = 31 * result + category.hashCode();
+        result = 31 * result + totalNotes;
+        result = 31 * result + favoriteNotes;
+        result = 31 * result + deletedNotes;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Category{" +
+                "accountId=" + accountId +
+                ", category='" + category + '\'' +
+                ", totalNotes=" + totalNotes +
+                ", favoriteNotes=" + favoriteNotes +
+                ", deletedNotes=" + deletedNotes +
+                '}';
+    }
+}
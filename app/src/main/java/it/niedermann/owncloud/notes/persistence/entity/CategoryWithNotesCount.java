@@ -5,6 +5,7 @@ public class CategoryWithNotesCount {
     private long accountId;
     private String category;
     private Integer totalNotes;
+    private Integer favoriteNotes;
 
     public Integer getTotalNotes() {
         return totalNotes;
@@ -14,6 +15,14 @@ public class CategoryWithNotesCount {
         this.totalNotes = totalNotes;
     }
 
+    public Integer getFavoriteNotes() {
+        return favoriteNotes;
+    }
+
+    public void setFavoriteNotes(Integer favoriteNotes) {
+        this.favoriteNotes = favoriteNotes;
+    }
+
     public long getAccountId() {
         return accountId;
     }
@@ -40,7 +49,9 @@ public class CategoryWithNotesCount {
         if (accountId != that.accountId) return false;
         if (category != null ? !category.equals(that.category) : that.category != null)
             return false;
-        return totalNotes != null ? totalNotes.equals(that.totalNotes) : that.totalNotes == null;
+        if (totalNotes != null ? !totalNotes.equals(that.totalNotes) : that.totalNotes != null)
+            return false;
+        return favoriteNotes != null ? favoriteNotes.equals(that.favoriteNotes) : that.favoriteNotes == null;
     }
 
     @Override
@@ -48,6 +59,7 @@ public class CategoryWithNotesCount {
         int result = (int) (accountId ^ (accountId >>> 32));
         result = 31 * result + (category != null ? category.hashCode() : 0);
         result = 31 * result + (totalNotes != null ? totalNotes.hashCode() : 0);
+        result = 31 * result + (favoriteNotes != null ? favoriteNotes.hashCode() : 0);
         return result;
     }
 }
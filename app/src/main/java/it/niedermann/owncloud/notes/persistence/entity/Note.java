@@ -65,11 +65,20 @@ public class Note implements Serializable, Item {
     @Nullable
     private Calendar modified;
 
+    /**
+     * Not part of this table but stored in {@link NoteContent}, so it is only filled where it has explicitly been loaded.
+     */
     @NonNull
-    @ColumnInfo(defaultValue = "")
+    @Ignore
     @Expose
     private String content = "";
 
+    /**
+     * 64 bit hash of the {@link #content}, see {@link it.niedermann.owncloud.notes.shared.util.ContentHashUtil}
+     */
+    @ColumnInfo(defaultValue = "0")
+    private long contentHash = 0;
+
     @Expose
     @ColumnInfo(defaultValue = "0")
     private boolean favorite = false;
@@ -83,9 +92,6 @@ public class Note implements Serializable, Item {
     @ColumnInfo(defaultValue = "")
     private String excerpt = "";
 
-    @ColumnInfo(defaultValue = "0")
-    private int scrollY = 0;
-
     public Note() {
         super();
     }
@@ -102,13 +108,12 @@ public class Note implements Serializable, Item {
     }
 
     @Ignore
-    public Note(long id, @Nullable Long remoteId, @Nullable Calendar modified, @NonNull String title, @NonNull String content, @NonNull String category, boolean favorite, @Nullable String etag, @NonNull DBStatus status, long accountId, @NonNull String excerpt, int scrollY) {
+    public Note(long id, @Nullable Long remoteId, @Nullable Calendar modified, @NonNull String title, @NonNull String content, @NonNull String category, boolean favorite, @Nullable String etag, @NonNull DBStatus status, long accountId, @NonNull String excerpt) {
         this(remoteId, modified, title, content, category, favorite, etag);
         this.id = id;
         this.status = status;
         this.accountId = accountId;
         this.excerpt = excerpt;
-        this.scrollY = scrollY;
     }
 
     public long getId() {
@@ -181,6 +186,14 @@ public class Note implements Serializable, Item {
         this.content = content;
     }
 
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(long contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public boolean getFavorite() {
         return favorite;
     }
@@ -207,14 +220,6 @@ public class Note implements Serializable, Item {
         this.excerpt = excerpt;
     }
 
-    public int getScrollY() {
-        return scrollY;
-    }
-
-    public void setScrollY(int scrollY) {
-        this.scrollY = scrollY;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -225,7 +230,6 @@ public class Note implements Serializable, Item {
         if (id != note.id) return false;
         if (accountId != note.accountId) return false;
         if (favorite != note.favorite) return false;
-        if (scrollY != note.scrollY) return false;
         if (remoteId != null ? !remoteId.equals(note.remoteId) : note.remoteId != null)
             return false;
         if (status != note.status) return false;
@@ -234,6 +238,7 @@ public class Note implements Serializable, Item {
         if (modified != null ? !modified.equals(note.modified) : note.modified != null)
             return false;
         if (!content.equals(note.content)) return false;
+        if (contentHash != note.contentHash) return false;
         if (eTag != null ? !eTag.equals(note.eTag) : note.eTag != null) return false;
         return excerpt.equals(note.excerpt);
     }
@@ -248,10 +253,10 @@ public class Note implements Serializable, Item {
         result = 31 * result + category.hashCode();
         result = 31 * result + (modified != null ? modified.hashCode() : 0);
         result = 31 * result + content.hashCode();
+        result = 31 * result + (int) (contentHash ^ (contentHash >>> 32));
         result = 31 * result + (favorite ? 1 : 0);
         result = 31 * result + (eTag != null ? eTag.hashCode() : 0);
         result = 31 * result + excerpt.hashCode();
-        result = 31 * result + scrollY;
         return result;
     }
 
@@ -266,10 +271,10 @@ public class Note implements Serializable, Item {
                 ", category='" + category + '\'' +
                 ", modified=" + modified +
                 ", content='" + content + '\'' +
+                ", contentHash=" + contentHash +
                 ", favorite=" + favorite +
                 ", eTag='" + eTag + '\'' +
                 ", excerpt='" + excerpt + '\'' +
-                ", scrollY=" + scrollY +
                 '}';
     }
 }
\ No newline at end of file
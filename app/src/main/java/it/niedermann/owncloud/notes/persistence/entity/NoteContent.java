@@ -0,0 +1,106 @@
+package it.niedermann.owncloud.notes.persistence.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * The searchable text of a {@link Note}, stored apart from the {@link Note} itself so that list, count and category queries
+ * only need to read small rows. It is only loaded where the content is actually needed, e.g. for editing, previewing or pushing a {@link Note}.
+ * <p>
+ * The {@link #title} is a copy of {@link Note#title}, because the {@link NoteFts} index needs both columns in the same row.
+ * The <code>rowid</code> equals {@link #noteId}.
+ */
+@SuppressWarnings("JavadocReference")
+@Entity(
+        foreignKeys = {
+                @ForeignKey(
+                        entity = Note.class,
+                        parentColumns = "id",
+                        childColumns = "noteId",
+                        onDelete = ForeignKey.CASCADE
+                )
+        }
+)
+public class NoteContent {
+
+    @PrimaryKey
+    private long noteId;
+
+    @NonNull
+    @ColumnInfo(defaultValue = "")
+    private String title = "";
+
+    @NonNull
+    @ColumnInfo(defaultValue = "")
+    private String content = "";
+
+    public NoteContent() {
+        super();
+    }
+
+    @Ignore
+    public NoteContent(long noteId, @NonNull String title, @NonNull String content) {
+        this.noteId = noteId;
+        this.title = title;
+        this.content = content;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    @NonNull
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(@NonNull String title) {
+        this.title = title;
+    }
+
+    @NonNull
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(@NonNull String content) {
+        this.content = content;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NoteContent)) return false;
+
+        NoteContent that = (NoteContent) o;
+
+        if (noteId != that.noteId) return false;
+        if (!title.equals(that.title)) return false;
+        return content.equals(that.content);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (noteId ^ (noteId >>> 32));
+        result = 31 * result + title.hashCode();
+        result = 31 * result + content.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "NoteContent{" +
+                "noteId=" + noteId +
+                ", title='" + title + '\'' +
+                ", content='" + content + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+package it.niedermann.owncloud.notes.persistence.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * External content full text search index for {@link NoteContent#title} and {@link NoteContent#content}.
+ * <p>
+ * Room keeps this table in sync with {@link NoteContent} using triggers, so it must never be written directly.
+ * The <code>rowid</code> equals {@link NoteContent#noteId} and therefore {@link Note#id}.
+ */
+@SuppressWarnings("JavadocReference")
+@Fts4(contentEntity = NoteContent.class)
+@Entity
+public class NoteFts {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId;
+
+    @NonNull
+    private String title = "";
+
+    @NonNull
+    private String content = "";
+
+    public long getRowId() {
+        return rowId;
+    }
+
+    public void setRowId(long rowId) {
+        this.rowId = rowId;
+    }
+
+    @NonNull
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(@NonNull String title) {
+        this.title = title;
+    }
+
+    @NonNull
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(@NonNull String content) {
+        this.content = content;
+    }
+}
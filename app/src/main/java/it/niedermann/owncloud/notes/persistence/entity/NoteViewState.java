@@ -0,0 +1,123 @@
+package it.niedermann.owncloud.notes.persistence.entity;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+import java.io.Serializable;
+import java.util.Calendar;
+
+/**
+ * Local view state of a {@link Note} which is neither synchronized nor displayed in any list.
+ * It is stored apart from the {@link Note}, so saving it does not invalidate any observer of the {@link Note} table.
+ */
+@Entity(
+        foreignKeys = {
+                @ForeignKey(
+                        entity = Note.class,
+                        parentColumns = "id",
+                        childColumns = "noteId",
+                        onDelete = ForeignKey.CASCADE
+                )
+        }
+)
+public class NoteViewState implements Serializable {
+
+    @PrimaryKey
+    private long noteId;
+
+    @ColumnInfo(defaultValue = "0")
+    private int scrollY = 0;
+
+    @ColumnInfo(defaultValue = "0")
+    private int cursorPosition = 0;
+
+    @Nullable
+    private Calendar lastOpened;
+
+    public NoteViewState() {
+        super();
+    }
+
+    @Ignore
+    public NoteViewState(long noteId) {
+        this.noteId = noteId;
+    }
+
+    @Ignore
+    public NoteViewState(@NonNull NoteViewState viewState) {
+        this.noteId = viewState.noteId;
+        this.scrollY = viewState.scrollY;
+        this.cursorPosition = viewState.cursorPosition;
+        this.lastOpened = viewState.lastOpened;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public int getScrollY() {
+        return scrollY;
+    }
+
+    public void setScrollY(int scrollY) {
+        this.scrollY = scrollY;
+    }
+
+    public int getCursorPosition() {
+        return cursorPosition;
+    }
+
+    public void setCursorPosition(int cursorPosition) {
+        this.cursorPosition = cursorPosition;
+    }
+
+    @Nullable
+    public Calendar getLastOpened() {
+        return lastOpened;
+    }
+
+    public void setLastOpened(@Nullable Calendar lastOpened) {
+        this.lastOpened = lastOpened;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NoteViewState)) return false;
+
+        NoteViewState that = (NoteViewState) o;
+
+        if (noteId != that.noteId) return false;
+        if (scrollY != that.scrollY) return false;
+        if (cursorPosition != that.cursorPosition) return false;
+        return lastOpened != null ? lastOpened.equals(that.lastOpened) : that.lastOpened == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (noteId ^ (noteId >>> 32));
+        result = 31 * result + scrollY;
+        result = 31 * result + cursorPosition;
+        result = 31 * result + (lastOpened != null ? lastOpened.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "NoteViewState{" +
+                "noteId=" + noteId +
+                ", scrollY=" + scrollY +
+                ", cursorPosition=" + cursorPosition +
+                ", lastOpened=" + lastOpened +
+                '}';
+    }
+}
@@ -0,0 +1,20 @@
+package it.niedermann.owncloud.notes.persistence.migration;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Adds a cursor to the {@link it.niedermann.owncloud.notes.persistence.entity.Account} to resume interrupted chunked synchronizations.
+ */
+public class Migration_25_26 extends Migration {
+
+    public Migration_25_26() {
+        super(25, 26);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("ALTER TABLE Account ADD COLUMN chunkCursor TEXT");
+    }
+}
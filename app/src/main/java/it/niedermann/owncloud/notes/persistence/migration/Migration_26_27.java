@@ -0,0 +1,39 @@
+package it.niedermann.owncloud.notes.persistence.migration;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.OnConflictStrategy;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import it.niedermann.owncloud.notes.shared.util.ContentHashUtil;
+
+/**
+ * Adds a <code>contentHash</code> to each {@link it.niedermann.owncloud.notes.persistence.entity.Note}, so the synchronization
+ * can detect unchanged contents without comparing them.
+ */
+public class Migration_26_27 extends Migration {
+
+    public Migration_26_27() {
+        super(26, 27);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("ALTER TABLE Note ADD COLUMN contentHash INTEGER NOT NULL DEFAULT 0");
+        final Cursor cursor = db.query("SELECT id, content FROM NOTE", null);
+        final ContentValues values = new ContentValues(1);
+
+        final int COLUMN_POSITION_ID = cursor.getColumnIndex("id");
+        final int COLUMN_POSITION_CONTENT = cursor.getColumnIndex("content");
+
+        while (cursor.moveToNext()) {
+            final String content = cursor.getString(COLUMN_POSITION_CONTENT);
+            values.put("CONTENTHASH", ContentHashUtil.hash(content == null ? "" : content));
+            db.update("NOTE", OnConflictStrategy.REPLACE, values, "ID = ?", new String[]{String.valueOf(cursor.getLong(COLUMN_POSITION_ID))});
+        }
+        cursor.close();
+    }
+}
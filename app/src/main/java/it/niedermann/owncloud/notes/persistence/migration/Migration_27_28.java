@@ -0,0 +1,58 @@
+package it.niedermann.owncloud.notes.persistence.migration;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import it.niedermann.owncloud.notes.persistence.entity.NoteContent;
+import it.niedermann.owncloud.notes.persistence.entity.NoteFts;
+
+/**
+ * Moves the <code>content</code> of each {@link it.niedermann.owncloud.notes.persistence.entity.Note} into the new {@link NoteContent} table,
+ * so scanning the <code>Note</code> table does no longer need to read the contents.
+ * The {@link NoteFts} index is rebuilt on top of {@link NoteContent}.
+ * Trigger names match the ones Room generates for external content FTS tables.
+ */
+public class Migration_27_28 extends Migration {
+
+    public Migration_27_28() {
+        super(27, 28);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_NoteFts_BEFORE_UPDATE");
+        db.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_NoteFts_BEFORE_DELETE");
+        db.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_NoteFts_AFTER_UPDATE");
+        db.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_NoteFts_AFTER_INSERT");
+        db.execSQL("DROP TABLE IF EXISTS `NoteFts`");
+
+        db.execSQL("CREATE TABLE `NoteContent` (`noteId` INTEGER NOT NULL, `title` TEXT NOT NULL DEFAULT '', `content` TEXT NOT NULL DEFAULT '', PRIMARY KEY(`noteId`), FOREIGN KEY(`noteId`) REFERENCES `Note`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("INSERT INTO `NoteContent` (`noteId`, `title`, `content`) SELECT `id`, `title`, `content` FROM `Note`");
+
+        // SQLite can not drop columns, so the Note table needs to be recreated without the content
+        db.execSQL("CREATE TABLE `Note_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `remoteId` INTEGER, `accountId` INTEGER NOT NULL, `status` TEXT NOT NULL, `title` TEXT NOT NULL DEFAULT '', `category` TEXT NOT NULL DEFAULT '', `modified` INTEGER, `contentHash` INTEGER NOT NULL DEFAULT 0, `favorite` INTEGER NOT NULL DEFAULT 0, `eTag` TEXT, `excerpt` TEXT NOT NULL DEFAULT '', `scrollY` INTEGER NOT NULL DEFAULT 0, FOREIGN KEY(`accountId`) REFERENCES `Account`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("INSERT INTO `Note_new` (`id`, `remoteId`, `accountId`, `status`, `title`, `category`, `modified`, `contentHash`, `favorite`, `eTag`, `excerpt`, `scrollY`) " +
+                "SELECT `id`, `remoteId`, `accountId`, `status`, `title`, `category`, `modified`, `contentHash`, `favorite`, `eTag`, `excerpt`, `scrollY` FROM `Note`");
+        db.execSQL("DROP TABLE `Note`");
+        db.execSQL("ALTER TABLE `Note_new` RENAME TO `Note`");
+
+        db.execSQL("CREATE INDEX `IDX_NOTE_ACCOUNTID` ON `Note` (`accountId`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_CATEGORY` ON `Note` (`category`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_FAVORITE` ON `Note` (`favorite`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_MODIFIED` ON `Note` (`modified`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_REMOTEID` ON `Note` (`remoteId`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_STATUS` ON `Note` (`status`)");
+
+        // Triggers are dropped together with their table
+        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_DEL AFTER DELETE ON Note BEGIN DELETE FROM CategoryOptions WHERE CategoryOptions.category NOT IN (SELECT Note.category FROM Note WHERE Note.accountId = CategoryOptions.accountId); END;");
+        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_UPD AFTER UPDATE ON Note BEGIN DELETE FROM CategoryOptions WHERE CategoryOptions.category NOT IN (SELECT Note.category FROM Note WHERE Note.accountId = CategoryOptions.accountId); END;");
+
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `NoteFts` USING FTS4(`title` TEXT NOT NULL, `content` TEXT NOT NULL, content=`NoteContent`)");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_NoteFts_BEFORE_UPDATE BEFORE UPDATE ON `NoteContent` BEGIN DELETE FROM `NoteFts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_NoteFts_BEFORE_DELETE BEFORE DELETE ON `NoteContent` BEGIN DELETE FROM `NoteFts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_NoteFts_AFTER_UPDATE AFTER UPDATE ON `NoteContent` BEGIN INSERT INTO `NoteFts`(`docid`, `title`, `content`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`content`); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_NoteFts_AFTER_INSERT AFTER INSERT ON `NoteContent` BEGIN INSERT INTO `NoteFts`(`docid`, `title`, `content`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`content`); END");
+        db.execSQL("INSERT INTO `NoteFts`(`NoteFts`) VALUES ('rebuild')");
+    }
+}
@@ -0,0 +1,55 @@
+package it.niedermann.owncloud.notes.persistence.migration;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import it.niedermann.owncloud.notes.persistence.entity.Category;
+
+/**
+ * Adds the {@link Category} table which holds the number of notes per category, so the navigation does not need to aggregate the whole <code>Note</code> table.
+ * It is filled once from the existing notes and maintained by triggers afterwards, which also replace the former <code>CategoryOptions</code> cleanup triggers.
+ */
+public class Migration_28_29 extends Migration {
+
+    public Migration_28_29() {
+        super(28, 29);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TABLE `Category` (`accountId` INTEGER NOT NULL, `category` TEXT NOT NULL, `totalNotes` INTEGER NOT NULL DEFAULT 0, `favoriteNotes` INTEGER NOT NULL DEFAULT 0, `deletedNotes` INTEGER NOT NULL DEFAULT 0, PRIMARY KEY(`accountId`, `category`), FOREIGN KEY(`accountId`) REFERENCES `Account`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("CREATE INDEX `IDX_CATEGORY_ACCOUNTID` ON `Category` (`accountId`)");
+        db.execSQL("INSERT INTO `Category` (`accountId`, `category`, `totalNotes`, `favoriteNotes`, `deletedNotes`) " +
+                "SELECT `accountId`, `category`, SUM(`status` != 'LOCAL_DELETED'), SUM(`status` != 'LOCAL_DELETED' AND `favorite`), SUM(`status` = 'LOCAL_DELETED') FROM `Note` GROUP BY `accountId`, `category`");
+
+        db.execSQL("DROP TRIGGER IF EXISTS TRG_CLEANUP_CATEGORIES_DEL");
+        db.execSQL("DROP TRIGGER IF EXISTS TRG_CLEANUP_CATEGORIES_UPD");
+
+        createCategoryTriggers(db);
+        createCategoryOptionsCleanupTrigger(db);
+
+        db.execSQL("DELETE FROM CategoryOptions WHERE NOT EXISTS (SELECT 1 FROM Category WHERE Category.accountId = CategoryOptions.accountId AND Category.category = CategoryOptions.category)");
+    }
+
+    /**
+     * Creates the triggers on <code>Note</code> which maintain the {@link Category} table. They need to be recreated whenever the <code>Note</code> table gets recreated.
+     */
+    public static void createCategoryTriggers(@NonNull SupportSQLiteDatabase db) {
+        final String incrementNew = "INSERT OR IGNORE INTO Category (accountId, category) VALUES (NEW.accountId, NEW.category); " +
+                "UPDATE Category SET totalNotes = totalNotes + (NEW.status != 'LOCAL_DELETED'), favoriteNotes = favoriteNotes + (NEW.status != 'LOCAL_DELETED' AND NEW.favorite), deletedNotes = deletedNotes + (NEW.status = 'LOCAL_DELETED') WHERE accountId = NEW.accountId AND category = NEW.category;";
+        final String decrementOld = "UPDATE Category SET totalNotes = totalNotes - (OLD.status != 'LOCAL_DELETED'), favoriteNotes = favoriteNotes - (OLD.status != 'LOCAL_DELETED' AND OLD.favorite), deletedNotes = deletedNotes - (OLD.status = 'LOCAL_DELETED') WHERE accountId = OLD.accountId AND category = OLD.category; " +
+                "DELETE FROM Category WHERE accountId = OLD.accountId AND category = OLD.category AND totalNotes <= 0 AND deletedNotes <= 0;";
+        db.execSQL("CREATE TRIGGER TRG_CATEGORY_INS AFTER INSERT ON Note BEGIN " + incrementNew + " END;");
+        db.execSQL("CREATE TRIGGER TRG_CATEGORY_DEL AFTER DELETE ON Note BEGIN " + decrementOld + " END;");
+        db.execSQL("CREATE TRIGGER TRG_CATEGORY_UPD AFTER UPDATE OF accountId, category, status, favorite ON Note " +
+                "WHEN OLD.accountId != NEW.accountId OR OLD.category != NEW.category OR OLD.status != NEW.status OR OLD.favorite != NEW.favorite BEGIN " + incrementNew + " " + decrementOld + " END;");
+    }
+
+    /**
+     * Creates the trigger which removes the <code>CategoryOptions</code> of a {@link Category} once it has no notes anymore.
+     */
+    public static void createCategoryOptionsCleanupTrigger(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORY_OPTIONS AFTER DELETE ON Category BEGIN DELETE FROM CategoryOptions WHERE accountId = OLD.accountId AND category = OLD.category; END;");
+    }
+}
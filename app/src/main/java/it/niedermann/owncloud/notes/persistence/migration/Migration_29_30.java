@@ -0,0 +1,41 @@
+package it.niedermann.owncloud.notes.persistence.migration;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import it.niedermann.owncloud.notes.persistence.entity.NoteViewState;
+
+/**
+ * Moves the <code>scrollY</code> of each {@link it.niedermann.owncloud.notes.persistence.entity.Note} into the new {@link NoteViewState} table,
+ * so saving the scroll position does no longer fire the triggers on the <code>Note</code> table and invalidate all its observers.
+ */
+public class Migration_29_30 extends Migration {
+
+    public Migration_29_30() {
+        super(29, 30);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TABLE `NoteViewState` (`noteId` INTEGER NOT NULL, `scrollY` INTEGER NOT NULL DEFAULT 0, `cursorPosition` INTEGER NOT NULL DEFAULT 0, `lastOpened` INTEGER, PRIMARY KEY(`noteId`), FOREIGN KEY(`noteId`) REFERENCES `Note`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("INSERT INTO `NoteViewState` (`noteId`, `scrollY`) SELECT `id`, `scrollY` FROM `Note` WHERE `scrollY` != 0");
+
+        // SQLite can not drop columns, so the Note table needs to be recreated without the scrollY
+        db.execSQL("CREATE TABLE `Note_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `remoteId` INTEGER, `accountId` INTEGER NOT NULL, `status` TEXT NOT NULL, `title` TEXT NOT NULL DEFAULT '', `category` TEXT NOT NULL DEFAULT '', `modified` INTEGER, `contentHash` INTEGER NOT NULL DEFAULT 0, `favorite` INTEGER NOT NULL DEFAULT 0, `eTag` TEXT, `excerpt` TEXT NOT NULL DEFAULT '', FOREIGN KEY(`accountId`) REFERENCES `Account`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("INSERT INTO `Note_new` (`id`, `remoteId`, `accountId`, `status`, `title`, `category`, `modified`, `contentHash`, `favorite`, `eTag`, `excerpt`) " +
+                "SELECT `id`, `remoteId`, `accountId`, `status`, `title`, `category`, `modified`, `contentHash`, `favorite`, `eTag`, `excerpt` FROM `Note`");
+        db.execSQL("DROP TABLE `Note`");
+        db.execSQL("ALTER TABLE `Note_new` RENAME TO `Note`");
+
+        db.execSQL("CREATE INDEX `IDX_NOTE_ACCOUNTID` ON `Note` (`accountId`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_CATEGORY` ON `Note` (`category`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_FAVORITE` ON `Note` (`favorite`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_MODIFIED` ON `Note` (`modified`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_REMOTEID` ON `Note` (`remoteId`)");
+        db.execSQL("CREATE INDEX `IDX_NOTE_STATUS` ON `Note` (`status`)");
+
+        // Triggers are dropped together with their table
+        Migration_28_29.createCategoryTriggers(db);
+    }
+}
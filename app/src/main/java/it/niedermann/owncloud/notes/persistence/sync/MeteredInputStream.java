@@ -0,0 +1,59 @@
+package it.niedermann.owncloud.notes.persistence.sync;
+
+import androidx.annotation.NonNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the received bytes and the time spent waiting for them, so the network time can be told apart from the parsing time.
+ */
+class MeteredInputStream extends FilterInputStream {
+
+    private long bytesRead = 0;
+    private long readNanos = 0;
+
+    MeteredInputStream(@NonNull InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final long start = System.nanoTime();
+        final int b = super.read();
+        readNanos += System.nanoTime() - start;
+        if (b >= 0) {
+            bytesRead++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final long start = System.nanoTime();
+        final int count = super.read(b, off, len);
+        readNanos += System.nanoTime() - start;
+        if (count > 0) {
+            bytesRead += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final long start = System.nanoTime();
+        final long skipped = super.skip(n);
+        readNanos += System.nanoTime() - start;
+        bytesRead += skipped;
+        return skipped;
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    long getReadNanos() {
+        return readNanos;
+    }
+}
@@ -5,13 +5,21 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
+import com.google.gson.Gson;
 import com.google.gson.annotations.Expose;
+import com.nextcloud.android.sso.aidl.NextcloudRequest;
+import com.nextcloud.android.sso.api.AidlNetworkRequest;
 import com.nextcloud.android.sso.api.NextcloudAPI;
 import com.nextcloud.android.sso.api.ParsedResponse;
+import com.nextcloud.android.sso.api.Response;
 
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.reactivex.Observable;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
@@ -29,12 +37,19 @@ public class NotesAPI {
     private static final String API_ENDPOINT_NOTES_1_0 = "/index.php/apps/notes/api/v1/";
     private static final String API_ENDPOINT_NOTES_0_2 = "/index.php/apps/notes/api/v0.2/";
 
+    @NonNull
+    private final NextcloudAPI nextcloudAPI;
+    @NonNull
+    private final Gson gson;
     @NonNull
     private final ApiVersion usedApiVersion;
     private final NotesAPI_0_2 notesAPI_0_2;
     private final NotesAPI_1_0 notesAPI_1_0;
+    private final boolean chunkedRetrievalSupported;
 
-    public NotesAPI(@NonNull NextcloudAPI nextcloudAPI, @Nullable ApiVersion preferredApiVersion) {
+    public NotesAPI(@NonNull NextcloudAPI nextcloudAPI, @NonNull Gson gson, @Nullable ApiVersion preferredApiVersion) {
+        this.nextcloudAPI = nextcloudAPI;
+        this.gson = gson;
         if (preferredApiVersion == null) {
             Log.i(TAG, "Using " + ApiVersion.API_VERSION_0_2 + ", preferredApiVersion is null");
             usedApiVersion = ApiVersion.API_VERSION_0_2;
@@ -56,6 +71,15 @@ public class NotesAPI {
             notesAPI_0_2 = new NextcloudRetrofitApiBuilder(nextcloudAPI, API_ENDPOINT_NOTES_0_2).create(NotesAPI_0_2.class);
             notesAPI_1_0 = null;
         }
+        // chunkSize and chunkCursor have been added in API version 1.2
+        chunkedRetrievalSupported = ApiVersion.API_VERSION_1_0.equals(usedApiVersion) && preferredApiVersion.getMinor() >= 2;
+    }
+
+    /**
+     * @return whether {@link #getNotesChunkStreamed(Calendar, int, String)} can be used
+     */
+    public boolean isChunkedRetrievalSupported() {
+        return chunkedRetrievalSupported;
     }
 
     public Observable<ParsedResponse<List<Note>>> getNotes(@NonNull Calendar lastModified, String lastETag) {
@@ -68,6 +92,85 @@ public class NotesAPI {
         }
     }
 
+    /**
+     * Streaming variant of {@link #getNotes(Calendar, String)} which does not parse the whole list up front.
+     * The caller is responsible for closing the returned {@link StreamedNotesResponse}.
+     *
+     * @param excludeContent the returned {@link Note}s will only contain their metadata without any {@link Note#getContent()}
+     */
+    @NonNull
+    @WorkerThread
+    public StreamedNotesResponse getNotesStreamed(@NonNull Calendar lastModified, @Nullable String lastETag, boolean excludeContent) throws Exception {
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put("pruneBefore", String.valueOf(lastModified.getTimeInMillis() / 1_000));
+        if (excludeContent) {
+            parameters.put("exclude", "content");
+        }
+        return getNotesStreamed(parameters, lastETag);
+    }
+
+    /**
+     * Requests the full data of at most {@param chunkSize} changed notes, all other notes only contain their <code>id</code>.
+     * The cursor for the next chunk will be provided in the <code>X-Notes-Chunk-Cursor</code> header if there are further chunks.
+     * The caller is responsible for closing the returned {@link StreamedNotesResponse}.
+     *
+     * @param chunkCursor <code>null</code> to start with the first chunk
+     * @see #isChunkedRetrievalSupported()
+     */
+    @NonNull
+    @WorkerThread
+    public StreamedNotesResponse getNotesChunkStreamed(@NonNull Calendar lastModified, int chunkSize, @Nullable String chunkCursor) throws Exception {
+        if (!chunkedRetrievalSupported) {
+            throw new UnsupportedOperationException("Used API version " + usedApiVersion + " does not support getNotesChunkStreamed().");
+        }
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put("pruneBefore", String.valueOf(lastModified.getTimeInMillis() / 1_000));
+        parameters.put("chunkSize", String.valueOf(chunkSize));
+        if (chunkCursor != null) {
+            parameters.put("chunkCursor", chunkCursor);
+        }
+        return getNotesStreamed(parameters, null);
+    }
+
+    @NonNull
+    @WorkerThread
+    private StreamedNotesResponse getNotesStreamed(@NonNull Map<String, String> parameters, @Nullable String lastETag) throws Exception {
+        final String endpoint;
+        if (ApiVersion.API_VERSION_1_0.equals(usedApiVersion)) {
+            endpoint = API_ENDPOINT_NOTES_1_0;
+        } else if (ApiVersion.API_VERSION_0_2.equals(usedApiVersion)) {
+            endpoint = API_ENDPOINT_NOTES_0_2;
+        } else {
+            throw new UnsupportedOperationException("Used API version " + usedApiVersion + " does not support getNotesStreamed().");
+        }
+        final Map<String, List<String>> requestHeaders = new HashMap<>();
+        if (lastETag != null) {
+            requestHeaders.put("If-None-Match", Collections.singletonList(lastETag));
+        }
+        final NextcloudRequest request = new NextcloudRequest.Builder()
+                .setMethod("GET")
+                .setUrl(endpoint + "notes")
+                .setParameter(parameters)
+                .setHeader(requestHeaders)
+                .build();
+        final Response response = nextcloudAPI.performNetworkRequestV2(request);
+        final Map<String, String> responseHeaders = new HashMap<>();
+        for (AidlNetworkRequest.PlainHeader header : response.getPlainHeaders()) {
+            responseHeaders.put(header.getName(), header.getValue());
+        }
+        return new StreamedNotesResponse(gson, response.getBody(), responseHeaders);
+    }
+
+    public Call<Note> getNote(long remoteId) {
+        if (ApiVersion.API_VERSION_1_0.equals(usedApiVersion)) {
+            return notesAPI_1_0.getNote(remoteId);
+        } else if (ApiVersion.API_VERSION_0_2.equals(usedApiVersion)) {
+            return notesAPI_0_2.getNote(remoteId);
+        } else {
+            throw new UnsupportedOperationException("Used API version " + usedApiVersion + " does not support getNote().");
+        }
+    }
+
     public Call<Note> createNote(Note note) {
         if (ApiVersion.API_VERSION_1_0.equals(usedApiVersion)) {
             return notesAPI_1_0.createNote(note);
@@ -25,6 +25,9 @@ public interface NotesAPI_1_0 {
     @GET("notes")
     Observable<ParsedResponse<List<Note>>> getNotes(@Query("pruneBefore") long lastModified, @Header("If-None-Match") String lastETag);
 
+    @GET("notes/{remoteId}")
+    Call<Note> getNote(@Path("remoteId") long remoteId);
+
     @POST("notes")
     Call<Note> createNote(@Body Note note);
 
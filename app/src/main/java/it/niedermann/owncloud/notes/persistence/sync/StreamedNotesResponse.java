@@ -0,0 +1,101 @@
+package it.niedermann.owncloud.notes.persistence.sync;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+
+/**
+ * Reads the {@link Note}s of a notes list response one at a time from the response body, so the
+ * whole list (including all contents) never needs to be held in memory at once.
+ * <p>
+ * Must be {@link #close()}d after usage.
+ */
+public class StreamedNotesResponse implements Closeable {
+
+    @NonNull
+    private final Gson gson;
+    @NonNull
+    private final MeteredInputStream body;
+    @NonNull
+    private final JsonReader reader;
+    @NonNull
+    private final Map<String, String> headers;
+    private boolean arrayStarted = false;
+
+    StreamedNotesResponse(@NonNull Gson gson, @NonNull InputStream body, @NonNull Map<String, String> headers) {
+        this.gson = gson;
+        this.body = new MeteredInputStream(body);
+        this.reader = new JsonReader(new InputStreamReader(this.body, StandardCharsets.UTF_8));
+        this.headers = headers;
+    }
+
+    @NonNull
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    @Nullable
+    public String getHeader(@NonNull String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * @return the count of bytes of the response body which have been received so far
+     */
+    public long getBytesReceived() {
+        return body.getBytesRead();
+    }
+
+    /**
+     * @return the nanoseconds spent waiting for the response body so far. The remaining time spent in {@link #next()} is used for parsing.
+     */
+    public long getReceiveNanos() {
+        return body.getReadNanos();
+    }
+
+    /**
+     * @return whether there is at least one more {@link Note} in the response body
+     */
+    public boolean hasNext() throws IOException {
+        if (!arrayStarted) {
+            if (reader.peek() == JsonToken.END_DOCUMENT) {
+                return false;
+            }
+            reader.beginArray();
+            arrayStarted = true;
+        }
+        return reader.hasNext();
+    }
+
+    /**
+     * @return the next {@link Note} of the response body. Only call this if {@link #hasNext()} returned <code>true</code>.
+     */
+    @NonNull
+    public Note next() throws IOException {
+        if (!hasNext()) {
+            throw new IllegalStateException("No further notes in response.");
+        }
+        final Note note = gson.fromJson(reader, Note.class);
+        if (note == null) {
+            throw new IOException("Could not parse " + Note.class.getSimpleName() + " from response.");
+        }
+        return note;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -2,6 +2,7 @@ package it.niedermann.owncloud.notes.preferences;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 
@@ -97,6 +98,13 @@ public class PreferencesFragment extends PreferenceFragmentCompat implements Bra
             SyncWorker.update(requireContext(), (Boolean) newValue);
             return true;
         });
+
+        final Preference syncMetricsPref = findPreference(getString(R.string.pref_key_sync_metrics));
+        assert syncMetricsPref != null;
+        syncMetricsPref.setOnPreferenceClickListener(preference -> {
+            startActivity(new Intent(requireContext(), SyncMetricsActivity.class));
+            return true;
+        });
     }
 
 
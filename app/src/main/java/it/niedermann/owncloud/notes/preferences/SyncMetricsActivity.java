@@ -0,0 +1,120 @@
+package it.niedermann.owncloud.notes.preferences;
+
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.DateFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import it.niedermann.owncloud.notes.LockedActivity;
+import it.niedermann.owncloud.notes.R;
+import it.niedermann.owncloud.notes.databinding.ActivitySyncMetricsBinding;
+import it.niedermann.owncloud.notes.persistence.NotesRepository;
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.shared.model.SyncMetrics;
+import it.niedermann.owncloud.notes.shared.util.ShareUtil;
+
+/**
+ * Shows the {@link SyncMetrics} of the recent synchronizations of all {@link Account}s and allows to export them as plain text report.
+ */
+public class SyncMetricsActivity extends LockedActivity {
+
+    private ActivitySyncMetricsBinding binding;
+    private NotesRepository repo;
+    @Nullable
+    private String report;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        binding = ActivitySyncMetricsBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+        setSupportActionBar(binding.toolbar);
+
+        repo = NotesRepository.getInstance(getApplicationContext());
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        new Thread(() -> {
+            final StringBuilder builder = new StringBuilder();
+            for (Account account : repo.getAccounts()) {
+                final List<SyncMetrics> metrics = repo.getSyncMetrics(account.getId());
+                if (!metrics.isEmpty()) {
+                    builder.append(createReport(account, metrics)).append("\n");
+                }
+            }
+            final String report = builder.length() == 0 ? null : builder.toString();
+            runOnUiThread(() -> {
+                this.report = report;
+                binding.report.setText(report == null ? getString(R.string.sync_metrics_empty) : report);
+                invalidateOptionsMenu();
+            });
+        }).start();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_sync_metrics, menu);
+        return super.onCreateOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        menu.findItem(R.id.menu_share).setVisible(report != null);
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.menu_share && report != null) {
+            ShareUtil.openShareDialog(this, getString(R.string.settings_sync_metrics), report);
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * The report is meant to be read by developers and is therefore not translated.
+     */
+    @NonNull
+    static String createReport(@NonNull Account account, @NonNull List<SyncMetrics> metrics) {
+        final DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM, Locale.ROOT);
+        final StringBuilder report = new StringBuilder("Account ").append(account.getAccountName()).append("\n");
+        for (SyncMetrics m : metrics) {
+            report.append("\n")
+                    .append(dateFormat.format(m.getStarted().getTime()))
+                    .append(" | ").append(m.isOnlyLocalChanges() ? "push" : "full")
+                    .append(" | ").append(m.getDurationMillis()).append(" ms")
+                    .append(" | ").append(m.isCancelled() ? "cancelled" : (m.isPushSuccessful() && m.isPullSuccessful() ? "ok" : "failed"))
+                    .append("\n");
+            report.append("  ");
+            for (SyncMetrics.Phase phase : SyncMetrics.Phase.values()) {
+                report.append(phase.name().toLowerCase(Locale.ROOT)).append(" ").append(m.getDurationMillis(phase)).append(" ms  ");
+            }
+            report.append("\n  ");
+            for (SyncMetrics.Counter counter : SyncMetrics.Counter.values()) {
+                report.append(counter.name().toLowerCase(Locale.ROOT)).append(" ").append(m.get(counter)).append("  ");
+            }
+            report.append("\n  http");
+            for (Map.Entry<Integer, Integer> statusCode : m.getHttpStatusCodes().entrySet()) {
+                report.append(" ").append(statusCode.getKey()).append("×").append(statusCode.getValue());
+            }
+            report.append("\n");
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void applyBrand(int mainColor, int textColor) {
+        applyBrandToPrimaryToolbar(binding.appBar, binding.toolbar);
+    }
+}
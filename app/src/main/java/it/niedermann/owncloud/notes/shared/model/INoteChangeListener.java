@@ -0,0 +1,12 @@
+package it.niedermann.owncloud.notes.shared.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Gets notified by {@link it.niedermann.owncloud.notes.persistence.NotesRepository} after {@link it.niedermann.owncloud.notes.persistence.entity.Note}s have been written.
+ */
+public interface INoteChangeListener {
+    @WorkerThread
+    void onNoteChanged(@NonNull NoteChange change);
+}
@@ -0,0 +1,137 @@
+package it.niedermann.owncloud.notes.shared.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Describes a write to one or more {@link it.niedermann.owncloud.notes.persistence.entity.Note}s, so observers can decide
+ * whether they need to query the database again instead of reacting to each change of the whole table.
+ * <p>
+ * Unknown parts are treated as "anything": A change without {@link #accountId} might affect every account,
+ * a change without {@link #noteIds} might affect every note of the account.
+ */
+public class NoteChange {
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+
+    public enum Field {
+        TITLE,
+        /**
+         * The content and therefore also the excerpt
+         */
+        CONTENT,
+        CATEGORY,
+        FAVORITE,
+        STATUS,
+        MODIFIED,
+        /**
+         * Remote ID and ETag, which are only relevant for the synchronization
+         */
+        REMOTE
+    }
+
+    /**
+     * {@link Field}s which are displayed in lists of notes, in the main list as well as in the widgets
+     */
+    public static final Set<Field> FIELDS_SHOWN_IN_LISTS = Collections.unmodifiableSet(EnumSet.of(Field.TITLE, Field.CONTENT, Field.CATEGORY, Field.FAVORITE, Field.STATUS, Field.MODIFIED));
+
+    /**
+     * {@link Field}s which influence the number of notes per category
+     */
+    public static final Set<Field> FIELDS_COUNTED_IN_CATEGORIES = Collections.unmodifiableSet(EnumSet.of(Field.CATEGORY, Field.FAVORITE, Field.STATUS));
+
+    @NonNull
+    private final Type type;
+    @Nullable
+    private final Long accountId;
+    @Nullable
+    private final Set<Long> noteIds;
+    @NonNull
+    private final Set<Field> fields;
+
+    private NoteChange(@NonNull Type type, @Nullable Long accountId, @Nullable Collection<Long> noteIds, @NonNull EnumSet<Field> fields) {
+        this.type = type;
+        this.accountId = accountId;
+        this.noteIds = noteIds == null ? null : Collections.unmodifiableSet(new HashSet<>(noteIds));
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    public static NoteChange added(long accountId, @NonNull Collection<Long> noteIds) {
+        return new NoteChange(Type.ADDED, accountId, noteIds, EnumSet.allOf(Field.class));
+    }
+
+    public static NoteChange updated(@Nullable Long accountId, @NonNull Collection<Long> noteIds, @NonNull Field field, @NonNull Field... fields) {
+        return new NoteChange(Type.UPDATED, accountId, noteIds, EnumSet.of(field, fields));
+    }
+
+    public static NoteChange deleted(@Nullable Long accountId, @Nullable Collection<Long> noteIds) {
+        return new NoteChange(Type.DELETED, accountId, noteIds, EnumSet.allOf(Field.class));
+    }
+
+    @NonNull
+    public Type getType() {
+        return type;
+    }
+
+    @Nullable
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * @return the IDs of the changed notes or <code>null</code> if any note of the account might have changed
+     */
+    @Nullable
+    public Set<Long> getNoteIds() {
+        return noteIds;
+    }
+
+    /**
+     * @return the changed {@link Field}s, which are all {@link Field}s for {@link Type#ADDED} and {@link Type#DELETED}
+     */
+    @NonNull
+    public Set<Field> getFields() {
+        return fields;
+    }
+
+    public boolean affectsAccount(long accountId) {
+        return this.accountId == null || this.accountId == accountId;
+    }
+
+    public boolean affectsNote(long noteId) {
+        return noteIds == null || noteIds.contains(noteId);
+    }
+
+    /**
+     * @return whether at least one of the given {@link Field}s has been changed
+     */
+    public boolean affectsAnyOf(@NonNull Set<Field> fields) {
+        for (Field field : fields) {
+            if (this.fields.contains(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "NoteChange{" +
+                "type=" + type +
+                ", accountId=" + accountId +
+                ", noteIds=" + noteIds +
+                ", fields=" + fields +
+                '}';
+    }
+}
@@ -0,0 +1,162 @@
+package it.niedermann.owncloud.notes.shared.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.Calendar;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings and counters of a single synchronization run of one account.
+ * <p>
+ * Push tasks run in parallel, therefore all recording methods are thread safe.
+ */
+public class SyncMetrics {
+
+    public enum Phase {
+        /**
+         * Pushing local changes including the requests
+         */
+        PUSH,
+        /**
+         * Waiting for responses of pull requests
+         */
+        FETCH,
+        /**
+         * Parsing of pulled notes
+         */
+        PARSE,
+        /**
+         * Writing pulled notes to the database, including the excerpt generation
+         */
+        APPLY,
+        /**
+         * Removing remotely deleted notes from the database
+         */
+        DELETE
+    }
+
+    public enum Counter {
+        NOTES_PUSHED,
+        NOTES_FETCHED,
+        NOTES_CHANGED,
+        NOTES_APPLIED,
+        NOTES_DELETED,
+        BYTES_RECEIVED,
+        RETRIES
+    }
+
+    private final long accountId;
+    private final boolean onlyLocalChanges;
+    @NonNull
+    private final Calendar started = Calendar.getInstance();
+    private final long startedNanos = System.nanoTime();
+    private long durationNanos = -1;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] counters = new long[Counter.values().length];
+    private final Map<Integer, Integer> httpStatusCodes = new TreeMap<>();
+    private boolean pushSuccessful = true;
+    private boolean pullSuccessful = true;
+    private boolean cancelled = false;
+
+    public SyncMetrics(long accountId, boolean onlyLocalChanges) {
+        this.accountId = accountId;
+        this.onlyLocalChanges = onlyLocalChanges;
+    }
+
+    public synchronized void addDuration(@NonNull Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public synchronized void increment(@NonNull Counter counter) {
+        add(counter, 1);
+    }
+
+    public synchronized void add(@NonNull Counter counter, long value) {
+        counters[counter.ordinal()] += value;
+    }
+
+    public synchronized void addHttpStatusCode(int statusCode) {
+        final Integer count = httpStatusCodes.get(statusCode);
+        httpStatusCodes.put(statusCode, count == null ? 1 : count + 1);
+    }
+
+    public synchronized void finish(@NonNull SyncResultStatus status, boolean cancelled) {
+        this.durationNanos = System.nanoTime() - startedNanos;
+        this.pushSuccessful = status.pushSuccessful;
+        this.pullSuccessful = status.pullSuccessful;
+        this.cancelled = cancelled;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public boolean isOnlyLocalChanges() {
+        return onlyLocalChanges;
+    }
+
+    @NonNull
+    public Calendar getStarted() {
+        return started;
+    }
+
+    /**
+     * @return the total duration in milliseconds, <code>-1</code> if the synchronization has not finished yet
+     */
+    public synchronized long getDurationMillis() {
+        return durationNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    public synchronized long getDurationMillis(@NonNull Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(phaseNanos[phase.ordinal()]);
+    }
+
+    public synchronized long get(@NonNull Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    /**
+     * @return the count of responses per HTTP status code, ordered by status code
+     */
+    @NonNull
+    public synchronized Map<Integer, Integer> getHttpStatusCodes() {
+        return new TreeMap<>(httpStatusCodes);
+    }
+
+    public synchronized boolean isPushSuccessful() {
+        return pushSuccessful;
+    }
+
+    public synchronized boolean isPullSuccessful() {
+        return pullSuccessful;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        final StringBuilder builder = new StringBuilder("SyncMetrics{")
+                .append("accountId=").append(accountId)
+                .append(", onlyLocalChanges=").append(onlyLocalChanges)
+                .append(", started=").append(started.getTime())
+                .append(", durationMillis=").append(getDurationMillis());
+        for (Phase phase : Phase.values()) {
+            builder.append(", ").append(phase).append("=").append(getDurationMillis(phase)).append("ms");
+        }
+        for (Counter counter : Counter.values()) {
+            builder.append(", ").append(counter).append("=").append(get(counter));
+        }
+        return builder
+                .append(", httpStatusCodes=").append(httpStatusCodes)
+                .append(", pushSuccessful=").append(pushSuccessful)
+                .append(", pullSuccessful=").append(pullSuccessful)
+                .append(", cancelled=").append(cancelled)
+                .append('}')
+                .toString();
+    }
+}
@@ -52,4 +52,24 @@ public class DisplayUtils {
         }
         return new NavigationItem.CategoryNavigationItem("category:" + counter.getCategory(), counter.getCategory(), counter.getTotalNotes(), icon, counter.getAccountId(), counter.getCategory());
     }
+
+    /**
+     * @return the number of all notes in the given categories, which equals the number of all notes of the account if all categories are passed.
+     */
+    public static int sumTotalNotes(@NonNull Collection<CategoryWithNotesCount> counter) {
+        return counter.stream()
+                .map(CategoryWithNotesCount::getTotalNotes)
+                .mapToInt(count -> count == null ? 0 : count)
+                .sum();
+    }
+
+    /**
+     * @return the number of favorite notes in the given categories, which equals the number of all favorites of the account if all categories are passed.
+     */
+    public static int sumFavoriteNotes(@NonNull Collection<CategoryWithNotesCount> counter) {
+        return counter.stream()
+                .map(CategoryWithNotesCount::getFavoriteNotes)
+                .mapToInt(count -> count == null ? 0 : count)
+                .sum();
+    }
 }
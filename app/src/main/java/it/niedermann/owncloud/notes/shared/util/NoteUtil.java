@@ -122,6 +122,54 @@ public class NoteUtil {
         return line;
     }
 
+    /**
+     * Builds a full text search <code>MATCH</code> expression which matches all notes containing
+     * words that start with each of the words of the given search term.
+     * <p>
+     * Unlike the <code>LIKE</code> based search, this does not match in the middle of a word: <code>"ead"</code> does not find <code>"bread"</code>,
+     * and parts of compound words are only found if they are separated by punctuation, e.g. <code>"grain"</code> finds <code>"whole-grain"</code>.
+     * <pre>
+     * "foo"       -> "foo*"
+     * "Foo bar"   -> "foo* bar*"
+     * "foo-bar!"  -> "foo* bar*"
+     * "日记"       -> null
+     * </pre>
+     *
+     * @param searchTerm the term as typed by the user
+     * @return <code>null</code> if the term can not be answered by the full text search index, e.g. because it is empty or contains non ASCII characters, which are neither case folded nor split into words by the index.
+     */
+    @Nullable
+    public static String generateFullTextSearchQuery(@Nullable String searchTerm) {
+        if (searchTerm == null) {
+            return null;
+        }
+        final StringBuilder query = new StringBuilder();
+        final StringBuilder token = new StringBuilder();
+        for (int i = 0; i < searchTerm.length(); i++) {
+            final char c = searchTerm.charAt(i);
+            if (c > 0x7F) {
+                return null;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else {
+                appendPrefixToken(query, token);
+            }
+        }
+        appendPrefixToken(query, token);
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    private static void appendPrefixToken(@NonNull StringBuilder query, @NonNull StringBuilder token) {
+        if (token.length() > 0) {
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append(token).append('*');
+            token.setLength(0);
+        }
+    }
+
     @NonNull
     public static String extendCategory(@NonNull String category) {
         return category.replace("/", " / ");
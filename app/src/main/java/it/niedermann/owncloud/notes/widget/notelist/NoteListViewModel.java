@@ -18,10 +18,11 @@ import it.niedermann.owncloud.notes.persistence.NotesRepository;
 
 import static androidx.lifecycle.Transformations.distinctUntilChanged;
 import static androidx.lifecycle.Transformations.map;
-import static androidx.lifecycle.Transformations.switchMap;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.FAVORITES;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.RECENT;
 import static it.niedermann.owncloud.notes.shared.util.DisplayUtils.convertToCategoryNavigationItem;
+import static it.niedermann.owncloud.notes.shared.util.DisplayUtils.sumFavoriteNotes;
+import static it.niedermann.owncloud.notes.shared.util.DisplayUtils.sumTotalNotes;
 
 public class NoteListViewModel extends AndroidViewModel {
 
@@ -37,31 +38,28 @@ public class NoteListViewModel extends AndroidViewModel {
 
     public LiveData<List<NavigationItem>> getAdapterCategories(Long accountId) {
         return distinctUntilChanged(
-                switchMap(distinctUntilChanged(repo.count$(accountId)), (count) -> {
-                    Log.v(TAG, "[getAdapterCategories] countLiveData: " + count);
-                    return switchMap(distinctUntilChanged(repo.countFavorites$(accountId)), (favoritesCount) -> {
-                        Log.v(TAG, "[getAdapterCategories] getFavoritesCountLiveData: " + favoritesCount);
-                        return map(distinctUntilChanged(repo.getCategories$(accountId)), fromDatabase -> {
-                            final List<NavigationItem.CategoryNavigationItem> categories = convertToCategoryNavigationItem(getApplication(), fromDatabase);
+                map(distinctUntilChanged(repo.getCategories$(accountId)), fromDatabase -> {
+                    final int count = sumTotalNotes(fromDatabase);
+                    final int favoritesCount = sumFavoriteNotes(fromDatabase);
+                    Log.v(TAG, "[getAdapterCategories] count: " + count + ", favoritesCount: " + favoritesCount);
+                    final List<NavigationItem.CategoryNavigationItem> categories = convertToCategoryNavigationItem(getApplication(), fromDatabase);
 
-                            final List<NavigationItem> items = new ArrayList<>(fromDatabase.size() + 3);
-                            items.add(new NavigationItem(MainActivity.ADAPTER_KEY_RECENT, getApplication().getString(R.string.label_all_notes), count, R.drawable.ic_access_time_grey600_24dp, RECENT));
-                            items.add(new NavigationItem(MainActivity.ADAPTER_KEY_STARRED, getApplication().getString(R.string.label_favorites), favoritesCount, R.drawable.ic_star_yellow_24dp, FAVORITES));
+                    final List<NavigationItem> items = new ArrayList<>(fromDatabase.size() + 3);
+                    items.add(new NavigationItem(MainActivity.ADAPTER_KEY_RECENT, getApplication().getString(R.string.label_all_notes), count, R.drawable.ic_access_time_grey600_24dp, RECENT));
+                    items.add(new NavigationItem(MainActivity.ADAPTER_KEY_STARRED, getApplication().getString(R.string.label_favorites), favoritesCount, R.drawable.ic_star_yellow_24dp, FAVORITES));
 
-                            if (categories.size() > 2 && categories.get(2).label.isEmpty()) {
-                                items.add(new NavigationItem(MainActivity.ADAPTER_KEY_UNCATEGORIZED, "", null, NavigationAdapter.ICON_NOFOLDER));
-                            }
+                    if (categories.size() > 2 && categories.get(2).label.isEmpty()) {
+                        items.add(new NavigationItem(MainActivity.ADAPTER_KEY_UNCATEGORIZED, "", null, NavigationAdapter.ICON_NOFOLDER));
+                    }
 
-                            for (NavigationItem item : categories) {
-                                final int slashIndex = item.label.indexOf('/');
+                    for (NavigationItem item : categories) {
+                        final int slashIndex = item.label.indexOf('/');
 
-                                item.label = slashIndex < 0 ? item.label : item.label.substring(0, slashIndex);
-                                item.id = "category:" + item.label;
-                                items.add(item);
-                            }
-                            return items;
-                        });
-                    });
+                        item.label = slashIndex < 0 ? item.label : item.label.substring(0, slashIndex);
+                        item.id = "category:" + item.label;
+                        items.add(item);
+                    }
+                    return items;
                 })
         );
     }
@@ -22,31 +22,32 @@ public class NoteListWidget extends AppWidgetProvider {
     static void updateAppWidget(Context context, AppWidgetManager awm, int[] appWidgetIds) {
         final NotesRepository repo = NotesRepository.getInstance(context);
 
-        RemoteViews views;
+        // Reading the widget data requires database access, which is not allowed on the main thread
+        new Thread(() -> {
+            for (int appWidgetId : appWidgetIds) {
+                try {
+                    final NotesListWidgetData data = repo.getNoteListWidgetData(appWidgetId);
 
-        for (int appWidgetId : appWidgetIds) {
-            try {
-                final NotesListWidgetData data = repo.getNoteListWidgetData(appWidgetId);
-
-                final Intent serviceIntent = new Intent(context, NoteListWidgetService.class);
-                serviceIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
-                serviceIntent.setData(Uri.parse(serviceIntent.toUri(Intent.URI_INTENT_SCHEME)));
+                    final Intent serviceIntent = new Intent(context, NoteListWidgetService.class);
+                    serviceIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
+                    serviceIntent.setData(Uri.parse(serviceIntent.toUri(Intent.URI_INTENT_SCHEME)));
 
-                final PendingIntent pendingIntent = PendingIntent.getActivity(context, 0, new Intent(), PendingIntent.FLAG_UPDATE_CURRENT | Intent.FILL_IN_COMPONENT);
+                    final PendingIntent pendingIntent = PendingIntent.getActivity(context, 0, new Intent(), PendingIntent.FLAG_UPDATE_CURRENT | Intent.FILL_IN_COMPONENT);
 
-                Log.v(TAG, "-- data - " + data);
+                    Log.v(TAG, "-- data - " + data);
 
-                views = new RemoteViews(context.getPackageName(), R.layout.widget_note_list);
-                views.setRemoteAdapter(R.id.note_list_widget_lv, serviceIntent);
-                views.setPendingIntentTemplate(R.id.note_list_widget_lv, pendingIntent);
-                views.setEmptyView(R.id.note_list_widget_lv, R.id.widget_note_list_placeholder_tv);
+                    final RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_note_list);
+                    views.setRemoteAdapter(R.id.note_list_widget_lv, serviceIntent);
+                    views.setPendingIntentTemplate(R.id.note_list_widget_lv, pendingIntent);
+                    views.setEmptyView(R.id.note_list_widget_lv, R.id.widget_note_list_placeholder_tv);
 
-                awm.notifyAppWidgetViewDataChanged(appWidgetId, R.id.note_list_widget_lv);
-                awm.updateAppWidget(appWidgetId, views);
-            } catch (NoSuchElementException e) {
-                Log.i(TAG, "onUpdate has been triggered before the user finished configuring the widget");
+                    awm.notifyAppWidgetViewDataChanged(appWidgetId, R.id.note_list_widget_lv);
+                    awm.updateAppWidget(appWidgetId, views);
+                } catch (NoSuchElementException e) {
+                    Log.i(TAG, "onUpdate has been triggered before the user finished configuring the widget");
+                }
             }
-        }
+        }).start();
     }
 
     @Override
@@ -57,6 +58,7 @@ public class NoteListWidget extends AppWidgetProvider {
 
     @Override
     public void onReceive(Context context, Intent intent) {
+        // super.onReceive() already updates the widgets given as EXTRA_APPWIDGET_IDS via onUpdate()
         super.onReceive(context, intent);
         AppWidgetManager awm = AppWidgetManager.getInstance(context);
 
@@ -68,7 +70,7 @@ public class NoteListWidget extends AppWidgetProvider {
                     } else {
                         Log.w(TAG, "intent.getExtras() is null");
                     }
-                } else {
+                } else if (!intent.hasExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS)) {
                     updateAppWidget(context, awm, awm.getAppWidgetIds(new ComponentName(context, NoteListWidget.class)));
                 }
             }
@@ -93,4 +95,13 @@ public class NoteListWidget extends AppWidgetProvider {
     public static void updateNoteListWidgets(Context context) {
         context.sendBroadcast(new Intent(context, NoteListWidget.class).setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE));
     }
+
+    /**
+     * Update only the given note list widgets, e.g. because notes of their account have been changed.
+     */
+    public static void updateNoteListWidgets(Context context, int[] appWidgetIds) {
+        context.sendBroadcast(new Intent(context, NoteListWidget.class)
+                .setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE)
+                .putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, appWidgetIds));
+    }
 }
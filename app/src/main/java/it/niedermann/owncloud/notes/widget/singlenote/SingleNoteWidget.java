@@ -24,29 +24,32 @@ public class SingleNoteWidget extends AppWidgetProvider {
         final Intent templateIntent = new Intent(context, EditNoteActivity.class);
         final NotesRepository repo = NotesRepository.getInstance(context);
 
-        for (int appWidgetId : appWidgetIds) {
-            final SingleNoteWidgetData data = repo.getSingleNoteWidgetData(appWidgetId);
-            if (data != null) {
-                templateIntent.putExtra(BaseNoteFragment.PARAM_ACCOUNT_ID, data.getAccountId());
-
-                final PendingIntent templatePendingIntent = PendingIntent.getActivity(context, appWidgetId, templateIntent,
-                        PendingIntent.FLAG_UPDATE_CURRENT);
-
-                final Intent serviceIntent = new Intent(context, SingleNoteWidgetService.class);
-                serviceIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
-                serviceIntent.setData(Uri.parse(serviceIntent.toUri(Intent.URI_INTENT_SCHEME)));
-
-                final RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_single_note);
-                views.setPendingIntentTemplate(R.id.single_note_widget_lv, templatePendingIntent);
-                views.setRemoteAdapter(R.id.single_note_widget_lv, serviceIntent);
-                views.setEmptyView(R.id.single_note_widget_lv, R.id.widget_single_note_placeholder_tv);
-
-                awm.notifyAppWidgetViewDataChanged(appWidgetId, R.id.single_note_widget_lv);
-                awm.updateAppWidget(appWidgetId, views);
-            } else {
-                Log.i(TAG, "onUpdate has been triggered before the user finished configuring the widget");
+        // Reading the widget data requires database access, which is not allowed on the main thread
+        new Thread(() -> {
+            for (int appWidgetId : appWidgetIds) {
+                final SingleNoteWidgetData data = repo.getSingleNoteWidgetData(appWidgetId);
+                if (data != null) {
+                    templateIntent.putExtra(BaseNoteFragment.PARAM_ACCOUNT_ID, data.getAccountId());
+
+                    final PendingIntent templatePendingIntent = PendingIntent.getActivity(context, appWidgetId, templateIntent,
+                            PendingIntent.FLAG_UPDATE_CURRENT);
+
+                    final Intent serviceIntent = new Intent(context, SingleNoteWidgetService.class);
+                    serviceIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
+                    serviceIntent.setData(Uri.parse(serviceIntent.toUri(Intent.URI_INTENT_SCHEME)));
+
+                    final RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_single_note);
+                    views.setPendingIntentTemplate(R.id.single_note_widget_lv, templatePendingIntent);
+                    views.setRemoteAdapter(R.id.single_note_widget_lv, serviceIntent);
+                    views.setEmptyView(R.id.single_note_widget_lv, R.id.widget_single_note_placeholder_tv);
+
+                    awm.notifyAppWidgetViewDataChanged(appWidgetId, R.id.single_note_widget_lv);
+                    awm.updateAppWidget(appWidgetId, views);
+                } else {
+                    Log.i(TAG, "onUpdate has been triggered before the user finished configuring the widget");
+                }
             }
-        }
+        }).start();
     }
 
     @Override
@@ -57,11 +60,14 @@ public class SingleNoteWidget extends AppWidgetProvider {
 
     @Override
     public void onReceive(Context context, Intent intent) {
+        // super.onReceive() already updates the given widgets via onUpdate()
         super.onReceive(context, intent);
-        AppWidgetManager awm = AppWidgetManager.getInstance(context);
+        if (!intent.hasExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS)) {
+            AppWidgetManager awm = AppWidgetManager.getInstance(context);
 
-        updateAppWidget(context, AppWidgetManager.getInstance(context),
-                (awm.getAppWidgetIds(new ComponentName(context, SingleNoteWidget.class))));
+            updateAppWidget(context, AppWidgetManager.getInstance(context),
+                    (awm.getAppWidgetIds(new ComponentName(context, SingleNoteWidget.class))));
+        }
     }
 
     @Override
@@ -80,4 +86,13 @@ public class SingleNoteWidget extends AppWidgetProvider {
     public static void updateSingleNoteWidgets(Context context) {
         context.sendBroadcast(new Intent(context, SingleNoteWidget.class).setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE));
     }
+
+    /**
+     * Update only the given single note widgets, e.g. because the notes they display have been changed.
+     */
+    public static void updateSingleNoteWidgets(Context context, int[] appWidgetIds) {
+        context.sendBroadcast(new Intent(context, SingleNoteWidget.class)
+                .setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE)
+                .putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, appWidgetIds));
+    }
 }
@@ -0,0 +1,102 @@
+package it.niedermann.owncloud.notes.main;
+
+import android.app.Application;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.SavedStateHandle;
+import androidx.paging.PagingSource;
+import androidx.paging.PagingState;
+import androidx.paging.rxjava2.RxPagingSource;
+import androidx.test.core.app.ApplicationProvider;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.Single;
+import it.niedermann.owncloud.notes.persistence.NotesRepository;
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+
+import static android.os.Looper.getMainLooper;
+import static it.niedermann.owncloud.notes.shared.model.CategorySortingMethod.SORT_MODIFIED_DESC;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class MainViewModelTest extends TestCase {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final NotesRepository repo = mock(NotesRepository.class);
+    private final List<PagingSource<Integer, Note>> sources = new ArrayList<>();
+    private MainViewModel viewModel;
+
+    @Before
+    public void setup() {
+        final Answer<PagingSource<Integer, Note>> createSource = invocation -> {
+            final PagingSource<Integer, Note> source = new EmptyPagingSource();
+            sources.add(source);
+            return source;
+        };
+        when(repo.searchRecentByModifiedPaged(anyLong(), anyString())).thenAnswer(createSource);
+        when(repo.fullTextSearchRecentByModifiedPaged(anyLong(), anyString())).thenAnswer(createSource);
+        when(repo.getCategoryOrder(any())).thenReturn(new MutableLiveData<>(SORT_MODIFIED_DESC));
+        viewModel = new MainViewModel(ApplicationProvider.<Application>getApplicationContext(), new SavedStateHandle(), repo);
+    }
+
+    @Test
+    public void testChangingTheSearchTermKeepsOnlyOnePagingSourceActive() {
+        final Account account = mock(Account.class);
+        when(account.getId()).thenReturn(1L);
+        viewModel.getNotesListLiveData().observeForever(pagingData -> {
+        });
+        viewModel.postCurrentAccount(account);
+        shadowOf(getMainLooper()).idle();
+
+        for (String searchTerm : new String[]{"f", "fo", "foo", "foo b", "foo ba", "foo bar", "日", "日记", ""}) {
+            viewModel.postSearchTerm(searchTerm);
+            shadowOf(getMainLooper()).idle();
+        }
+
+        assertTrue(sources.size() > 1);
+        assertEquals(1, sources.stream().filter(source -> !source.getInvalid()).count());
+        // Reading the list again must not create another pager
+        assertSame(viewModel.getNotesListLiveData(), viewModel.getNotesListLiveData());
+    }
+
+    private static class EmptyPagingSource extends RxPagingSource<Integer, Note> {
+
+        @NonNull
+        @Override
+        public Single<LoadResult<Integer, Note>> loadSingle(@NonNull LoadParams<Integer> params) {
+            return Single.just(new LoadResult.Page<>(Collections.emptyList(), null, null));
+        }
+
+        @Nullable
+        @Override
+        public Integer getRefreshKey(@NonNull PagingState<Integer, Note> state) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package it.niedermann.owncloud.notes.main.items;
+
+import android.os.Build;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import it.niedermann.owncloud.notes.main.items.section.SectionItem;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.shared.model.DBStatus;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class ItemDiffCallbackTest extends TestCase {
+
+    private final ItemDiffCallback callback = new ItemDiffCallback();
+
+    @Test
+    public void testAreItemsTheSame() {
+        assertTrue(callback.areItemsTheSame(new SectionItem("Foo"), new SectionItem("Foo")));
+        assertFalse(callback.areItemsTheSame(new SectionItem("Foo"), new SectionItem("Bar")));
+        assertTrue(callback.areItemsTheSame(note(1, "Foo", false), note(1, "Bar", true)));
+        assertFalse(callback.areItemsTheSame(note(1, "Foo", false), note(2, "Foo", false)));
+        assertFalse(callback.areItemsTheSame(new SectionItem("Foo"), note(1, "Foo", false)));
+    }
+
+    @Test
+    public void testAreContentsTheSame() {
+        assertTrue(callback.areContentsTheSame(note(1, "Foo", false), note(1, "Foo", false)));
+        assertFalse(callback.areContentsTheSame(note(1, "Foo", false), note(1, "Foo", true)));
+        assertFalse(callback.areContentsTheSame(note(1, "Foo", false), note(1, "Bar", false)));
+    }
+
+    @Test
+    public void testGetChangePayload() {
+        assertSame(ItemDiffCallback.PAYLOAD_FAVORITE, callback.getChangePayload(note(1, "Foo", false), note(1, "Foo", true)));
+        assertNull(callback.getChangePayload(note(1, "Foo", false), note(1, "Bar", true)));
+        assertNull(callback.getChangePayload(note(1, "Foo", false), note(1, "Bar", false)));
+    }
+
+    private static Note note(long id, String title, boolean favorite) {
+        return new Note(id, 1L, null, title, "", "", favorite, null, DBStatus.VOID, 1, "");
+    }
+}
@@ -39,6 +39,7 @@ public class AccountDaoTest {
         db = Room
                 .inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), NotesDatabase.class)
                 .allowMainThreadQueries()
+                .addCallback(NotesDatabase.CALLBACK)
                 .build();
     }
 
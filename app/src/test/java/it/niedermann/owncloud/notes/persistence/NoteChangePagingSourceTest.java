@@ -0,0 +1,156 @@
+package it.niedermann.owncloud.notes.persistence;
+
+import android.content.Context;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.paging.PagingSource;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Constructor;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+
+import it.niedermann.owncloud.notes.persistence.dao.NoteDao;
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.shared.model.Capabilities;
+import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
+
+import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_DELETED;
+import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class NoteChangePagingSourceTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private static final int PAGE_SIZE = 10;
+    private static final int MATCHING_NOTES = 25;
+
+    private final ExecutorService executor = MoreExecutors.newDirectExecutorService();
+    private NotesDatabase db;
+    private NotesRepository repo;
+    private Account account;
+
+    @Before
+    public void setup() throws Exception {
+        final Context context = ApplicationProvider.getApplicationContext();
+        db = Room
+                .inMemoryDatabaseBuilder(context, NotesDatabase.class)
+                .allowMainThreadQueries()
+                .addCallback(NotesDatabase.CALLBACK)
+                .build();
+
+        final Constructor<NotesRepository> constructor = NotesRepository.class.getDeclaredConstructor(Context.class, NotesDatabase.class, ExecutorService.class);
+        constructor.setAccessible(true);
+        repo = constructor.newInstance(context, db, executor);
+
+        repo.addAccount("https://example.com", "test", "test@example.com", new Capabilities(), null, new IResponseCallback<Account>() {
+            @Override
+            public void onSuccess(Account result) {
+
+            }
+
+            @Override
+            public void onError(@NonNull Throwable t) {
+                fail();
+            }
+        });
+        account = repo.getAccountByName("test@example.com");
+
+        long id = 1;
+        for (int i = 0; i < MATCHING_NOTES; i++) {
+            db.getNoteDao().addNote(new Note(id++, null, Calendar.getInstance(), title(i), "", "", false, null, VOID, account.getId(), ""));
+        }
+        // Not matching the query or not being visible at all
+        db.getNoteDao().addNote(new Note(id++, null, Calendar.getInstance(), "Other", "", "", false, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(id, null, Calendar.getInstance(), "Match deleted", "", "", false, null, LOCAL_DELETED, account.getId(), ""));
+    }
+
+    @After
+    public void closeDb() {
+        db.close();
+    }
+
+    @Test
+    public void testLoadPages() {
+        final NoteChangePagingSource source = new NoteChangePagingSource(repo, db.getNoteDao(), executor, change -> true, NoteDao.searchRecentLexicographically, account.getId(), "Match%");
+
+        // Both occurrences of the named query parameter are bound by the same argument, LIMIT and OFFSET are bound after them
+        final PagingSource.LoadResult.Page<Integer, Note> first = load(source, new PagingSource.LoadParams.Refresh<>(null, PAGE_SIZE, false));
+        assertPage(first, 0, PAGE_SIZE);
+        assertNull(first.getPrevKey());
+        assertEquals(Integer.valueOf(10), first.getNextKey());
+
+        final PagingSource.LoadResult.Page<Integer, Note> middle = load(source, new PagingSource.LoadParams.Append<>(first.getNextKey(), PAGE_SIZE, false));
+        assertPage(middle, 10, PAGE_SIZE);
+        assertEquals(Integer.valueOf(10), middle.getPrevKey());
+        assertEquals(Integer.valueOf(20), middle.getNextKey());
+
+        final PagingSource.LoadResult.Page<Integer, Note> last = load(source, new PagingSource.LoadParams.Append<>(middle.getNextKey(), PAGE_SIZE, false));
+        assertPage(last, 20, MATCHING_NOTES - 20);
+        assertEquals(Integer.valueOf(20), last.getPrevKey());
+        assertNull(last.getNextKey());
+
+        // Prepending from the middle page loads the page in front of it again
+        final PagingSource.LoadResult.Page<Integer, Note> prepended = load(source, new PagingSource.LoadParams.Prepend<>(middle.getPrevKey(), PAGE_SIZE, false));
+        assertPage(prepended, 0, PAGE_SIZE);
+        assertNull(prepended.getPrevKey());
+        assertEquals(Integer.valueOf(10), prepended.getNextKey());
+    }
+
+    @Test
+    public void testLoadPageStartingInTheMiddle() {
+        final NoteChangePagingSource source = new NoteChangePagingSource(repo, db.getNoteDao(), executor, change -> true, NoteDao.searchRecentLexicographically, account.getId(), "Match%");
+
+        final PagingSource.LoadResult.Page<Integer, Note> refreshed = load(source, new PagingSource.LoadParams.Refresh<>(5, PAGE_SIZE, false));
+        assertPage(refreshed, 5, PAGE_SIZE);
+        assertEquals(Integer.valueOf(5), refreshed.getPrevKey());
+        assertEquals(Integer.valueOf(15), refreshed.getNextKey());
+
+        // A prepended page in front of offset 5 only contains the first 5 notes
+        final PagingSource.LoadResult.Page<Integer, Note> prepended = load(source, new PagingSource.LoadParams.Prepend<>(refreshed.getPrevKey(), PAGE_SIZE, false));
+        assertPage(prepended, 0, 5);
+        assertNull(prepended.getPrevKey());
+        assertEquals(Integer.valueOf(5), prepended.getNextKey());
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private static PagingSource.LoadResult.Page<Integer, Note> load(@NonNull NoteChangePagingSource source, @NonNull PagingSource.LoadParams<Integer> params) {
+        return (PagingSource.LoadResult.Page<Integer, Note>) source.loadSingle(params).blockingGet();
+    }
+
+    private static void assertPage(@NonNull PagingSource.LoadResult.Page<Integer, Note> page, int offset, int size) {
+        final List<Note> notes = page.getData();
+        assertEquals(size, notes.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals(title(offset + i), notes.get(i).getTitle());
+        }
+    }
+
+    @NonNull
+    private static String title(int index) {
+        return String.format(Locale.ROOT, "Match %02d", index);
+    }
+}
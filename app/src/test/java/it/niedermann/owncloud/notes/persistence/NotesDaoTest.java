@@ -6,6 +6,7 @@ import android.os.Build;
 import androidx.annotation.NonNull;
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.test.core.app.ApplicationProvider;
 
 import org.junit.After;
@@ -19,11 +20,17 @@ import org.robolectric.annotation.Config;
 import java.util.Calendar;
 import java.util.List;
 
+import it.niedermann.owncloud.notes.persistence.dao.NoteDao;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.CategoryOptions;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesCount;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NoteViewState;
 import it.niedermann.owncloud.notes.shared.model.Capabilities;
+import it.niedermann.owncloud.notes.shared.model.CategorySortingMethod;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
+import it.niedermann.owncloud.notes.shared.util.ContentHashUtil;
+import it.niedermann.owncloud.notes.shared.util.NoteUtil;
 
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_DELETED;
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_EDITED;
@@ -31,6 +38,7 @@ import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -50,6 +58,7 @@ public class NotesDaoTest {
         db = Room
                 .inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), NotesDatabase.class)
                 .allowMainThreadQueries()
+                .addCallback(NotesDatabase.CALLBACK)
                 .build();
         db.getAccountDao().insert(new Account("https://äöüß.example.com", "彼得", "彼得@äöüß.example.com", null, new Capabilities()));
         account = db.getAccountDao().getAccountByName("彼得@äöüß.example.com");
@@ -62,47 +71,69 @@ public class NotesDaoTest {
 
     @Test
     public void deleteNoteById() throws InterruptedException {
-        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
         db.getNoteDao().deleteByNoteId(1, LOCAL_DELETED);
         assertNull(db.getNoteDao().getNoteById(1));
         assertNull(NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getNoteById$(1)));
 
-        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
         db.getNoteDao().deleteByNoteId(1, VOID);
         assertEquals(1, db.getNoteDao().getNoteById(1).getId());
         assertEquals(1, NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getNoteById$(1)).getId());
     }
 
     @Test
-    public void updateScrollY() {
-        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
-        db.getNoteDao().updateScrollY(1, 128);
-        assertEquals(128, db.getNoteDao().getNoteById(1).getScrollY());
+    public void createOrUpdateNoteViewState() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
+        assertNull(db.getNoteViewStateDao().getNoteViewState(1));
+
+        final NoteViewState viewState = new NoteViewState(1);
+        viewState.setScrollY(128);
+        viewState.setCursorPosition(1);
+        viewState.setLastOpened(Calendar.getInstance());
+        db.getNoteViewStateDao().createOrUpdateNoteViewStateIfNoteExists(viewState);
+        final NoteViewState stored = db.getNoteViewStateDao().getNoteViewState(1);
+        assertEquals(128, stored.getScrollY());
+        assertEquals(1, stored.getCursorPosition());
+        assertNotNull(stored.getLastOpened());
+        assertEquals(viewState.getLastOpened().getTimeInMillis(), stored.getLastOpened().getTimeInMillis());
+
+        viewState.setScrollY(256);
+        db.getNoteViewStateDao().createOrUpdateNoteViewStateIfNoteExists(viewState);
+        assertEquals(256, db.getNoteViewStateDao().getNoteViewState(1).getScrollY());
+
+        // The view state must not touch the note itself and vanishes together with it
+        assertEquals(LOCAL_DELETED, db.getNoteDao().getNoteById(1).getStatus());
+        db.getNoteDao().deleteByNoteId(1, LOCAL_DELETED);
+        assertNull(db.getNoteViewStateDao().getNoteViewState(1));
+
+        db.getNoteViewStateDao().createOrUpdateNoteViewStateIfNoteExists(viewState);
+        assertNull(db.getNoteViewStateDao().getNoteViewState(1));
     }
 
     @Test
     public void updateStatus() {
-        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
         db.getNoteDao().updateStatus(1, LOCAL_EDITED);
         assertEquals(LOCAL_EDITED, db.getNoteDao().getNoteById(1).getStatus());
     }
 
     @Test(expected = SQLiteConstraintException.class)
     public void updateStatus_NullConstraint() {
-        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
         db.getNoteDao().updateStatus(1, null);
     }
 
     @Test
     public void updateCategory() {
-        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
         db.getNoteDao().updateCategory(1, "日记");
         assertEquals("日记", db.getNoteDao().getNoteById(1).getCategory());
     }
 
     @Test(expected = SQLiteConstraintException.class)
     public void updateCategory_NullConstraint() {
-        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
         db.getNoteDao().updateCategory(1, null);
     }
 
@@ -110,10 +141,10 @@ public class NotesDaoTest {
     public void getRemoteIds() {
         final Account secondAccount = setupSecondAccount();
 
-        db.getNoteDao().addNote(new Note(1, 4711L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), "", 0));
-        db.getNoteDao().addNote(new Note(2, 1234L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_EDITED, account.getId(), "", 0));
-        db.getNoteDao().addNote(new Note(3, 1234L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_EDITED, secondAccount.getId(), "", 0));
-        db.getNoteDao().addNote(new Note(4, 6969L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(1, 4711L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(2, 1234L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_EDITED, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(3, 1234L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_EDITED, secondAccount.getId(), ""));
+        db.getNoteDao().addNote(new Note(4, 6969L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
 
         final List<Long> remoteIdsOfAccount = db.getNoteDao().getRemoteIds(account.getId());
         assertTrue(remoteIdsOfAccount.stream().anyMatch(id -> 4711 == id));
@@ -124,9 +155,9 @@ public class NotesDaoTest {
 
     @Test
     public void getRemoteIdAndId() {
-        db.getNoteDao().addNote(new Note(815, 4711L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), "", 0));
-        db.getNoteDao().addNote(new Note(666, 1234L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_EDITED, account.getId(), "", 0));
-        db.getNoteDao().addNote(new Note(987, 6969L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(815, 4711L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(666, 1234L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_EDITED, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(987, 6969L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_DELETED, account.getId(), ""));
 
         final List<Note> pair = db.getNoteDao().getRemoteIdAndId(account.getId());
         assertEquals(2, pair.size());
@@ -138,9 +169,9 @@ public class NotesDaoTest {
 
     @Test
     public void getLocalIdByRemoteId() {
-        db.getNoteDao().addNote(new Note(815, 4711L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0));
-        db.getNoteDao().addNote(new Note(666, 1234L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_EDITED, account.getId(), "", 0));
-        db.getNoteDao().addNote(new Note(987, 6969L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(815, 4711L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(666, 1234L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_EDITED, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(987, 6969L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), ""));
 
         assertEquals(Long.valueOf(815), db.getNoteDao().getLocalIdByRemoteId(account.getId(), 4711));
         assertEquals(Long.valueOf(666), db.getNoteDao().getLocalIdByRemoteId(account.getId(), 1234));
@@ -188,7 +219,7 @@ public class NotesDaoTest {
 
     @Test
     public void toggleFavorite() {
-        final Note note = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "", 0);
+        final Note note = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "");
         db.getNoteDao().addNote(note);
         db.getNoteDao().toggleFavorite(note.getId());
         assertTrue(db.getNoteDao().getNoteById(note.getId()).getFavorite());
@@ -200,7 +231,7 @@ public class NotesDaoTest {
 
     @Test
     public void updateRemoteId() {
-        final Note note = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "", 0);
+        final Note note = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "");
         db.getNoteDao().addNote(note);
         db.getNoteDao().updateRemoteId(1, 5L);
         assertEquals(Long.valueOf(5), db.getNoteDao().getNoteById(1).getRemoteId());
@@ -208,137 +239,137 @@ public class NotesDaoTest {
 
     @Test
     public void updateIfNotModifiedLocallyDuringSync_NotModified() {
-        final Note localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0);
-        final Note targetNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0);
+        final Note localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "");
+        final Note targetNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "");
 
         db.getNoteDao().addNote(localNote);
 
-        assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), targetNote.getExcerpt(), localNote.getContent(), localNote.getCategory(), localNote.getFavorite()));
+        assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), ContentHashUtil.hash(targetNote.getContent()), targetNote.getExcerpt(), ContentHashUtil.hash(localNote.getContent()), localNote.getCategory(), localNote.getFavorite()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyDuringSync_ModifiedContent() {
-        final Note localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0);
-        final Note targetNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0);
+        final Note localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "");
+        final Note targetNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "");
 
         db.getNoteDao().addNote(localNote);
 
         localNote.setContent("My-Modified-Content");
 
-        assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), targetNote.getExcerpt(), localNote.getContent(), localNote.getCategory(), localNote.getFavorite()));
+        assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), ContentHashUtil.hash(targetNote.getContent()), targetNote.getExcerpt(), ContentHashUtil.hash(localNote.getContent()), localNote.getCategory(), localNote.getFavorite()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyDuringSync_ModifiedFavorite() {
-        final Note localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0);
-        final Note targetNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0);
+        final Note localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "");
+        final Note targetNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "");
 
         db.getNoteDao().addNote(localNote);
 
         localNote.setFavorite(true);
 
-        assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), targetNote.getExcerpt(), localNote.getContent(), localNote.getCategory(), localNote.getFavorite()));
+        assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), ContentHashUtil.hash(targetNote.getContent()), targetNote.getExcerpt(), ContentHashUtil.hash(localNote.getContent()), localNote.getCategory(), localNote.getFavorite()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyDuringSync_ModifiedCategory() {
-        final Note localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0);
-        final Note targetNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0);
+        final Note localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "");
+        final Note targetNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "");
 
         db.getNoteDao().addNote(localNote);
 
         localNote.setCategory("Modified-Category");
 
-        assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), targetNote.getExcerpt(), localNote.getContent(), localNote.getCategory(), localNote.getFavorite()));
+        assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), ContentHashUtil.hash(targetNote.getContent()), targetNote.getExcerpt(), ContentHashUtil.hash(localNote.getContent()), localNote.getCategory(), localNote.getFavorite()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Nothing() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "")));
         assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Nothing_ETagWasAndIsNull() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "")));
         assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), null, localNote.getContent(), localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), null, localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Nothing_ETagWasNullButChanged() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, VOID, account.getId(), "")));
         assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), "1", localNote.getContent(), localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), "1", localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Modified() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "")));
         assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis() + 1000, localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis() + 1000, localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Title() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "")));
         assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle() + " ", localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle() + " ", localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Favorite() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "")));
         assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), !localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), !localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Category() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "")));
         assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory() + " ", localNote.getETag(), localNote.getContent(), localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory() + " ", localNote.getETag(), localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_ETag() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "")));
         assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag() + " ", localNote.getContent(), localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag() + " ", localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Content() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "")));
         assertEquals(1, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent() + " ", localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent() + " ", ContentHashUtil.hash(localNote.getContent() + " "), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Excerpt() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "")));
         assertEquals("Excerpt is a local property, and therefore should not prevent updating if different", 0, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getExcerpt() + " "));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent(), localNote.getContentHash(), localNote.getExcerpt() + " "));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_ContentChangedButWasLocalEdited() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_EDITED, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_EDITED, account.getId(), "")));
         assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent() + " ", localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent() + " ", ContentHashUtil.hash(localNote.getContent() + " "), localNote.getExcerpt()));
     }
 
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_ContentChangedButWasLocalDeleted() {
-        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "", 0)));
+        final Note localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "")));
         assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent() + " ", localNote.getExcerpt()));
+                localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent() + " ", ContentHashUtil.hash(localNote.getContent() + " "), localNote.getExcerpt()));
     }
 
     @Test
     public void getContent() throws InterruptedException {
-        final Note note = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "", 0);
+        final Note note = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_DELETED, account.getId(), "");
         db.getNoteDao().addNote(note);
         assertEquals("My-Content", db.getNoteDao().getContent(note.getId()));
         assertEquals("My-Content", NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getContent$(note.getId())));
@@ -346,6 +377,23 @@ public class NotesDaoTest {
         assertNull(NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getContent$(note.getId() + 1)));
     }
 
+    @Test
+    public void contentIsOnlyLoadedWhereNeeded() throws InterruptedException {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", LOCAL_EDITED, account.getId(), ""));
+
+        assertEquals("My-Content", db.getNoteDao().getNoteById(1).getContent());
+        assertEquals("My-Content", db.getNoteDao().getLocalModifiedNotes(account.getId()).get(0).getContent());
+        assertEquals("", NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getNoteById$(1)).getContent());
+        assertEquals("", db.getNoteDao().searchRecentByModified(account.getId(), "%").get(0).getContent());
+
+        // Content is still searchable
+        assertEquals(1, db.getNoteDao().searchRecentByModified(account.getId(), "%Content%").size());
+        assertEquals(0, db.getNoteDao().searchRecentByModified(account.getId(), "%Other%").size());
+
+        db.getNoteDao().deleteByNoteId(1, LOCAL_EDITED);
+        assertNull(db.getNoteDao().getContent(1L));
+    }
+
     @Test
     public void getCategoriesLiveData() throws InterruptedException {
         final Account secondAccount = setupSecondAccountAndTestNotes();
@@ -386,6 +434,50 @@ public class NotesDaoTest {
         assertEquals(0, NotesTestingUtil.getOrAwaitValue(db.getNoteDao().searchCategories$(secondAccount.getId(), "T%")).size());
     }
 
+    @Test
+    public void categoriesAreMaintainedByTriggers() throws InterruptedException {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "Music", true, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "T", "C", "Music", false, null, VOID, account.getId(), ""));
+        final CategoryOptions options = new CategoryOptions();
+        options.setAccountId(account.getId());
+        options.setCategory("Music");
+        options.setSortingMethod(CategorySortingMethod.SORT_LEXICOGRAPHICAL_ASC);
+        db.getCategoryOptionsDao().addCategoryOptions(options);
+
+        db.getNoteDao().updateCategory(1, "Movies");
+        assertEquals(Integer.valueOf(2), db.getNoteDao().count(account.getId()));
+        assertEquals(Integer.valueOf(1), db.getNoteDao().countFavorites(account.getId()));
+        List<CategoryWithNotesCount> categories = NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getCategories$(account.getId()));
+        assertEquals(2, categories.size());
+        assertTrue(categories.stream().anyMatch(cat -> "Movies".equals(cat.getCategory()) && Integer.valueOf(1).equals(cat.getTotalNotes()) && Integer.valueOf(1).equals(cat.getFavoriteNotes())));
+        assertTrue(categories.stream().anyMatch(cat -> "Music".equals(cat.getCategory()) && Integer.valueOf(1).equals(cat.getTotalNotes()) && Integer.valueOf(0).equals(cat.getFavoriteNotes())));
+
+        // Locally deleted notes are not counted, but keep the category and its options until they are synchronized
+        db.getNoteDao().updateStatus(2, LOCAL_DELETED);
+        assertEquals(Integer.valueOf(1), db.getNoteDao().count(account.getId()));
+        assertEquals(1, NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getCategories$(account.getId())).size());
+        assertEquals(CategorySortingMethod.SORT_LEXICOGRAPHICAL_ASC, NotesTestingUtil.getOrAwaitValue(db.getCategoryOptionsDao().getCategoryOrder(account.getId(), "Music")));
+
+        db.getNoteDao().deleteByNoteId(2, LOCAL_DELETED);
+        assertNull(NotesTestingUtil.getOrAwaitValue(db.getCategoryOptionsDao().getCategoryOrder(account.getId(), "Music")));
+
+        db.getNoteDao().toggleFavorite(1);
+        assertEquals(Integer.valueOf(0), db.getNoteDao().countFavorites(account.getId()));
+    }
+
+    @Test
+    public void searchCategoryIncludesSubCategories() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "Music", false, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "T", "C", "Music/Jazz", false, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(3, 3L, Calendar.getInstance(), "T", "C", "Music/Jazz/Live", false, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(4, 4L, Calendar.getInstance(), "T", "C", "Musical", false, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(5, 5L, Calendar.getInstance(), "T", "C", "Music0", false, null, VOID, account.getId(), ""));
+
+        assertEquals(3, db.getNoteDao().searchCategoryByModified(account.getId(), "%", "Music").size());
+        assertEquals(2, db.getNoteDao().searchCategoryByModified(account.getId(), "%", "Music/Jazz").size());
+        assertEquals(0, db.getNoteDao().searchCategoryByModified(account.getId(), "%", "Music/J").size());
+    }
+
     @Test
     public void searchRecentByModified() {
         final Account secondAccount = setupSecondAccountAndTestNotes();
@@ -399,6 +491,40 @@ public class NotesDaoTest {
         }
     }
 
+    @Test
+    public void fullTextSearchRecentByModified() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "Shopping", "Milk and bread", "", false, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "Movies", "Watch later", "", true, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(3, 3L, Calendar.getInstance(), "Bread recipe", "Flour", "", false, null, LOCAL_DELETED, account.getId(), ""));
+
+        assertEquals(1, fullTextSearchRecentByModifiedPage("brea*").size());
+        assertEquals(1, fullTextSearchRecentByModifiedPage("movie*").size());
+        assertEquals(0, fullTextSearchRecentByModifiedPage("flour*").size());
+
+        // Index must follow updates of the content
+        db.getNoteDao().updateNote(new Note(1, 1L, Calendar.getInstance(), "Shopping", "Cheese", "", false, null, LOCAL_EDITED, account.getId(), ""));
+        assertEquals(0, fullTextSearchRecentByModifiedPage("brea*").size());
+        assertEquals(1, fullTextSearchRecentByModifiedPage("chee*").size());
+    }
+
+    @Test
+    public void fullTextSearchMatchesWordPrefixesOnly() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "Shopping", "Milk and bread", "", false, null, VOID, account.getId(), ""));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "Sourdough", "Whole-grain breadcrumbs", "", false, null, VOID, account.getId(), ""));
+
+        assertEquals(2, fullTextSearchRecentByModifiedPage(NoteUtil.generateFullTextSearchQuery("bread")).size());
+        assertEquals(1, fullTextSearchRecentByModifiedPage(NoteUtil.generateFullTextSearchQuery("grain")).size());
+
+        // Unlike the LIKE based search, substrings in the middle of a word are not found
+        assertEquals(2, db.getNoteDao().searchRecentByModified(account.getId(), "%ead%").size());
+        assertEquals(0, fullTextSearchRecentByModifiedPage(NoteUtil.generateFullTextSearchQuery("ead")).size());
+        assertEquals(0, fullTextSearchRecentByModifiedPage(NoteUtil.generateFullTextSearchQuery("crumbs")).size());
+    }
+
+    private List<Note> fullTextSearchRecentByModifiedPage(String query) {
+        return db.getNoteDao().getNotesPage(new SimpleSQLiteQuery(NoteDao.fullTextSearchRecentByModified + " LIMIT ? OFFSET ?", new Object[]{account.getId(), query, 100, 0}));
+    }
+
     private static boolean isSortedByFavorite(List<Note> notes) {
         for (int i = 0; i < notes.size() - 1; ++i) {
             if (Boolean.compare(notes.get(i).getFavorite(), notes.get(i + 1).getFavorite()) < 0)
@@ -417,26 +543,26 @@ public class NotesDaoTest {
 
         long uniqueId = 1;
         final Note[] notes = new Note[]{
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, VOID, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Music", false, null, VOID, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Music", false, null, LOCAL_EDITED, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Music", true, null, LOCAL_DELETED, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, VOID, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, account.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "美好的一天", " 兄弟，这真是美好的一天。", "日记", false, null, VOID, account.getId(), "", 0),
-
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, VOID, secondAccount.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, secondAccount.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "t", "C", "Movies", false, null, LOCAL_EDITED, secondAccount.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, secondAccount.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Music", true, null, VOID, secondAccount.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "t", "C", "Music", true, null, LOCAL_DELETED, secondAccount.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, secondAccount.getId(), "", 0),
-                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, secondAccount.getId(), "", 0),
-                new Note(uniqueId++, uniqueId, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, secondAccount.getId(), "", 0)
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, VOID, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Music", false, null, VOID, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Music", false, null, LOCAL_EDITED, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Music", true, null, LOCAL_DELETED, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, VOID, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, account.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "美好的一天", " 兄弟，这真是美好的一天。", "日记", false, null, VOID, account.getId(), ""),
+
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, VOID, secondAccount.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, secondAccount.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "t", "C", "Movies", false, null, LOCAL_EDITED, secondAccount.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, secondAccount.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "Music", true, null, VOID, secondAccount.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "t", "C", "Music", true, null, LOCAL_DELETED, secondAccount.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, secondAccount.getId(), ""),
+                new Note(uniqueId++, uniqueId++, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, secondAccount.getId(), ""),
+                new Note(uniqueId++, uniqueId, Calendar.getInstance(), "T", "C", "ToDo", true, null, LOCAL_DELETED, secondAccount.getId(), "")
         };
         for (Note note : notes) {
             db.getNoteDao().addNote(note);
@@ -25,15 +25,23 @@ import org.robolectric.annotation.Config;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
 import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.Capabilities;
+import it.niedermann.owncloud.notes.shared.model.INoteChangeListener;
+import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
 import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
+import it.niedermann.owncloud.notes.shared.model.NoteChange;
+import it.niedermann.owncloud.notes.shared.util.ContentHashUtil;
 
 import static it.niedermann.owncloud.notes.persistence.NotesTestingUtil.getOrAwaitValue;
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_DELETED;
@@ -47,6 +55,9 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = {Build.VERSION_CODES.P})
@@ -66,6 +77,7 @@ public class NotesRepositoryTest {
         db = Room
                 .inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), NotesDatabase.class)
                 .allowMainThreadQueries()
+                .addCallback(NotesDatabase.CALLBACK)
                 .build();
 
         final Constructor<NotesRepository> constructor = NotesRepository.class.getDeclaredConstructor(Context.class, NotesDatabase.class, ExecutorService.class);
@@ -99,15 +111,15 @@ public class NotesRepositoryTest {
         secondAccount = repo.getAccountByName("test@example.org");
 
         Arrays.stream(new Note[]{
-                new Note(1, 1001L, Calendar.getInstance(), "美好的一天", "C", "Movies", false, null, VOID, account.getId(), "", 0),
-                new Note(2, null, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, account.getId(), "", 0),
-                new Note(3, 1003L, Calendar.getInstance(), "美好的一天", "C", "Movies", false, null, LOCAL_EDITED, account.getId(), "", 0),
-                new Note(4, null, Calendar.getInstance(), "T", "C", "Music", false, null, VOID, account.getId(), "", 0),
-                new Note(5, 1005L, Calendar.getInstance(), "美好的一天", "C", " 兄弟，这真是美好的一天。", false, null, LOCAL_EDITED, account.getId(), "", 0),
-                new Note(6, 1006L, Calendar.getInstance(), "美好的一天", "C", " 兄弟，这真是美好的一天。", false, null, LOCAL_DELETED, account.getId(), "", 0),
-                new Note(7, null, Calendar.getInstance(), "T", "C", "Music", true, null, LOCAL_EDITED, secondAccount.getId(), "", 0),
-                new Note(8, 1008L, Calendar.getInstance(), "美好的一天", "C", "ToDo", true, null, LOCAL_EDITED, secondAccount.getId(), "", 0),
-                new Note(9, 1009L, Calendar.getInstance(), "美好的一天", "C", "ToDo", true, null, LOCAL_DELETED, secondAccount.getId(), "", 0)
+                new Note(1, 1001L, Calendar.getInstance(), "美好的一天", "C", "Movies", false, null, VOID, account.getId(), ""),
+                new Note(2, null, Calendar.getInstance(), "T", "C", "Movies", false, null, LOCAL_EDITED, account.getId(), ""),
+                new Note(3, 1003L, Calendar.getInstance(), "美好的一天", "C", "Movies", false, null, LOCAL_EDITED, account.getId(), ""),
+                new Note(4, null, Calendar.getInstance(), "T", "C", "Music", false, null, VOID, account.getId(), ""),
+                new Note(5, 1005L, Calendar.getInstance(), "美好的一天", "C", " 兄弟，这真是美好的一天。", false, null, LOCAL_EDITED, account.getId(), ""),
+                new Note(6, 1006L, Calendar.getInstance(), "美好的一天", "C", " 兄弟，这真是美好的一天。", false, null, LOCAL_DELETED, account.getId(), ""),
+                new Note(7, null, Calendar.getInstance(), "T", "C", "Music", true, null, LOCAL_EDITED, secondAccount.getId(), ""),
+                new Note(8, 1008L, Calendar.getInstance(), "美好的一天", "C", "ToDo", true, null, LOCAL_EDITED, secondAccount.getId(), ""),
+                new Note(9, 1009L, Calendar.getInstance(), "美好的一天", "C", "ToDo", true, null, LOCAL_DELETED, secondAccount.getId(), "")
         }).forEach(note -> db.getNoteDao().addNote(note));
     }
 
@@ -177,6 +189,105 @@ public class NotesRepositoryTest {
         assertEquals("MyContent", createdNoteFromRemote.getExcerpt());
     }
 
+    @Test
+    public void testSaveNoteAndSync() throws InterruptedException {
+        final Note note = repo.getNoteById(1);
+        final Note savedNote = getOrAwaitValue(repo.saveNoteAndSync(account, note, "New content", null, null));
+        assertEquals("New content", savedNote.getContent());
+        assertEquals(LOCAL_EDITED, savedNote.getStatus());
+        assertEquals("New content", repo.getNoteById(1).getContent());
+    }
+
+    @Test
+    public void testSaveNoteAndSyncFailure() throws InterruptedException {
+        final Note note = repo.getNoteById(1);
+        final Account brokenAccount = mock(Account.class);
+        when(brokenAccount.getApiVersion()).thenThrow(new IllegalStateException("Account is broken"));
+        final ISyncCallback callback = mock(ISyncCallback.class);
+
+        final Note savedNote = getOrAwaitValue(repo.saveNoteAndSync(brokenAccount, note, "New content", null, callback));
+
+        assertSame(note, savedNote);
+        verify(callback).onFinish();
+        assertEquals("C", repo.getNoteById(1).getContent());
+        // Following saves of the same note are not blocked by the failed one
+        assertEquals("New content", getOrAwaitValue(repo.saveNoteAndSync(account, note, "New content", null, null)).getContent());
+    }
+
+    @Test
+    public void testApplyRemoteChanges() {
+        final Map<Long, Note> notesToUpdate = new HashMap<>();
+        notesToUpdate.put(1L, new Note(1001L, Calendar.getInstance(), "Updated", "Updated remotely", "Movies", false, "2"));
+        notesToUpdate.put(3L, new Note(1003L, Calendar.getInstance(), "Updated", "Must not override local changes", "Movies", false, "2"));
+        repo.applyRemoteChanges(account.getId(), notesToUpdate, Collections.singletonList(new Note(1010L, Calendar.getInstance(), "New", "Created remotely", "", false, "1")));
+
+        assertEquals("Updated remotely", repo.getNoteById(1).getContent());
+        assertEquals("Updated remotely", repo.getNoteById(1).getExcerpt());
+        assertEquals(ContentHashUtil.hash("Updated remotely"), repo.getNoteById(1).getContentHash());
+        assertEquals("C", repo.getNoteById(3).getContent());
+
+        final Long createdNoteId = repo.getIdMap(account.getId()).get(1010L);
+        assertNotNull(createdNoteId);
+        final Note createdNote = repo.getNoteById(createdNoteId);
+        assertEquals(VOID, createdNote.getStatus());
+        assertEquals(account.getId(), createdNote.getAccountId());
+        assertEquals("Created remotely", createdNote.getExcerpt());
+        assertEquals(ContentHashUtil.hash("Created remotely"), createdNote.getContentHash());
+    }
+
+    @Test
+    public void testApplyRemoteChangesWithUnchangedContent() {
+        final Calendar modified = Calendar.getInstance();
+        final Note localNote = repo.addNote(account.getId(), new Note(2000L, modified, "Title", "Content", "Movies", false, "1"));
+        assertEquals(ContentHashUtil.hash("Content"), localNote.getContentHash());
+
+        repo.applyRemoteChanges(account.getId(), Collections.singletonMap(localNote.getId(), new Note(2000L, modified, "Title", "Content", "Movies", true, "2")), Collections.emptyList());
+
+        final Note updatedNote = repo.getNoteById(localNote.getId());
+        assertTrue(updatedNote.getFavorite());
+        assertEquals("2", updatedNote.getETag());
+        assertEquals("Content", updatedNote.getContent());
+        assertEquals(localNote.getExcerpt(), updatedNote.getExcerpt());
+        assertEquals(localNote.getContentHash(), updatedNote.getContentHash());
+    }
+
+    @Test
+    public void testDeleteByNoteIds() {
+        repo.deleteByNoteIds(account.getId(), Arrays.asList(1L, 3L, 4L), VOID);
+        assertNull(repo.getNoteById(1));
+        assertNotNull("Locally modified notes must not be deleted", repo.getNoteById(3));
+        assertNull(repo.getNoteById(4));
+    }
+
+    @Test
+    public void testNoteChangeListener() {
+        final List<NoteChange> changes = new ArrayList<>();
+        final INoteChangeListener listener = changes::add;
+        repo.addNoteChangeListener(listener);
+
+        repo.deleteByNoteIds(account.getId(), Arrays.asList(1L, 4L), VOID);
+        assertEquals(1, changes.size());
+        assertEquals(NoteChange.Type.DELETED, changes.get(0).getType());
+        assertTrue(changes.get(0).affectsAccount(account.getId()));
+        assertFalse(changes.get(0).affectsAccount(secondAccount.getId()));
+        assertTrue(changes.get(0).affectsNote(4));
+        assertFalse(changes.get(0).affectsNote(2));
+        assertTrue(changes.get(0).affectsAnyOf(NoteChange.FIELDS_SHOWN_IN_LISTS));
+
+        repo.deleteByNoteIds(account.getId(), Collections.singletonList(3L), VOID);
+        assertEquals("Locally modified notes are not deleted, so there is no change to publish", 1, changes.size());
+
+        repo.updateRemoteId(account.getId(), 2, 1002L);
+        assertEquals(2, changes.size());
+        assertEquals(NoteChange.Type.UPDATED, changes.get(1).getType());
+        assertFalse("Remote IDs are not displayed", changes.get(1).affectsAnyOf(NoteChange.FIELDS_SHOWN_IN_LISTS));
+        assertFalse(changes.get(1).affectsAnyOf(NoteChange.FIELDS_COUNTED_IN_CATEGORIES));
+
+        repo.removeNoteChangeListener(listener);
+        repo.updateRemoteId(account.getId(), 2, 2002L);
+        assertEquals(2, changes.size());
+    }
+
     @Test
     public void updateApiVersion() {
         repo.updateApiVersion(account.getId(), "");
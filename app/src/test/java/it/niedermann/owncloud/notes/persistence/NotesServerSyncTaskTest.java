@@ -11,40 +11,59 @@ import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 import androidx.core.text.HtmlCompat;
 
 import com.nextcloud.android.sso.AccountImporter;
-import com.nextcloud.android.sso.api.ParsedResponse;
 import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
+import com.nextcloud.android.sso.exceptions.NextcloudHttpRequestFailedException;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
 
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
-import io.reactivex.Observable;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.persistence.sync.NotesAPI;
+import it.niedermann.owncloud.notes.persistence.sync.StreamedNotesResponse;
 import it.niedermann.owncloud.notes.shared.model.SyncResultStatus;
 import it.niedermann.owncloud.notes.shared.util.ApiVersionUtil;
+import retrofit2.Call;
+import retrofit2.Response;
 
+import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_DELETED;
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_EDITED;
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -74,7 +93,7 @@ public class NotesServerSyncTaskTest {
         PowerMockito.when(HtmlCompat.fromHtml(anyString(), anyInt())).thenReturn(mock(SpannedString.class));
         mockStatic(ApiVersionUtil.class);
         mockStatic(Color.class);
-        this.task = new NotesServerSyncTask(mock(Context.class), repo, account, false) {
+        this.task = new NotesServerSyncTask(mock(Context.class), repo, account, false, 2) {
             @Override
             void onPreExecute() {
 
@@ -90,8 +109,8 @@ public class NotesServerSyncTaskTest {
     @Test
     public void testPushLocalChanges() {
         when(repo.getLocalModifiedNotes(anyLong())).thenReturn(Arrays.asList(
-                new Note(1, null, Calendar.getInstance(), "Does not has a remoteId yet, therefore", "This note should be created on the server", "", false, "1", LOCAL_EDITED, 0, "", 0),
-                new Note(1, 2L, Calendar.getInstance(), "Has already a remoteId, therefore", "This note should be updated on the server", "", false, "1", LOCAL_EDITED, 0, "", 0)
+                new Note(1, null, Calendar.getInstance(), "Does not has a remoteId yet, therefore", "This note should be created on the server", "", false, "1", LOCAL_EDITED, 0, ""),
+                new Note(1, 2L, Calendar.getInstance(), "Has already a remoteId, therefore", "This note should be updated on the server", "", false, "1", LOCAL_EDITED, 0, "")
         ));
 
         this.task.run();
@@ -100,24 +119,232 @@ public class NotesServerSyncTaskTest {
         verify(notesAPI).editNote(argThat(argument -> "This note should be updated on the server".equals(argument.getContent())));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPushLocalChangesConcurrentlyWithFailure() throws Exception {
+        final IOException createFailure = new IOException("Server not reachable");
+        final Call<Note> createCall = mock(Call.class);
+        when(createCall.execute()).thenThrow(createFailure);
+        when(notesAPI.createNote(any())).thenReturn(createCall);
+        final Error editFailure = new OutOfMemoryError("Unexpected failure");
+        when(notesAPI.editNote(any())).thenThrow(editFailure);
+        when(repo.getLocalModifiedNotes(anyLong())).thenReturn(Arrays.asList(
+                new Note(1, null, Calendar.getInstance(), "Creating fails", "", "", false, "1", LOCAL_EDITED, 0, ""),
+                new Note(2, 2L, Calendar.getInstance(), "Editing fails", "", "", false, "1", LOCAL_EDITED, 0, ""),
+                new Note(3, 3L, Calendar.getInstance(), "Deleting succeeds", "", "", false, "1", LOCAL_DELETED, 0, "")
+        ));
+        final Call<Void> deleteCall = mock(Call.class);
+        when(deleteCall.execute()).thenReturn(Response.success(null));
+        when(notesAPI.deleteNote(3L)).thenReturn(deleteCall);
+        final SyncResultStatus[] result = new SyncResultStatus[1];
+        final NotesServerSyncTask task = new NotesServerSyncTask(mock(Context.class), repo, account, true, 3) {
+            @Override
+            void onPreExecute() {
+
+            }
+
+            @Override
+            void onPostExecute(SyncResultStatus status) {
+                result[0] = status;
+            }
+        };
+
+        task.run();
+
+        assertFalse(result[0].pushSuccessful);
+        verify(notesAPI).deleteNote(3L);
+        verify(repo).deleteByNoteId(anyLong(), eq(3L), eq(LOCAL_DELETED));
+        // Failures of the push tasks are not wrapped in an ExecutionException
+        assertEquals(2, task.exceptions.size());
+        assertTrue(task.exceptions.contains(createFailure));
+        assertTrue(task.exceptions.contains(editFailure));
+    }
+
     @Test
     public void testPullRemoteChanges() {
         when(repo.getAccountById(anyLong())).thenReturn(account);
-        when(repo.getIdMap(anyLong())).thenReturn(Map.of(1000L, 1L, 2000L, 2L));
-        when(repo.updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(anyLong(), anyLong(), anyString(), anyBoolean(), anyString(), anyString(), anyString(), anyString())).thenReturn(1);
-        mockStatic(ApiProvider.class, invocation -> new NotesAPI(any(), any()) {
-            @Override
-            public Observable<ParsedResponse<List<Note>>> getNotes(@NonNull Calendar a, String b) {
-                return Observable.just(ParsedResponse.of(Arrays.asList(
-                        new Note(0, 1000L, Calendar.getInstance(), "RemoteId is in the idMap, therefore", "This note should be updated locally", "", false, "1", VOID, 0, "", 0),
-                        new Note(0, 3000L, Calendar.getInstance(), "Is a new RemoteId, therefore", "This note should be created locally", "", false, "1", VOID, 0, "", 0)
-                )));
+        when(repo.getIdMap(anyLong())).thenReturn(Map.of(1000L, 1L, 2000L, 2L, 4000L, 4L));
+        when(repo.getETagMap(anyLong())).thenReturn(Map.of(1000L, "1", 2000L, "1", 4000L, "1"));
+        final StreamedNotesResponse response = mock(StreamedNotesResponse.class);
+        try {
+            when(response.hasNext()).thenReturn(true, true, true, false);
+            when(response.next()).thenReturn(
+                    new Note(0, 1000L, Calendar.getInstance(), "RemoteId is in the idMap with another ETag, therefore", "", "", false, "2", VOID, 0, ""),
+                    new Note(0, 3000L, Calendar.getInstance(), "Is a new RemoteId, therefore", "", "", false, "1", VOID, 0, ""),
+                    new Note(0, 4000L, Calendar.getInstance(), "RemoteId is in the idMap with the same ETag, therefore", "", "", false, "1", VOID, 0, "")
+            );
+            when(response.getHeaders()).thenReturn(Collections.emptyMap());
+            when(notesAPI.getNotesStreamed(any(), any(), eq(true))).thenReturn(response);
+            mockGetNote(new Note(0, 1000L, Calendar.getInstance(), "RemoteId is in the idMap with another ETag, therefore", "This note should be updated locally", "", false, "2", VOID, 0, ""));
+            mockGetNote(new Note(0, 3000L, Calendar.getInstance(), "Is a new RemoteId, therefore", "This note should be created locally", "", false, "1", VOID, 0, ""));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+
+        this.task.run();
+
+        verify(notesAPI, never()).getNote(4000L);
+
+        verify(repo).applyRemoteChanges(
+                anyLong(),
+                argThat(argument -> argument.size() == 1 && "This note should be updated locally".equals(Objects.requireNonNull(argument.get(1L)).getContent())),
+                argThat(argument -> argument.size() == 1 && "This note should be created locally".equals(argument.get(0).getContent())));
+        verify(repo).deleteByNoteIds(anyLong(), argThat(argument -> argument.size() == 1 && argument.contains(2L)), eq(VOID));
+    }
+
+    @Test
+    public void testPullRemoteChangesChunked() throws Exception {
+        when(account.getChunkCursor()).thenReturn("resume");
+        final List<Note> firstChunk = new ArrayList<>();
+        final List<Note> secondChunk = new ArrayList<>();
+        mockChunkedPull(firstChunk, secondChunk);
+        final StreamedNotesResponse firstChunkResponse = mockResponse(firstChunk);
+        when(firstChunkResponse.getHeader("X-Notes-Chunk-Cursor")).thenReturn("next");
+        final StreamedNotesResponse secondChunkResponse = mockResponse(secondChunk);
+        when(notesAPI.getNotesChunkStreamed(any(), anyInt(), eq("resume"))).thenReturn(firstChunkResponse);
+        when(notesAPI.getNotesChunkStreamed(any(), anyInt(), eq("next"))).thenReturn(secondChunkResponse);
+
+        this.task.run();
+
+        verify(notesAPI, never()).getNote(anyLong());
+        verify(notesAPI, never()).getNotesChunkStreamed(any(), anyInt(), isNull());
+        verify(repo).applyRemoteChanges(anyLong(), any(), argThat(argument -> argument.size() == 15 && argument.get(0).getRemoteId() == 1L));
+        verify(repo).applyRemoteChanges(anyLong(), any(), argThat(argument -> argument.size() == 15 && argument.get(0).getRemoteId() == 16L));
+        verify(repo).updateChunkCursor(anyLong(), eq("next"));
+        // The last chunk has no cursor header
+        verify(repo).updateChunkCursor(anyLong(), isNull());
+    }
+
+    @Test
+    public void testPullRemoteChangesChunkedFromBeginning() throws Exception {
+        final List<Note> firstChunk = new ArrayList<>();
+        final List<Note> secondChunk = new ArrayList<>();
+        mockChunkedPull(firstChunk, secondChunk);
+        final StreamedNotesResponse firstChunkResponse = mockResponse(firstChunk);
+        when(firstChunkResponse.getHeader("X-Notes-Chunk-Cursor")).thenReturn("next");
+        final StreamedNotesResponse secondChunkResponse = mockResponse(secondChunk);
+        when(secondChunkResponse.getHeader("X-Notes-Chunk-Cursor")).thenReturn("");
+        when(notesAPI.getNotesChunkStreamed(any(), anyInt(), isNull())).thenReturn(firstChunkResponse);
+        when(notesAPI.getNotesChunkStreamed(any(), anyInt(), eq("next"))).thenReturn(secondChunkResponse);
+
+        this.task.run();
+
+        // Each chunk is applied and its cursor persisted before the next chunk gets requested
+        final InOrder inOrder = inOrder(notesAPI, repo);
+        inOrder.verify(notesAPI).getNotesChunkStreamed(any(), anyInt(), isNull());
+        inOrder.verify(repo).applyRemoteChanges(anyLong(), any(), argThat(argument -> argument.size() == 15 && argument.get(0).getRemoteId() == 1L));
+        inOrder.verify(repo).updateChunkCursor(anyLong(), eq("next"));
+        inOrder.verify(notesAPI).getNotesChunkStreamed(any(), anyInt(), eq("next"));
+        inOrder.verify(repo).applyRemoteChanges(anyLong(), any(), argThat(argument -> argument.size() == 15 && argument.get(0).getRemoteId() == 16L));
+        // An empty cursor header marks the last chunk
+        inOrder.verify(repo).updateChunkCursor(anyLong(), isNull());
+        verify(notesAPI, times(2)).getNotesChunkStreamed(any(), anyInt(), any());
+    }
+
+    @Test
+    public void testPullRemoteChangesChunkedCancelled() throws Exception {
+        final List<Note> firstChunk = new ArrayList<>();
+        mockChunkedPull(firstChunk, new ArrayList<>());
+        final StreamedNotesResponse firstChunkResponse = mockResponse(firstChunk);
+        when(firstChunkResponse.getHeader("X-Notes-Chunk-Cursor")).thenReturn("next");
+        when(notesAPI.getNotesChunkStreamed(any(), anyInt(), isNull())).thenReturn(firstChunkResponse);
+        doAnswer(invocation -> {
+            this.task.cancel();
+            return null;
+        }).when(repo).applyRemoteChanges(anyLong(), any(), any());
+
+        this.task.run();
+
+        verify(repo).applyRemoteChanges(anyLong(), any(), any());
+        verify(notesAPI, never()).getNotesChunkStreamed(any(), anyInt(), eq("next"));
+        // The cursor is kept, so the next synchronization continues with the second chunk
+        verify(repo).updateChunkCursor(anyLong(), eq("next"));
+        verify(repo, never()).updateChunkCursor(anyLong(), isNull());
+        verify(repo, never()).deleteByNoteIds(anyLong(), any(), any());
+    }
+
+    @Test
+    public void testPullRemoteChangesChunkedWithRejectedCursor() throws Exception {
+        when(account.getChunkCursor()).thenReturn("expired");
+        final List<Note> firstChunk = new ArrayList<>();
+        final List<Note> secondChunk = new ArrayList<>();
+        mockChunkedPull(firstChunk, secondChunk);
+        final StreamedNotesResponse firstChunkResponse = mockResponse(firstChunk);
+        when(firstChunkResponse.getHeader("X-Notes-Chunk-Cursor")).thenReturn("next");
+        final StreamedNotesResponse secondChunkResponse = mockResponse(secondChunk);
+        when(notesAPI.getNotesChunkStreamed(any(), anyInt(), eq("expired"))).thenThrow(new NextcloudHttpRequestFailedException(HTTP_BAD_REQUEST, new IllegalArgumentException("Invalid chunk cursor")));
+        when(notesAPI.getNotesChunkStreamed(any(), anyInt(), isNull())).thenReturn(firstChunkResponse);
+        when(notesAPI.getNotesChunkStreamed(any(), anyInt(), eq("next"))).thenReturn(secondChunkResponse);
+
+        this.task.run();
+
+        final InOrder inOrder = inOrder(notesAPI, repo);
+        inOrder.verify(notesAPI).getNotesChunkStreamed(any(), anyInt(), eq("expired"));
+        inOrder.verify(repo).updateChunkCursor(anyLong(), isNull());
+        inOrder.verify(notesAPI).getNotesChunkStreamed(any(), anyInt(), isNull());
+        inOrder.verify(repo).applyRemoteChanges(anyLong(), any(), argThat(argument -> argument.size() == 15 && argument.get(0).getRemoteId() == 1L));
+        inOrder.verify(notesAPI).getNotesChunkStreamed(any(), anyInt(), eq("next"));
+        inOrder.verify(repo).applyRemoteChanges(anyLong(), any(), argThat(argument -> argument.size() == 15 && argument.get(0).getRemoteId() == 16L));
+        inOrder.verify(repo).updateChunkCursor(anyLong(), isNull());
+        assertTrue(this.task.exceptions.isEmpty());
+    }
+
+    @Test
+    public void testPullRemoteChangesWithListRequest() throws Exception {
+        when(repo.getAccountById(anyLong())).thenReturn(account);
+        final Map<Long, Long> idMap = new HashMap<>();
+        final List<Note> metadata = new ArrayList<>();
+        final List<Note> contents = new ArrayList<>();
+        for (long remoteId = 1; remoteId <= 30; remoteId++) {
+            idMap.put(remoteId, remoteId + 100);
+            metadata.add(new Note(0, remoteId, Calendar.getInstance(), "Changed note", "", "", false, "2", VOID, 0, ""));
+            // The last note gets deleted on the server between both requests
+            if (remoteId < 30) {
+                contents.add(new Note(0, remoteId, Calendar.getInstance(), "Changed note", "Content", "", false, "2", VOID, 0, ""));
             }
-        });
+        }
+        when(repo.getIdMap(anyLong())).thenReturn(idMap);
+        when(repo.getETagMap(anyLong())).thenReturn(Collections.emptyMap());
+        final StreamedNotesResponse metadataResponse = mockResponse(metadata);
+        final StreamedNotesResponse contentsResponse = mockResponse(contents);
+        when(notesAPI.getNotesStreamed(any(), any(), eq(true))).thenReturn(metadataResponse);
+        when(notesAPI.getNotesStreamed(any(), isNull(), eq(false))).thenReturn(contentsResponse);
 
         this.task.run();
 
-        verify(repo).addNote(ArgumentMatchers.anyLong(), argThat(argument -> "This note should be created locally".equals(argument.getContent())));
-        verify(repo).updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(anyLong(), anyLong(), anyString(), anyBoolean(), anyString(), anyString(), argThat("This note should be updated locally"::equals), anyString());
+        verify(notesAPI, never()).getNote(anyLong());
+        verify(repo).applyRemoteChanges(anyLong(), argThat(argument -> argument.size() == 29), argThat(List::isEmpty));
+        verify(repo).deleteByNoteIds(anyLong(), argThat(argument -> argument.size() == 1 && argument.contains(130L)), eq(VOID));
+    }
+
+    /**
+     * Mocks the metadata of 30 new notes whose contents are pulled in two chunks of 15 notes.
+     */
+    private void mockChunkedPull(@NonNull List<Note> firstChunk, @NonNull List<Note> secondChunk) throws Exception {
+        when(repo.getAccountById(anyLong())).thenReturn(account);
+        when(notesAPI.isChunkedRetrievalSupported()).thenReturn(true);
+        final List<Note> metadata = new ArrayList<>();
+        for (long remoteId = 1; remoteId <= 30; remoteId++) {
+            metadata.add(new Note(0, remoteId, Calendar.getInstance(), "New note", "", "", false, "1", VOID, 0, ""));
+            (remoteId <= 15 ? firstChunk : secondChunk).add(new Note(0, remoteId, Calendar.getInstance(), "New note", "Content", "", false, "1", VOID, 0, ""));
+        }
+        final StreamedNotesResponse metadataResponse = mockResponse(metadata);
+        when(notesAPI.getNotesStreamed(any(), any(), eq(true))).thenReturn(metadataResponse);
+    }
+
+    private static StreamedNotesResponse mockResponse(@NonNull List<Note> notes) throws IOException {
+        final StreamedNotesResponse response = mock(StreamedNotesResponse.class);
+        final Iterator<Note> iterator = notes.iterator();
+        when(response.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(response.next()).thenAnswer(invocation -> iterator.next());
+        when(response.getHeaders()).thenReturn(Collections.emptyMap());
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockGetNote(@NonNull Note remoteNote) throws IOException {
+        final Call<Note> call = mock(Call.class);
+        when(call.execute()).thenReturn(Response.success(remoteNote));
+        when(notesAPI.getNote(remoteNote.getRemoteId())).thenReturn(call);
     }
-}
\ No newline at end of file
+}
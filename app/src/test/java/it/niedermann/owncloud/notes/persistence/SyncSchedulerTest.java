@@ -0,0 +1,149 @@
+package it.niedermann.owncloud.notes.persistence;
+
+import android.os.Build;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class SyncSchedulerTest extends TestCase {
+
+    private final Account account = mock(Account.class);
+    private final NotesServerSyncTask task = mock(NotesServerSyncTask.class);
+    private final SyncScheduler.SyncTaskFactory factory = mock(SyncScheduler.SyncTaskFactory.class);
+    private final AtomicBoolean syncPossible = new AtomicBoolean(true);
+    private SyncScheduler scheduler;
+
+    @Before
+    public void setup() throws NextcloudFilesAppAccountNotFoundException {
+        when(account.getId()).thenReturn(1L);
+        when(factory.create(any(), anyBoolean())).thenReturn(task);
+        scheduler = new SyncScheduler(MoreExecutors.newDirectExecutorService(), factory, syncPossible::get);
+    }
+
+    @Test
+    public void testFullSyncStartsDirectly() throws NextcloudFilesAppAccountNotFoundException {
+        scheduler.requestSync(account, false);
+        verify(factory).create(account, false);
+        verify(task).run();
+        assertFalse(scheduler.isSyncActive(1L));
+    }
+
+    @Test
+    public void testPushRequestsAreCoalesced() throws NextcloudFilesAppAccountNotFoundException {
+        scheduler.requestSync(account, true);
+        scheduler.requestSync(account, true);
+        scheduler.requestSync(account, true);
+        verify(factory, never()).create(any(), anyBoolean());
+        verify(factory, timeout(SyncScheduler.PUSH_DEBOUNCE_MILLIS * 3).times(1)).create(account, true);
+    }
+
+    @Test
+    public void testRequestsWhileRunningAreMergedIntoOneFollowUp() throws NextcloudFilesAppAccountNotFoundException {
+        final AtomicBoolean firstRun = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (firstRun.getAndSet(false)) {
+                assertTrue(scheduler.isSyncActive(1L));
+                scheduler.requestSync(account, true);
+                scheduler.requestSync(account, false);
+                scheduler.requestSync(account, false);
+            }
+            return null;
+        }).when(task).run();
+
+        scheduler.requestSync(account, false);
+        verify(factory, times(2)).create(account, false);
+        verify(factory, never()).create(account, true);
+    }
+
+    @Test
+    public void testCallbacksAreHandedToExactlyOneRun() throws NextcloudFilesAppAccountNotFoundException {
+        final ISyncCallback push = mock(ISyncCallback.class);
+        final ISyncCallback pull = mock(ISyncCallback.class);
+        scheduler.addCallbackPush(account, push);
+        scheduler.addCallbackPull(account, pull);
+
+        scheduler.requestSync(account, false);
+        scheduler.requestSync(account, false);
+
+        verify(factory, times(2)).create(account, false);
+        verify(task).addCallbacks(eq(account), argThat(callbacks -> callbacks.size() == 2 && callbacks.contains(push) && callbacks.contains(pull)));
+        verify(task).addCallbacks(eq(account), argThat(callbacks -> callbacks.size() == 0));
+    }
+
+    @Test
+    public void testNotPossible() throws NextcloudFilesAppAccountNotFoundException {
+        final ISyncCallback push = mock(ISyncCallback.class);
+        scheduler.addCallbackPush(account, push);
+        syncPossible.set(false);
+
+        scheduler.requestSync(account, false);
+
+        verify(factory, never()).create(any(), anyBoolean());
+        verify(push).onScheduled();
+        verify(task, never()).addCallbacks(any(), anyList());
+    }
+
+    @Test
+    public void testCallbacksAreNotifiedWithoutLock() throws InterruptedException {
+        final ISyncCallback push = mock(ISyncCallback.class);
+        final AtomicBoolean otherThreadFinished = new AtomicBoolean(false);
+        doAnswer(invocation -> {
+            // Would block until the timeout if the scheduler still held the lock of the account
+            final Thread other = new Thread(() -> scheduler.addCallbackPush(account, mock(ISyncCallback.class)));
+            other.start();
+            other.join(1_000);
+            otherThreadFinished.set(!other.isAlive());
+            return null;
+        }).when(push).onScheduled();
+        scheduler.addCallbackPush(account, push);
+        syncPossible.set(false);
+
+        scheduler.requestSync(account, true);
+
+        verify(push).onScheduled();
+        assertTrue(otherThreadFinished.get());
+    }
+
+    @Test
+    public void testCancel() throws NextcloudFilesAppAccountNotFoundException {
+        scheduler.requestSync(account, true);
+        scheduler.cancel(1L);
+        verify(factory, after(SyncScheduler.PUSH_DEBOUNCE_MILLIS * 2).never()).create(any(), anyBoolean());
+
+        doAnswer(invocation -> {
+            scheduler.cancel(1L);
+            return null;
+        }).when(task).run();
+        scheduler.requestSync(account, false);
+        verify(task).cancel();
+    }
+}
@@ -0,0 +1,47 @@
+package it.niedermann.owncloud.notes.shared.model;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+public class SyncMetricsTest extends TestCase {
+
+    @Test
+    public void testRecording() {
+        final SyncMetrics metrics = new SyncMetrics(1, false);
+        assertEquals(-1, metrics.getDurationMillis());
+
+        metrics.addDuration(SyncMetrics.Phase.FETCH, 2_000_000);
+        metrics.addDuration(SyncMetrics.Phase.FETCH, 3_000_000);
+        metrics.increment(SyncMetrics.Counter.NOTES_FETCHED);
+        metrics.add(SyncMetrics.Counter.BYTES_RECEIVED, 1024);
+        metrics.addHttpStatusCode(200);
+        metrics.addHttpStatusCode(200);
+        metrics.addHttpStatusCode(404);
+
+        assertEquals(5, metrics.getDurationMillis(SyncMetrics.Phase.FETCH));
+        assertEquals(0, metrics.getDurationMillis(SyncMetrics.Phase.PARSE));
+        assertEquals(1, metrics.get(SyncMetrics.Counter.NOTES_FETCHED));
+        assertEquals(1024, metrics.get(SyncMetrics.Counter.BYTES_RECEIVED));
+        final Map<Integer, Integer> statusCodes = metrics.getHttpStatusCodes();
+        assertEquals(2, statusCodes.size());
+        assertEquals(Integer.valueOf(2), statusCodes.get(200));
+        assertEquals(Integer.valueOf(1), statusCodes.get(404));
+    }
+
+    @Test
+    public void testFinish() {
+        final SyncMetrics metrics = new SyncMetrics(1, true);
+        final SyncResultStatus status = new SyncResultStatus();
+        status.pullSuccessful = false;
+        metrics.finish(status, true);
+
+        assertTrue(metrics.getDurationMillis() >= 0);
+        assertTrue(metrics.isPushSuccessful());
+        assertFalse(metrics.isPullSuccessful());
+        assertTrue(metrics.isCancelled());
+        assertTrue(metrics.isOnlyLocalChanges());
+    }
+}
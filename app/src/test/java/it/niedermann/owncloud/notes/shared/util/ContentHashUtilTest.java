@@ -0,0 +1,30 @@
+package it.niedermann.owncloud.notes.shared.util;
+
+import android.os.Build;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class ContentHashUtilTest extends TestCase {
+
+    @Test
+    public void testHash() {
+        // Reference values of XXH64 with seed 0
+        assertEquals(0xEF46DB3751D8E999L, ContentHashUtil.hash(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, ContentHashUtil.hash("a"));
+        assertEquals(0x44BC2CF5AD770999L, ContentHashUtil.hash("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, ContentHashUtil.hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void testHashDiffers() {
+        assertFalse(ContentHashUtil.hash("My-Content") == ContentHashUtil.hash("My-Content "));
+        assertEquals(ContentHashUtil.hash("美好的一天"), ContentHashUtil.hash("美好的一天"));
+    }
+}
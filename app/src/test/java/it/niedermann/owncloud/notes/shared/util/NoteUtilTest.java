@@ -87,4 +87,20 @@ public class NoteUtilTest extends TestCase {
         assertEquals("Foo", NoteUtil.generateNoteExcerpt("# Title\n- Foo", "- Title"));
         assertEquals("Title   Bar", NoteUtil.generateNoteExcerpt("- Title\nTitle\nBar", "- Title"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGenerateFullTextSearchQuery() {
+        assertEquals("foo*", NoteUtil.generateFullTextSearchQuery("foo"));
+        assertEquals("foo*", NoteUtil.generateFullTextSearchQuery("  Foo "));
+        assertEquals("foo* bar*", NoteUtil.generateFullTextSearchQuery("Foo bar"));
+        assertEquals("foo* bar*", NoteUtil.generateFullTextSearchQuery("foo-bar!"));
+        assertEquals("foo* or* 2021*", NoteUtil.generateFullTextSearchQuery("\"foo\" OR 2021*"));
+
+        // Not answerable by the full text search index → fall back to LIKE
+        assertNull(NoteUtil.generateFullTextSearchQuery(null));
+        assertNull(NoteUtil.generateFullTextSearchQuery(""));
+        assertNull(NoteUtil.generateFullTextSearchQuery("#"));
+        assertNull(NoteUtil.generateFullTextSearchQuery("日记"));
+        assertNull(NoteUtil.generateFullTextSearchQuery("Über"));
+    }
+}
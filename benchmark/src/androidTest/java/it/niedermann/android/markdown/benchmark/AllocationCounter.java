@@ -0,0 +1,37 @@
+package it.niedermann.android.markdown.benchmark;
+
+import android.os.Bundle;
+import android.os.Debug;
+
+import androidx.annotation.NonNull;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+/**
+ * Counts the objects allocated by the current thread per invocation of a benchmarked block.
+ * <p>
+ * The count is reported as instrumentation status, so it shows up next to the timing results of the benchmark.
+ */
+public class AllocationCounter {
+
+    private static final int ITERATIONS = 20;
+
+    private AllocationCounter() {
+        // Util class
+    }
+
+    @SuppressWarnings("deprecation")
+    public static void report(@NonNull String name, @NonNull Runnable block) {
+        // Warm up, so class loading and static initialization are not counted
+        block.run();
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < ITERATIONS; i++) {
+            block.run();
+        }
+        Debug.stopAllocCounting();
+        final Bundle status = new Bundle();
+        status.putLong(name + "_allocationsPerOp", Debug.getThreadAllocCount() / ITERATIONS);
+        status.putLong(name + "_allocatedBytesPerOp", Debug.getThreadAllocSize() / ITERATIONS);
+        InstrumentationRegistry.getInstrumentation().sendStatus(2, status);
+    }
+}
@@ -0,0 +1,74 @@
+package it.niedermann.android.markdown.benchmark;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Realistic notes of different shapes and sizes which are used as input for all benchmarks.
+ */
+public enum Corpus {
+
+    SMALL(Sample.PROSE),
+    KB_100(repeat(Sample.PROSE + Sample.CHECKLIST + Sample.CODE, 100 * 1024)),
+    MB_1(repeat(Sample.PROSE + Sample.CHECKLIST + Sample.CODE, 1024 * 1024)),
+    CODE_HEAVY(repeat(Sample.CODE, 100 * 1024)),
+    CHECKLIST_HEAVY(repeat(Sample.CHECKLIST, 100 * 1024));
+
+    /**
+     * The search term used by search related benchmarks. It occurs in every sample.
+     */
+    public static final String SEARCH_TERM = "note";
+
+    @NonNull
+    public final String content;
+
+    Corpus(@NonNull String content) {
+        this.content = content;
+    }
+
+    @NonNull
+    private static String repeat(@NonNull String sample, int targetLength) {
+        final StringBuilder sb = new StringBuilder(targetLength + sample.length());
+        while (sb.length() < targetLength) {
+            sb.append(sample);
+        }
+        return sb.toString();
+    }
+
+    private static class Sample {
+
+        private static final String PROSE = "# Weekly meeting\n" +
+                "\n" +
+                "Short **summary** of the last week with a [link](https://example.com) and some _emphasis_.\n" +
+                "This note also contains `inline code` and a second line.\n" +
+                "\n" +
+                "> A quote from somebody who has something to say\n" +
+                "\n" +
+                "1. First topic\n" +
+                "2. Second topic\n" +
+                "\n" +
+                "* Bullet\n" +
+                "* Another bullet\n" +
+                "\n";
+
+        private static final String CHECKLIST = "## Todo\n" +
+                "\n" +
+                "- [ ] Buy milk\n" +
+                "- [x] Write note\n" +
+                "* [ ] Call somebody\n" +
+                "* [x] Reply to mail\n" +
+                "+ [ ] Water the plants\n" +
+                "\n";
+
+        private static final String CODE = "```java\n" +
+                "public class Example {\n" +
+                "    // - [ ] not a checkbox, this is code in a note\n" +
+                "    public static void main(String[] args) {\n" +
+                "        System.out.println(\"Hello **world**\");\n" +
+                "    }\n" +
+                "}\n" +
+                "```\n" +
+                "\n" +
+                "    indented code block\n" +
+                "\n";
+    }
+}
@@ -0,0 +1,87 @@
+package it.niedermann.android.markdown.benchmark;
+
+import android.graphics.Color;
+import android.text.SpannableString;
+
+import androidx.annotation.NonNull;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import it.niedermann.android.markdown.MarkdownUtil;
+
+/**
+ * Measures the hot paths of {@link MarkdownUtil} which are used when rendering note lists, widgets and the editor.
+ * <p>
+ * Run with <code>./gradlew :benchmark:connectedReleaseAndroidTest</code> on a real device.
+ * Timings are written to the benchmark JSON report, allocations per operation are reported by {@link AllocationCounter}.
+ */
+@RunWith(Parameterized.class)
+public class MarkdownUtilBenchmark {
+
+    @Rule
+    public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @NonNull
+    private final Corpus corpus;
+
+    public MarkdownUtilBenchmark(@NonNull Corpus corpus) {
+        this.corpus = corpus;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Corpus> corpus() {
+        return Arrays.asList(Corpus.values());
+    }
+
+    @Test
+    public void removeMarkdown() {
+        measure("removeMarkdown", () -> MarkdownUtil.removeMarkdown(corpus.content));
+    }
+
+    @Test
+    public void replaceCheckboxesWithEmojis() {
+        measure("replaceCheckboxesWithEmojis", () -> MarkdownUtil.replaceCheckboxesWithEmojis(corpus.content));
+    }
+
+    @Test
+    public void setCheckboxStatus() {
+        measure("setCheckboxStatus", () -> MarkdownUtil.setCheckboxStatus(corpus.content, 1, true));
+    }
+
+    /**
+     * Mirrors the markdown related part of <code>NoteUtil#generateNoteExcerpt(String, String)</code>,
+     * which lives in the app module and therefore can not be referenced from here.
+     */
+    @Test
+    public void generateNoteExcerpt() {
+        measure("generateNoteExcerpt", () -> MarkdownUtil.removeMarkdown(MarkdownUtil.replaceCheckboxesWithEmojis(corpus.content.trim())));
+    }
+
+    @Test
+    public void searchAndColor() {
+        final BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            final SpannableString spannable = new SpannableString(corpus.content);
+            state.resumeTiming();
+            MarkdownUtil.searchAndColor(spannable, Corpus.SEARCH_TERM, 0, Color.BLUE, Color.YELLOW, false);
+        }
+        AllocationCounter.report(corpus + "_searchAndColor", () -> MarkdownUtil.searchAndColor(new SpannableString(corpus.content), Corpus.SEARCH_TERM, 0, Color.BLUE, Color.YELLOW, false));
+    }
+
+    private void measure(@NonNull String name, @NonNull Runnable block) {
+        final BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            block.run();
+        }
+        AllocationCounter.report(corpus + "_" + name, block);
+    }
+}
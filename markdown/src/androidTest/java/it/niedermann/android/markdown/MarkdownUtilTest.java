@@ -731,6 +731,18 @@ public class MarkdownUtilTest extends TestCase {
         assertEquals("", MarkdownUtil.removeMarkdown(null));
         assertEquals("", MarkdownUtil.removeMarkdown(""));
 
+        assertEquals("Foo code Bar", MarkdownUtil.removeMarkdown("Foo `code` Bar"));
+        assertEquals("Foo bold Bar", MarkdownUtil.removeMarkdown("Foo <b>bold</b> Bar"));
+        assertEquals("Foo\nQuote\nBar", MarkdownUtil.removeMarkdown("Foo\n\n> Quote\n\nBar"));
+        assertEquals("Foo\nBar", MarkdownUtil.removeMarkdown("Foo\n\n---\n\nBar"));
+        assertEquals("Foo\nBar", MarkdownUtil.removeMarkdown("Foo<br>Bar"));
+        assertEquals("Foo\nBar", MarkdownUtil.removeMarkdown("Foo<br />Bar"));
+        assertEquals("Foo\nBar & Baz", MarkdownUtil.removeMarkdown("Foo\n\n<div>\nBar &amp; Baz\n</div>"));
+        assertEquals("Foo\nBar\nBaz", MarkdownUtil.removeMarkdown("<p>Foo<br>Bar</p>\n\nBaz"));
+        assertEquals("Foo & Bar", MarkdownUtil.removeMarkdown("Foo &amp; Bar"));
+        assertEquals("Foo \uFFFC Bar", MarkdownUtil.removeMarkdown("Foo ![Alt text](https://example.com/image.png) Bar"));
+        assertEquals("Foo \uFFFC Bar", MarkdownUtil.removeMarkdown("Foo <img src=\"https://example.com/image.png\" alt=\"Alt text\"> Bar"));
+
         // https://github.com/stefan-niedermann/nextcloud-notes/issues/1104
         assertEquals("2021-03-24 - Example text", MarkdownUtil.removeMarkdown("2021-03-24 - Example text"));
     }
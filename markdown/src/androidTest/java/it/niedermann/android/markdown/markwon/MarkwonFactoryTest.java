@@ -0,0 +1,60 @@
+package it.niedermann.android.markdown.markwon;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import io.noties.markwon.Markwon;
+
+@RunWith(AndroidJUnit4.class)
+public class MarkwonFactoryTest extends TestCase {
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+
+    @Test
+    public void testObtainReturnsPreparedInstances() throws ExecutionException, InterruptedException {
+        final MarkwonFactory factory = MarkwonFactory.getInstance();
+        factory.warmUp(context, MarkwonFactory.Feature.VIEWER);
+        factory.awaitPrepared();
+
+        final List<Markwon> prepared = factory.getPrepared(context, MarkwonFactory.Feature.VIEWER);
+        assertEquals(2, prepared.size());
+
+        // Both views of a preview get a prepared instance
+        final Markwon first = factory.obtain(context, MarkwonFactory.Feature.VIEWER);
+        final Markwon second = factory.obtain(context, MarkwonFactory.Feature.VIEWER);
+        assertNotSame(first, second);
+        assertTrue(prepared.contains(first));
+        assertTrue(prepared.contains(second));
+
+        factory.awaitPrepared();
+        final List<Markwon> replacements = factory.getPrepared(context, MarkwonFactory.Feature.VIEWER);
+        assertEquals(2, replacements.size());
+        assertFalse(replacements.contains(first));
+        assertFalse(replacements.contains(second));
+    }
+
+    @Test
+    public void testObtainBuildsInstanceIfNoneIsPrepared() throws ExecutionException, InterruptedException {
+        final MarkwonFactory factory = MarkwonFactory.getInstance();
+        factory.warmUp(context, MarkwonFactory.Feature.EDITOR);
+        factory.awaitPrepared();
+
+        final List<Markwon> prepared = factory.getPrepared(context, MarkwonFactory.Feature.EDITOR);
+        assertEquals(1, prepared.size());
+        assertSame(prepared.get(0), factory.obtain(context, MarkwonFactory.Feature.EDITOR));
+
+        final Markwon built = factory.obtain(context, MarkwonFactory.Feature.EDITOR);
+        assertNotNull(built);
+        assertFalse(prepared.contains(built));
+    }
+}
@@ -0,0 +1,143 @@
+package it.niedermann.android.markdown.markwon.textwatcher;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+import android.text.style.UnderlineSpan;
+import android.widget.EditText;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import junit.framework.TestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.noties.markwon.Markwon;
+import io.noties.markwon.editor.MarkwonEditor;
+
+@RunWith(AndroidJUnit4.class)
+public class BlockHighlightTextWatcherTest extends TestCase {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private BlockHighlightTextWatcher watcher;
+
+    @Before
+    public void setup() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() ->
+                watcher = new BlockHighlightTextWatcher(MarkwonEditor.create(Markwon.create(context)), executor, new EditText(context)));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testGetStartOfBlock() {
+        final String text = "a\nb\n\nc\nd";
+        assertEquals(0, BlockHighlightTextWatcher.getStartOfBlock(text, 0));
+        assertEquals(0, BlockHighlightTextWatcher.getStartOfBlock(text, 2));
+        assertEquals(0, BlockHighlightTextWatcher.getStartOfBlock(text, 3));
+        // Blank lines are blocks on their own
+        assertEquals(4, BlockHighlightTextWatcher.getStartOfBlock(text, 4));
+        assertEquals(5, BlockHighlightTextWatcher.getStartOfBlock(text, 5));
+        assertEquals(5, BlockHighlightTextWatcher.getStartOfBlock(text, 7));
+        assertEquals(5, BlockHighlightTextWatcher.getStartOfBlock(text, 8));
+        assertEquals(0, BlockHighlightTextWatcher.getStartOfBlock("", 0));
+    }
+
+    @Test
+    public void testGetEndOfBlock() {
+        final String text = "a\nb\n\nc\nd";
+        assertEquals(3, BlockHighlightTextWatcher.getEndOfBlock(text, 0));
+        assertEquals(3, BlockHighlightTextWatcher.getEndOfBlock(text, 2));
+        assertEquals(3, BlockHighlightTextWatcher.getEndOfBlock(text, 3));
+        assertEquals(4, BlockHighlightTextWatcher.getEndOfBlock(text, 4));
+        assertEquals(8, BlockHighlightTextWatcher.getEndOfBlock(text, 5));
+        assertEquals(8, BlockHighlightTextWatcher.getEndOfBlock(text, 8));
+        assertEquals(1, BlockHighlightTextWatcher.getEndOfBlock("a\n", 0));
+        assertEquals(0, BlockHighlightTextWatcher.getEndOfBlock("", 0));
+    }
+
+    @Test
+    public void testFindFencedCodeBlocks() {
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("```\ncode\n```"), 0, 12);
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("text\n\n```\ncode\n```\n\ntext"), 6, 18);
+        // Closing fences may be followed by whitespace, but not by an info string
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("```\ncode\n```  "), 0, 14);
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("```java\ncode\n```java\nmore\n```"), 0, 29);
+        // Closing fences need the same character and at least the same length
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("````\n```\n~~~~\n````"), 0, 18);
+        // Unclosed fences reach until the end of the text
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("text\n~~~\ncode"), 5, 13);
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("```\na\n```\n```"), 0, 9, 10, 13);
+        // Four spaces of indentation make an indented code block instead
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("    ```\ncode"));
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks("``\ncode\n``"));
+        assertFences(BlockHighlightTextWatcher.findFencedCodeBlocks(""));
+    }
+
+    @Test
+    public void testGetAffectedRegion() {
+        final String paragraphs = "a\nb\n\nc\nd";
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(paragraphs), paragraphs, 2, 3), 0, 3);
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(paragraphs), paragraphs, 0, 0), 0, 3);
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(paragraphs), paragraphs, 8, 8), 5, 8);
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(paragraphs), paragraphs, 4, 4), 4, 4);
+        // Edits across a blank line cover both blocks
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(paragraphs), paragraphs, 2, 6), 0, 8);
+
+        final String fenced = "intro\n\n```\na\n\nb\n```\n\noutro";
+        // Blank lines inside of a fenced code block do not separate blocks
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(fenced), fenced, 14, 15), 7, 19);
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(fenced), fenced, 11, 11), 7, 19);
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(fenced), fenced, 0, 5), 0, 5);
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(fenced), fenced, 21, 26), 21, 26);
+        assertRegion(watcher.getAffectedRegion(new SpannableStringBuilder(fenced), fenced, 3, 12), 0, 19);
+    }
+
+    @Test
+    public void testGetAffectedRegionWithAppliedSpans() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            // Like a code block span which remained after its fences have been removed
+            final String text = "a\n\nb";
+            final Editable editable = new SpannableStringBuilder(text);
+            final SpannableStringBuilder highlighted = new SpannableStringBuilder(text);
+            highlighted.setSpan(new StyleSpan(Typeface.BOLD), 0, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            watcher.applySpans(editable, highlighted, 0, text.length());
+            assertRegion(watcher.getAffectedRegion(editable, text, 0, 0), 0, 4);
+
+            // Spans which have not been applied by the watcher do not extend the region
+            final String otherText = "a\n\nb";
+            final Editable otherEditable = new SpannableStringBuilder(otherText);
+            otherEditable.setSpan(new UnderlineSpan(), 0, otherText.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            assertRegion(watcher.getAffectedRegion(otherEditable, otherText, 0, 0), 0, 1);
+        });
+    }
+
+    private static void assertRegion(@NonNull int[] actual, int expectedStart, int expectedEnd) {
+        assertEquals(expectedStart, actual[0]);
+        assertEquals(expectedEnd, actual[1]);
+    }
+
+    private static void assertFences(@NonNull List<int[]> actual, int... expected) {
+        assertEquals(expected.length / 2, actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertRegion(actual.get(i), expected[2 * i], expected[2 * i + 1]);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package it.niedermann.android.markdown.markwon.textwatcher;
+
+import android.text.Editable;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import it.niedermann.android.markdown.markwon.MarkwonMarkdownEditor;
+import it.niedermann.android.markdown.model.SearchSpan;
+
+@RunWith(AndroidJUnit4.class)
+public class SearchHighlightTextWatcherTest extends TestCase {
+
+    @Test
+    public void testDeleteWholeOccurrence() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            final MarkwonMarkdownEditor editor = new MarkwonMarkdownEditor(ApplicationProvider.getApplicationContext());
+            editor.setMarkdownString("foo bar foo baz foo qux foo");
+            editor.setSearchText("foo", 4);
+            assertEquals(Integer.valueOf(4), editor.getSearchOccurrenceCount("foo"));
+
+            // Removes the second and the currently highlighted fourth occurrence completely
+            final Editable text = editor.getText();
+            text.delete(24, 27);
+            text.delete(8, 12);
+            assertEquals("foo bar baz foo qux ", text.toString());
+            assertEquals(Integer.valueOf(2), editor.getSearchOccurrenceCount("foo"));
+            assertEquals(2, text.getSpans(0, text.length(), SearchSpan.class).length);
+
+            for (int current = 1; current <= 2; current++) {
+                editor.setSearchText("foo", current);
+                assertEquals(Integer.valueOf(2), editor.getSearchOccurrenceCount("foo"));
+                final SearchSpan[] spans = text.getSpans(0, text.length(), SearchSpan.class);
+                Arrays.sort(spans, Comparator.comparingInt(text::getSpanStart));
+                assertEquals(2, spans.length);
+                for (int i = 0; i < spans.length; i++) {
+                    assertEquals("foo", text.subSequence(text.getSpanStart(spans[i]), text.getSpanEnd(spans[i])).toString());
+                    assertEquals(i == current - 1, spans[i].isCurrent());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testDeleteAndRetypeOccurrence() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            final MarkwonMarkdownEditor editor = new MarkwonMarkdownEditor(ApplicationProvider.getApplicationContext());
+            editor.setMarkdownString("foo bar foo");
+            editor.setSearchText("foo", 1);
+
+            final Editable text = editor.getText();
+            text.delete(0, 3);
+            assertEquals(Integer.valueOf(1), editor.getSearchOccurrenceCount("foo"));
+
+            text.insert(0, "foo");
+            assertEquals(Integer.valueOf(2), editor.getSearchOccurrenceCount("foo"));
+            editor.setSearchText("foo", 2);
+            final SearchSpan[] spans = text.getSpans(8, 11, SearchSpan.class);
+            assertEquals(1, spans.length);
+            assertTrue(spans[0].isCurrent());
+        });
+    }
+}
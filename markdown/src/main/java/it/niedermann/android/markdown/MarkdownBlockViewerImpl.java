@@ -0,0 +1,24 @@
+package it.niedermann.android.markdown;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import it.niedermann.android.markdown.markwon.MarkwonMarkdownBlockViewer;
+
+public class MarkdownBlockViewerImpl extends MarkwonMarkdownBlockViewer {
+
+    public MarkdownBlockViewerImpl(@NonNull Context context) {
+        super(context);
+    }
+
+    public MarkdownBlockViewerImpl(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public MarkdownBlockViewerImpl(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+}
@@ -30,6 +30,16 @@ public interface MarkdownEditor {
      */
     void setMarkdownString(CharSequence text, @Nullable Runnable afterRender);
 
+    /**
+     * Renders of the markdown string will be cached for the given {@param id}, so setting the same markdown string again,
+     * e.g. when the same note is shown again, does not need to render it again. Each {@param id} caches only its most recent render.
+     *
+     * @param id usually the ID of the displayed note or <code>null</code> to not cache the renders
+     */
+    default void setRenderCacheId(@Nullable Long id) {
+        Log.w(TAG, "This feature is not supported by the currently used implementation.");
+    }
+
     /**
      * Will replace all `@mention`s of Nextcloud users with the avatar and given display name.
      *
@@ -77,6 +87,15 @@ public interface MarkdownEditor {
         Log.w(TAG, "This feature is not supported by the currently used implementation.");
     }
 
+    /**
+     * @param searchText the term to count
+     * @return the number of occurrences of the {@param searchText} if it is the currently highlighted one and the implementation keeps track of it, <code>null</code> otherwise.
+     */
+    @Nullable
+    default Integer getSearchOccurrenceCount(@Nullable CharSequence searchText) {
+        return null;
+    }
+
     /**
      * Intercepts each click on a clickable element like {@link URLSpan}s
      *
@@ -546,8 +546,8 @@ public class MarkdownUtil {
             return "";
         }
         assert s != null;
-        final String html = renderer.render(parser.parse(replaceCheckboxesWithEmojis(s)));
-        final Spanned spanned = HtmlCompat.fromHtml(html, HtmlCompat.FROM_HTML_MODE_COMPACT);
-        return spanned.toString().trim();
+        final PlainTextVisitor visitor = new PlainTextVisitor(s.length());
+        parser.parse(replaceCheckboxesWithEmojis(s)).accept(visitor);
+        return visitor.getText().trim();
     }
 }
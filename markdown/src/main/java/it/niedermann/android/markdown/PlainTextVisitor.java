@@ -0,0 +1,181 @@
+package it.niedermann.android.markdown;
+
+import androidx.annotation.NonNull;
+import androidx.core.text.HtmlCompat;
+
+import org.commonmark.node.AbstractVisitor;
+import org.commonmark.node.BlockQuote;
+import org.commonmark.node.Code;
+import org.commonmark.node.FencedCodeBlock;
+import org.commonmark.node.HardLineBreak;
+import org.commonmark.node.Heading;
+import org.commonmark.node.HtmlBlock;
+import org.commonmark.node.HtmlInline;
+import org.commonmark.node.Image;
+import org.commonmark.node.IndentedCodeBlock;
+import org.commonmark.node.ListItem;
+import org.commonmark.node.Node;
+import org.commonmark.node.Paragraph;
+import org.commonmark.node.SoftLineBreak;
+import org.commonmark.node.Text;
+import org.commonmark.node.ThematicBreak;
+
+import java.util.regex.Pattern;
+
+/**
+ * Collects the plain text of a parsed markdown document without rendering it to HTML first.
+ * <p>
+ * The output matches what {@link androidx.core.text.HtmlCompat#FROM_HTML_MODE_COMPACT} produced for the HTML output:
+ * Every block starts on a new line, line breaks are kept, other whitespace is collapsed and HTML tags are dropped.
+ * Images are replaced by {@link #OBJECT_REPLACEMENT_CHARACTER} like the <code>ImageSpan</code>s of {@link HtmlCompat}, their alt text is dropped.
+ */
+class PlainTextVisitor extends AbstractVisitor {
+
+    static final char OBJECT_REPLACEMENT_CHARACTER = '\uFFFC';
+    private static final Pattern PATTERN_HTML_LINE_BREAK = Pattern.compile("<br\\s*/?>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PATTERN_HTML_IMAGE = Pattern.compile("<img[\\s/>]", Pattern.CASE_INSENSITIVE);
+
+    @NonNull
+    private final StringBuilder sb;
+    private boolean pendingSpace = false;
+
+    PlainTextVisitor(int expectedLength) {
+        this.sb = new StringBuilder(expectedLength);
+    }
+
+    @NonNull
+    String getText() {
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return sb.substring(0, end);
+    }
+
+    @Override
+    public void visit(Text text) {
+        appendCollapsed(text.getLiteral());
+    }
+
+    @Override
+    public void visit(Code code) {
+        appendCollapsed(code.getLiteral());
+    }
+
+    @Override
+    public void visit(FencedCodeBlock fencedCodeBlock) {
+        visitBlock(fencedCodeBlock, fencedCodeBlock.getLiteral());
+    }
+
+    @Override
+    public void visit(IndentedCodeBlock indentedCodeBlock) {
+        visitBlock(indentedCodeBlock, indentedCodeBlock.getLiteral());
+    }
+
+    /**
+     * HTML blocks are rare, so they are converted by {@link HtmlCompat} itself, which takes care of entities, line breaks and images.
+     */
+    @Override
+    public void visit(HtmlBlock htmlBlock) {
+        blockBoundary();
+        final String[] lines = HtmlCompat.fromHtml(htmlBlock.getLiteral(), HtmlCompat.FROM_HTML_MODE_COMPACT).toString().trim().split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                lineBreak();
+            }
+            appendCollapsed(lines[i]);
+        }
+        blockBoundary();
+    }
+
+    @Override
+    public void visit(HtmlInline htmlInline) {
+        // Only line breaks and images produce text, the text enclosed by other tags is part of the sibling nodes
+        final String literal = htmlInline.getLiteral();
+        if (PATTERN_HTML_LINE_BREAK.matcher(literal).matches()) {
+            lineBreak();
+        } else if (PATTERN_HTML_IMAGE.matcher(literal).lookingAt()) {
+            appendCollapsed(String.valueOf(OBJECT_REPLACEMENT_CHARACTER));
+        }
+    }
+
+    @Override
+    public void visit(Image image) {
+        appendCollapsed(String.valueOf(OBJECT_REPLACEMENT_CHARACTER));
+    }
+
+    @Override
+    public void visit(SoftLineBreak softLineBreak) {
+        lineBreak();
+    }
+
+    @Override
+    public void visit(HardLineBreak hardLineBreak) {
+        lineBreak();
+    }
+
+    @Override
+    public void visit(Paragraph paragraph) {
+        visitBlock(paragraph, null);
+    }
+
+    @Override
+    public void visit(Heading heading) {
+        visitBlock(heading, null);
+    }
+
+    @Override
+    public void visit(ListItem listItem) {
+        visitBlock(listItem, null);
+    }
+
+    @Override
+    public void visit(BlockQuote blockQuote) {
+        visitBlock(blockQuote, null);
+    }
+
+    @Override
+    public void visit(ThematicBreak thematicBreak) {
+        blockBoundary();
+    }
+
+    /**
+     * @param literal will be appended instead of visiting the children if not <code>null</code>
+     */
+    private void visitBlock(@NonNull Node block, String literal) {
+        blockBoundary();
+        if (literal == null) {
+            visitChildren(block);
+        } else {
+            appendCollapsed(literal);
+        }
+        blockBoundary();
+    }
+
+    private void blockBoundary() {
+        pendingSpace = false;
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') {
+            sb.append('\n');
+        }
+    }
+
+    private void lineBreak() {
+        pendingSpace = false;
+        sb.append('\n');
+    }
+
+    private void appendCollapsed(@NonNull String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            final char c = literal.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+            } else {
+                if (pendingSpace && sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') {
+                    sb.append(' ');
+                }
+                pendingSpace = false;
+                sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package it.niedermann.android.markdown.markwon;
+
+import android.text.Spanned;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.commonmark.node.Node;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.noties.markwon.Markwon;
+import it.niedermann.android.markdown.R;
+
+/**
+ * Displays each top level block of a parsed markdown document in its own {@link TextView}.
+ * Blocks are rendered when they get bound and the most recently rendered ones are kept.
+ */
+class MarkwonBlockAdapter extends RecyclerView.Adapter<MarkwonBlockAdapter.BlockViewHolder> {
+
+    private static final int MAX_RENDERED_BLOCKS = 64;
+
+    @NonNull
+    private final Consumer<TextView> applyAppearance;
+    @Nullable
+    private Markwon markwon;
+    @NonNull
+    private List<Node> blocks = Collections.emptyList();
+    @NonNull
+    private int[] checkboxOffsets = new int[0];
+    @Nullable
+    private int[] occurrenceOffsets = null;
+    private final LruCache<Node, Spanned> renderedBlocks = new LruCache<>(MAX_RENDERED_BLOCKS);
+
+    /**
+     * @param applyAppearance applies text size, colors etc. to the {@link TextView} of each block
+     */
+    MarkwonBlockAdapter(@NonNull Consumer<TextView> applyAppearance) {
+        this.applyAppearance = applyAppearance;
+    }
+
+    /**
+     * @param checkboxOffsets the number of checkboxes before each block
+     */
+    void setBlocks(@NonNull Markwon markwon, @NonNull List<Node> blocks, @NonNull int[] checkboxOffsets) {
+        this.markwon = markwon;
+        this.blocks = blocks;
+        this.checkboxOffsets = checkboxOffsets;
+        this.occurrenceOffsets = null;
+        renderedBlocks.evictAll();
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    List<Node> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @param occurrenceOffsets the number of search occurrences before each block or <code>null</code> if no search is active
+     */
+    void setOccurrenceOffsets(@Nullable int[] occurrenceOffsets) {
+        this.occurrenceOffsets = occurrenceOffsets;
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public BlockViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        final TextView textView = new AppCompatTextView(parent.getContext());
+        textView.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        applyAppearance.accept(textView);
+        return new BlockViewHolder(textView);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull BlockViewHolder holder, int position) {
+        if (markwon == null) {
+            return;
+        }
+        final Node block = blocks.get(position);
+        Spanned rendered = renderedBlocks.get(block);
+        if (rendered == null) {
+            rendered = markwon.render(block);
+            renderedBlocks.put(block, rendered);
+        }
+        holder.textView.setTag(R.id.toggleable_task_list_offset, checkboxOffsets[position]);
+        holder.textView.setTag(R.id.search_occurrence_offset, occurrenceOffsets == null ? 0 : occurrenceOffsets[position]);
+        markwon.setParsedMarkdown(holder.textView, rendered);
+    }
+
+    @Override
+    public int getItemCount() {
+        return blocks.size();
+    }
+
+    static class BlockViewHolder extends RecyclerView.ViewHolder {
+
+        @NonNull
+        private final TextView textView;
+
+        private BlockViewHolder(@NonNull TextView textView) {
+            super(textView);
+            this.textView = textView;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package it.niedermann.android.markdown.markwon;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.DisplayMetrics;
+import android.util.Log;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.noties.markwon.Markwon;
+import io.noties.markwon.SoftBreakAddsNewLinePlugin;
+import io.noties.markwon.ext.strikethrough.StrikethroughPlugin;
+import io.noties.markwon.ext.tables.TableAwareMovementMethod;
+import io.noties.markwon.ext.tables.TablePlugin;
+import io.noties.markwon.ext.tasklist.TaskListPlugin;
+import io.noties.markwon.image.DefaultDownScalingMediaDecoder;
+import io.noties.markwon.image.ImagesPlugin;
+import io.noties.markwon.inlineparser.MarkwonInlineParserPlugin;
+import io.noties.markwon.linkify.LinkifyPlugin;
+import io.noties.markwon.movement.MovementMethodPlugin;
+import io.noties.markwon.simple.ext.SimpleExtPlugin;
+import io.noties.markwon.syntax.Prism4jTheme;
+import io.noties.markwon.syntax.Prism4jThemeDarkula;
+import io.noties.markwon.syntax.Prism4jThemeDefault;
+import io.noties.prism4j.Prism4j;
+import io.noties.prism4j.annotations.PrismBundle;
+import it.niedermann.android.markdown.markwon.plugins.CachingSyntaxHighlightPlugin;
+import it.niedermann.android.markdown.markwon.plugins.LinkClickInterceptorPlugin;
+import it.niedermann.android.markdown.markwon.plugins.NextcloudMentionsPlugin;
+import it.niedermann.android.markdown.markwon.plugins.SearchHighlightPlugin;
+import it.niedermann.android.markdown.markwon.plugins.ThemePlugin;
+import it.niedermann.android.markdown.markwon.plugins.ToggleableTaskListPlugin;
+
+/**
+ * Builds the {@link Markwon} instances of the viewers and the editor ahead of time, so creating a view does not need to construct all plugins.
+ * <p>
+ * Some plugins hold the state of the view using them (e.g. the search text or the link click callbacks), therefore each instance is handed out only once.
+ * For each {@link Feature} and theme as many instances as there are views using them at the same time are kept ready, a replacement gets built on a background thread whenever one is taken.
+ */
+@PrismBundle(includeAll = true, grammarLocatorClassName = ".MarkwonGrammarLocator")
+public final class MarkwonFactory {
+
+    private static final String TAG = MarkwonFactory.class.getSimpleName();
+
+    private static final Prism4j prism4j = new Prism4j(new SynchronizedGrammarLocator(new MarkwonGrammarLocator()));
+
+    private static MarkwonFactory instance;
+
+    public enum Feature {
+        /**
+         * A note preview shows its content either in a text view or, for large notes, block by block
+         */
+        VIEWER(2),
+        EDITOR(1);
+
+        private final int preparedInstances;
+
+        Feature(int preparedInstances) {
+            this.preparedInstances = preparedInstances;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<Key, Queue<Markwon>> pool = new HashMap<>();
+
+    public static synchronized MarkwonFactory getInstance() {
+        if (instance == null) {
+            instance = new MarkwonFactory();
+        }
+        return instance;
+    }
+
+    private MarkwonFactory() {
+        // Use getInstance()
+    }
+
+    /**
+     * Builds the instances for the given {@param features} on a background thread.
+     *
+     * @param context should have the same theme as the views which will display markdown, otherwise the prepared instances can not be used for them
+     */
+    public void warmUp(@NonNull Context context, @NonNull Feature... features) {
+        for (Feature feature : features) {
+            prepare(context, new Key(context, feature));
+        }
+    }
+
+    /**
+     * Prepared instances are only available after {@link #warmUp(Context, Feature...)} or a previous call for the same {@param context} and {@param feature} and only as many as the {@link Feature} keeps ready.
+     * Obtaining more of them before the replacements have been built blocks the calling thread while building one.
+     *
+     * @return a {@link Markwon} instance which is not used by anyone else. It gets built right away, if none has been prepared for this {@param context} and {@param feature}.
+     */
+    @NonNull
+    Markwon obtain(@NonNull Context context, @NonNull Feature feature) {
+        final Key key = new Key(context, feature);
+        Markwon markwon;
+        synchronized (pool) {
+            final Queue<Markwon> instances = pool.get(key);
+            markwon = instances == null ? null : instances.poll();
+        }
+        if (markwon == null) {
+            Log.v(TAG, "No prepared " + feature + " instance available, building it right away.");
+            markwon = create(context, feature);
+        }
+        prepare(context, key);
+        return markwon;
+    }
+
+    private void prepare(@NonNull Context context, @NonNull Key key) {
+        executor.submit(() -> {
+            while (true) {
+                synchronized (pool) {
+                    final Queue<Markwon> instances = pool.get(key);
+                    if (instances != null && instances.size() >= key.feature.preparedInstances) {
+                        return;
+                    }
+                }
+                final Markwon markwon = create(context, key.feature);
+                synchronized (pool) {
+                    Queue<Markwon> instances = pool.get(key);
+                    if (instances == null) {
+                        instances = new ArrayDeque<>();
+                        pool.put(key, instances);
+                    }
+                    instances.add(markwon);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the instances which are currently prepared for {@param context} and {@param feature}
+     */
+    @VisibleForTesting
+    @NonNull
+    List<Markwon> getPrepared(@NonNull Context context, @NonNull Feature feature) {
+        synchronized (pool) {
+            final Queue<Markwon> instances = pool.get(new Key(context, feature));
+            return instances == null ? Collections.emptyList() : new ArrayList<>(instances);
+        }
+    }
+
+    /**
+     * Blocks until all previously requested instances have been prepared.
+     */
+    @VisibleForTesting
+    void awaitPrepared() throws ExecutionException, InterruptedException {
+        executor.submit(() -> {
+            // Nothing to do, the executor processes the tasks in order
+        }).get();
+    }
+
+    /**
+     * The plugins do not keep a reference to the {@param context}, so the built instances can outlive it.
+     */
+    @NonNull
+    private static Markwon create(@NonNull Context context, @NonNull Feature feature) {
+        switch (feature) {
+            case VIEWER:
+                return createViewerBuilder(context).build();
+            case EDITOR:
+                return createEditorBuilder(context).build();
+            default:
+                throw new IllegalArgumentException("Unknown feature: " + feature);
+        }
+    }
+
+    private static Markwon.Builder createViewerBuilder(@NonNull Context context) {
+        final Prism4jTheme prism4jTheme = MarkwonMarkdownUtil.isDarkThemeActive(context)
+                ? Prism4jThemeDarkula.create()
+                : Prism4jThemeDefault.create();
+        final DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+        return Markwon.builder(context)
+                .usePlugin(ThemePlugin.create(context))
+                .usePlugin(StrikethroughPlugin.create())
+                .usePlugin(SimpleExtPlugin.create())
+                .usePlugin(MarkwonInlineParserPlugin.create())
+                .usePlugin(SearchHighlightPlugin.create(context))
+                .usePlugin(TablePlugin.create(context))
+                .usePlugin(TaskListPlugin.create(context))
+                .usePlugin(LinkifyPlugin.create(true))
+                .usePlugin(MovementMethodPlugin.create(TableAwareMovementMethod.create()))
+                .usePlugin(LinkClickInterceptorPlugin.create())
+                // Instances outlive orientation changes, so images are scaled down to the longer side of the display
+                .usePlugin(ImagesPlugin.create(plugin -> plugin.defaultMediaDecoder(DefaultDownScalingMediaDecoder.create(Math.max(displayMetrics.widthPixels, displayMetrics.heightPixels), 0))))
+                .usePlugin(SoftBreakAddsNewLinePlugin.create())
+                .usePlugin(CachingSyntaxHighlightPlugin.create(prism4j, prism4jTheme))
+                .usePlugin(new ToggleableTaskListPlugin())
+                .usePlugin(NextcloudMentionsPlugin.create(context));
+    }
+
+    private static Markwon.Builder createEditorBuilder(@NonNull Context context) {
+        return Markwon.builder(context)
+                .usePlugin(ThemePlugin.create(context))
+                .usePlugin(StrikethroughPlugin.create())
+                .usePlugin(SimpleExtPlugin.create())
+                .usePlugin(ImagesPlugin.create())
+                .usePlugin(MarkwonInlineParserPlugin.create())
+                .usePlugin(SearchHighlightPlugin.create(context));
+    }
+
+    /**
+     * Identifies instances which are built equally: besides the {@link Feature} the plugins only depend on the night mode and the colors resolved from the theme.
+     */
+    private static final class Key {
+
+        @NonNull
+        private final Feature feature;
+        private final boolean darkTheme;
+        @ColorInt
+        private final int backgroundColor;
+        @ColorInt
+        private final int linkColor;
+
+        private Key(@NonNull Context context, @NonNull Feature feature) {
+            this.feature = feature;
+            this.darkTheme = MarkwonMarkdownUtil.isDarkThemeActive(context);
+            // Resolved by the TaskListPlugin, attributes must be in ascending order
+            final TypedArray attributes = context.obtainStyledAttributes(new int[]{android.R.attr.colorBackground, android.R.attr.textColorLink});
+            this.backgroundColor = attributes.getColor(0, 0);
+            this.linkColor = attributes.getColor(1, 0);
+            attributes.recycle();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return darkTheme == key.darkTheme &&
+                    backgroundColor == key.backgroundColor &&
+                    linkColor == key.linkColor &&
+                    feature == key.feature;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(feature, darkTheme, backgroundColor, linkColor);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package it.niedermann.android.markdown.markwon;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.util.TypedValue;
+import android.widget.TextView;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.commonmark.node.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.noties.markwon.Markwon;
+import io.noties.markwon.MarkwonPlugin;
+import it.niedermann.android.markdown.MarkdownEditor;
+import it.niedermann.android.markdown.MarkdownUtil;
+import it.niedermann.android.markdown.markwon.plugins.LinkClickInterceptorPlugin;
+import it.niedermann.android.markdown.markwon.plugins.NextcloudMentionsPlugin;
+import it.niedermann.android.markdown.markwon.plugins.SearchHighlightPlugin;
+import it.niedermann.android.markdown.markwon.plugins.ToggleableTaskListPlugin;
+
+import static androidx.lifecycle.Transformations.distinctUntilChanged;
+
+/**
+ * Viewer for very large markdown documents. Instead of rendering the whole document into one {@link TextView} like {@link MarkwonMarkdownViewer},
+ * the document is parsed into its top level blocks, which are only rendered when they get scrolled into view.
+ * <p>
+ * Text appearance attributes like <code>android:textAppearance</code> or <code>android:lineSpacingMultiplier</code> are applied to the {@link TextView} of each block.
+ * Text can only be selected within one block.
+ */
+public class MarkwonMarkdownBlockViewer extends RecyclerView implements MarkdownEditor {
+
+    private static final String TAG = MarkwonMarkdownBlockViewer.class.getSimpleName();
+
+    private final Markwon markwon;
+    // Holds the text appearance which is applied to the view of each block
+    @NonNull
+    private final TextView appearance;
+    @NonNull
+    private final MarkwonBlockAdapter adapter;
+    @Nullable
+    private Consumer<CharSequence> listener = null;
+    private final MutableLiveData<CharSequence> unrenderedText$ = new MutableLiveData<>();
+
+    private final ExecutorService renderService;
+    @Nullable
+    private Future<?> renderTask = null;
+    // Incremented on the UI thread whenever the text changes, so results of outdated parses get discarded
+    private int renderGeneration = 0;
+
+    @Nullable
+    private CharSequence searchText = null;
+    // Incremented on the UI thread whenever the search text changes, so results of outdated searches get discarded
+    private int searchGeneration = 0;
+    // The number of occurrences before each block and the total number as last element, null while not known yet
+    @Nullable
+    private int[] occurrenceOffsets = null;
+    @Nullable
+    private Integer pendingOccurrence = null;
+
+    // Plain text of each block, only accessed on the renderService
+    @Nullable
+    private List<Node> blocksOfTexts = null;
+    @Nullable
+    private String[] blockTexts = null;
+
+    public MarkwonMarkdownBlockViewer(@NonNull Context context) {
+        this(context, null);
+    }
+
+    public MarkwonMarkdownBlockViewer(@NonNull Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public MarkwonMarkdownBlockViewer(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        this.appearance = new AppCompatTextView(context, attrs);
+        this.markwon = MarkwonFactory.getInstance().obtain(context, MarkwonFactory.Feature.VIEWER);
+        this.markwon.requirePlugin(ToggleableTaskListPlugin.class).setToggleListener(this::onCheckboxToggled);
+        this.renderService = Executors.newSingleThreadExecutor();
+        this.adapter = new MarkwonBlockAdapter(this::applyAppearance);
+        setLayoutManager(new LinearLayoutManager(context));
+        setAdapter(adapter);
+    }
+
+    private void onCheckboxToggled(int toggledCheckboxPosition, boolean newCheckedState) {
+        final CharSequence oldUnrenderedText = unrenderedText$.getValue();
+        if (oldUnrenderedText == null) {
+            throw new IllegalStateException("Checkbox #" + toggledCheckboxPosition + ", but unrenderedText$ value is null.");
+        }
+        final CharSequence newUnrenderedText = MarkdownUtil.setCheckboxStatus(oldUnrenderedText.toString(), toggledCheckboxPosition, newCheckedState);
+        this.setMarkdownString(newUnrenderedText);
+    }
+
+    private void applyAppearance(@NonNull TextView textView) {
+        textView.setTextSize(TypedValue.COMPLEX_UNIT_PX, appearance.getTextSize());
+        textView.setTypeface(appearance.getTypeface());
+        textView.setTextColor(appearance.getTextColors());
+        textView.setLinkTextColor(appearance.getLinkTextColors());
+        textView.setHighlightColor(appearance.getHighlightColor());
+        textView.setLineSpacing(appearance.getLineSpacingExtra(), appearance.getLineSpacingMultiplier());
+        textView.setTextIsSelectable(appearance.isTextSelectable());
+    }
+
+    /**
+     * @see TextView#setTextSize(int, float)
+     */
+    public void setTextSize(int unit, float size) {
+        appearance.setTextSize(unit, size);
+        adapter.notifyDataSetChanged();
+    }
+
+    /**
+     * @see TextView#setTypeface(Typeface)
+     */
+    public void setTypeface(@Nullable Typeface typeface) {
+        appearance.setTypeface(typeface);
+        adapter.notifyDataSetChanged();
+    }
+
+    /**
+     * @see TextView#setHighlightColor(int)
+     */
+    public void setHighlightColor(@ColorInt int color) {
+        appearance.setHighlightColor(color);
+        adapter.notifyDataSetChanged();
+    }
+
+    @Override
+    public void registerOnLinkClickCallback(@NonNull Function<String, Boolean> callback) {
+        final LinkClickInterceptorPlugin plugin = this.markwon.getPlugin(LinkClickInterceptorPlugin.class);
+        if (plugin == null) {
+            Log.w(TAG, "Tried to register callback, but " + LinkClickInterceptorPlugin.class.getSimpleName() + " is not a registered " + MarkwonPlugin.class.getSimpleName() + ".");
+        } else {
+            plugin.registerOnLinkClickCallback(callback);
+        }
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        final ToggleableTaskListPlugin plugin = this.markwon.getPlugin(ToggleableTaskListPlugin.class);
+        if (plugin == null) {
+            Log.w(TAG, "Tried to set enabled state for " + ToggleableTaskListPlugin.class.getSimpleName() + ", but " + ToggleableTaskListPlugin.class.getSimpleName() + " is not a registered " + MarkwonPlugin.class.getSimpleName() + ".");
+        } else {
+            plugin.setEnabled(enabled);
+        }
+    }
+
+    @Override
+    public void setRenderCacheId(@Nullable Long id) {
+        // Blocks are only rendered while they are visible, so there is no render of the whole document worth caching
+    }
+
+    @Override
+    public void setMarkdownString(CharSequence text) {
+        setMarkdownString(text, null);
+    }
+
+    /**
+     * Parses the <code>text</code> into blocks on the {@link #renderService}, the blocks are rendered when they get displayed.
+     * A parse which has not finished yet gets cancelled when another <code>text</code> is set.
+     */
+    @UiThread
+    @Override
+    public void setMarkdownString(CharSequence text, Runnable afterRender) {
+        final CharSequence previousText = this.unrenderedText$.getValue();
+        this.unrenderedText$.setValue(text);
+        if (listener != null) {
+            listener.accept(text);
+        }
+        if (TextUtils.isEmpty(text)) {
+            cancelRender();
+            setBlocks(this.markwon, Collections.emptyList(), new int[0]);
+        } else {
+            if (!text.equals(previousText)) {
+                final int generation = cancelRender();
+                this.renderTask = this.renderService.submit(() -> {
+                    final List<Node> blocks = new ArrayList<>();
+                    for (Node block = markwon.parse(text.toString()).getFirstChild(); block != null; block = block.getNext()) {
+                        blocks.add(block);
+                    }
+                    final int[] checkboxOffsets = new int[blocks.size()];
+                    int checkboxCount = 0;
+                    for (int i = 0; i < blocks.size(); i++) {
+                        checkboxOffsets[i] = checkboxCount;
+                        checkboxCount += ToggleableTaskListPlugin.countToggleableTaskListItems(blocks.get(i));
+                    }
+                    post(() -> {
+                        if (generation == renderGeneration) {
+                            setBlocks(markwon, blocks, checkboxOffsets);
+                            if (afterRender != null) {
+                                afterRender.run();
+                            }
+                        }
+                    });
+                });
+            }
+        }
+    }
+
+    /**
+     * @return the generation of the next parse
+     */
+    @UiThread
+    private int cancelRender() {
+        if (renderTask != null) {
+            // Parses which already started can not be interrupted, their result will be discarded
+            renderTask.cancel(false);
+            renderTask = null;
+        }
+        return ++renderGeneration;
+    }
+
+    @UiThread
+    private void setBlocks(@NonNull Markwon markwon, @NonNull List<Node> blocks, @NonNull int[] checkboxOffsets) {
+        adapter.setBlocks(markwon, blocks, checkboxOffsets);
+        occurrenceOffsets = null;
+        if (searchText != null) {
+            updateOccurrenceOffsets();
+        }
+    }
+
+    @Override
+    public void setSearchColor(@ColorInt int color) {
+        final SearchHighlightPlugin searchHighlightPlugin = this.markwon.getPlugin(SearchHighlightPlugin.class);
+        if (searchHighlightPlugin == null) {
+            Log.w(TAG, SearchHighlightPlugin.class.getSimpleName() + " is not a registered " + MarkwonPlugin.class.getSimpleName());
+        } else {
+            searchHighlightPlugin.setSearchColor(color);
+            adapter.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Highlights the {@param searchText} in all blocks. The occurrences get counted on the {@link #renderService}, which requires to render all blocks once per document.
+     */
+    @UiThread
+    @Override
+    public void setSearchText(@Nullable CharSequence searchText, @Nullable Integer current) {
+        final SearchHighlightPlugin searchHighlightPlugin = this.markwon.getPlugin(SearchHighlightPlugin.class);
+        if (searchHighlightPlugin == null) {
+            Log.w(TAG, SearchHighlightPlugin.class.getSimpleName() + " is not a registered " + MarkwonPlugin.class.getSimpleName());
+            return;
+        }
+        searchHighlightPlugin.setSearchText(searchText, current);
+        final CharSequence previousSearchText = this.searchText;
+        this.searchText = TextUtils.isEmpty(searchText) ? null : searchText;
+        if (this.searchText == null) {
+            searchGeneration++;
+            occurrenceOffsets = null;
+            pendingOccurrence = null;
+            adapter.setOccurrenceOffsets(null);
+        } else if (!TextUtils.equals(previousSearchText, this.searchText)) {
+            occurrenceOffsets = null;
+            updateOccurrenceOffsets();
+        } else {
+            // Only the current occurrence changed
+            adapter.notifyDataSetChanged();
+        }
+    }
+
+    @UiThread
+    private void updateOccurrenceOffsets() {
+        final int generation = ++searchGeneration;
+        final Pattern pattern = Pattern.compile(String.valueOf(searchText), Pattern.CASE_INSENSITIVE | Pattern.LITERAL);
+        final List<Node> blocks = adapter.getBlocks();
+        renderService.submit(() -> {
+            final String[] texts = getBlockTexts(markwon, blocks);
+            final int[] offsets = new int[blocks.size() + 1];
+            for (int i = 0; i < texts.length; i++) {
+                int count = 0;
+                final Matcher matcher = pattern.matcher(texts[i]);
+                while (matcher.find()) {
+                    count++;
+                }
+                offsets[i + 1] = offsets[i] + count;
+            }
+            post(() -> {
+                if (generation == searchGeneration && blocks == adapter.getBlocks()) {
+                    occurrenceOffsets = offsets;
+                    adapter.setOccurrenceOffsets(offsets);
+                    if (pendingOccurrence != null) {
+                        scrollToOccurrence(pendingOccurrence);
+                    }
+                }
+            });
+        });
+    }
+
+    @WorkerThread
+    @NonNull
+    private String[] getBlockTexts(@NonNull Markwon markwon, @NonNull List<Node> blocks) {
+        if (blockTexts == null || blocksOfTexts != blocks) {
+            blockTexts = new String[blocks.size()];
+            for (int i = 0; i < blocks.size(); i++) {
+                blockTexts[i] = markwon.render(blocks.get(i)).toString();
+            }
+            blocksOfTexts = blocks;
+        }
+        return blockTexts;
+    }
+
+    /**
+     * Scrolls to the block which contains the given {@param occurrence} of the current search text.
+     * If the occurrences are still being counted, it will scroll as soon as they are known.
+     */
+    @UiThread
+    public void scrollToOccurrence(int occurrence) {
+        if (occurrenceOffsets == null) {
+            pendingOccurrence = occurrence;
+            return;
+        }
+        pendingOccurrence = null;
+        for (int i = 0; i < occurrenceOffsets.length - 1; i++) {
+            if (occurrence <= occurrenceOffsets[i + 1]) {
+                final LayoutManager layoutManager = getLayoutManager();
+                if (layoutManager instanceof LinearLayoutManager) {
+                    ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(i, 0);
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void setMarkdownStringAndHighlightMentions(CharSequence text, @NonNull Map<String, String> mentions) {
+        final NextcloudMentionsPlugin plugin = this.markwon.getPlugin(NextcloudMentionsPlugin.class);
+        if (plugin == null) {
+            Log.w(TAG, NextcloudMentionsPlugin.class.getSimpleName() + " is not a registered " + MarkwonPlugin.class.getSimpleName());
+        } else {
+            plugin.setMentions(mentions);
+        }
+        setMarkdownString(text);
+    }
+
+    @Override
+    public LiveData<CharSequence> getMarkdownString() {
+        return distinctUntilChanged(this.unrenderedText$);
+    }
+
+    @Override
+    public void setMarkdownStringChangedListener(@Nullable Consumer<CharSequence> listener) {
+        this.listener = listener;
+    }
+}
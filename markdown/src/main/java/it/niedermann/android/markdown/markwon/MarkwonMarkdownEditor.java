@@ -20,10 +20,6 @@ import io.noties.markwon.Markwon;
 import io.noties.markwon.editor.MarkwonEditor;
 import io.noties.markwon.editor.handler.EmphasisEditHandler;
 import io.noties.markwon.editor.handler.StrongEmphasisEditHandler;
-import io.noties.markwon.ext.strikethrough.StrikethroughPlugin;
-import io.noties.markwon.image.ImagesPlugin;
-import io.noties.markwon.inlineparser.MarkwonInlineParserPlugin;
-import io.noties.markwon.simple.ext.SimpleExtPlugin;
 import it.niedermann.android.markdown.MarkdownEditor;
 import it.niedermann.android.markdown.markwon.format.ContextBasedFormattingCallback;
 import it.niedermann.android.markdown.markwon.format.ContextBasedRangeFormattingCallback;
@@ -32,8 +28,6 @@ import it.niedermann.android.markdown.markwon.handler.CodeBlockEditHandler;
 import it.niedermann.android.markdown.markwon.handler.CodeEditHandler;
 import it.niedermann.android.markdown.markwon.handler.HeadingEditHandler;
 import it.niedermann.android.markdown.markwon.handler.StrikethroughEditHandler;
-import it.niedermann.android.markdown.markwon.plugins.SearchHighlightPlugin;
-import it.niedermann.android.markdown.markwon.plugins.ThemePlugin;
 import it.niedermann.android.markdown.markwon.textwatcher.CombinedTextWatcher;
 import it.niedermann.android.markdown.markwon.textwatcher.SearchHighlightTextWatcher;
 
@@ -57,7 +51,7 @@ public class MarkwonMarkdownEditor extends AppCompatEditText implements Markdown
     public MarkwonMarkdownEditor(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
 
-        final Markwon markwon = createMarkwonBuilder(context).build();
+        final Markwon markwon = MarkwonFactory.getInstance().obtain(context, MarkwonFactory.Feature.EDITOR);
         final MarkwonEditor editor = createMarkwonEditorBuilder(markwon).build();
 
         combinedWatcher = new CombinedTextWatcher(editor, this);
@@ -68,16 +62,6 @@ public class MarkwonMarkdownEditor extends AppCompatEditText implements Markdown
         }
     }
 
-    private static Markwon.Builder createMarkwonBuilder(@NonNull Context context) {
-        return Markwon.builder(context)
-                .usePlugin(ThemePlugin.create(context))
-                .usePlugin(StrikethroughPlugin.create())
-                .usePlugin(SimpleExtPlugin.create())
-                .usePlugin(ImagesPlugin.create())
-                .usePlugin(MarkwonInlineParserPlugin.create())
-                .usePlugin(SearchHighlightPlugin.create(context));
-    }
-
     private static MarkwonEditor.Builder createMarkwonEditorBuilder(@NonNull Markwon markwon) {
         return MarkwonEditor.builder(markwon)
                 .useEditHandler(new EmphasisEditHandler())
@@ -109,6 +93,13 @@ public class MarkwonMarkdownEditor extends AppCompatEditText implements Markdown
         }
     }
 
+    @Nullable
+    @Override
+    public Integer getSearchOccurrenceCount(@Nullable CharSequence searchText) {
+        final SearchHighlightTextWatcher searchHighlightTextWatcher = combinedWatcher.get(SearchHighlightTextWatcher.class);
+        return searchHighlightTextWatcher == null ? null : searchHighlightTextWatcher.getOccurrenceCount(searchText);
+    }
+
     @Override
     public void setMarkdownString(CharSequence text) {
         setText(text);
@@ -1,6 +1,7 @@
 package it.niedermann.android.markdown.markwon;
 
 import android.content.Context;
+import android.text.Spanned;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -8,6 +9,7 @@ import android.util.Log;
 import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
 import androidx.appcompat.widget.AppCompatTextView;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
@@ -15,51 +17,40 @@ import androidx.lifecycle.MutableLiveData;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import io.noties.markwon.Markwon;
 import io.noties.markwon.MarkwonPlugin;
-import io.noties.markwon.SoftBreakAddsNewLinePlugin;
-import io.noties.markwon.ext.strikethrough.StrikethroughPlugin;
-import io.noties.markwon.ext.tables.TableAwareMovementMethod;
-import io.noties.markwon.ext.tables.TablePlugin;
-import io.noties.markwon.ext.tasklist.TaskListPlugin;
-import io.noties.markwon.image.DefaultDownScalingMediaDecoder;
-import io.noties.markwon.image.ImagesPlugin;
-import io.noties.markwon.inlineparser.MarkwonInlineParserPlugin;
-import io.noties.markwon.linkify.LinkifyPlugin;
-import io.noties.markwon.movement.MovementMethodPlugin;
-import io.noties.markwon.simple.ext.SimpleExtPlugin;
-import io.noties.markwon.syntax.Prism4jTheme;
-import io.noties.markwon.syntax.Prism4jThemeDarkula;
-import io.noties.markwon.syntax.Prism4jThemeDefault;
-import io.noties.markwon.syntax.SyntaxHighlightPlugin;
-import io.noties.prism4j.Prism4j;
-import io.noties.prism4j.annotations.PrismBundle;
 import it.niedermann.android.markdown.MarkdownEditor;
 import it.niedermann.android.markdown.MarkdownUtil;
 import it.niedermann.android.markdown.markwon.plugins.LinkClickInterceptorPlugin;
 import it.niedermann.android.markdown.markwon.plugins.NextcloudMentionsPlugin;
 import it.niedermann.android.markdown.markwon.plugins.SearchHighlightPlugin;
-import it.niedermann.android.markdown.markwon.plugins.ThemePlugin;
 import it.niedermann.android.markdown.markwon.plugins.ToggleableTaskListPlugin;
 
 import static androidx.lifecycle.Transformations.distinctUntilChanged;
 
-@PrismBundle(includeAll = true, grammarLocatorClassName = ".MarkwonGrammarLocator")
 public class MarkwonMarkdownViewer extends AppCompatTextView implements MarkdownEditor {
 
     private static final String TAG = MarkwonMarkdownViewer.class.getSimpleName();
 
-    private static final Prism4j prism4j = new Prism4j(new MarkwonGrammarLocator());
-
-    private Markwon markwon;
+    private final Markwon markwon;
+    private final boolean darkTheme;
+    @NonNull
+    private final MarkwonRenderCache renderCache;
+    @Nullable
+    private Long renderCacheId = null;
     @Nullable
     private Consumer<CharSequence> listener = null;
     private final MutableLiveData<CharSequence> unrenderedText$ = new MutableLiveData<>();
 
     private final ExecutorService renderService;
+    @Nullable
+    private Future<?> renderTask = null;
+    // Incremented on the UI thread whenever the text changes, so results of outdated renders get discarded
+    private int renderGeneration = 0;
 
     public MarkwonMarkdownViewer(@NonNull Context context) {
         this(context, null);
@@ -71,41 +62,20 @@ public class MarkwonMarkdownViewer extends AppCompatTextView implements Markdown
 
     public MarkwonMarkdownViewer(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        this.markwon = createMarkwonBuilder(context).build();
+        this.darkTheme = MarkwonMarkdownUtil.isDarkThemeActive(context);
+        this.renderCache = MarkwonRenderCache.getInstance(context);
+        this.markwon = MarkwonFactory.getInstance().obtain(context, MarkwonFactory.Feature.VIEWER);
+        this.markwon.requirePlugin(ToggleableTaskListPlugin.class).setToggleListener(this::onCheckboxToggled);
         this.renderService = Executors.newSingleThreadExecutor();
     }
 
-    private Markwon.Builder createMarkwonBuilder(@NonNull Context context) {
-        final Prism4jTheme prism4jTheme = MarkwonMarkdownUtil.isDarkThemeActive(context)
-                ? Prism4jThemeDarkula.create()
-                : Prism4jThemeDefault.create();
-        return Markwon.builder(context)
-                .usePlugin(ThemePlugin.create(context))
-                .usePlugin(StrikethroughPlugin.create())
-                .usePlugin(SimpleExtPlugin.create())
-                .usePlugin(MarkwonInlineParserPlugin.create())
-                .usePlugin(SearchHighlightPlugin.create(context))
-                .usePlugin(TablePlugin.create(context))
-                .usePlugin(TaskListPlugin.create(context))
-                .usePlugin(LinkifyPlugin.create(true))
-                .usePlugin(MovementMethodPlugin.create(TableAwareMovementMethod.create()))
-                .usePlugin(LinkClickInterceptorPlugin.create())
-                .usePlugin(ImagesPlugin.create(plugin -> plugin.defaultMediaDecoder(DefaultDownScalingMediaDecoder.create(context.getResources().getDisplayMetrics().widthPixels, 0))))
-                .usePlugin(SoftBreakAddsNewLinePlugin.create())
-                .usePlugin(SyntaxHighlightPlugin.create(prism4j, prism4jTheme))
-                .usePlugin(new ToggleableTaskListPlugin((toggledCheckboxPosition, newCheckedState) -> {
-                    final CharSequence oldUnrenderedText = unrenderedText$.getValue();
-                    if (oldUnrenderedText == null) {
-                        throw new IllegalStateException("Checkbox #" + toggledCheckboxPosition + ", but unrenderedText$ value is null.");
-                    }
-                    final CharSequence newUnrenderedText = MarkdownUtil.setCheckboxStatus(oldUnrenderedText.toString(), toggledCheckboxPosition, newCheckedState);
-                    this.setMarkdownString(newUnrenderedText);
-                }));
-    }
-
-    public Markwon.Builder createMarkwonBuilder(@NonNull Context context, @NonNull Map<String, String> mentions) {
-        return createMarkwonBuilder(context)
-                .usePlugin(NextcloudMentionsPlugin.create(context, mentions));
+    private void onCheckboxToggled(int toggledCheckboxPosition, boolean newCheckedState) {
+        final CharSequence oldUnrenderedText = unrenderedText$.getValue();
+        if (oldUnrenderedText == null) {
+            throw new IllegalStateException("Checkbox #" + toggledCheckboxPosition + ", but unrenderedText$ value is null.");
+        }
+        final CharSequence newUnrenderedText = MarkdownUtil.setCheckboxStatus(oldUnrenderedText.toString(), toggledCheckboxPosition, newCheckedState);
+        this.setMarkdownString(newUnrenderedText);
     }
 
     @Override
@@ -128,11 +98,21 @@ public class MarkwonMarkdownViewer extends AppCompatTextView implements Markdown
         }
     }
 
+    @Override
+    public void setRenderCacheId(@Nullable Long id) {
+        this.renderCacheId = id;
+    }
+
     @Override
     public void setMarkdownString(CharSequence text) {
         setMarkdownString(text, null);
     }
 
+    /**
+     * Parses and renders the <code>text</code> on the {@link #renderService}, only setting the resulting {@link Spanned} happens on the UI thread.
+     * A render which has not finished yet gets cancelled when another <code>text</code> is set.
+     */
+    @UiThread
     @Override
     public void setMarkdownString(CharSequence text, Runnable afterRender) {
         final CharSequence previousText = this.unrenderedText$.getValue();
@@ -141,19 +121,51 @@ public class MarkwonMarkdownViewer extends AppCompatTextView implements Markdown
             listener.accept(text);
         }
         if (TextUtils.isEmpty(text)) {
+            cancelRender();
             setText(text);
         } else {
             if (!text.equals(previousText)) {
-                this.renderService.execute(() -> post(() -> {
-                    this.markwon.setMarkdown(this, text.toString());
+                final int generation = cancelRender();
+                final Long cacheId = this.renderCacheId;
+                final Spanned cachedMarkdown = cacheId == null ? null : renderCache.get(cacheId, text.toString(), darkTheme);
+                if (cachedMarkdown != null) {
+                    this.markwon.setParsedMarkdown(this, cachedMarkdown);
                     if (afterRender != null) {
                         afterRender.run();
                     }
-                }));
+                    return;
+                }
+                this.renderTask = this.renderService.submit(() -> {
+                    final Spanned markdown = markwon.toMarkdown(text.toString());
+                    if (cacheId != null) {
+                        renderCache.put(cacheId, text.toString(), darkTheme, markdown);
+                    }
+                    post(() -> {
+                        if (generation == renderGeneration) {
+                            markwon.setParsedMarkdown(this, markdown);
+                            if (afterRender != null) {
+                                afterRender.run();
+                            }
+                        }
+                    });
+                });
             }
         }
     }
 
+    /**
+     * @return the generation of the next render
+     */
+    @UiThread
+    private int cancelRender() {
+        if (renderTask != null) {
+            // Renders which already started can not be interrupted, their result will be discarded
+            renderTask.cancel(false);
+            renderTask = null;
+        }
+        return ++renderGeneration;
+    }
+
     @Override
     public void setSearchColor(@ColorInt int color) {
         final SearchHighlightPlugin searchHighlightPlugin = this.markwon.getPlugin(SearchHighlightPlugin.class);
@@ -176,7 +188,12 @@ public class MarkwonMarkdownViewer extends AppCompatTextView implements Markdown
 
     @Override
     public void setMarkdownStringAndHighlightMentions(CharSequence text, @NonNull Map<String, String> mentions) {
-        this.markwon = createMarkwonBuilder(getContext(), mentions).build();
+        final NextcloudMentionsPlugin plugin = this.markwon.getPlugin(NextcloudMentionsPlugin.class);
+        if (plugin == null) {
+            Log.w(TAG, NextcloudMentionsPlugin.class.getSimpleName() + " is not a registered " + MarkwonPlugin.class.getSimpleName());
+        } else {
+            plugin.setMentions(mentions);
+        }
         setMarkdownString(text);
     }
 
@@ -0,0 +1,98 @@
+package it.niedermann.android.markdown.markwon;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.text.Spanned;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Holds the most recently rendered {@link Spanned} markdown per ID, so showing the same markdown again does not need to parse and render it again.
+ * Each ID has at most one entry, which gets replaced as soon as another markdown of this ID is rendered.
+ * <p>
+ * The size is bounded by an estimation of the consumed memory and the cache gets trimmed when the system runs low on memory.
+ */
+final class MarkwonRenderCache implements ComponentCallbacks2 {
+
+    private static final String TAG = MarkwonRenderCache.class.getSimpleName();
+
+    // Estimated bytes per rendered char, including the spans
+    private static final int BYTES_PER_CHAR = 8;
+
+    private static MarkwonRenderCache instance;
+
+    private final LruCache<Long, Entry> cache;
+
+    static synchronized MarkwonRenderCache getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new MarkwonRenderCache((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16));
+            context.getApplicationContext().registerComponentCallbacks(instance);
+        }
+        return instance;
+    }
+
+    private MarkwonRenderCache(int maxBytes) {
+        this.cache = new LruCache<Long, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(Long key, Entry value) {
+                return (value.markdown.length() + value.rendered.length()) * BYTES_PER_CHAR;
+            }
+        };
+    }
+
+    /**
+     * @return the cached render of the given {@param markdown} or <code>null</code> if {@param id} has not been rendered with this {@param markdown} and theme
+     */
+    @Nullable
+    Spanned get(long id, @NonNull String markdown, boolean darkTheme) {
+        final Entry entry = cache.get(id);
+        if (entry == null || entry.darkTheme != darkTheme || entry.markdownHash != markdown.hashCode() || !entry.markdown.equals(markdown)) {
+            return null;
+        }
+        return entry.rendered;
+    }
+
+    void put(long id, @NonNull String markdown, boolean darkTheme, @NonNull Spanned rendered) {
+        cache.put(id, new Entry(markdown, darkTheme, rendered));
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            Log.v(TAG, "Evicting all renders, trim memory level: " + level);
+            cache.evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            cache.trimToSize(cache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // Renders of another theme are distinguished by their entry
+    }
+
+    private static class Entry {
+        @NonNull
+        private final String markdown;
+        private final int markdownHash;
+        private final boolean darkTheme;
+        @NonNull
+        private final Spanned rendered;
+
+        private Entry(@NonNull String markdown, boolean darkTheme, @NonNull Spanned rendered) {
+            this.markdown = markdown;
+            this.markdownHash = markdown.hashCode();
+            this.darkTheme = darkTheme;
+            this.rendered = rendered;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package it.niedermann.android.markdown.markwon;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Set;
+
+import io.noties.prism4j.GrammarLocator;
+import io.noties.prism4j.Prism4j;
+
+/**
+ * The generated {@link GrammarLocator} creates the grammar of a language when a code block of it gets highlighted the first time and caches it in a plain map.
+ * Since the code blocks of multiple views are highlighted on different threads, the access to it gets synchronized.
+ */
+final class SynchronizedGrammarLocator implements GrammarLocator {
+
+    @NonNull
+    private final GrammarLocator locator;
+
+    SynchronizedGrammarLocator(@NonNull GrammarLocator locator) {
+        this.locator = locator;
+    }
+
+    @Nullable
+    @Override
+    public synchronized Prism4j.Grammar grammar(@NonNull Prism4j prism4j, @NonNull String language) {
+        return locator.grammar(prism4j, language);
+    }
+
+    @NonNull
+    @Override
+    public Set<String> languages() {
+        return locator.languages();
+    }
+}
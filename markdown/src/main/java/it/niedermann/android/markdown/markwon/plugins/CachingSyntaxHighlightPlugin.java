@@ -0,0 +1,127 @@
+package it.niedermann.android.markdown.markwon.plugins;
+
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import io.noties.markwon.AbstractMarkwonPlugin;
+import io.noties.markwon.MarkwonConfiguration;
+import io.noties.markwon.MarkwonPlugin;
+import io.noties.markwon.core.MarkwonTheme;
+import io.noties.markwon.syntax.Prism4jSyntaxHighlight;
+import io.noties.markwon.syntax.Prism4jTheme;
+import io.noties.markwon.syntax.SyntaxHighlight;
+import io.noties.markwon.syntax.SyntaxHighlightPlugin;
+import io.noties.prism4j.Prism4j;
+
+/**
+ * Highlights code blocks like the {@link SyntaxHighlightPlugin}, but keeps the highlighted code blocks by their language and code,
+ * so rendering a note again does not tokenize its unchanged code blocks again.
+ * <p>
+ * The cache is shared by all instances using the same kind of {@link Prism4jTheme} and is bounded by the number of cached chars.
+ */
+public class CachingSyntaxHighlightPlugin extends AbstractMarkwonPlugin {
+
+    private static final int MAX_CACHED_CHARS = 256 * 1024;
+
+    private static final Map<Class<?>, SyntaxHighlight> highlights = new HashMap<>();
+
+    @NonNull
+    private final Prism4jTheme theme;
+    @NonNull
+    private final SyntaxHighlight highlight;
+
+    private CachingSyntaxHighlightPlugin(@NonNull Prism4j prism4j, @NonNull Prism4jTheme theme) {
+        this.theme = theme;
+        synchronized (highlights) {
+            SyntaxHighlight highlight = highlights.get(theme.getClass());
+            if (highlight == null) {
+                highlight = new CachingSyntaxHighlight(Prism4jSyntaxHighlight.create(prism4j, theme));
+                highlights.put(theme.getClass(), highlight);
+            }
+            this.highlight = highlight;
+        }
+    }
+
+    public static MarkwonPlugin create(@NonNull Prism4j prism4j, @NonNull Prism4jTheme theme) {
+        return new CachingSyntaxHighlightPlugin(prism4j, theme);
+    }
+
+    @Override
+    public void configureTheme(@NonNull MarkwonTheme.Builder builder) {
+        builder
+                .codeTextColor(theme.textColor())
+                .codeBackgroundColor(theme.background());
+    }
+
+    @Override
+    public void configureConfiguration(@NonNull MarkwonConfiguration.Builder builder) {
+        builder.syntaxHighlight(highlight);
+    }
+
+    private static class CachingSyntaxHighlight implements SyntaxHighlight {
+
+        @NonNull
+        private final SyntaxHighlight highlight;
+        private final LruCache<CodeBlock, CharSequence> cache = new LruCache<CodeBlock, CharSequence>(MAX_CACHED_CHARS) {
+            @Override
+            protected int sizeOf(CodeBlock key, CharSequence value) {
+                return key.code.length() + value.length();
+            }
+        };
+
+        private CachingSyntaxHighlight(@NonNull SyntaxHighlight highlight) {
+            this.highlight = highlight;
+        }
+
+        /**
+         * The spans of the highlighted code are shared by all renders of it, which is fine as long as they are not mutated.
+         */
+        @NonNull
+        @Override
+        public CharSequence highlight(@Nullable String info, @NonNull String code) {
+            final CodeBlock codeBlock = new CodeBlock(info, code);
+            CharSequence highlighted = cache.get(codeBlock);
+            if (highlighted == null) {
+                highlighted = highlight.highlight(info, code);
+                cache.put(codeBlock, highlighted);
+            }
+            return highlighted;
+        }
+    }
+
+    private static class CodeBlock {
+
+        @Nullable
+        private final String info;
+        @NonNull
+        private final String code;
+        private final int hash;
+
+        private CodeBlock(@Nullable String info, @NonNull String code) {
+            this.info = info;
+            this.code = code;
+            this.hash = Objects.hash(info, code);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CodeBlock codeBlock = (CodeBlock) o;
+            return hash == codeBlock.hash &&
+                    Objects.equals(info, codeBlock.info) &&
+                    code.equals(codeBlock.code);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
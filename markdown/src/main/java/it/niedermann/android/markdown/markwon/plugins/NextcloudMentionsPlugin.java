@@ -9,6 +9,7 @@ import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundExce
 import com.nextcloud.android.sso.exceptions.NoCurrentAccountSelectedException;
 import com.nextcloud.android.sso.helper.SingleAccountHelper;
 
+import java.util.Collections;
 import java.util.Map;
 
 import io.noties.markwon.AbstractMarkwonPlugin;
@@ -21,20 +22,29 @@ public class NextcloudMentionsPlugin extends AbstractMarkwonPlugin {
     @NonNull
     private final Context context;
     @NonNull
-    private final Map<String, String> mentions;
+    private Map<String, String> mentions = Collections.emptyMap();
 
-    private NextcloudMentionsPlugin(@NonNull Context context, @NonNull Map<String, String> mentions) {
+    private NextcloudMentionsPlugin(@NonNull Context context) {
         this.context = context.getApplicationContext();
-        this.mentions = mentions;
     }
 
-    public static MarkwonPlugin create(@NonNull Context context, @NonNull Map<String, String> mentions) {
-        return new NextcloudMentionsPlugin(context, mentions);
+    public static MarkwonPlugin create(@NonNull Context context) {
+        return new NextcloudMentionsPlugin(context);
+    }
+
+    /**
+     * @param mentions will be highlighted in views whose text gets set afterwards
+     */
+    public void setMentions(@NonNull Map<String, String> mentions) {
+        this.mentions = mentions;
     }
 
     @Override
     public void afterSetText(@NonNull TextView textView) {
         super.afterSetText(textView);
+        if (mentions.isEmpty()) {
+            return;
+        }
         try {
             setupMentions(SingleAccountHelper.getCurrentSingleSignOnAccount(context), mentions, textView);
         } catch (NextcloudFilesAppAccountNotFoundException | NoCurrentAccountSelectedException e) {
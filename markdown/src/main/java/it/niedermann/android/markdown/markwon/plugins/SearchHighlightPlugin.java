@@ -41,27 +41,40 @@ public class SearchHighlightPlugin extends AbstractMarkwonPlugin {
     }
 
     public void setSearchText(@Nullable CharSequence searchText, @Nullable Integer current, @NonNull TextView textView) {
-        this.current = current;
+        setSearchText(searchText, current);
         MarkdownUtil.removeSpans(getContentAsSpannable(textView), SearchSpan.class);
-        if (TextUtils.isEmpty(searchText)) {
-            this.searchText = null;
-        } else {
-            this.searchText = searchText;
-            afterSetText(textView);
-        }
+        afterSetText(textView);
+    }
+
+    /**
+     * Like {@link #setSearchText(CharSequence, Integer, TextView)}, but only applied to views whose text gets set afterwards
+     */
+    public void setSearchText(@Nullable CharSequence searchText, @Nullable Integer current) {
+        this.current = current;
+        this.searchText = TextUtils.isEmpty(searchText) ? null : searchText;
     }
 
     public void setSearchColor(@ColorInt int color, @NonNull TextView textView) {
-        this.color = color;
+        setSearchColor(color);
         afterSetText(textView);
     }
 
+    /**
+     * Like {@link #setSearchColor(int, TextView)}, but only applied to views whose text gets set afterwards
+     */
+    public void setSearchColor(@ColorInt int color) {
+        this.color = color;
+    }
+
     @Override
     public void afterSetText(@NonNull TextView textView) {
         super.afterSetText(textView);
         if (this.searchText != null) {
             final Spannable spannable = getContentAsSpannable(textView);
-            MarkdownUtil.searchAndColor(spannable, searchText, current, color, highlightColor, darkTheme);
+            // The view might display only a part of the markdown, which starts with the given occurrence
+            final Object offset = textView.getTag(R.id.search_occurrence_offset);
+            final Integer currentInView = current != null && offset instanceof Integer ? current - (Integer) offset : current;
+            MarkdownUtil.searchAndColor(spannable, searchText, currentInView, color, highlightColor, darkTheme);
         }
     }
 }
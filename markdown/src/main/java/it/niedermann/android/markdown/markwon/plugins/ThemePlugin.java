@@ -2,6 +2,7 @@ package it.niedermann.android.markdown.markwon.plugins;
 
 import android.content.Context;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 
@@ -12,11 +13,14 @@ import it.niedermann.android.markdown.R;
 
 public class ThemePlugin extends AbstractMarkwonPlugin {
 
-    @NonNull
-    Context context;
+    @ColorInt
+    private final int codeBlockBackgroundColor;
+    private final int bulletWidth;
 
     private ThemePlugin(@NonNull Context context) {
-        this.context = context;
+        // Resolved right away, so built instances do not keep a reference to the context
+        this.codeBlockBackgroundColor = ContextCompat.getColor(context, R.color.bg_code);
+        this.bulletWidth = context.getResources().getDimensionPixelSize(R.dimen.bullet_point_width);
     }
 
     public static MarkwonPlugin create(@NonNull Context context) {
@@ -28,8 +32,8 @@ public class ThemePlugin extends AbstractMarkwonPlugin {
         super.configureTheme(builder);
         builder
                 .headingBreakHeight(0)
-                .codeBlockBackgroundColor(ContextCompat.getColor(context, R.color.bg_code))
+                .codeBlockBackgroundColor(codeBlockBackgroundColor)
                 .headingTextSizeMultipliers(new float[]{1.45f, 1.35f, 1.25f, 1.15f, 1.1f, 1.05f})
-                .bulletWidth(context.getResources().getDimensionPixelSize(R.dimen.bullet_point_width));
+                .bulletWidth(bulletWidth);
     }
 }
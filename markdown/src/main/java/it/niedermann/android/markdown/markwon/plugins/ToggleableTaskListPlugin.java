@@ -1,11 +1,14 @@
 package it.niedermann.android.markdown.markwon.plugins;
 
 import android.util.Log;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import org.commonmark.node.AbstractVisitor;
 import org.commonmark.node.Block;
+import org.commonmark.node.CustomBlock;
 import org.commonmark.node.HardLineBreak;
 import org.commonmark.node.Node;
 import org.commonmark.node.Paragraph;
@@ -22,9 +25,12 @@ import io.noties.markwon.SpannableBuilder;
 import io.noties.markwon.ext.tasklist.TaskListItem;
 import io.noties.markwon.ext.tasklist.TaskListProps;
 import io.noties.markwon.ext.tasklist.TaskListSpan;
+import it.niedermann.android.markdown.R;
 import it.niedermann.android.markdown.markwon.span.ToggleTaskListSpan;
 
 /**
+ * The created {@link ToggleTaskListSpan}s look up this plugin from the {@link TextView} they are clicked in, so a rendered markdown can be shared by multiple views.
+ *
  * @see <a href="https://github.com/noties/Markwon/issues/196#issuecomment-751680138">Support from upstream</a>
  * @see <a href="https://github.com/noties/Markwon/blob/910bf311dac1bade400616a00ab0c9b7b7ade8cb/app-sample/src/main/java/io/noties/markwon/app/samples/tasklist/TaskListMutateNestedSample.kt">Original kotlin implementation</a>
  */
@@ -34,10 +40,13 @@ public class ToggleableTaskListPlugin extends AbstractMarkwonPlugin {
 
     @NonNull
     private final AtomicBoolean enabled = new AtomicBoolean(true);
-    @NonNull
-    private final BiConsumer<Integer, Boolean> toggleListener;
+    @Nullable
+    private BiConsumer<Integer, Boolean> toggleListener;
 
-    public ToggleableTaskListPlugin(@NonNull BiConsumer<Integer, Boolean> toggleListener) {
+    /**
+     * @param toggleListener gets the position of the toggled checkbox and its new state
+     */
+    public void setToggleListener(@Nullable BiConsumer<Integer, Boolean> toggleListener) {
         this.toggleListener = toggleListener;
     }
 
@@ -45,6 +54,41 @@ public class ToggleableTaskListPlugin extends AbstractMarkwonPlugin {
         this.enabled.set(enabled);
     }
 
+    public boolean isEnabled() {
+        return enabled.get();
+    }
+
+    public void onToggle(int toggledCheckboxPosition, boolean newCheckedState) {
+        if (toggleListener == null) {
+            Log.w(TAG, "Checkbox #" + toggledCheckboxPosition + " has been toggled, but no toggle listener is set.");
+        } else {
+            toggleListener.accept(toggledCheckboxPosition, newCheckedState);
+        }
+    }
+
+    /**
+     * @return the number of {@link ToggleTaskListSpan}s which will be created when rendering the given {@param node}
+     */
+    public static int countToggleableTaskListItems(@NonNull Node node) {
+        final int[] count = {0};
+        node.accept(new AbstractVisitor() {
+            @Override
+            public void visit(CustomBlock customBlock) {
+                if (customBlock instanceof TaskListItem && TaskListContextVisitor.contentLength(customBlock) > 0) {
+                    count[0]++;
+                }
+                super.visit(customBlock);
+            }
+        });
+        return count[0];
+    }
+
+    @Override
+    public void afterSetText(@NonNull TextView textView) {
+        super.afterSetText(textView);
+        textView.setTag(R.id.toggleable_task_list_plugin, this);
+    }
+
     @Override
     public void configureVisitor(@NonNull MarkwonVisitor.Builder builder) {
         builder.on(TaskListItem.class, (visitor, node) -> {
@@ -78,7 +122,7 @@ public class ToggleableTaskListPlugin extends AbstractMarkwonPlugin {
                 if (content > 0 && taskListSpan != null) {
                     // maybe additionally identify this task list (for persistence)
                     visitor.builder().setSpan(
-                            new ToggleTaskListSpan(enabled, toggleListener, taskListSpan, visitor.builder().subSequence(length, length + content).toString()),
+                            new ToggleTaskListSpan(taskListSpan, visitor.builder().subSequence(length, length + content).toString()),
                             length,
                             length + content
                     );
@@ -10,30 +10,33 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.BiConsumer;
 
 import io.noties.markwon.ext.tasklist.TaskListSpan;
+import it.niedermann.android.markdown.R;
+import it.niedermann.android.markdown.markwon.plugins.ToggleableTaskListPlugin;
 
 public class ToggleTaskListSpan extends ClickableSpan {
 
     private static final String TAG = ToggleTaskListSpan.class.getSimpleName();
 
-    final AtomicBoolean enabled;
-    final BiConsumer<Integer, Boolean> toggleListener;
     final TaskListSpan span;
     final String content;
 
-    public ToggleTaskListSpan(@NonNull AtomicBoolean enabled, @NonNull BiConsumer<Integer, Boolean> toggleListener, @NonNull TaskListSpan span, String content) {
-        this.enabled = enabled;
-        this.toggleListener = toggleListener;
+    public ToggleTaskListSpan(@NonNull TaskListSpan span, String content) {
         this.span = span;
         this.content = content;
     }
 
     @Override
     public void onClick(@NonNull View widget) {
-        if(enabled.get()) {
+        // The plugin of the clicked view, which is not necessarily the one which created this span
+        final Object plugin = widget.getTag(R.id.toggleable_task_list_plugin);
+        if (!(plugin instanceof ToggleableTaskListPlugin)) {
+            Log.w(TAG, "Prevented toggling checkbox because the view has no " + ToggleableTaskListPlugin.class.getSimpleName());
+            return;
+        }
+        final ToggleableTaskListPlugin toggleableTaskListPlugin = (ToggleableTaskListPlugin) plugin;
+        if (toggleableTaskListPlugin.isEnabled()) {
             span.setDone(!span.isDone());
             widget.invalidate();
             Log.v(TAG, "task-list click, isDone: " + span.isDone() + ", content: '" + content + "'");
@@ -55,7 +58,13 @@ public class ToggleTaskListSpan extends ClickableSpan {
                 }
             }
 
-            toggleListener.accept(currentTogglePosition, span.isDone());
+            // The view might display only a part of the markdown, which starts with the given checkbox
+            final Object offset = widget.getTag(R.id.toggleable_task_list_offset);
+            if (offset instanceof Integer) {
+                currentTogglePosition += (Integer) offset;
+            }
+
+            toggleableTaskListPlugin.onToggle(currentTogglePosition, span.isDone());
         } else {
             Log.w(TAG, "Prevented toggling checkbox because the view is disabled");
         }
@@ -0,0 +1,251 @@
+package it.niedermann.android.markdown.markwon.textwatcher;
+
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextWatcher;
+import android.widget.EditText;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import io.noties.markwon.editor.EditHandler;
+import io.noties.markwon.editor.MarkwonEditor;
+
+/**
+ * Highlights the markdown syntax with the {@link EditHandler}s of a {@link MarkwonEditor}.
+ * <p>
+ * Instead of processing the whole text after each change, only the blocks (separated by blank lines) around the changed region get processed.
+ * The region is extended until it covers each fenced code block and each previously applied span it intersects, so the spans outside of it stay untouched.
+ * Processing happens on the given {@link ExecutorService}, the result is discarded if the text has been changed meanwhile.
+ */
+public class BlockHighlightTextWatcher implements TextWatcher {
+
+    @NonNull
+    private final MarkwonEditor editor;
+    @NonNull
+    private final ExecutorService executor;
+    @NonNull
+    private final EditText editText;
+
+    /**
+     * Types of all spans which have been applied by the {@link #editor}, only accessed on the UI thread.
+     */
+    private final Set<Class<?>> spanTypes = new HashSet<>();
+    @Nullable
+    private Future<?> highlightTask;
+    private int generation = 0;
+    /**
+     * Region which has been changed since the last applied highlighting, <code>-1</code> if nothing changed.
+     */
+    private int dirtyStart = -1;
+    private int dirtyEnd = -1;
+
+    public BlockHighlightTextWatcher(@NonNull MarkwonEditor editor, @NonNull ExecutorService executor, @NonNull EditText editText) {
+        this.editor = editor;
+        this.executor = executor;
+        this.editText = editText;
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+        // Nothing to do
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+        if (dirtyStart < 0) {
+            dirtyStart = start;
+            dirtyEnd = start + count;
+        } else {
+            // Map the previously changed region to the new positions and merge both regions
+            final int delta = count - before;
+            dirtyStart = Math.min(start, dirtyStart <= start ? dirtyStart : (dirtyStart >= start + before ? dirtyStart + delta : start));
+            dirtyEnd = Math.max(start + count, dirtyEnd <= start ? dirtyEnd : (dirtyEnd >= start + before ? dirtyEnd + delta : start + count));
+        }
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+        if (dirtyStart < 0) {
+            return;
+        }
+        final String text = s.toString();
+        final int[] region = getAffectedRegion(s, text, Math.min(dirtyStart, text.length()), Math.min(dirtyEnd, text.length()));
+        final int from = region[0];
+        final int to = region[1];
+        final String input = text.substring(from, to);
+        final int generation = ++this.generation;
+        if (highlightTask != null) {
+            highlightTask.cancel(false);
+        }
+        highlightTask = executor.submit(() -> {
+            final Editable highlighted = new SpannableStringBuilder(input);
+            editor.process(highlighted);
+            editText.post(() -> {
+                // The dirty region is kept until a result gets applied, so a discarded result is covered by the next one
+                if (generation == this.generation && editText.getText() == s) {
+                    applySpans(s, highlighted, from, to);
+                    dirtyStart = -1;
+                    dirtyEnd = -1;
+                }
+            });
+        });
+    }
+
+    /**
+     * Replaces the previously applied spans between {@param from} and {@param to} with the spans of {@param highlighted}.
+     */
+    @UiThread
+    @VisibleForTesting
+    void applySpans(@NonNull Editable s, @NonNull Spanned highlighted, int from, int to) {
+        for (Object span : s.getSpans(from, to, Object.class)) {
+            if (spanTypes.contains(span.getClass()) && s.getSpanStart(span) >= from && s.getSpanEnd(span) <= to) {
+                s.removeSpan(span);
+            }
+        }
+        for (Object span : highlighted.getSpans(0, highlighted.length(), Object.class)) {
+            spanTypes.add(span.getClass());
+            s.setSpan(span, from + highlighted.getSpanStart(span), from + highlighted.getSpanEnd(span), highlighted.getSpanFlags(span));
+        }
+    }
+
+    /**
+     * @return start and end of the blocks which need to be processed again after the region from {@param start} to {@param end} has been changed
+     */
+    @UiThread
+    @NonNull
+    @VisibleForTesting
+    int[] getAffectedRegion(@NonNull Spanned s, @NonNull String text, int start, int end) {
+        final List<int[]> codeFences = findFencedCodeBlocks(text);
+        int from = start;
+        int to = end;
+        while (true) {
+            int newFrom = getStartOfBlock(text, from);
+            int newTo = getEndOfBlock(text, to);
+            for (int[] codeFence : codeFences) {
+                if (codeFence[0] <= newTo && codeFence[1] >= newFrom) {
+                    newFrom = Math.min(newFrom, codeFence[0]);
+                    newTo = Math.max(newTo, codeFence[1]);
+                }
+            }
+            // Spans might have been applied to a structure which does not exist anymore, e.g. when a code fence got removed
+            for (Object span : s.getSpans(newFrom, newTo, Object.class)) {
+                final int spanStart = s.getSpanStart(span);
+                final int spanEnd = s.getSpanEnd(span);
+                if (spanTypes.contains(span.getClass()) && spanStart < newTo && spanEnd > newFrom) {
+                    newFrom = Math.min(newFrom, spanStart);
+                    newTo = Math.max(newTo, spanEnd);
+                }
+            }
+            if (newFrom == from && newTo == to) {
+                return new int[]{from, to};
+            }
+            from = newFrom;
+            to = newTo;
+        }
+    }
+
+    /**
+     * @return start of the first line of the block which contains {@param position}
+     */
+    @VisibleForTesting
+    static int getStartOfBlock(@NonNull String text, int position) {
+        int start = text.lastIndexOf('\n', position - 1) + 1;
+        if (isBlank(text, start, getEndOfLine(text, start))) {
+            return start;
+        }
+        while (start > 0) {
+            final int startOfPreviousLine = text.lastIndexOf('\n', start - 2) + 1;
+            if (isBlank(text, startOfPreviousLine, start - 1)) {
+                break;
+            }
+            start = startOfPreviousLine;
+        }
+        return start;
+    }
+
+    /**
+     * @return end of the last line of the block which contains {@param position}, excluding the line break
+     */
+    @VisibleForTesting
+    static int getEndOfBlock(@NonNull String text, int position) {
+        int end = getEndOfLine(text, position);
+        if (isBlank(text, text.lastIndexOf('\n', end - 1) + 1, end)) {
+            return end;
+        }
+        while (end < text.length()) {
+            final int endOfNextLine = getEndOfLine(text, end + 1);
+            if (isBlank(text, end + 1, endOfNextLine)) {
+                break;
+            }
+            end = endOfNextLine;
+        }
+        return end;
+    }
+
+    private static int getEndOfLine(@NonNull String text, int position) {
+        final int lineBreak = text.indexOf('\n', position);
+        return lineBreak < 0 ? text.length() : lineBreak;
+    }
+
+    private static boolean isBlank(@NonNull String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return start and end of each fenced code block including its fences, an unclosed one reaches until the end of the text
+     */
+    @NonNull
+    @VisibleForTesting
+    static List<int[]> findFencedCodeBlocks(@NonNull String text) {
+        final List<int[]> codeFences = new ArrayList<>();
+        int openingStart = -1;
+        char fenceChar = 0;
+        int fenceLength = 0;
+        for (int lineStart = 0; lineStart <= text.length(); ) {
+            final int lineEnd = getEndOfLine(text, lineStart);
+            int i = lineStart;
+            while (i < lineEnd && i - lineStart < 3 && text.charAt(i) == ' ') {
+                i++;
+            }
+            final char c = i < lineEnd ? text.charAt(i) : 0;
+            int length = 0;
+            if (c == '`' || c == '~') {
+                while (i + length < lineEnd && text.charAt(i + length) == c) {
+                    length++;
+                }
+            }
+            if (length >= 3) {
+                if (openingStart < 0) {
+                    openingStart = lineStart;
+                    fenceChar = c;
+                    fenceLength = length;
+                } else if (c == fenceChar && length >= fenceLength && isBlank(text, i + length, lineEnd)) {
+                    // A closing fence must not have an info string
+                    codeFences.add(new int[]{openingStart, lineEnd});
+                    openingStart = -1;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (openingStart >= 0) {
+            codeFences.add(new int[]{openingStart, text.length()});
+        }
+        return codeFences;
+    }
+}
@@ -10,7 +10,6 @@ import java.util.HashMap;
 import java.util.concurrent.Executors;
 
 import io.noties.markwon.editor.MarkwonEditor;
-import io.noties.markwon.editor.MarkwonEditorTextWatcher;
 import it.niedermann.android.markdown.markwon.MarkwonMarkdownEditor;
 
 public class CombinedTextWatcher extends HashMap<Class<?>, TextWatcher> implements TextWatcher {
@@ -19,8 +18,8 @@ public class CombinedTextWatcher extends HashMap<Class<?>, TextWatcher> implemen
 
     @SuppressWarnings("ConstantConditions")
     public CombinedTextWatcher(@NonNull MarkwonEditor editor, @NonNull MarkwonMarkdownEditor editText) {
-        put(MarkwonEditorTextWatcher.class, MarkwonEditorTextWatcher.withPreRender(editor, Executors.newSingleThreadExecutor(), editText));
-        put(AutoContinuationTextWatcher.class, new AutoContinuationTextWatcher(get(MarkwonEditorTextWatcher.class), editText));
+        put(BlockHighlightTextWatcher.class, new BlockHighlightTextWatcher(editor, Executors.newSingleThreadExecutor(), editText));
+        put(AutoContinuationTextWatcher.class, new AutoContinuationTextWatcher(get(BlockHighlightTextWatcher.class), editText));
         put(SearchHighlightTextWatcher.class, new SearchHighlightTextWatcher(get(AutoContinuationTextWatcher.class), editText));
         watcher = get(SearchHighlightTextWatcher.class);
     }
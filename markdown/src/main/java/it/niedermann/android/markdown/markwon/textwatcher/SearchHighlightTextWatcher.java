@@ -2,6 +2,7 @@ package it.niedermann.android.markdown.markwon.textwatcher;
 
 import android.content.Context;
 import android.text.Editable;
+import android.text.Spannable;
 import android.text.TextUtils;
 import android.text.TextWatcher;
 
@@ -10,17 +11,31 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import it.niedermann.android.markdown.MarkdownUtil;
 import it.niedermann.android.markdown.R;
 import it.niedermann.android.markdown.markwon.MarkwonMarkdownEditor;
 import it.niedermann.android.markdown.markwon.MarkwonMarkdownUtil;
 import it.niedermann.android.markdown.model.SearchSpan;
 
+/**
+ * Highlights all occurrences of the search text.
+ * <p>
+ * After the initial scan only the edited region (extended by the length of the search text) gets rescanned.
+ * The {@link SearchSpan}s are kept in order of their occurrence, their positions are updated by the {@link Editable} itself.
+ */
 public class SearchHighlightTextWatcher extends InterceptorTextWatcher {
 
     private final MarkwonMarkdownEditor editText;
     @Nullable
     private CharSequence searchText;
+    @Nullable
+    private Pattern searchPattern;
     private Integer current;
     @ColorInt
     private int color;
@@ -28,6 +43,24 @@ public class SearchHighlightTextWatcher extends InterceptorTextWatcher {
     private final int highlightColor;
     private final boolean darkTheme;
 
+    /**
+     * All {@link SearchSpan}s of {@link #indexedText} in order of their occurrence.
+     */
+    private final List<SearchSpan> occurrences = new ArrayList<>();
+    @Nullable
+    private SearchSpan currentSpan;
+    @Nullable
+    private Spannable indexedText;
+    /**
+     * Region which has been changed since the last {@link #afterTextChanged(Editable)}, <code>-1</code> if nothing changed.
+     */
+    private int dirtyStart = -1;
+    private int dirtyEnd = -1;
+    /**
+     * Whether text has been removed since the last {@link #afterTextChanged(Editable)}, which might have dropped whole {@link SearchSpan}s.
+     */
+    private boolean textRemoved = false;
+
     public SearchHighlightTextWatcher(@NonNull TextWatcher originalWatcher, @NonNull MarkwonMarkdownEditor editText) {
         super(originalWatcher);
         this.editText = editText;
@@ -41,27 +74,206 @@ public class SearchHighlightTextWatcher extends InterceptorTextWatcher {
         this.current = current;
         if (TextUtils.isEmpty(searchText)) {
             this.searchText = null;
+            this.searchPattern = null;
             final Editable text = editText.getText();
             if (text != null) {
                 MarkdownUtil.removeSpans(text, SearchSpan.class);
             }
+            resetIndex();
+        } else if (searchPattern != null && TextUtils.equals(this.searchText, searchText) && indexedText == editText.getText()) {
+            updateCurrent(indexedText);
         } else {
             this.searchText = searchText;
-            afterTextChanged(editText.getText());
+            this.searchPattern = Pattern.compile(searchText.toString(), Pattern.CASE_INSENSITIVE | Pattern.LITERAL);
+            highlightAll(editText.getText());
         }
     }
 
     public void setSearchColor(@ColorInt int color) {
         this.color = color;
-        afterTextChanged(editText.getText());
+        highlightAll(editText.getText());
+    }
+
+    /**
+     * @return the number of occurrences of {@param searchText} if it is the currently highlighted search text, <code>null</code> otherwise.
+     */
+    @Nullable
+    public Integer getOccurrenceCount(@Nullable CharSequence searchText) {
+        if (this.searchText == null || indexedText == null || !TextUtils.equals(this.searchText, searchText)) {
+            return null;
+        }
+        return occurrences.size();
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+        super.onTextChanged(s, start, before, count);
+        if (before > 0) {
+            textRemoved = true;
+        }
+        if (dirtyStart < 0) {
+            dirtyStart = start;
+            dirtyEnd = start + count;
+        } else {
+            // Map the previously changed region to the new positions and merge both regions
+            final int delta = count - before;
+            dirtyStart = Math.min(start, dirtyStart <= start ? dirtyStart : (dirtyStart >= start + before ? dirtyStart + delta : start));
+            dirtyEnd = Math.max(start + count, dirtyEnd <= start ? dirtyEnd : (dirtyEnd >= start + before ? dirtyEnd + delta : start + count));
+        }
     }
 
     @Override
     public void afterTextChanged(Editable s) {
         originalWatcher.afterTextChanged(s);
-        if (searchText != null) {
-            MarkdownUtil.removeSpans(s, SearchSpan.class);
-            MarkdownUtil.searchAndColor(s, searchText, current, color, highlightColor, darkTheme);
+        // The original watcher might have changed the text again, in this case the dirty region has already been handled
+        if (dirtyStart < 0) {
+            return;
+        }
+        final int start = dirtyStart;
+        final int end = dirtyEnd;
+        final boolean removed = textRemoved;
+        dirtyStart = -1;
+        dirtyEnd = -1;
+        textRemoved = false;
+        if (searchPattern == null) {
+            return;
+        }
+        if (s != indexedText) {
+            highlightAll(s);
+        } else {
+            if (removed) {
+                removeDetachedOccurrences(s);
+            }
+            highlightRegion(s, start, end);
+        }
+    }
+
+    /**
+     * The {@link Editable} drops a {@link SearchSpan} when its whole occurrence gets deleted, those must not be part of the index anymore.
+     */
+    private void removeDetachedOccurrences(@NonNull Spannable s) {
+        final Iterator<SearchSpan> iterator = occurrences.iterator();
+        while (iterator.hasNext()) {
+            final SearchSpan span = iterator.next();
+            if (s.getSpanStart(span) < 0) {
+                iterator.remove();
+                if (span == currentSpan) {
+                    currentSpan = null;
+                }
+            }
+        }
+    }
+
+    private void highlightAll(@Nullable Editable s) {
+        dirtyStart = -1;
+        dirtyEnd = -1;
+        textRemoved = false;
+        if (s == null) {
+            resetIndex();
+            return;
+        }
+        MarkdownUtil.removeSpans(s, SearchSpan.class);
+        occurrences.clear();
+        currentSpan = null;
+        indexedText = s;
+        if (searchPattern != null) {
+            occurrences.addAll(find(s, 0, s.length()));
+            updateCurrent(s);
         }
     }
+
+    /**
+     * Replaces the {@link SearchSpan}s around the changed region from {@param changedStart} to {@param changedEnd}.
+     */
+    private void highlightRegion(@NonNull Spannable s, int changedStart, int changedEnd) {
+        assert searchText != null;
+        final int window = searchText.length() - 1;
+        int from = Math.max(0, changedStart - window);
+        int to = Math.min(s.length(), changedEnd + window);
+        from = Math.min(from, to);
+
+        // Occurrences touching the window might have been changed or invalidated, they get rescanned as a whole
+        final SearchSpan[] affectedSpans = s.getSpans(from, to, SearchSpan.class);
+        for (SearchSpan span : affectedSpans) {
+            from = Math.min(from, s.getSpanStart(span));
+            to = Math.max(to, s.getSpanEnd(span));
+        }
+        // Affected occurrences are contiguous in the index because all of them start within the window
+        final int insertAt = indexOfFirstOccurrenceFrom(s, from);
+        occurrences.subList(insertAt, Math.min(occurrences.size(), insertAt + affectedSpans.length)).clear();
+        for (SearchSpan span : affectedSpans) {
+            s.removeSpan(span);
+            if (span == currentSpan) {
+                currentSpan = null;
+            }
+        }
+        occurrences.addAll(insertAt, find(s, from, to));
+        updateCurrent(s);
+    }
+
+    /**
+     * @return the index of the first occurrence which starts at or after {@param position}
+     */
+    private int indexOfFirstOccurrenceFrom(@NonNull Spannable s, int position) {
+        int low = 0;
+        int high = occurrences.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (s.getSpanStart(occurrences.get(mid)) < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @NonNull
+    private List<SearchSpan> find(@NonNull Spannable s, int from, int to) {
+        assert searchPattern != null;
+        final List<SearchSpan> found = new ArrayList<>();
+        final Matcher m = searchPattern.matcher(s).region(from, to);
+        while (m.find()) {
+            final SearchSpan span = new SearchSpan(color, highlightColor, false, darkTheme);
+            s.setSpan(span, m.start(), m.end(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+            found.add(span);
+        }
+        return found;
+    }
+
+    /**
+     * Makes sure that only the {@link SearchSpan} of the {@link #current} occurrence is marked as current.
+     */
+    private void updateCurrent(@NonNull Spannable s) {
+        final int currentIndex = current == null ? -1 : current - 1;
+        if (currentSpan != null) {
+            final int index = occurrences.indexOf(currentSpan);
+            if (index == currentIndex) {
+                return;
+            }
+            if (index >= 0) {
+                replaceSpan(s, index, false);
+            }
+            currentSpan = null;
+        }
+        if (currentIndex >= 0 && currentIndex < occurrences.size()) {
+            currentSpan = replaceSpan(s, currentIndex, true);
+        }
+    }
+
+    @NonNull
+    private SearchSpan replaceSpan(@NonNull Spannable s, int index, boolean isCurrent) {
+        final SearchSpan oldSpan = occurrences.get(index);
+        final SearchSpan newSpan = new SearchSpan(color, highlightColor, isCurrent, darkTheme);
+        s.setSpan(newSpan, s.getSpanStart(oldSpan), s.getSpanEnd(oldSpan), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        s.removeSpan(oldSpan);
+        occurrences.set(index, newSpan);
+        return newSpan;
+    }
+
+    private void resetIndex() {
+        occurrences.clear();
+        currentSpan = null;
+        indexedText = null;
+    }
 }
@@ -25,6 +25,10 @@ public class SearchSpan extends MetricAffectingSpan {
         this.darkTheme = darkTheme;
     }
 
+    public boolean isCurrent() {
+        return current;
+    }
+
     @Override
     public void updateDrawState(TextPaint tp) {
         if (current) {